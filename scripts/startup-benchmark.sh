@@ -0,0 +1,55 @@
+#!/usr/bin/env bash
+# Time-to-first-request benchmark: plain fat jar vs. the fast-startup build (AOT + JDK AOT cache).
+#
+#   ./mvnw -Pfast-startup package
+#   scripts/startup-benchmark.sh [runs] [url]
+#
+# Each run starts the service, polls the URL until it gets any HTTP response (a 503 from a
+# health check still means the first request was served) and stops it again. Reports the
+# median and worst time from process launch, in milliseconds. Needs the usual .env.
+set -euo pipefail
+
+RUNS=${1:-5}
+URL=${2:-http://localhost:${SPRING_PORT:-8080}/actuator/health}
+TARGET=$(cd "$(dirname "$0")/../target" && pwd)
+JAR=$(ls "$TARGET"/*.jar | grep -v '\.original$' | head -n 1)
+APP_JAR="$TARGET/app/$(basename "$JAR")"
+
+now_ms() { date +%s%3N; }
+
+measure() {
+  local start pid elapsed
+  start=$(now_ms)
+  "$@" >/dev/null 2>&1 &
+  pid=$!
+  until [ "$(curl -s -o /dev/null -w '%{http_code}' "$URL")" != "000" ]; do
+    if ! kill -0 "$pid" 2>/dev/null; then
+      echo "process exited before serving a request: $*" >&2
+      return 1
+    fi
+    sleep 0.02
+  done
+  elapsed=$(( $(now_ms) - start ))
+  kill "$pid"
+  wait "$pid" 2>/dev/null || true
+  echo "$elapsed"
+}
+
+report() {
+  local name=$1; shift
+  local samples=()
+  for _ in $(seq "$RUNS"); do
+    samples+=("$(measure "$@")")
+  done
+  printf '%s\n' "${samples[@]}" | sort -n | awk -v name="$name" '
+    { v[NR] = $1 }
+    END { printf "%-12s median %6d ms   max %6d ms   (%d runs)\n", name, v[int((NR + 1) / 2)], v[NR], NR }'
+}
+
+report "baseline" java -Dspring.profiles.active=prod -jar "$JAR"
+if [ -f "$TARGET/app/app.aot" ]; then
+  report "aot+cache" java -XX:AOTCache="$TARGET/app/app.aot" -Dspring.aot.enabled=true \
+    -Dspring.profiles.active=prod -jar "$APP_JAR"
+else
+  echo "No AOT cache in $TARGET/app; build with ./mvnw -Pfast-startup package" >&2
+fi
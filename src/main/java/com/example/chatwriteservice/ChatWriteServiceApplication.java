@@ -1,18 +1,28 @@
 package com.example.chatwriteservice;
 
+import com.example.chatwriteservice.service.MessageImportRunner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 import java.util.TimeZone;
 
 
 @SpringBootApplication
+@ConfigurationPropertiesScan
+@EnableScheduling
 public class ChatWriteServiceApplication {
 
     public static void main(String[] args) {
         TimeZone.setDefault(TimeZone.getTimeZone("Asia/Ho_Chi_Minh"));
 
-        SpringApplication.run(ChatWriteServiceApplication.class, args);
+        ConfigurableApplicationContext context = SpringApplication.run(ChatWriteServiceApplication.class, args);
+        if (!context.getBeansOfType(MessageImportRunner.class).isEmpty()) {
+            // CLI import mode: shut down once the import ran, with its exit code
+            System.exit(SpringApplication.exit(context));
+        }
     }
 
 }
@@ -0,0 +1,58 @@
+package com.example.chatwriteservice.config;
+
+import com.example.chatwriteservice.service.SessionBacklogRegistry;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.handler.WebSocketSessionDecorator;
+
+import java.io.IOException;
+
+/**
+ * Hands the STOMP handler a session that reports to the SessionBacklogRegistry when each
+ * frame actually reaches the socket. Spring's own send buffer sits on top of this session,
+ * so writes here are serialized and a blocked write means the client is not reading.
+ */
+public class BacklogTrackingHandlerDecorator extends WebSocketHandlerDecorator {
+
+    private final SessionBacklogRegistry sessionBacklogRegistry;
+
+    public BacklogTrackingHandlerDecorator(WebSocketHandler delegate, SessionBacklogRegistry sessionBacklogRegistry) {
+        super(delegate);
+        this.sessionBacklogRegistry = sessionBacklogRegistry;
+    }
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+        sessionBacklogRegistry.opened(session.getId(), session.getAttributes());
+        super.afterConnectionEstablished(new TrackingSession(session));
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+        try {
+            super.afterConnectionClosed(session, closeStatus);
+        } finally {
+            sessionBacklogRegistry.closed(session.getId());
+        }
+    }
+
+    private class TrackingSession extends WebSocketSessionDecorator {
+
+        TrackingSession(WebSocketSession session) {
+            super(session);
+        }
+
+        @Override
+        public void sendMessage(WebSocketMessage<?> message) throws IOException {
+            sessionBacklogRegistry.writeStarted(getId());
+            try {
+                super.sendMessage(message);
+            } finally {
+                sessionBacklogRegistry.writeCompleted(getId());
+            }
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.chatwriteservice.config;
+
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Remembers successfully verified tokens, keyed by their SHA-256, so a client repeating the
+ * same bearer token skips signature verification and claim validation until the token
+ * expires. Only tokens with an exp claim are cached, and a cached token is served strictly
+ * within [nbf, exp) (no clock skew allowance). Bounded by chat.security.token-cache-size.
+ */
+public class CachingJwtDecoder implements JwtDecoder {
+
+    private final JwtDecoder delegate;
+    private final int maxEntries;
+    private final LongSupplier clock;
+    private final Map<String, Jwt> verified = new ConcurrentHashMap<>();
+
+    public CachingJwtDecoder(JwtDecoder delegate, int maxEntries) {
+        this(delegate, maxEntries, System::currentTimeMillis);
+    }
+
+    CachingJwtDecoder(JwtDecoder delegate, int maxEntries, LongSupplier clock) {
+        this.delegate = delegate;
+        this.maxEntries = maxEntries;
+        this.clock = clock;
+    }
+
+    @Override
+    public Jwt decode(String token) throws JwtException {
+        String key = hash(token);
+        Instant now = Instant.ofEpochMilli(clock.getAsLong());
+        Jwt cached = verified.get(key);
+        if (cached != null) {
+            if (isValidAt(cached, now)) {
+                return cached;
+            }
+            verified.remove(key, cached);
+        }
+
+        Jwt jwt = delegate.decode(token);
+        if (jwt.getExpiresAt() != null && isValidAt(jwt, now)) {
+            if (verified.size() >= maxEntries) {
+                evict(now);
+            }
+            verified.put(key, jwt);
+        }
+        return jwt;
+    }
+
+    private static boolean isValidAt(Jwt jwt, Instant now) {
+        return jwt.getExpiresAt() != null && now.isBefore(jwt.getExpiresAt())
+                && (jwt.getNotBefore() == null || !now.isBefore(jwt.getNotBefore()));
+    }
+
+    /*
+     * Drop expired tokens; if none were, drop an arbitrary one
+     */
+    private void evict(Instant now) {
+        int before = verified.size();
+        verified.values().removeIf(jwt -> !isValidAt(jwt, now));
+        if (verified.size() == before) {
+            Iterator<String> keys = verified.keySet().iterator();
+            if (keys.hasNext()) {
+                verified.remove(keys.next());
+            }
+        }
+    }
+
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,256 @@
+package com.example.chatwriteservice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Tunables for the chat features, bound from the "chat" section of application.yml
+ */
+@Data
+@ConfigurationProperties(prefix = "chat")
+public class ChatProperties {
+
+    private Export export = new Export();
+
+    private BulkImport bulkImport = new BulkImport();
+
+    private Datasource datasource = new Datasource();
+
+    private Search search = new Search();
+
+    private Presence presence = new Presence();
+
+    private Cluster cluster = new Cluster();
+
+    private Attachments attachments = new Attachments();
+
+    private Compression compression = new Compression();
+
+    private Membership membership = new Membership();
+
+    private Websocket websocket = new Websocket();
+
+    private Hotspots hotspots = new Hotspots();
+
+    private Reactions reactions = new Reactions();
+
+    private ScheduledMessages scheduledMessages = new ScheduledMessages();
+
+    private Security security = new Security();
+
+    private Concurrency concurrency = new Concurrency();
+
+    private Mentions mentions = new Mentions();
+
+    private MessageTail messageTail = new MessageTail();
+
+    @Data
+    public static class Export {
+        /** Rows fetched per round trip by the export cursor */
+        private int fetchSize = 500;
+    }
+
+    @Data
+    public static class BulkImport {
+        /** Rows per COPY batch; the checkpoint advances once per committed batch */
+        private int batchSize = 5000;
+        /** CLI mode: NDJSON file to import at startup (see MessageImportRunner) */
+        private String file;
+        private UUID conversationId;
+        private String jobId;
+    }
+
+    @Data
+    public static class Datasource {
+        /** Read replicas for read-only transactions; empty means everything goes to the primary */
+        private List<Replica> replicas = new ArrayList<>();
+        /** Replicas lagging more than this are skipped until they catch up */
+        private Duration maxLag = Duration.ofSeconds(5);
+        private Duration lagCheckInterval = Duration.ofSeconds(5);
+        /** After a write, reads of the same conversation/user stay on the primary this long */
+        private Duration readYourWritesWindow = Duration.ofSeconds(5);
+    }
+
+    @Data
+    public static class Replica {
+        private String url;
+        /** Defaults to spring.datasource.username/password */
+        private String username;
+        private String password;
+        private int maximumPoolSize = 10;
+    }
+
+    @Data
+    public static class Search {
+        /** Only the newest matches up to this many are ranked; older ones are left out and the result is marked truncated */
+        private int maxCandidates = 1000;
+    }
+
+    @Data
+    public static class Presence {
+        /** A user whose last session closed stays ONLINE this long, so quick reconnects are invisible */
+        private Duration gracePeriod = Duration.ofSeconds(15);
+        /** Presence changes are coalesced and pushed to conversation members at this rate */
+        private Duration flushInterval = Duration.ofSeconds(1);
+        /** Number of map shards; rounded up to a power of two */
+        private int shards = 64;
+        /** Offline users are forgotten after this long; their lastSeenAt then reads as unknown */
+        private Duration retention = Duration.ofHours(1);
+    }
+
+    @Data
+    public static class Cluster {
+        /** Relay broadcasts to every instance through Kafka; required to run more than one replica */
+        private boolean enabled = false;
+        /** Topic keyed by conversation id, so each conversation keeps its order */
+        private String topic = "chat-broadcast";
+        private int partitions = 12;
+        private int replicas = 1;
+        /**
+         * Stable, unique id of this instance (e.g. the StatefulSet pod name); required when enabled.
+         * Names its broadcast consumer group and its scheduled-message claims.
+         */
+        private String instanceId;
+    }
+
+    @Data
+    public static class Attachments {
+        /** BlobStore implementation; only "local" is built in */
+        private String store = "local";
+        /** Root directory of the local blob store */
+        private String directory = "./data/attachments";
+        private DataSize maxSize = DataSize.ofGigabytes(1);
+        /** Declared content types shown inline by browsers; everything else is downloaded as a file */
+        private List<String> inlineContentTypes = new ArrayList<>(List.of(
+                "image/png", "image/jpeg", "image/gif", "image/webp",
+                "video/mp4", "video/webm", "audio/mpeg", "audio/ogg", "audio/webm"));
+    }
+
+    @Data
+    public static class Compression {
+        /** LZ4-compress message content at rest (see MessageContentCodec) */
+        private boolean enabled = true;
+        /** Content smaller than this (UTF-8) is stored plain; tune with chat.message.content.* metrics */
+        private DataSize threshold = DataSize.ofKilobytes(4);
+        /** Larger content is stored plain; decoding rejects compressed lengths above it */
+        private DataSize maxContentSize = DataSize.ofMegabytes(16);
+    }
+
+    @Data
+    public static class Membership {
+        /** Heap budget for the cached membership bitmaps; least recently used ones are evicted beyond it */
+        private DataSize memoryBudget = DataSize.ofMegabytes(64);
+        /** Bitmaps older than this are reloaded, which bounds staleness from changes made on other instances */
+        private Duration maxAge = Duration.ofMinutes(5);
+        /** Cached email -> uid mappings */
+        private int userIdCacheSize = 500_000;
+    }
+
+    @Data
+    public static class Websocket {
+        /** A session whose write stays blocked this long is closed */
+        private Duration sendTimeLimit = Duration.ofSeconds(15);
+        /** A session with more unsent data than this is closed */
+        private DataSize sendBufferSizeLimit = DataSize.ofMegabytes(1);
+        /** Queued frames at which a session is degraded (see SessionBacklogRegistry) */
+        private int degradeQueuedMessages = 200;
+        /** Blocked write time at which a session is degraded */
+        private Duration degradeAfterStall = Duration.ofSeconds(2);
+    }
+
+    @Data
+    public static class Hotspots {
+        /** Sliding window the heavy hitters are counted over */
+        private Duration window = Duration.ofMinutes(1);
+        /** Count-min sketch counters per row; the overestimate is about total / width */
+        private int width = 2048;
+        /** Count-min sketch rows */
+        private int depth = 4;
+        /** Heavy hitters tracked per sketch */
+        private int capacity = 100;
+        /** Heavy hitters published as gauges */
+        private int gaugedEntries = 10;
+    }
+
+    @Data
+    public static class Reactions {
+        /** How often pending reaction changes are written */
+        private Duration flushInterval = Duration.ofSeconds(1);
+        /** Changes written per statement */
+        private int flushBatchSize = 1000;
+        /** At most one count update per conversation per interval */
+        private Duration broadcastInterval = Duration.ofMillis(500);
+        /** Counts are re-read after this long, picking up reactions made on other instances */
+        private Duration maxAge = Duration.ofSeconds(30);
+        private int maxCachedMessages = 100_000;
+    }
+
+    @Data
+    public static class ScheduledMessages {
+        /** Scheduled messages due within this window are claimed and held in memory */
+        private Duration horizon = Duration.ofMinutes(5);
+        private Duration loadInterval = Duration.ofSeconds(30);
+        /** Timing wheel resolution: how late a message may be released at most */
+        private Duration tick = Duration.ofSeconds(1);
+        private int wheelSize = 512;
+        /** How long after its send time a claimed message waits for its instance before others take it */
+        private Duration claimLease = Duration.ofMinutes(2);
+        private int maxInMemory = 100_000;
+        private int releaseBatchSize = 500;
+    }
+
+    @Data
+    public static class Security {
+        /** JWT claim used as the principal name, i.e. the user's email */
+        private String principalClaim = "email";
+        /** Verified tokens remembered until they expire, so repeated requests skip signature checks */
+        private int tokenCacheSize = 10_000;
+    }
+
+    @Data
+    public static class Concurrency {
+        /** Read-only transactions of the message and conversation services */
+        private ConcurrencyLimit read = new ConcurrencyLimit();
+        /** Everything else they do */
+        private ConcurrencyLimit write = new ConcurrencyLimit();
+    }
+
+    @Data
+    public static class ConcurrencyLimit {
+        private int initialLimit = 20;
+        private int minLimit = 2;
+        private int maxLimit = 200;
+        /** Calls slower than this (including waiting for a connection) shrink the limit */
+        private Duration latencyThreshold = Duration.ofMillis(500);
+        private double backoffRatio = 0.9;
+    }
+
+    @Data
+    public static class Mentions {
+        /** Mentions of a user are collected for this long and pushed as one frame */
+        private Duration deliveryInterval = Duration.ofMillis(500);
+        /** Participant automata are rebuilt after this long even if the membership is unchanged */
+        private Duration maxAge = Duration.ofMinutes(1);
+        private int maxCachedConversations = 10_000;
+        /** Users notified per message at most */
+        private int maxPerMessage = 50;
+        /** Sent messages waiting for mention detection; more are skipped */
+        private int maxPending = 100_000;
+    }
+
+    @Data
+    public static class MessageTail {
+        /** Newest messages kept per conversation; first pages up to this size are served from memory */
+        private int size = 100;
+        /** Estimated size of all tails; least recently read ones are evicted beyond it */
+        private DataSize memoryBudget = DataSize.ofMegabytes(64);
+        /** Tails are reloaded after this long, picking up messages sent through other instances */
+        private Duration maxAge = Duration.ofSeconds(30);
+    }
+}
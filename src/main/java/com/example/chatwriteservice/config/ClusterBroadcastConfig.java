@@ -0,0 +1,79 @@
+package com.example.chatwriteservice.config;
+
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.config.TopicConfig;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.config.TopicBuilder;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.util.StringUtils;
+
+import java.util.Map;
+
+/**
+ * Kafka plumbing for cross-instance broadcast fan-out (chat.cluster.enabled=true).
+ * Records carry the already serialized JSON frame as raw bytes, so this uses its own
+ * String/byte[] factories instead of the Avro ones configured under spring.kafka.
+ * <p>
+ * Each instance consumes the whole topic in a consumer group of its own, named after
+ * chat.cluster.instance-id. The id must be stable across restarts (e.g. the StatefulSet pod
+ * name): a new id per start would leave one abandoned group behind on every restart.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "chat.cluster", name = "enabled", havingValue = "true")
+public class ClusterBroadcastConfig {
+
+    @Bean
+    public NewTopic clusterBroadcastTopic(ChatProperties chatProperties) {
+        ChatProperties.Cluster cluster = chatProperties.getCluster();
+        // Records are only useful to instances that are up right now
+        return TopicBuilder.name(cluster.getTopic())
+                .partitions(cluster.getPartitions())
+                .replicas(cluster.getReplicas())
+                .config(TopicConfig.RETENTION_MS_CONFIG, "60000")
+                .build();
+    }
+
+    @Bean
+    public KafkaTemplate<String, byte[]> clusterBroadcastKafkaTemplate(KafkaProperties kafkaProperties) {
+        Map<String, Object> props = kafkaProperties.buildProducerProperties(null);
+        props.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class);
+        // Fan-out is latency sensitive and ephemeral: leader ack only, small linger to batch bursts
+        props.put(ProducerConfig.ACKS_CONFIG, "1");
+        props.put(ProducerConfig.LINGER_MS_CONFIG, 2);
+        props.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, "lz4");
+        return new KafkaTemplate<>(new DefaultKafkaProducerFactory<>(props));
+    }
+
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, byte[]> clusterBroadcastListenerContainerFactory(
+            KafkaProperties kafkaProperties, ChatProperties chatProperties) {
+        String instanceId = chatProperties.getCluster().getInstanceId();
+        if (!StringUtils.hasText(instanceId)) {
+            throw new IllegalStateException("chat.cluster.instance-id (CHAT_INSTANCE_ID) must be set to a stable, "
+                    + "unique id per instance when chat.cluster.enabled=true");
+        }
+        Map<String, Object> props = kafkaProperties.buildConsumerProperties(null);
+        // Every instance must see every record, so each one is its own consumer group
+        props.put(ConsumerConfig.GROUP_ID_CONFIG, "chat-broadcast-" + instanceId);
+        props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "latest");
+
+        ConcurrentKafkaListenerContainerFactory<String, byte[]> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(new DefaultKafkaConsumerFactory<>(props,
+                new StringDeserializer(), new ForeignOriginDeserializer(instanceId)));
+        // Own records come out of the deserializer without a value
+        factory.setRecordFilterStrategy(record -> record.value() == null);
+        return factory;
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.chatwriteservice.config;
+
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.apache.kafka.common.utils.Utils;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Value deserializer of the cluster broadcast topic. Records published by this instance were
+ * already delivered locally; their value is not copied out of the fetch buffer and comes back
+ * as null, which the listener container filters out before the listener runs.
+ */
+public class ForeignOriginDeserializer implements Deserializer<byte[]> {
+
+    public static final String ORIGIN_HEADER = "chat-origin";
+
+    private final byte[] instanceId;
+
+    public ForeignOriginDeserializer(String instanceId) {
+        this.instanceId = instanceId.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public byte[] deserialize(String topic, byte[] data) {
+        return data;
+    }
+
+    @Override
+    public byte[] deserialize(String topic, Headers headers, byte[] data) {
+        return isOwn(headers) ? null : data;
+    }
+
+    @Override
+    public byte[] deserialize(String topic, Headers headers, ByteBuffer data) {
+        if (data == null || isOwn(headers)) {
+            return null;
+        }
+        return Utils.toArray(data);
+    }
+
+    private boolean isOwn(Headers headers) {
+        Header origin = headers.lastHeader(ORIGIN_HEADER);
+        return origin != null && Arrays.equals(origin.value(), instanceId);
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.chatwriteservice.config;
+
+import com.example.chatwriteservice.service.PresenceRegistry;
+import com.example.chatwriteservice.service.PresenceService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.stereotype.Component;
+
+import java.security.Principal;
+import java.util.Map;
+
+/**
+ * Feeds the presence registry from inbound STOMP traffic: CONNECT marks the session's
+ * principal online, every other frame (including heartbeats) refreshes their last-seen time.
+ * Runs after StompAuthenticationInterceptor, which rejects a CONNECT without a valid token.
+ * Disconnects are handled by PresenceService through SessionDisconnectEvent.
+ */
+@Component
+@RequiredArgsConstructor
+public class PresenceChannelInterceptor implements ChannelInterceptor {
+
+    private final PresenceRegistry presenceRegistry;
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        Map<String, Object> attributes = SimpMessageHeaderAccessor.getSessionAttributes(message.getHeaders());
+        if (attributes == null) {
+            return message;
+        }
+
+        if (SimpMessageHeaderAccessor.getMessageType(message.getHeaders()) == SimpMessageType.CONNECT) {
+            Principal user = SimpMessageHeaderAccessor.getUser(message.getHeaders());
+            String email = user != null ? user.getName() : null;
+            if (email != null && attributes.putIfAbsent(PresenceService.SESSION_EMAIL_ATTRIBUTE, email) == null) {
+                presenceRegistry.connected(email);
+            }
+        } else if (attributes.get(PresenceService.SESSION_EMAIL_ATTRIBUTE) instanceof String email) {
+            presenceRegistry.touch(email);
+        }
+        return message;
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.chatwriteservice.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Remembers recent writes per (writer, key) so that the writer's own read-only transactions
+ * touching the same key (conversation id, user email) are pinned to the primary until
+ * replicas have had time to replay them. Other users keep reading from the replicas: a busy
+ * room does not drag all of its readers onto the primary.
+ * <p>
+ * The writer is the authenticated principal name unless given explicitly. Requests without
+ * an identity are never pinned.
+ */
+@Component
+@Slf4j
+public class ReadYourWritesTracker {
+
+    private static final ThreadLocal<Boolean> PRIMARY_REQUIRED = new ThreadLocal<>();
+
+    private final Map<WriteKey, Long> recentWrites = new ConcurrentHashMap<>();
+    private final long windowNanos;
+    private final LongSupplier clock;
+
+    @Autowired
+    public ReadYourWritesTracker(ChatProperties chatProperties) {
+        this(chatProperties, System::nanoTime);
+    }
+
+    ReadYourWritesTracker(ChatProperties chatProperties, LongSupplier clock) {
+        this.windowNanos = chatProperties.getDatasource().getReadYourWritesWindow().toNanos();
+        this.clock = clock;
+    }
+
+    /**
+     * Record a write by the current principal. Call after the writing transaction commits
+     * (or from inside it: the window starts slightly earlier, which is harmless).
+     */
+    public void markWritten(Object key) {
+        markWritten(currentPrincipal(), key);
+    }
+
+    /**
+     * Record a write by the given user, for callers that know the writer without a security
+     * context (e.g. STOMP sends)
+     */
+    public void markWritten(String writer, Object key) {
+        if (writer == null) {
+            return;
+        }
+        recentWrites.put(new WriteKey(writer, key), clock.getAsLong() + windowNanos);
+    }
+
+    /**
+     * Pin the current read-only transaction to the primary if the current principal wrote any
+     * of the keys recently. Must be called before the first statement of the transaction; the
+     * routing data source resolves the target lazily on first use.
+     */
+    public void routeToPrimaryIfRecentlyWritten(Object... keys) {
+        if (wroteRecently(currentPrincipal(), keys)) {
+            pinToPrimary();
+        }
+    }
+
+    /**
+     * Whether the current principal wrote any of the keys recently, for reads served from
+     * memory that have to go to the primary instead
+     */
+    public boolean isRecentlyWritten(Object... keys) {
+        return wroteRecently(currentPrincipal(), keys);
+    }
+
+    boolean wroteRecently(String reader, Object... keys) {
+        if (reader == null || recentWrites.isEmpty()) {
+            return false;
+        }
+        long now = clock.getAsLong();
+        for (Object key : keys) {
+            Long expiresAt = recentWrites.get(new WriteKey(reader, key));
+            if (expiresAt != null && expiresAt - now > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static boolean isPrimaryRequired() {
+        return Boolean.TRUE.equals(PRIMARY_REQUIRED.get());
+    }
+
+    private static String currentPrincipal() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || authentication instanceof AnonymousAuthenticationToken
+                || !authentication.isAuthenticated()) {
+            return null;
+        }
+        return authentication.getName();
+    }
+
+    private static void pinToPrimary() {
+        PRIMARY_REQUIRED.set(Boolean.TRUE);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    PRIMARY_REQUIRED.remove();
+                }
+            });
+        } else {
+            PRIMARY_REQUIRED.remove();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${chat.datasource.read-your-writes-window:5s}")
+    void evictExpired() {
+        long now = clock.getAsLong();
+        recentWrites.values().removeIf(expiresAt -> expiresAt - now <= 0);
+    }
+
+    private record WriteKey(String writer, Object key) {
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.chatwriteservice.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Read/write splitting, active only when chat.datasource.replicas is configured.
+ * Otherwise Spring Boot's single auto-configured pool is used unchanged.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "chat.datasource.replicas[0]", name = "url")
+public class ReplicaDataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    public ReplicaRoutingDataSource replicaRoutingDataSource(HikariDataSource primaryDataSource,
+                                                             DataSourceProperties properties,
+                                                             ChatProperties chatProperties) {
+        List<ChatProperties.Replica> configured = chatProperties.getDatasource().getReplicas();
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        for (int i = 0; i < configured.size(); i++) {
+            ChatProperties.Replica replica = configured.get(i);
+            HikariDataSource dataSource = new HikariDataSource();
+            dataSource.setPoolName("replica-" + i);
+            dataSource.setDriverClassName(properties.determineDriverClassName());
+            dataSource.setJdbcUrl(replica.getUrl());
+            dataSource.setUsername(replica.getUsername() != null ? replica.getUsername() : properties.determineUsername());
+            dataSource.setPassword(replica.getPassword() != null ? replica.getPassword() : properties.determinePassword());
+            dataSource.setMaximumPoolSize(replica.getMaximumPoolSize());
+            dataSource.setReadOnly(true);
+            dataSource.setMaxLifetime(primaryDataSource.getMaxLifetime());
+            dataSource.setLeakDetectionThreshold(primaryDataSource.getLeakDetectionThreshold());
+            replicas.put("replica-" + i, dataSource);
+        }
+        return new ReplicaRoutingDataSource(primaryDataSource, replicas, chatProperties.getDatasource().getMaxLag());
+    }
+
+    /**
+     * The data source everything (JPA, JdbcTemplate) uses. The lazy proxy defers picking a
+     * target until the first statement, when the transaction's read-only flag is known.
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource replicaRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+    }
+}
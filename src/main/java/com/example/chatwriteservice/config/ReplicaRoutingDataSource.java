@@ -0,0 +1,113 @@
+package com.example.chatwriteservice.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Routes read-only transactions round-robin across healthy replicas and everything else to
+ * the primary. Must be wrapped in a LazyConnectionDataSourceProxy so the lookup happens at
+ * the first statement, after the transaction's read-only flag has been set.
+ * The replica pools are owned by this data source and closed with it; the primary is a bean
+ * of its own.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements DisposableBean {
+
+    static final String PRIMARY = "primary";
+
+    // A replica that has replayed everything it received is caught up even if the primary is idle
+    private static final String LAG_QUERY = "SELECT pg_is_in_recovery(), "
+            + "CASE WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 "
+            + "ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000, 0) END";
+
+    private final List<String> replicaKeys;
+    private final Map<String, DataSource> replicas;
+    private final long maxLagMillis;
+    private final AtomicInteger next = new AtomicInteger();
+
+    /** Replicas currently within the lag budget; replaced wholesale by the lag check */
+    private volatile String[] healthy;
+
+    public ReplicaRoutingDataSource(DataSource primary, Map<String, DataSource> replicas, Duration maxLag) {
+        this.replicaKeys = List.copyOf(replicas.keySet());
+        this.replicas = replicas;
+        this.maxLagMillis = maxLag.toMillis();
+        this.healthy = replicaKeys.toArray(String[]::new);
+
+        Map<Object, Object> targets = new HashMap<>(replicas);
+        targets.put(PRIMARY, primary);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                || ReadYourWritesTracker.isPrimaryRequired()) {
+            return PRIMARY;
+        }
+        String[] candidates = healthy;
+        if (candidates.length == 0) {
+            return PRIMARY;
+        }
+        return candidates[Math.floorMod(next.getAndIncrement(), candidates.length)];
+    }
+
+    @Scheduled(fixedDelayString = "${chat.datasource.lag-check-interval:5s}")
+    void checkReplicaLag() {
+        String[] result = replicaKeys.stream()
+                .filter(this::isWithinLagBudget)
+                .toArray(String[]::new);
+        if (result.length != healthy.length) {
+            log.warn("Healthy read replicas: {}/{}", result.length, replicaKeys.size());
+        }
+        healthy = result;
+    }
+
+    @Override
+    public void destroy() {
+        replicas.forEach((key, dataSource) -> {
+            if (dataSource instanceof AutoCloseable pool) {
+                try {
+                    pool.close();
+                } catch (Exception e) {
+                    log.warn("Could not close replica pool {}: {}", key, e.getMessage());
+                }
+            }
+        });
+    }
+
+    private boolean isWithinLagBudget(String key) {
+        try (Connection connection = replicas.get(key).getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(LAG_QUERY)) {
+            rs.next();
+            long lagMillis = rs.getLong(2);
+            if (!rs.getBoolean(1)) {
+                log.warn("Replica {} is not in recovery mode, ignoring it", key);
+                return false;
+            }
+            if (lagMillis > maxLagMillis) {
+                log.warn("Replica {} lags {} ms (max {} ms), routing reads to other nodes", key, lagMillis, maxLagMillis);
+                return false;
+            }
+            return true;
+        } catch (Exception e) {
+            log.warn("Replica {} is unreachable: {}", key, e.getMessage());
+            return false;
+        }
+    }
+}
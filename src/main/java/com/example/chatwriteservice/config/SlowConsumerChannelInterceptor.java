@@ -0,0 +1,55 @@
+package com.example.chatwriteservice.config;
+
+import com.example.chatwriteservice.service.SessionBacklogRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeTypeUtils;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Applies the SessionBacklogRegistry decision to every frame on the client outbound channel:
+ * frames for degraded sessions are dropped or replaced by a resync marker.
+ * The marker keeps the subscription headers, carries the native header "chat-resync: true"
+ * and tells the client to catch up through POST /api/sync once it is reading again.
+ */
+@Component
+@RequiredArgsConstructor
+public class SlowConsumerChannelInterceptor implements ChannelInterceptor {
+
+    public static final String RESYNC_HEADER = "chat-resync";
+
+    private static final byte[] RESYNC_PAYLOAD = "{\"type\":\"RESYNC_REQUIRED\"}".getBytes(StandardCharsets.UTF_8);
+
+    private final SessionBacklogRegistry sessionBacklogRegistry;
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+        if (sessionId == null) {
+            return message;
+        }
+        String destination = SimpMessageHeaderAccessor.getMessageType(message.getHeaders()) == SimpMessageType.MESSAGE
+                ? SimpMessageHeaderAccessor.getDestination(message.getHeaders())
+                : null;
+
+        return switch (sessionBacklogRegistry.beforeSend(sessionId, destination)) {
+            case SEND -> message;
+            case DROP -> null;
+            case RESYNC -> resyncMarker(message);
+        };
+    }
+
+    private static Message<byte[]> resyncMarker(Message<?> message) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(message);
+        accessor.setNativeHeader(RESYNC_HEADER, "true");
+        accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        return MessageBuilder.createMessage(RESYNC_PAYLOAD, accessor.getMessageHeaders());
+    }
+}
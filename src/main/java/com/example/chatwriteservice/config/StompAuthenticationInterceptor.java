@@ -0,0 +1,56 @@
+package com.example.chatwriteservice.config;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.security.authentication.AbstractAuthenticationToken;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+import org.springframework.stereotype.Component;
+
+/**
+ * Authenticates a STOMP session once, on CONNECT (or STOMP), from its "Authorization: Bearer ..." native
+ * header. The resulting principal (named by chat.security.principal-claim) is bound to the
+ * session, so later frames are not authenticated again and handlers use it instead of the
+ * sender the client puts in the payload. A CONNECT without a valid token is rejected, so
+ * every session has a principal.
+ */
+@Component
+@RequiredArgsConstructor
+public class StompAuthenticationInterceptor implements ChannelInterceptor {
+
+    public static final String AUTHORIZATION_HEADER = "Authorization";
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    private final JwtDecoder jwtDecoder;
+    private final Converter<Jwt, ? extends AbstractAuthenticationToken> jwtAuthenticationConverter;
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        // CONNECT or its STOMP 1.2 alias STOMP
+        if (accessor == null || accessor.getMessageType() != SimpMessageType.CONNECT) {
+            return message;
+        }
+
+        String authorization = accessor.getFirstNativeHeader(AUTHORIZATION_HEADER);
+        if (authorization == null || !authorization.regionMatches(true, 0, BEARER_PREFIX, 0, BEARER_PREFIX.length())) {
+            throw new MessageDeliveryException(message, "Bearer token required");
+        }
+
+        try {
+            Jwt jwt = jwtDecoder.decode(authorization.substring(BEARER_PREFIX.length()).trim());
+            accessor.setUser(jwtAuthenticationConverter.convert(jwt));
+        } catch (JwtException e) {
+            throw new MessageDeliveryException(message, "Invalid bearer token: " + e.getMessage());
+        }
+        return message;
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.chatwriteservice.config;
+
+import com.example.chatwriteservice.service.PresenceService;
+import com.example.chatwriteservice.service.SubscriptionAuthorizer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Rejects SUBSCRIBE frames to conversation topics from sessions whose user is not a
+ * participant (see SubscriptionAuthorizer); the client receives a STOMP ERROR frame.
+ * The user is the one identified on CONNECT, so this runs after PresenceChannelInterceptor.
+ */
+@Component
+@RequiredArgsConstructor
+public class SubscriptionAuthorizationInterceptor implements ChannelInterceptor {
+
+    private final SubscriptionAuthorizer subscriptionAuthorizer;
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        SimpMessageType type = SimpMessageHeaderAccessor.getMessageType(message.getHeaders());
+        if (type == SimpMessageType.SUBSCRIBE) {
+            Map<String, Object> attributes = SimpMessageHeaderAccessor.getSessionAttributes(message.getHeaders());
+            String email = attributes != null && attributes.get(PresenceService.SESSION_EMAIL_ATTRIBUTE) instanceof String e
+                    ? e : null;
+            if (!subscriptionAuthorizer.authorize(
+                    SimpMessageHeaderAccessor.getSessionId(message.getHeaders()),
+                    SimpMessageHeaderAccessor.getSubscriptionId(message.getHeaders()),
+                    SimpMessageHeaderAccessor.getDestination(message.getHeaders()),
+                    email)) {
+                throw new MessageDeliveryException(message, "Not allowed to subscribe to this conversation");
+            }
+        } else if (type == SimpMessageType.UNSUBSCRIBE) {
+            subscriptionAuthorizer.unsubscribed(
+                    SimpMessageHeaderAccessor.getSessionId(message.getHeaders()),
+                    SimpMessageHeaderAccessor.getSubscriptionId(message.getHeaders()));
+        }
+        return message;
+    }
+}
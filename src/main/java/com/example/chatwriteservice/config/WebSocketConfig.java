@@ -1,20 +1,46 @@
 package com.example.chatwriteservice.config;
 
+import com.example.chatwriteservice.service.SessionBacklogRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.scheduling.TaskScheduler;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
 
 @Configuration
 @EnableWebSocketMessageBroker
+@RequiredArgsConstructor
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    private final StompAuthenticationInterceptor stompAuthenticationInterceptor;
+    private final PresenceChannelInterceptor presenceChannelInterceptor;
+    private final SubscriptionAuthorizationInterceptor subscriptionAuthorizationInterceptor;
+    private final SlowConsumerChannelInterceptor slowConsumerChannelInterceptor;
+    private final SessionBacklogRegistry sessionBacklogRegistry;
+    private final ChatProperties chatProperties;
+
+    private TaskScheduler messageBrokerTaskScheduler;
+
+    @Autowired
+    public void setMessageBrokerTaskScheduler(@Lazy @Qualifier("messageBrokerTaskScheduler") TaskScheduler taskScheduler) {
+        this.messageBrokerTaskScheduler = taskScheduler;
+    }
+
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
         // Enable a simple memory-based message broker to send messages to clients
         // on destinations prefixed with "/topic"
-        config.enableSimpleBroker("/topic", "/queue");
+        // Heartbeats every 10s both ways keep presence fresh and detect dead connections
+        config.enableSimpleBroker("/topic", "/queue")
+                .setHeartbeatValue(new long[]{10000, 10000})
+                .setTaskScheduler(messageBrokerTaskScheduler);
         
         // Designate the "/app" prefix for messages bound for @MessageMapping methods
         config.setApplicationDestinationPrefixes("/app");
@@ -23,6 +49,27 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
         config.setUserDestinationPrefix("/user");
     }
 
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        // Authentication binds the session user that presence records and subscriptions are authorized for
+        registration.interceptors(stompAuthenticationInterceptor, presenceChannelInterceptor,
+                subscriptionAuthorizationInterceptor);
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        registration.interceptors(slowConsumerChannelInterceptor);
+    }
+
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        // Hard limits: sessions still stuck after being degraded are closed by Spring's send buffer
+        ChatProperties.Websocket websocket = chatProperties.getWebsocket();
+        registration.setSendTimeLimit((int) websocket.getSendTimeLimit().toMillis())
+                .setSendBufferSizeLimit((int) websocket.getSendBufferSizeLimit().toBytes())
+                .addDecoratorFactory(handler -> new BacklogTrackingHandlerDecorator(handler, sessionBacklogRegistry));
+    }
+
     @Override
     public void registerStompEndpoints(StompEndpointRegistry registry) {
         // Register the "/ws" endpoint for WebSocket connections
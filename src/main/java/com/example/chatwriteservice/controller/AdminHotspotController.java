@@ -0,0 +1,28 @@
+package com.example.chatwriteservice.controller;
+
+import com.example.chatwriteservice.dto.HotspotsResponse;
+import com.example.chatwriteservice.service.HotspotTracker;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/admin/hotspots")
+@RequiredArgsConstructor
+public class AdminHotspotController {
+
+    private static final int MAX_LIMIT = 100;
+
+    private final HotspotTracker hotspotTracker;
+
+    /**
+     * Hottest conversations, senders and broadcast destinations of this instance
+     */
+    @GetMapping
+    public ResponseEntity<HotspotsResponse> getHotspots(@RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(hotspotTracker.snapshot(Math.clamp(limit, 1, MAX_LIMIT)));
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.chatwriteservice.controller;
+
+import com.example.chatwriteservice.dto.ImportProgressResponse;
+import com.example.chatwriteservice.service.MessageImportService;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/api/admin/imports")
+@RequiredArgsConstructor
+public class AdminImportController {
+
+    private final MessageImportService messageImportService;
+
+    /**
+     * Bulk import a conversation's history from an NDJSON request body.
+     * Re-posting the same stream with the same jobId resumes after the last checkpoint.
+     */
+    @PostMapping(value = "/conversations/{conversationId}",
+            consumes = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_OCTET_STREAM_VALUE})
+    public ResponseEntity<ImportProgressResponse> importMessages(
+            @PathVariable UUID conversationId,
+            @RequestParam String jobId,
+            HttpServletRequest request) throws IOException {
+        ImportProgressResponse response = messageImportService.importMessages(
+                conversationId, jobId, request.getInputStream());
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Get progress of an import job
+     */
+    @GetMapping("/{jobId}")
+    public ResponseEntity<ImportProgressResponse> getProgress(@PathVariable String jobId) {
+        return ResponseEntity.ok(messageImportService.getProgress(jobId));
+    }
+}
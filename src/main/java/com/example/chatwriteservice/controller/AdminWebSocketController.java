@@ -0,0 +1,31 @@
+package com.example.chatwriteservice.controller;
+
+import com.example.chatwriteservice.dto.SessionBacklogResponse;
+import com.example.chatwriteservice.service.SessionBacklogRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/admin/websocket")
+@RequiredArgsConstructor
+public class AdminWebSocketController {
+
+    private static final int MAX_LIMIT = 500;
+
+    private final SessionBacklogRegistry sessionBacklogRegistry;
+
+    /**
+     * WebSocket sessions of this instance with the largest outbound backlog first
+     */
+    @GetMapping("/sessions")
+    public ResponseEntity<List<SessionBacklogResponse>> getSessions(
+            @RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(sessionBacklogRegistry.top(Math.clamp(limit, 1, MAX_LIMIT)));
+    }
+}
@@ -0,0 +1,173 @@
+package com.example.chatwriteservice.controller;
+
+import com.example.chatwriteservice.dto.AttachmentRequest;
+import com.example.chatwriteservice.dto.AttachmentResponse;
+import com.example.chatwriteservice.service.AttachmentService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.Principal;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/api/attachments")
+@RequiredArgsConstructor
+public class AttachmentController {
+
+    public static final String UPLOAD_OFFSET_HEADER = "Upload-Offset";
+
+    // Tomcat sendfile request attributes (see org.apache.coyote.Constants)
+    private static final String SENDFILE_SUPPORTED = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+    /** Same threshold as Tomcat's DefaultServlet: smaller bodies are cheaper to copy */
+    private static final long SENDFILE_THRESHOLD = 48 * 1024;
+
+    private static final String NOSNIFF_HEADER = "X-Content-Type-Options";
+    private static final String CSP_HEADER = "Content-Security-Policy";
+
+    private final AttachmentService attachmentService;
+
+    /**
+     * Start an upload as the authenticated user; the bytes are sent afterwards with PUT /{id}/content
+     */
+    @PostMapping
+    public ResponseEntity<AttachmentResponse> createUpload(@Valid @RequestBody AttachmentRequest request,
+                                                           Principal principal) throws IOException {
+        return ResponseEntity.status(HttpStatus.CREATED).body(
+                attachmentService.createUpload(request, principal != null ? principal.getName() : null));
+    }
+
+    /**
+     * Get attachment metadata, including uploadedBytes to resume an interrupted upload
+     */
+    @GetMapping("/{id}")
+    public ResponseEntity<AttachmentResponse> getAttachment(@PathVariable UUID id) {
+        return ResponseEntity.ok(attachmentService.getAttachment(id));
+    }
+
+    /**
+     * Upload a chunk starting at the Upload-Offset header; the body is streamed to storage
+     */
+    @PutMapping(value = "/{id}/content", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<AttachmentResponse> uploadChunk(
+            @PathVariable UUID id,
+            @RequestHeader(UPLOAD_OFFSET_HEADER) long offset,
+            HttpServletRequest request) throws IOException {
+        return ResponseEntity.ok(attachmentService.uploadChunk(id, offset, request.getInputStream()));
+    }
+
+    /**
+     * Download an attachment (participants only). Honours If-None-Match with 304 and a
+     * single-range Range header with 206 Partial Content, unless If-Range no longer matches.
+     * Only allow-listed media types are shown inline; everything else is a file download.
+     */
+    @GetMapping("/{id}/content")
+    public void download(@PathVariable UUID id, Principal principal,
+                         HttpServletRequest request, HttpServletResponse response) throws IOException {
+        AttachmentResponse attachment = attachmentService.getDownloadableAttachment(
+                id, principal != null ? principal.getName() : null);
+        long length = attachment.getSize();
+        long start = 0;
+        long end = length - 1;
+
+        // Content never changes once the upload completed, so the id is a strong validator
+        String etag = "\"" + id + "\"";
+        long lastModified = attachment.getCompletedAt() != null
+                ? attachment.getCompletedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() : -1;
+        if (new ServletWebRequest(request, response).checkNotModified(etag, lastModified)) {
+            return;
+        }
+
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader(NOSNIFF_HEADER, "nosniff");
+        response.setHeader(CSP_HEADER, "default-src 'none'; sandbox");
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        if (rangeHeader != null && length > 0 && ifRangeMatches(request.getHeader(HttpHeaders.IF_RANGE), etag, lastModified)) {
+            List<HttpRange> ranges = parseRanges(rangeHeader);
+            // Multiple ranges are answered with the whole body, which RFC 9110 allows
+            if (ranges.size() == 1) {
+                try {
+                    start = ranges.get(0).getRangeStart(length);
+                    end = ranges.get(0).getRangeEnd(length);
+                } catch (IllegalArgumentException e) {
+                    response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                    response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                    return;
+                }
+                response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+            }
+        }
+
+        long count = end - start + 1;
+        boolean inline = attachmentService.isInline(attachment.getContentType());
+        response.setContentType(inline ? attachment.getContentType() : MediaType.APPLICATION_OCTET_STREAM_VALUE);
+        response.setContentLengthLong(count);
+        ContentDisposition.Builder disposition = inline ? ContentDisposition.inline() : ContentDisposition.attachment();
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                disposition.filename(attachment.getFileName(), StandardCharsets.UTF_8).build().toString());
+        if (count == 0) {
+            return;
+        }
+
+        Path file = attachmentService.localPath(id);
+        if (file != null && count >= SENDFILE_THRESHOLD && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED))) {
+            // Tomcat sends the file region from the kernel after the servlet returns
+            request.setAttribute(SENDFILE_FILENAME, file.toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end + 1);
+            return;
+        }
+        attachmentService.transferTo(id, start, count, Channels.newChannel(response.getOutputStream()));
+    }
+
+    /**
+     * RFC 9110 13.1.5: a Range applies only if If-Range is absent or still names this
+     * representation, by strong ETag or by its exact Last-Modified date
+     */
+    static boolean ifRangeMatches(String ifRange, String etag, long lastModified) {
+        if (ifRange == null) {
+            return true;
+        }
+        String value = ifRange.trim();
+        if (value.startsWith("\"") || value.startsWith("W/")) {
+            return value.equals(etag);
+        }
+        try {
+            long date = ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+            return lastModified >= 0 && date == lastModified / 1000 * 1000;
+        } catch (DateTimeParseException e) {
+            return false;
+        }
+    }
+
+    private static List<HttpRange> parseRanges(String rangeHeader) {
+        try {
+            return HttpRange.parseRanges(rangeHeader);
+        } catch (IllegalArgumentException e) {
+            // A malformed Range header is ignored
+            return List.of();
+        }
+    }
+}
@@ -1,18 +1,26 @@
 package com.example.chatwriteservice.controller;
 
+import com.example.chatwriteservice.config.ReadYourWritesTracker;
 import com.example.chatwriteservice.dto.ConversationRequest;
 import com.example.chatwriteservice.dto.ConversationResponse;
 import com.example.chatwriteservice.dto.MessageResponse;
+import com.example.chatwriteservice.dto.MetadataResponse;
+import com.example.chatwriteservice.service.ConversationMetadataService;
 import com.example.chatwriteservice.service.ConversationService;
+import com.example.chatwriteservice.service.MessageExportService;
 import com.example.chatwriteservice.service.MessageService;
+import com.example.chatwriteservice.service.MessageTailCache;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 import java.util.UUID;
@@ -24,6 +32,10 @@ public class ConversationController {
 
     private final ConversationService conversationService;
     private final MessageService messageService;
+    private final MessageExportService messageExportService;
+    private final ConversationMetadataService conversationMetadataService;
+    private final MessageTailCache messageTailCache;
+    private final ReadYourWritesTracker readYourWritesTracker;
 
     /**
      * Create a new conversation
@@ -44,6 +56,38 @@ public class ConversationController {
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * Get the direct conversation between two users
+     */
+    @GetMapping("/direct")
+    public ResponseEntity<ConversationResponse> getDirectConversation(
+            @RequestParam String email,
+            @RequestParam String with) {
+        ConversationResponse response = conversationService.getDirectConversation(email, with);
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Get conversation metadata with its ETag
+     */
+    @GetMapping("/{id}/metadata")
+    public ResponseEntity<String> getMetadata(@PathVariable UUID id) {
+        return toMetadataResponse(conversationMetadataService.getMetadata(id));
+    }
+
+    /**
+     * Patch conversation metadata in place (merge patch or JSON Patch); If-Match makes it conditional
+     */
+    @PatchMapping(value = "/{id}/metadata", consumes = {
+            ConversationMetadataService.MERGE_PATCH_VALUE, ConversationMetadataService.JSON_PATCH_VALUE})
+    public ResponseEntity<String> patchMetadata(
+            @PathVariable UUID id,
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @RequestBody String patch) {
+        return toMetadataResponse(conversationMetadataService.patchMetadata(id, contentType, patch, ifMatch));
+    }
+
     /**
      * Get all conversations for a user
      */
@@ -86,7 +130,9 @@ public class ConversationController {
     }
 
     /**
-     * Get messages for a conversation with pagination
+     * Get messages for a conversation with pagination.
+     * The newest page comes from MessageTailCache when loaded, outside the database concurrency
+     * limit, unless the caller wrote to the conversation recently and must read the primary.
      */
     @GetMapping("/{id}/messages")
     public ResponseEntity<Page<MessageResponse>> getMessages(
@@ -94,7 +140,49 @@ public class ConversationController {
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "50") int size) {
         Pageable pageable = PageRequest.of(page, size);
-        Page<MessageResponse> messages = messageService.getMessagesByConversationId(id, pageable);
+        Page<MessageResponse> messages = readYourWritesTracker.isRecentlyWritten(id)
+                ? null : messageTailCache.newestPage(id, pageable);
+        if (messages == null) {
+            messages = messageService.getMessagesByConversationId(id, pageable);
+        }
         return ResponseEntity.ok(messages);
     }
+
+    /**
+     * Get messages after a sequence number (oldest first), to fill gaps detected by the client
+     */
+    @GetMapping("/{id}/messages/after")
+    public ResponseEntity<List<MessageResponse>> getMessagesAfterSeq(
+            @PathVariable UUID id,
+            @RequestParam long seq,
+            @RequestParam(defaultValue = "100") int limit) {
+        return ResponseEntity.ok(messageService.getMessagesAfterSeq(id, seq, limit));
+    }
+
+    /**
+     * Stream the full message history of a conversation (oldest first) as NDJSON or compact binary
+     */
+    @GetMapping("/{id}/messages/export")
+    public ResponseEntity<StreamingResponseBody> exportMessages(
+            @PathVariable UUID id,
+            @RequestParam(defaultValue = "NDJSON") MessageExportService.Format format,
+            @RequestParam(defaultValue = "false") boolean gzip) {
+        messageExportService.validateConversation(id);
+
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                .contentType(format == MessageExportService.Format.BINARY
+                        ? MediaType.APPLICATION_OCTET_STREAM
+                        : MediaType.APPLICATION_NDJSON);
+        if (gzip) {
+            builder.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return builder.body(out -> messageExportService.export(id, format, gzip, out));
+    }
+
+    private static ResponseEntity<String> toMetadataResponse(MetadataResponse response) {
+        return ResponseEntity.ok()
+                .eTag(response.getEtag())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(response.getMetadata() != null ? response.getMetadata() : "null");
+    }
 }
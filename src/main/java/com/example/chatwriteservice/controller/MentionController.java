@@ -0,0 +1,46 @@
+package com.example.chatwriteservice.controller;
+
+import com.example.chatwriteservice.dto.MentionResponse;
+import com.example.chatwriteservice.service.MentionService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/api/mentions")
+@RequiredArgsConstructor
+public class MentionController {
+
+    private final MentionService mentionService;
+
+    /**
+     * Unacknowledged mentions of the user, newest first
+     */
+    @GetMapping
+    public ResponseEntity<List<MentionResponse>> getMentions(@RequestParam String email,
+                                                             @RequestParam(defaultValue = "50") int limit) {
+        return ResponseEntity.ok(mentionService.getMentions(email, limit));
+    }
+
+    /**
+     * Acknowledge one mention
+     */
+    @DeleteMapping("/{messageId}")
+    public ResponseEntity<Void> acknowledge(@PathVariable UUID messageId, @RequestParam String email) {
+        mentionService.acknowledge(email, messageId);
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Acknowledge all mentions of the user, or only those in one conversation
+     */
+    @DeleteMapping
+    public ResponseEntity<Map<String, Integer>> acknowledgeAll(@RequestParam String email,
+                                                               @RequestParam(required = false) UUID conversationId) {
+        return ResponseEntity.ok(Map.of("acknowledged", mentionService.acknowledgeAll(email, conversationId)));
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.chatwriteservice.controller;
+
+import com.example.chatwriteservice.dto.MessageSearchResponse;
+import com.example.chatwriteservice.service.MessageSearchService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/api/messages")
+@RequiredArgsConstructor
+public class MessageController {
+
+    private final MessageSearchService messageSearchService;
+
+    /**
+     * Full-text search in the conversations the user participates in, best match first
+     */
+    @GetMapping("/search")
+    public ResponseEntity<MessageSearchResponse> search(
+            @RequestParam String email,
+            @RequestParam String q,
+            @RequestParam(required = false) UUID conversationId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(messageSearchService.search(email, q, conversationId, cursor, limit));
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.chatwriteservice.controller;
+
+import com.example.chatwriteservice.dto.PresenceResponse;
+import com.example.chatwriteservice.service.PresenceService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/presence")
+@RequiredArgsConstructor
+public class PresenceController {
+
+    private final PresenceService presenceService;
+
+    /**
+     * Get presence of many users at once
+     */
+    @PostMapping("/query")
+    public ResponseEntity<List<PresenceResponse>> queryPresence(@RequestBody List<String> emails) {
+        return ResponseEntity.ok(presenceService.getPresence(emails));
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.chatwriteservice.controller;
+
+import com.example.chatwriteservice.dto.ReactionRequest;
+import com.example.chatwriteservice.dto.ReactionsResponse;
+import com.example.chatwriteservice.service.ReactionService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/api/conversations/{conversationId}/messages/{messageId}/reactions")
+@RequiredArgsConstructor
+public class ReactionController {
+
+    private final ReactionService reactionService;
+
+    /**
+     * Reaction counts of a message
+     */
+    @GetMapping
+    public ResponseEntity<ReactionsResponse> getReactions(@PathVariable UUID conversationId,
+                                                          @PathVariable UUID messageId) {
+        return ResponseEntity.ok(reactionService.getReactions(conversationId, messageId));
+    }
+
+    /**
+     * React to a message; reacting twice with the same emoji counts once
+     */
+    @PostMapping
+    public ResponseEntity<ReactionsResponse> addReaction(@PathVariable UUID conversationId,
+                                                         @PathVariable UUID messageId,
+                                                         @Valid @RequestBody ReactionRequest request) {
+        return ResponseEntity.ok(reactionService.addReaction(conversationId, messageId,
+                request.getEmail(), request.getEmoji()));
+    }
+
+    /**
+     * Take back a reaction
+     */
+    @DeleteMapping
+    public ResponseEntity<ReactionsResponse> removeReaction(@PathVariable UUID conversationId,
+                                                            @PathVariable UUID messageId,
+                                                            @RequestParam String email,
+                                                            @RequestParam String emoji) {
+        return ResponseEntity.ok(reactionService.removeReaction(conversationId, messageId, email, emoji));
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.chatwriteservice.controller;
+
+import com.example.chatwriteservice.dto.ScheduledMessageRequest;
+import com.example.chatwriteservice.dto.ScheduledMessageResponse;
+import com.example.chatwriteservice.service.ScheduledMessageService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/api/scheduled-messages")
+@RequiredArgsConstructor
+public class ScheduledMessageController {
+
+    private final ScheduledMessageService scheduledMessageService;
+
+    /**
+     * Schedule a message to be sent at sendAt
+     */
+    @PostMapping
+    public ResponseEntity<ScheduledMessageResponse> schedule(@Valid @RequestBody ScheduledMessageRequest request) {
+        return ResponseEntity.status(HttpStatus.CREATED).body(scheduledMessageService.schedule(request));
+    }
+
+    /**
+     * Messages the user has scheduled and that are not sent yet, soonest first
+     */
+    @GetMapping
+    public ResponseEntity<List<ScheduledMessageResponse>> getScheduledMessages(@RequestParam String email) {
+        return ResponseEntity.ok(scheduledMessageService.getScheduledMessages(email));
+    }
+
+    /**
+     * Cancel a scheduled message that is not sent yet
+     */
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> cancel(@PathVariable UUID id, @RequestParam String email) {
+        scheduledMessageService.cancel(id, email);
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.chatwriteservice.controller;
+
+import com.example.chatwriteservice.dto.SyncRequest;
+import com.example.chatwriteservice.dto.SyncResponse;
+import com.example.chatwriteservice.service.SyncService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/sync")
+@RequiredArgsConstructor
+public class SyncController {
+
+    private final SyncService syncService;
+
+    /**
+     * Catch up after a reconnect: new messages and changed conversations since the given positions
+     */
+    @PostMapping
+    public ResponseEntity<SyncResponse> sync(@Valid @RequestBody SyncRequest request) {
+        return ResponseEntity.ok(syncService.sync(request));
+    }
+}
@@ -2,8 +2,13 @@ package com.example.chatwriteservice.controller;
 
 import com.example.chatwriteservice.dto.MessageRequest;
 import com.example.chatwriteservice.dto.MessageResponse;
+import com.example.chatwriteservice.dto.ReactionRequest;
+import com.example.chatwriteservice.exception.BadRequestException;
+import com.example.chatwriteservice.service.BroadcastService;
 import com.example.chatwriteservice.service.MessageService;
-import jakarta.validation.Valid;
+import com.example.chatwriteservice.service.ReactionService;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
@@ -14,6 +19,9 @@ import org.springframework.messaging.handler.annotation.Payload;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Controller;
 
+import java.security.Principal;
+import java.util.Set;
+
 @Controller
 @RequiredArgsConstructor
 @Slf4j
@@ -21,14 +29,20 @@ public class WebSocketMessageController {
 
     private final MessageService messageService;
     private final SimpMessagingTemplate messagingTemplate;
+    private final BroadcastService broadcastService;
+    private final ReactionService reactionService;
+    private final Validator validator;
 
     /**
      * Handle incoming messages from clients
      * Client sends to: /app/chat.sendMessage
      * Server broadcasts to: /topic/conversation/{conversationId}
+     * The sender is the session's principal, whatever the payload says
      */
     @MessageMapping("/chat.sendMessage")
-    public void sendMessage(@Payload @Valid MessageRequest request) {
+    public void sendMessage(@Payload MessageRequest request, Principal principal) {
+        request.setSenderEmail(sender(principal));
+        validate(request);
         try {
             log.info("Received message from: {} for conversation: {}", 
                     request.getSenderEmail(), request.getConversationId());
@@ -36,11 +50,10 @@ public class WebSocketMessageController {
             // Save message to database
             MessageResponse response = messageService.sendMessage(request);
             
-            // Broadcast message to all subscribers of the conversation
-            String destination = "/topic/conversation/" + request.getConversationId();
-            messagingTemplate.convertAndSend(destination, response);
+            // Broadcast message to all subscribers of the conversation (serialized once)
+            broadcastService.broadcastToConversation(request.getConversationId(), response);
             
-            log.info("Message broadcasted to: {}", destination);
+            log.info("Message broadcasted to conversation: {}", request.getConversationId());
         } catch (Exception e) {
             log.error("Error sending message: {}", e.getMessage(), e);
             // Send error to sender
@@ -58,9 +71,57 @@ public class WebSocketMessageController {
      * Server broadcasts to: /topic/conversation/{conversationId}/typing
      */
     @MessageMapping("/chat.typing")
-    public void handleTyping(@Payload TypingIndicator indicator) {
-        String destination = "/topic/conversation/" + indicator.getConversationId() + "/typing";
-        messagingTemplate.convertAndSend(destination, indicator);
+    public void handleTyping(@Payload TypingIndicator indicator, Principal principal) {
+        indicator = new TypingIndicator(indicator.getConversationId(), sender(principal), indicator.isTyping());
+        String destination = BroadcastService.CONVERSATION_TOPIC + indicator.getConversationId() + "/typing";
+        broadcastService.send(destination, indicator);
+    }
+
+    /**
+     * Handle reactions
+     * Client sends to: /app/chat.react
+     * Server broadcasts coalesced counts to: /topic/conversation/{conversationId}
+     */
+    @MessageMapping("/chat.react")
+    public void react(@Payload ReactionRequest request, Principal principal) {
+        request.setEmail(sender(principal));
+        validate(request);
+        try {
+            if (request.getConversationId() == null || request.getMessageId() == null) {
+                throw new BadRequestException("Conversation ID and message ID are required");
+            }
+            if (request.isRemove()) {
+                reactionService.removeReaction(request.getConversationId(), request.getMessageId(),
+                        request.getEmail(), request.getEmoji());
+            } else {
+                reactionService.addReaction(request.getConversationId(), request.getMessageId(),
+                        request.getEmail(), request.getEmoji());
+            }
+        } catch (Exception e) {
+            log.debug("Reaction rejected: {}", e.getMessage());
+            messagingTemplate.convertAndSendToUser(
+                    request.getEmail(),
+                    "/queue/errors",
+                    "Error: " + e.getMessage()
+            );
+        }
+    }
+
+    /*
+     * Never the email in the payload: every session is authenticated on CONNECT
+     */
+    private static String sender(Principal principal) {
+        if (principal == null) {
+            throw new BadRequestException("Session is not authenticated");
+        }
+        return principal.getName();
+    }
+
+    private <T> void validate(T request) {
+        Set<ConstraintViolation<T>> violations = validator.validate(request);
+        if (!violations.isEmpty()) {
+            throw new BadRequestException(violations.iterator().next().getMessage());
+        }
     }
 
     // DTO for typing indicator
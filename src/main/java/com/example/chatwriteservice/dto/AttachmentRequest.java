@@ -0,0 +1,30 @@
+package com.example.chatwriteservice.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.PositiveOrZero;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AttachmentRequest {
+
+    @NotNull(message = "Conversation ID is required")
+    private UUID conversationId;
+
+    @NotBlank(message = "File name is required")
+    private String fileName;
+
+    private String contentType;
+
+    @NotNull(message = "Size is required")
+    @PositiveOrZero(message = "Size must not be negative")
+    private Long size;
+}
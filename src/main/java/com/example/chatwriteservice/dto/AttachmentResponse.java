@@ -0,0 +1,28 @@
+package com.example.chatwriteservice.dto;
+
+import com.example.chatwriteservice.entity.AttachmentStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AttachmentResponse {
+    private UUID id;
+    private UUID conversationId;
+    private String uploaderEmail;
+    private String fileName;
+    private String contentType;
+    private Long size;
+    /** Resume the upload from this offset */
+    private Long uploadedBytes;
+    private AttachmentStatus status;
+    private LocalDateTime createdAt;
+    private LocalDateTime completedAt;
+}
@@ -0,0 +1,36 @@
+package com.example.chatwriteservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class HotspotsResponse {
+    /** Length of the sliding window the counts cover */
+    private double windowSeconds;
+    /** By messages sent */
+    private List<Entry> conversations;
+    /** By messages sent */
+    private List<Entry> senders;
+    /** By broadcasts (messages, typing, presence, ...) */
+    private List<Entry> destinations;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Entry {
+        private String key;
+        /** Tag value of this key on the chat.hotspots.*.rate gauges (a hash for senders and destinations) */
+        private String tag;
+        /** Estimated count over the window; may overestimate slightly, never underestimates */
+        private long count;
+        private double perSecond;
+    }
+}
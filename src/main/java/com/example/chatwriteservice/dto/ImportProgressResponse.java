@@ -0,0 +1,25 @@
+package com.example.chatwriteservice.dto;
+
+import com.example.chatwriteservice.entity.ImportStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportProgressResponse {
+    private String jobId;
+    private UUID conversationId;
+    private ImportStatus status;
+    private Long rowsCommitted;
+    private Double rowsPerSecond;
+    private String lastError;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+}
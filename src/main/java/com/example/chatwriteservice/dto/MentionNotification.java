@@ -0,0 +1,23 @@
+package com.example.chatwriteservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Mentions of one user, coalesced over chat.mentions.delivery-interval and pushed to
+ * /user/queue/mentions
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MentionNotification {
+    public static final String TYPE = "MENTIONS";
+
+    private String type;
+    private List<MentionResponse> mentions;
+}
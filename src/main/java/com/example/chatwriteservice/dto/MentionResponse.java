@@ -0,0 +1,22 @@
+package com.example.chatwriteservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MentionResponse {
+    private UUID messageId;
+    private UUID conversationId;
+    private String senderEmail;
+    /** Start of the message content */
+    private String preview;
+    private LocalDateTime createdAt;
+}
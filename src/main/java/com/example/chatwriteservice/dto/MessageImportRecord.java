@@ -0,0 +1,25 @@
+package com.example.chatwriteservice.dto;
+
+import com.example.chatwriteservice.entity.MessageType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * One line of a bulk import stream (NDJSON). id and type are optional.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MessageImportRecord {
+    private UUID id;
+    private String senderEmail;
+    private MessageType type;
+    private String content;
+    private LocalDateTime createdAt;
+}
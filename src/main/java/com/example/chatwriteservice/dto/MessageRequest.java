@@ -26,4 +26,7 @@ public class MessageRequest {
     private MessageType type;
     
     private String content;
+
+    /** Completed attachment uploaded by the sender to the same conversation */
+    private UUID attachmentId;
 }
@@ -16,9 +16,13 @@ import java.util.UUID;
 public class MessageResponse {
     private UUID id;
     private UUID conversationId;
+    /** Per-conversation sequence number, assigned without gaps at insert; a gap means a missed (or since deleted) message */
+    private Long seq;
     private String senderEmail;
     private MessageType type;
     private String content;
+    /** Media of IMAGE / FILE / VIDEO / AUDIO messages, served by /api/attachments/{id}/content */
+    private UUID attachmentId;
     private LocalDateTime createdAt;
     private Boolean isDeleted;
 }
@@ -0,0 +1,21 @@
+package com.example.chatwriteservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MessageSearchResponse {
+    /** Best match first */
+    private List<MessageResponse> messages;
+    /** Pass back as cursor to get the next page; null when there are no more results */
+    private String nextCursor;
+    /** More messages match than chat.search.max-candidates; the older ones are not in any page */
+    private boolean truncated;
+}
@@ -0,0 +1,17 @@
+package com.example.chatwriteservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MetadataResponse {
+    /** The metadata document as JSON text, null if the conversation has none */
+    private String metadata;
+    /** Version of the document, for If-Match on the next patch */
+    private String etag;
+}
@@ -0,0 +1,19 @@
+package com.example.chatwriteservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PresenceResponse {
+    private String email;
+    private PresenceStatus status;
+    /** Last connect, disconnect or heartbeat seen from the user; null if never seen */
+    private LocalDateTime lastSeenAt;
+}
@@ -0,0 +1,6 @@
+package com.example.chatwriteservice.dto;
+
+public enum PresenceStatus {
+    ONLINE,
+    OFFLINE
+}
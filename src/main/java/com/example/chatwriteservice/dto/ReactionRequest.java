@@ -0,0 +1,31 @@
+package com.example.chatwriteservice.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReactionRequest {
+
+    /** STOMP only; REST takes it from the path */
+    private UUID conversationId;
+
+    /** STOMP only; REST takes it from the path */
+    private UUID messageId;
+
+    @NotBlank(message = "Email is required")
+    private String email;
+
+    @NotBlank(message = "Emoji is required")
+    private String emoji;
+
+    /** STOMP only: remove the reaction instead of adding it */
+    private boolean remove;
+}
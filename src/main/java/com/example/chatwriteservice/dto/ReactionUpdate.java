@@ -0,0 +1,26 @@
+package com.example.chatwriteservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Coalesced reaction counts pushed to /topic/conversation/{conversationId}
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReactionUpdate {
+    public static final String TYPE = "REACTIONS";
+
+    /** Always REACTIONS, tells these frames apart from messages on the same topic */
+    private String type;
+    private UUID conversationId;
+    /** Current counts of the messages that changed since the previous update */
+    private List<ReactionsResponse> reactions;
+}
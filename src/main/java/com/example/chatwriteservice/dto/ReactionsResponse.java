@@ -0,0 +1,19 @@
+package com.example.chatwriteservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReactionsResponse {
+    private UUID messageId;
+    /** Count per emoji, highest first */
+    private Map<String, Long> counts;
+}
@@ -0,0 +1,30 @@
+package com.example.chatwriteservice.dto;
+
+import com.example.chatwriteservice.entity.MessageType;
+import com.example.chatwriteservice.entity.ScheduledMessageStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ScheduledMessageResponse {
+    /** Also the id of the message once sent */
+    private UUID id;
+    private UUID conversationId;
+    private String senderEmail;
+    private MessageType type;
+    private String content;
+    private UUID attachmentId;
+    private LocalDateTime sendAt;
+    private ScheduledMessageStatus status;
+    /** Why sending failed, for FAILED */
+    private String error;
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,23 @@
+package com.example.chatwriteservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SessionBacklogResponse {
+    private String sessionId;
+    /** User of the session, if it identified itself on CONNECT */
+    private String email;
+    /** Frames handed to the session and not yet written to the socket */
+    private int queuedFrames;
+    /** How long the write in progress has been blocked; 0 when idle */
+    private long stalledMillis;
+    /** Ephemeral frames are dropped and a resync marker sent until the backlog drains */
+    private boolean degraded;
+    private long droppedFrames;
+}
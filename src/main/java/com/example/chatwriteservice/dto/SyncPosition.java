@@ -0,0 +1,21 @@
+package com.example.chatwriteservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * What a client has of one conversation. Both numbers follow commit order within the
+ * conversation, so "greater than" never misses a late commit.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SyncPosition {
+    /** Highest message seq received */
+    private Long seq;
+    /** Conversation version of the last conversation entry received */
+    private Long version;
+}
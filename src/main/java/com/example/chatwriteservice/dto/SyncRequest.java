@@ -0,0 +1,28 @@
+package com.example.chatwriteservice.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SyncRequest {
+
+    @NotBlank(message = "Email is required")
+    private String email;
+
+    /** Position per known conversation; memberships missing here are synced from the time the user joined */
+    private Map<UUID, SyncPosition> positions;
+
+    /** nextToken of the previous page; the rest of the request must be unchanged */
+    private String continuationToken;
+
+    private Integer limit;
+}
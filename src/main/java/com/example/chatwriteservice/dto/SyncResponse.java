@@ -0,0 +1,25 @@
+package com.example.chatwriteservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SyncResponse {
+    /** New messages, by conversation and then seq */
+    private List<MessageResponse> messages;
+    /** Conversations joined or changed since the position; participantEmails lists only members who joined since */
+    private List<ConversationResponse> conversations;
+    /** Pass back as continuationToken to get the next page; null when caught up */
+    private String nextToken;
+    /** Positions reached by this page; merge into the request positions (highest wins) */
+    private Map<UUID, SyncPosition> positions;
+}
@@ -0,0 +1,55 @@
+package com.example.chatwriteservice.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Media referenced by messages. The bytes live in the BlobStore under the attachment id;
+ * uploadedBytes mirrors the stored size after each chunk.
+ */
+@Entity
+@Table(name = "attachments")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class Attachment {
+    @Id
+    private UUID id;
+
+    @Column(name = "conversation_id", nullable = false)
+    private UUID conversationId;
+
+    @Column(name = "uploader_email", nullable = false)
+    private String uploaderEmail;
+
+    @Column(name = "file_name", nullable = false)
+    private String fileName;
+
+    @Column(name = "content_type", nullable = false)
+    private String contentType;
+
+    @Column(nullable = false)
+    private Long size;
+
+    @Column(name = "uploaded_bytes", nullable = false)
+    private Long uploadedBytes;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private AttachmentStatus status;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        if (createdAt == null) createdAt = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,6 @@
+package com.example.chatwriteservice.entity;
+
+public enum AttachmentStatus {
+    UPLOADING,
+    COMPLETED
+}
@@ -26,6 +26,10 @@ public class Conversation {
     @Column(columnDefinition = "jsonb")
     private String metadata;
 
+    /** Sorted participant emails of a DIRECT conversation; null for groups */
+    @Column(name = "pair_key", updatable = false)
+    private String pairKey;
+
     @Column(name = "created_at")
     private LocalDateTime createdAt;
 
@@ -0,0 +1,7 @@
+package com.example.chatwriteservice.entity;
+
+public enum ImportStatus {
+    RUNNING,
+    COMPLETED,
+    FAILED
+}
@@ -1,5 +1,6 @@
 package com.example.chatwriteservice.entity;
 
+import com.example.chatwriteservice.storage.CompressedContentConverter;
 import jakarta.persistence.*;
 import lombok.*;
 
@@ -34,8 +35,16 @@ public class Message {
     private MessageType type;
 
     @Column(columnDefinition = "TEXT")
+    @Convert(converter = CompressedContentConverter.class)
     private String content;
 
+    /** Per-conversation commit order, assigned by MessageJdbcRepository#insertIfParticipant */
+    @Column(name = "seq")
+    private Long seq;
+
+    @Column(name = "attachment_id")
+    private UUID attachmentId;
+
     @Column(name = "is_deleted")
     private Boolean isDeleted;
 
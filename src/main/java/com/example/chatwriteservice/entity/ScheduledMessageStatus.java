@@ -0,0 +1,9 @@
+package com.example.chatwriteservice.entity;
+
+public enum ScheduledMessageStatus {
+    PENDING,
+    SENDING,
+    SENT,
+    CANCELLED,
+    FAILED
+}
@@ -0,0 +1,11 @@
+package com.example.chatwriteservice.repository;
+
+import com.example.chatwriteservice.entity.Attachment;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.UUID;
+
+@Repository
+public interface AttachmentRepository extends JpaRepository<Attachment, UUID> {
+}
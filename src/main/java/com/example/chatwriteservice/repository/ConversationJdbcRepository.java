@@ -0,0 +1,174 @@
+package com.example.chatwriteservice.repository;
+
+import com.example.chatwriteservice.exception.ConflictException;
+import com.example.chatwriteservice.exception.PreconditionFailedException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Plain JDBC access to the conversations table for statements JPA cannot express
+ */
+@Repository
+@RequiredArgsConstructor
+public class ConversationJdbcRepository {
+
+    /*
+     * Loses quietly to a concurrent insert of the same pair: the unique index on pair_key makes
+     * the second insert wait for the first transaction and then do nothing (db/direct_conversation_pairs.sql).
+     */
+    private static final String INSERT_DIRECT = """
+            INSERT INTO conversations (id, title, type, metadata, pair_key, created_at, updated_at)
+            VALUES (?, ?, 'DIRECT', CAST(? AS jsonb), ?, ?, ?)
+            ON CONFLICT (pair_key) WHERE pair_key IS NOT NULL DO NOTHING
+            RETURNING id
+            """;
+
+    private static final String ETAG = "md5(COALESCE(CAST(%s AS text), ''))";
+
+    /* SQLSTATEs raised by jsonb_apply_patch */
+    private static final String TEST_FAILED = "JPTST";
+    private static final String PATH_NOT_FOUND = "JPPTH";
+
+    /*
+     * Same shape as the message insert: the update and the existence check in one round trip, so
+     * a missing conversation can be told apart from a failed precondition. Preconditions are in
+     * the WHERE clause, which PostgreSQL re-checks against the latest row version when a
+     * concurrent update wins the row lock: compare-and-set without a read-modify-write cycle.
+     */
+    private static final String PATCH_METADATA = """
+            WITH updated AS (
+                UPDATE conversations SET metadata = %s, updated_at = ?
+                WHERE id = ?%s
+                RETURNING metadata
+            )
+            SELECT EXISTS (SELECT 1 FROM conversations WHERE id = ?) AS conversation_exists,
+                   u.metadata IS NOT NULL AS updated,
+                   CAST(u.metadata AS text) AS metadata,
+                   %s AS etag
+            FROM (SELECT 1) AS one
+            LEFT JOIN updated u ON true
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Insert a DIRECT conversation unless one already exists for the pair.
+     * Returns true when this call created it.
+     */
+    public boolean insertDirectIfAbsent(UUID id, String pairKey, String title, String metadata, LocalDateTime now) {
+        return !jdbcTemplate.queryForList(INSERT_DIRECT, UUID.class, id, title, metadata, pairKey, now, now).isEmpty();
+    }
+
+    public UUID findIdByPairKey(String pairKey) {
+        List<UUID> ids = jdbcTemplate.queryForList(
+                "SELECT id FROM conversations WHERE pair_key = ?", UUID.class, pairKey);
+        return ids.isEmpty() ? null : ids.get(0);
+    }
+
+    /**
+     * Outcome of a metadata read or patch; metadata and etag are null when nothing matched
+     */
+    public record MetadataResult(boolean conversationExists, boolean updated, String metadata, String etag) {
+    }
+
+    /**
+     * One path-level change; path is the list of keys / array indexes from the document root
+     */
+    public record PathChange(Kind kind, String[] path, String valueJson) {
+        public enum Kind {
+            /** Set the value, creating the last key if missing; inserts before an array index ("-" appends) */
+            SET,
+            /** Set the value only if the path exists */
+            REPLACE,
+            /** Remove the value, which must exist */
+            REMOVE,
+            /** Precondition: the value at path, after the preceding changes, equals valueJson */
+            TEST
+        }
+    }
+
+    public MetadataResult findMetadata(UUID id) {
+        List<MetadataResult> rows = jdbcTemplate.query(
+                "SELECT CAST(metadata AS text) AS metadata, " + ETAG.formatted("metadata") + " AS etag "
+                        + "FROM conversations WHERE id = ?",
+                (rs, rowNum) -> new MetadataResult(true, false, rs.getString("metadata"), rs.getString("etag")),
+                id);
+        return rows.isEmpty() ? new MetadataResult(false, false, null, null) : rows.get(0);
+    }
+
+    /**
+     * Apply an RFC 7396 merge patch in the database (jsonb_merge_patch, db/conversation_metadata_patch.sql).
+     * With expectedEtag set, the patch only applies if the stored document still has that etag.
+     */
+    public MetadataResult mergePatchMetadata(UUID id, String patchJson, String expectedEtag, LocalDateTime now) {
+        List<Object> args = new ArrayList<>(List.of(patchJson));
+        return patchMetadata(id, "jsonb_merge_patch(metadata, CAST(? AS jsonb))", args, expectedEtag, now);
+    }
+
+    /**
+     * Apply path-level changes in order with jsonb_apply_patch (db/conversation_metadata_patch.sql)
+     * in a single statement. Each change, TEST included, sees the document left by the previous one.
+     *
+     * @throws PreconditionFailedException when a TEST change does not match
+     * @throws ConflictException when a path (or, for SET, its parent) does not exist
+     */
+    public MetadataResult patchMetadataPaths(UUID id, List<PathChange> changes, String expectedEtag,
+                                             LocalDateTime now) {
+        // Concatenated one by one: jsonb_build_array takes at most 100 arguments
+        StringBuilder operations = new StringBuilder("CAST('[]' AS jsonb)");
+        List<Object> args = new ArrayList<>();
+        for (PathChange change : changes) {
+            operations.append(" || jsonb_build_array(jsonb_build_object("
+                    + "'op', CAST(? AS text), 'path', to_jsonb(CAST(? AS text[])), 'value', CAST(? AS jsonb)))");
+            args.add(switch (change.kind()) {
+                case SET -> "add";
+                case REPLACE -> "replace";
+                case REMOVE -> "remove";
+                case TEST -> "test";
+            });
+            args.add(change.path());
+            args.add(change.valueJson());
+        }
+        try {
+            return patchMetadata(id, "jsonb_apply_patch(metadata, " + operations + ")", args, expectedEtag, now);
+        } catch (DataAccessException e) {
+            String state = e.getMostSpecificCause() instanceof SQLException sql ? sql.getSQLState() : null;
+            if (TEST_FAILED.equals(state)) {
+                throw new PreconditionFailedException("A test operation failed: " + e.getMostSpecificCause().getMessage());
+            }
+            if (PATH_NOT_FOUND.equals(state)) {
+                throw new ConflictException("Patch cannot be applied: " + e.getMostSpecificCause().getMessage());
+            }
+            throw e;
+        }
+    }
+
+    private MetadataResult patchMetadata(UUID id, String expression, List<Object> expressionArgs,
+                                         String expectedEtag, LocalDateTime now) {
+        String condition = "";
+        List<Object> args = new ArrayList<>(expressionArgs);
+        args.add(now);
+        args.add(id);
+        if (expectedEtag != null) {
+            condition = " AND " + ETAG.formatted("metadata") + " = ?";
+            args.add(expectedEtag);
+        }
+        args.add(id);
+
+        String sql = PATCH_METADATA.formatted(expression, condition, ETAG.formatted("u.metadata"));
+        return jdbcTemplate.queryForObject(sql, (rs, rowNum) -> new MetadataResult(
+                        rs.getBoolean("conversation_exists"),
+                        rs.getBoolean("updated"),
+                        rs.getString("metadata"),
+                        rs.getBoolean("updated") ? rs.getString("etag") : null),
+                args.toArray());
+    }
+}
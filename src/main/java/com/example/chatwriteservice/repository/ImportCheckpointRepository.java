@@ -0,0 +1,19 @@
+package com.example.chatwriteservice.repository;
+
+import com.example.chatwriteservice.entity.ImportCheckpoint;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface ImportCheckpointRepository extends JpaRepository<ImportCheckpoint, String> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM ImportCheckpoint c WHERE c.jobId = :jobId")
+    Optional<ImportCheckpoint> findByIdForUpdate(@Param("jobId") String jobId);
+}
@@ -0,0 +1,50 @@
+package com.example.chatwriteservice.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.sql.ResultSet;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Membership as dense user ids (users.uid, db/user_dense_ids.sql), without loading entities
+ */
+@Repository
+@RequiredArgsConstructor
+public class MembershipJdbcRepository {
+
+    private static final String SELECT_MEMBER_UIDS = """
+            SELECT u.uid
+            FROM participants p
+            JOIN users u ON u.email = p.email
+            WHERE p.conversation_id = ?
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Uids of all participants, streamed straight into a bitmap
+     */
+    public RoaringBitmap findMemberUids(UUID conversationId) {
+        RoaringBitmap members = new RoaringBitmap();
+        jdbcTemplate.query(SELECT_MEMBER_UIDS,
+                (RowCallbackHandler) (ResultSet rs) -> members.add(rs.getInt(1)),
+                conversationId);
+        members.runOptimize();
+        return members;
+    }
+
+    public List<String> findMemberEmails(UUID conversationId) {
+        return jdbcTemplate.queryForList("SELECT email FROM participants WHERE conversation_id = ?",
+                String.class, conversationId);
+    }
+
+    public Integer findUid(String email) {
+        List<Integer> uids = jdbcTemplate.queryForList("SELECT uid FROM users WHERE email = ?", Integer.class, email);
+        return uids.isEmpty() ? null : uids.get(0);
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.chatwriteservice.repository;
+
+import com.example.chatwriteservice.dto.MentionResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Unacknowledged mentions (db/mentions.sql)
+ */
+@Repository
+@RequiredArgsConstructor
+public class MentionJdbcRepository {
+
+    /*
+     * A whole delivery batch in one statement; mentions in conversations deleted meanwhile are skipped
+     */
+    private static final String INSERT_ALL = """
+            INSERT INTO mentions (email, message_id, conversation_id, sender_email, preview, created_at)
+            SELECT i.email, i.message_id, i.conversation_id, i.sender_email, i.preview, i.created_at
+            FROM unnest(CAST(? AS text[]), CAST(? AS uuid[]), CAST(? AS uuid[]), CAST(? AS text[]),
+                        CAST(? AS text[]), CAST(? AS timestamp[]))
+                AS i (email, message_id, conversation_id, sender_email, preview, created_at)
+            JOIN conversations c ON c.id = i.conversation_id
+            ON CONFLICT (email, message_id) DO NOTHING
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Store mentions, by mentioned user
+     */
+    public void insertAll(Map<String, List<MentionResponse>> mentionsByEmail) {
+        int size = mentionsByEmail.values().stream().mapToInt(List::size).sum();
+        Object[] emails = new Object[size];
+        Object[] messageIds = new Object[size];
+        Object[] conversationIds = new Object[size];
+        Object[] senders = new Object[size];
+        Object[] previews = new Object[size];
+        Object[] createdAt = new Object[size];
+        int i = 0;
+        for (Map.Entry<String, List<MentionResponse>> entry : mentionsByEmail.entrySet()) {
+            for (MentionResponse mention : entry.getValue()) {
+                emails[i] = entry.getKey();
+                messageIds[i] = mention.getMessageId();
+                conversationIds[i] = mention.getConversationId();
+                senders[i] = mention.getSenderEmail();
+                previews[i] = mention.getPreview();
+                createdAt[i] = Timestamp.valueOf(mention.getCreatedAt());
+                i++;
+            }
+        }
+        jdbcTemplate.update(connection -> {
+            PreparedStatement ps = connection.prepareStatement(INSERT_ALL);
+            ps.setArray(1, connection.createArrayOf("text", emails));
+            ps.setArray(2, connection.createArrayOf("uuid", messageIds));
+            ps.setArray(3, connection.createArrayOf("uuid", conversationIds));
+            ps.setArray(4, connection.createArrayOf("text", senders));
+            ps.setArray(5, connection.createArrayOf("text", previews));
+            ps.setArray(6, connection.createArrayOf("timestamp", createdAt));
+            return ps;
+        });
+    }
+
+    /**
+     * Newest unacknowledged mentions of a user
+     */
+    public List<MentionResponse> findUnacknowledged(String email, int limit) {
+        return jdbcTemplate.query("""
+                        SELECT message_id, conversation_id, sender_email, preview, created_at
+                        FROM mentions WHERE email = ? ORDER BY created_at DESC LIMIT ?
+                        """,
+                (rs, rowNum) -> MentionResponse.builder()
+                        .messageId(rs.getObject("message_id", UUID.class))
+                        .conversationId(rs.getObject("conversation_id", UUID.class))
+                        .senderEmail(rs.getString("sender_email"))
+                        .preview(rs.getString("preview"))
+                        .createdAt(rs.getTimestamp("created_at").toLocalDateTime())
+                        .build(),
+                email, limit);
+    }
+
+    public boolean acknowledge(String email, UUID messageId) {
+        return jdbcTemplate.update("DELETE FROM mentions WHERE email = ? AND message_id = ?", email, messageId) == 1;
+    }
+
+    /**
+     * Acknowledge every mention of a user, or only those in one conversation
+     */
+    public int acknowledgeAll(String email, UUID conversationId) {
+        if (conversationId == null) {
+            return jdbcTemplate.update("DELETE FROM mentions WHERE email = ?", email);
+        }
+        return jdbcTemplate.update("DELETE FROM mentions WHERE email = ? AND conversation_id = ?", email, conversationId);
+    }
+}
@@ -0,0 +1,289 @@
+package com.example.chatwriteservice.repository;
+
+import com.example.chatwriteservice.dto.MessageImportRecord;
+import com.example.chatwriteservice.dto.MessageResponse;
+import com.example.chatwriteservice.entity.MessageType;
+import com.example.chatwriteservice.storage.MessageContentCodec;
+import lombok.RequiredArgsConstructor;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.PGCopyOutputStream;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Plain JDBC access to the messages table for paths that must not go through the
+ * persistence context (bulk reads, streaming).
+ */
+@Repository
+@RequiredArgsConstructor
+public class MessageJdbcRepository {
+
+    private static final String SELECT_COLUMNS =
+            "SELECT id, conversation_id, seq, sender_email, type, content, attachment_id, created_at, is_deleted "
+                    + "FROM messages ";
+
+    private static final String COPY_MESSAGES =
+            "COPY messages (id, conversation_id, seq, sender_email, type, content, search_text, created_at, is_deleted) "
+                    + "FROM STDIN (FORMAT text)";
+
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    /*
+     * Membership check, sequence number, insert and conversation touch in one statement. The
+     * conversation row is only updated when the participant row exists (which implies both the
+     * conversation and the user exist), and its row lock is held until the statement commits:
+     * numbers are gapless and follow commit order within a conversation, across instances.
+     * The two EXISTS flags let the caller tell "not found" from "not a participant".
+     */
+    private static final String INSERT_IF_PARTICIPANT = """
+            WITH member AS (
+                SELECT p.conversation_id, p.email
+                FROM participants p
+                WHERE p.conversation_id = ? AND p.email = ?
+            ), numbered AS (
+                UPDATE conversations c SET next_seq = c.next_seq + 1, updated_at = ?
+                FROM member
+                WHERE c.id = member.conversation_id
+                RETURNING c.next_seq - 1 AS seq
+            ), inserted AS (
+                INSERT INTO messages (id, conversation_id, seq, sender_email, type, content, search_text,
+                                      attachment_id, created_at, is_deleted)
+                SELECT ?, m.conversation_id, n.seq, m.email, CAST(? AS message_type), ?, ?, ?, ?, false
+                FROM member m, numbered n
+                RETURNING id, conversation_id, seq, sender_email, type, content, attachment_id, created_at, is_deleted
+            )
+            SELECT EXISTS (SELECT 1 FROM conversations WHERE id = ?) AS conversation_exists,
+                   EXISTS (SELECT 1 FROM users WHERE email = ?) AS user_exists,
+                   i.*
+            FROM (SELECT 1) AS one
+            LEFT JOIN inserted i ON true
+            """;
+
+    /* A range of sequence numbers for the bulk import, locking the conversation row until commit */
+    private static final String RESERVE_SEQUENCE =
+            "UPDATE conversations SET next_seq = next_seq + ? WHERE id = ? RETURNING next_seq - ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MessageContentCodec contentCodec;
+
+    /**
+     * Stream every non-deleted message of a conversation, oldest first, through a forward-only
+     * cursor. Must run inside a transaction: the PostgreSQL driver only honours the fetch size
+     * (and therefore keeps memory flat) when autocommit is off.
+     */
+    public void streamByConversationId(UUID conversationId, int fetchSize, Consumer<MessageResponse> consumer) {
+        jdbcTemplate.query(
+                connection -> {
+                    PreparedStatement ps = connection.prepareStatement(
+                            SELECT_COLUMNS + "WHERE conversation_id = ? AND is_deleted = false ORDER BY seq",
+                            ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                    ps.setFetchSize(fetchSize);
+                    ps.setObject(1, conversationId);
+                    return ps;
+                },
+                (ResultSet rs) -> consumer.accept(mapRow(rs, contentCodec)));
+    }
+
+    /**
+     * Ranked full-text search restricted to the conversations the user participates in.
+     * Uses the trigger-maintained content_tsv column and its GIN index (db/message_search.sql).
+     * Only the newest maxCandidates matches are ranked and fetched. The index scan still
+     * visits every match, but ranking and content reads stay bounded for a common term; the
+     * result says whether older matches were left out. Results are ordered by
+     * (rank, created_at, id) descending; pass the last hit's position as "after" to continue
+     * (keyset pagination within the candidates).
+     */
+    public SearchResult search(String email, String query, UUID conversationId, SearchHit after,
+                               int limit, int maxCandidates) {
+        StringBuilder sql = new StringBuilder("""
+                SELECT * FROM (
+                    SELECT c.id, c.conversation_id, c.seq, c.sender_email, c.type, c.content, c.attachment_id,
+                           c.created_at, c.is_deleted, c.candidate,
+                           ts_rank(c.content_tsv, c.q) AS rank,
+                           count(*) OVER () > ? AS truncated
+                    FROM (
+                        SELECT m.*, q, row_number() OVER (ORDER BY m.created_at DESC) AS candidate
+                        FROM messages m, websearch_to_tsquery('simple', ?) q
+                        WHERE m.conversation_id IN (SELECT p.conversation_id FROM participants p WHERE p.email = ?)
+                          AND m.is_deleted = false
+                          AND m.content_tsv @@ q
+                """);
+        List<Object> args = new ArrayList<>(List.of(maxCandidates, query, email));
+        if (conversationId != null) {
+            sql.append("          AND m.conversation_id = ?\n");
+            args.add(conversationId);
+        }
+        // One more than ranked, to tell whether older matches exist
+        sql.append("        ORDER BY m.created_at DESC LIMIT ?\n    ) c\n) r\nWHERE r.candidate <= ?\n");
+        args.add(maxCandidates + 1);
+        args.add(maxCandidates);
+        if (after != null) {
+            sql.append("  AND (r.rank, r.created_at, r.id) < (CAST(? AS real), ?, ?)\n");
+            args.add(after.rank());
+            args.add(after.message().getCreatedAt());
+            args.add(after.message().getId());
+        }
+        sql.append("ORDER BY r.rank DESC, r.created_at DESC, r.id DESC LIMIT ?");
+        args.add(limit);
+
+        boolean[] truncated = new boolean[1];
+        List<SearchHit> hits = jdbcTemplate.query(sql.toString(),
+                (rs, rowNum) -> {
+                    truncated[0] |= rs.getBoolean("truncated");
+                    return new SearchHit(mapRow(rs, contentCodec), rs.getFloat("rank"));
+                },
+                args.toArray());
+        return new SearchResult(hits, truncated[0]);
+    }
+
+    /**
+     * Non-deleted messages with seq greater than afterSeq, in sequence order. Used by clients
+     * to fill gaps; a sequence number missing from the result does not exist.
+     */
+    public List<MessageResponse> findBySeqAfter(UUID conversationId, long afterSeq, int limit) {
+        return jdbcTemplate.query(
+                SELECT_COLUMNS + "WHERE conversation_id = ? AND seq > ? AND is_deleted = false ORDER BY seq LIMIT ?",
+                (rs, rowNum) -> mapRow(rs, contentCodec),
+                conversationId, afterSeq, limit);
+    }
+
+    /**
+     * Reserve count sequence numbers of a conversation. Returns the first one, or null when the
+     * conversation does not exist. Commits with the surrounding transaction; sends to the
+     * conversation wait for it, so imported numbers never interleave with live ones.
+     */
+    public Long reserveSequence(UUID conversationId, int count) {
+        List<Long> start = jdbcTemplate.queryForList(RESERVE_SEQUENCE, Long.class, count, conversationId, count);
+        return start.isEmpty() ? null : start.get(0);
+    }
+
+    public record SearchHit(MessageResponse message, float rank) {
+    }
+
+    /**
+     * A page of hits; truncated when more matches exist than were ranked
+     */
+    public record SearchResult(List<SearchHit> hits, boolean truncated) {
+    }
+
+    /**
+     * Outcome of {@link #insertIfParticipant}: message is null when nothing was inserted
+     */
+    public record InsertResult(boolean conversationExists, boolean userExists, MessageResponse message) {
+    }
+
+    /**
+     * Insert a message in a single round trip, without touching the persistence context.
+     * Runs atomically on its own, so no surrounding transaction is needed.
+     */
+    public InsertResult insertIfParticipant(UUID id, UUID conversationId, String senderEmail,
+                                            MessageType type, String content, UUID attachmentId,
+                                            LocalDateTime createdAt) {
+        String stored = contentCodec.encode(content);
+        return jdbcTemplate.queryForObject(INSERT_IF_PARTICIPANT, (rs, rowNum) -> new InsertResult(
+                        rs.getBoolean("conversation_exists"),
+                        rs.getBoolean("user_exists"),
+                        rs.getObject("id") != null ? mapRow(rs, contentCodec) : null),
+                conversationId, senderEmail,
+                createdAt,
+                id, type.name(), stored, searchText(content, stored), attachmentId, createdAt,
+                conversationId, senderEmail);
+    }
+
+    /**
+     * Load a batch of messages with the COPY protocol on the connection of the current
+     * transaction. Records must already be validated (sender is a participant, createdAt set).
+     * They are numbered firstSeq, firstSeq + 1, ... in list order.
+     */
+    public void copyMessages(UUID conversationId, long firstSeq, List<MessageImportRecord> records) {
+        jdbcTemplate.execute((Connection connection) -> {
+            PGConnection pgConnection = connection.unwrap(PGConnection.class);
+            try (Writer writer = new BufferedWriter(new OutputStreamWriter(
+                    new PGCopyOutputStream(pgConnection, COPY_MESSAGES, COPY_BUFFER_SIZE),
+                    StandardCharsets.UTF_8), COPY_BUFFER_SIZE)) {
+                String conversation = conversationId.toString();
+                long seq = firstSeq;
+                for (MessageImportRecord record : records) {
+                    writer.write(record.getId().toString());
+                    writer.write('\t');
+                    writer.write(conversation);
+                    writer.write('\t');
+                    writer.write(Long.toString(seq++));
+                    writer.write('\t');
+                    writeCopyValue(writer, record.getSenderEmail());
+                    writer.write('\t');
+                    writer.write(record.getType().name());
+                    writer.write('\t');
+                    String stored = contentCodec.encode(record.getContent());
+                    writeCopyValue(writer, stored);
+                    writer.write('\t');
+                    writeCopyValue(writer, searchText(record.getContent(), stored));
+                    writer.write('\t');
+                    writer.write(record.getCreatedAt().toString());
+                    writer.write("\tf\n");
+                }
+            } catch (IOException e) {
+                throw new SQLException("COPY into messages failed", e);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Plain text for the search trigger (db/message_search.sql) when content is not stored as
+     * is; null otherwise, so plain content is not sent twice
+     */
+    static String searchText(String content, String stored) {
+        return stored == null || stored.equals(content) ? null : content;
+    }
+
+    /**
+     * Escape a value for COPY text format: backslash, tab, newline and carriage return
+     * are backslash-escaped and null is written as \N.
+     */
+    static void writeCopyValue(Writer writer, String value) throws IOException {
+        if (value == null) {
+            writer.write("\\N");
+            return;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\' -> writer.write("\\\\");
+                case '\t' -> writer.write("\\t");
+                case '\n' -> writer.write("\\n");
+                case '\r' -> writer.write("\\r");
+                default -> writer.write(c);
+            }
+        }
+    }
+
+    static MessageResponse mapRow(ResultSet rs, MessageContentCodec contentCodec) throws SQLException {
+        return MessageResponse.builder()
+                .id(rs.getObject("id", UUID.class))
+                .conversationId(rs.getObject("conversation_id", UUID.class))
+                .seq(rs.getObject("seq", Long.class))
+                .senderEmail(rs.getString("sender_email"))
+                .type(MessageType.valueOf(rs.getString("type")))
+                .content(contentCodec.decode(rs.getString("content")))
+                .attachmentId(rs.getObject("attachment_id", UUID.class))
+                .createdAt(rs.getTimestamp("created_at").toLocalDateTime())
+                .isDeleted(rs.getBoolean("is_deleted"))
+                .build();
+    }
+}
@@ -6,6 +6,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
@@ -17,4 +18,14 @@ public interface ParticipantRepository extends JpaRepository<Participant, Long>
     
     @Query("SELECT p FROM Participant p WHERE p.conversation.id = :conversationId AND p.user.email = :email")
     Participant findByConversationIdAndEmail(@Param("conversationId") UUID conversationId, @Param("email") String email);
+
+    /**
+     * (conversationId, email) pairs for all memberships of the given users
+     */
+    @Query("SELECT p.conversation.id, p.user.email FROM Participant p WHERE p.user.email IN :emails")
+    List<Object[]> findConversationIdsByEmailIn(@Param("emails") Collection<String> emails);
+
+    @Query("SELECT p.user.email FROM Participant p WHERE p.conversation.id = :conversationId AND p.user.email IN :emails")
+    List<String> findEmailsByConversationIdAndEmailIn(@Param("conversationId") UUID conversationId,
+                                                      @Param("emails") Collection<String> emails);
 }
@@ -0,0 +1,124 @@
+package com.example.chatwriteservice.repository;
+
+import com.example.chatwriteservice.service.ReactionRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Batched persistence of message reactions (db/message_reactions.sql).
+ */
+@Repository
+@RequiredArgsConstructor
+public class ReactionJdbcRepository {
+
+    /*
+     * No row when the message does not exist in the conversation; a single row with a null
+     * emoji when it exists without reactions.
+     */
+    private static final String FIND_COUNTS = """
+            SELECT c.emoji, c.count
+            FROM (SELECT 1) AS one
+            LEFT JOIN message_reaction_counts c ON c.message_id = ? AND c.count > 0
+            WHERE EXISTS (SELECT 1 FROM messages WHERE id = ? AND conversation_id = ? AND is_deleted = false)
+            """;
+
+    /*
+     * A whole batch of coalesced per-user changes in one statement. Counts move by the rows
+     * that were actually inserted or deleted; changes of deleted conversations are skipped.
+     */
+    private static final String APPLY_CHANGES = """
+            WITH input (message_id, conversation_id, emoji, email, added) AS (
+                SELECT * FROM unnest(CAST(? AS uuid[]), CAST(? AS uuid[]), CAST(? AS text[]),
+                                     CAST(? AS text[]), CAST(? AS boolean[]))
+            ), inserted AS (
+                INSERT INTO message_reactions (message_id, emoji, email, conversation_id, created_at)
+                SELECT i.message_id, i.emoji, i.email, i.conversation_id, ?
+                FROM input i
+                JOIN conversations c ON c.id = i.conversation_id
+                WHERE i.added
+                ON CONFLICT (message_id, emoji, email) DO NOTHING
+                RETURNING message_id, conversation_id, emoji, 1 AS delta
+            ), deleted AS (
+                DELETE FROM message_reactions r
+                USING input i
+                WHERE NOT i.added AND r.message_id = i.message_id AND r.emoji = i.emoji AND r.email = i.email
+                RETURNING r.message_id, r.conversation_id, r.emoji, -1 AS delta
+            ), deltas AS (
+                SELECT message_id, conversation_id, emoji, sum(delta) AS delta
+                FROM (SELECT * FROM inserted UNION ALL SELECT * FROM deleted) changed
+                GROUP BY message_id, conversation_id, emoji
+                HAVING sum(delta) <> 0
+            )
+            INSERT INTO message_reaction_counts (message_id, emoji, conversation_id, count)
+            SELECT message_id, emoji, conversation_id, delta FROM deltas
+            ON CONFLICT (message_id, emoji) DO UPDATE SET count = message_reaction_counts.count + EXCLUDED.count
+            RETURNING message_id, emoji, count
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Reaction counts of a message by emoji, or null when the message does not exist in the
+     * conversation
+     */
+    public Map<String, Long> findCounts(UUID conversationId, UUID messageId) {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        boolean[] exists = new boolean[1];
+        jdbcTemplate.query(FIND_COUNTS, rs -> {
+            exists[0] = true;
+            String emoji = rs.getString("emoji");
+            if (emoji != null) {
+                counts.put(emoji, rs.getLong("count"));
+            }
+        }, messageId, messageId, conversationId);
+        return exists[0] ? counts : null;
+    }
+
+    /**
+     * Persist a batch of changes (at most one per user reaction). Returns the new count of
+     * every (message, emoji) whose count changed.
+     */
+    public Map<ReactionRegistry.ReactionKey, Long> applyChanges(List<ReactionRegistry.PendingChange> changes,
+                                                                LocalDateTime now) {
+        int n = changes.size();
+        UUID[] messageIds = new UUID[n];
+        UUID[] conversationIds = new UUID[n];
+        String[] emojis = new String[n];
+        String[] emails = new String[n];
+        Boolean[] added = new Boolean[n];
+        for (int i = 0; i < n; i++) {
+            ReactionRegistry.PendingChange change = changes.get(i);
+            messageIds[i] = change.reaction().messageId();
+            conversationIds[i] = change.conversationId();
+            emojis[i] = change.reaction().emoji();
+            emails[i] = change.reaction().email();
+            added[i] = change.added();
+        }
+
+        Map<ReactionRegistry.ReactionKey, Long> counts = new HashMap<>();
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(APPLY_CHANGES);
+            ps.setArray(1, connection.createArrayOf("uuid", messageIds));
+            ps.setArray(2, connection.createArrayOf("uuid", conversationIds));
+            ps.setArray(3, connection.createArrayOf("text", emojis));
+            ps.setArray(4, connection.createArrayOf("text", emails));
+            ps.setArray(5, connection.createArrayOf("boolean", added));
+            ps.setTimestamp(6, Timestamp.valueOf(now));
+            return ps;
+        }, rs -> {
+            counts.put(new ReactionRegistry.ReactionKey(rs.getObject("message_id", UUID.class), rs.getString("emoji")),
+                    rs.getLong("count"));
+        });
+        return counts;
+    }
+}
@@ -0,0 +1,196 @@
+package com.example.chatwriteservice.repository;
+
+import com.example.chatwriteservice.dto.MessageResponse;
+import com.example.chatwriteservice.dto.ScheduledMessageResponse;
+import com.example.chatwriteservice.entity.MessageType;
+import com.example.chatwriteservice.entity.ScheduledMessageStatus;
+import com.example.chatwriteservice.storage.MessageContentCodec;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Durable store of scheduled messages (db/scheduled_messages.sql). Only the near-term window
+ * is ever read back for sending, through {@link #claimDue}.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ScheduledMessageJdbcRepository {
+
+    private static final String COLUMNS =
+            "id, conversation_id, sender_email, type, content, attachment_id, send_at, status, error, created_at";
+
+    private static final String INSERT = """
+            INSERT INTO scheduled_messages (id, conversation_id, sender_email, type, content, attachment_id,
+                                            send_at, status, created_at, claimed_by, claimed_until)
+            VALUES (?, ?, ?, ?, ?, ?, ?, 'PENDING', ?, ?, ?)
+            """;
+
+    /*
+     * Sends interrupted after the message was inserted: the message carries the scheduled id.
+     * Returns the messages, which may never have been broadcast. Concurrent loaders wait on the
+     * row lock and then skip the row, so only one of them gets it.
+     */
+    private static final String COMPLETE_INTERRUPTED = """
+            UPDATE scheduled_messages s SET status = 'SENT', claimed_by = NULL, claimed_until = NULL
+            FROM messages m
+            WHERE s.status = 'SENDING' AND s.claimed_until < ?
+              AND m.id = s.id AND m.conversation_id = s.conversation_id
+            RETURNING m.id, m.conversation_id, m.seq, m.sender_email, m.type, m.content, m.attachment_id,
+                      m.created_at, m.is_deleted
+            """;
+
+    /*
+     * Unsent rows due before the horizon whose claim is free or expired; SKIP LOCKED keeps
+     * instances loading at the same time from waiting on each other.
+     */
+    private static final String CLAIM_DUE = """
+            WITH due AS (
+                SELECT id FROM scheduled_messages
+                WHERE status IN ('PENDING', 'SENDING') AND send_at < ?
+                  AND (claimed_until IS NULL OR claimed_until < ?)
+                ORDER BY send_at
+                LIMIT ?
+                FOR UPDATE SKIP LOCKED
+            )
+            UPDATE scheduled_messages s
+            SET status = 'PENDING', claimed_by = ?, claimed_until = GREATEST(s.send_at, ?) + CAST(? AS interval)
+            FROM due
+            WHERE s.id = due.id
+            RETURNING s.id, s.conversation_id, s.sender_email, s.type, s.content, s.attachment_id, s.send_at,
+                      s.status, s.error, s.created_at
+            """;
+
+    private static final String MARK_SENDING = """
+            UPDATE scheduled_messages SET status = 'SENDING', claimed_until = ?
+            WHERE id = ANY (CAST(? AS uuid[])) AND status = 'PENDING' AND claimed_by = ?
+            RETURNING id
+            """;
+
+    private static final String MARK_SENT = """
+            UPDATE scheduled_messages SET status = 'SENT', claimed_by = NULL, claimed_until = NULL
+            WHERE id = ANY (CAST(? AS uuid[])) AND status = 'SENDING'
+            """;
+
+    private static final String MARK_FAILED = """
+            UPDATE scheduled_messages SET status = 'FAILED', error = ?, claimed_by = NULL, claimed_until = NULL
+            WHERE id = ? AND status = 'SENDING'
+            """;
+
+    private static final String CANCEL = """
+            UPDATE scheduled_messages SET status = 'CANCELLED', claimed_by = NULL, claimed_until = NULL
+            WHERE id = ? AND sender_email = ? AND status = 'PENDING'
+            """;
+
+    private static final String RELEASE_CLAIMS = """
+            UPDATE scheduled_messages SET claimed_by = NULL, claimed_until = NULL
+            WHERE claimed_by = ? AND status = 'PENDING'
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MessageContentCodec contentCodec;
+
+    /**
+     * Store a new scheduled message, optionally already claimed by an instance
+     */
+    public void insert(ScheduledMessageResponse message, String claimedBy, LocalDateTime claimedUntil) {
+        jdbcTemplate.update(INSERT, message.getId(), message.getConversationId(), message.getSenderEmail(),
+                message.getType().name(), message.getContent(), message.getAttachmentId(),
+                Timestamp.valueOf(message.getSendAt()), Timestamp.valueOf(message.getCreatedAt()),
+                claimedBy, claimedUntil != null ? Timestamp.valueOf(claimedUntil) : null);
+    }
+
+    /**
+     * Mark sends whose claim expired after the message was inserted as SENT. Returns the
+     * messages of those sends.
+     */
+    public List<MessageResponse> completeInterruptedSends(LocalDateTime now) {
+        return jdbcTemplate.query(COMPLETE_INTERRUPTED,
+                (rs, rowNum) -> MessageJdbcRepository.mapRow(rs, contentCodec), Timestamp.valueOf(now));
+    }
+
+    /**
+     * Claim up to limit unsent messages due before the horizon for this instance. The claim
+     * lasts until leaseSeconds after the send time (or now, if overdue).
+     */
+    public List<ScheduledMessageResponse> claimDue(LocalDateTime horizon, LocalDateTime now, String instanceId,
+                                                   long leaseSeconds, int limit) {
+        return jdbcTemplate.query(CLAIM_DUE, (rs, rowNum) -> mapRow(rs),
+                Timestamp.valueOf(horizon), Timestamp.valueOf(now), limit,
+                instanceId, Timestamp.valueOf(now), leaseSeconds + " seconds");
+    }
+
+    /**
+     * Move due messages still claimed by this instance to SENDING. Returns the ids it got.
+     */
+    public List<UUID> markSending(Collection<UUID> ids, String instanceId, LocalDateTime leaseUntil) {
+        return jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(MARK_SENDING);
+            ps.setTimestamp(1, Timestamp.valueOf(leaseUntil));
+            ps.setArray(2, connection.createArrayOf("uuid", ids.toArray()));
+            ps.setString(3, instanceId);
+            return ps;
+        }, (rs, rowNum) -> rs.getObject("id", UUID.class));
+    }
+
+    public void markSent(Collection<UUID> ids) {
+        jdbcTemplate.update(connection -> {
+            PreparedStatement ps = connection.prepareStatement(MARK_SENT);
+            ps.setArray(1, connection.createArrayOf("uuid", ids.toArray()));
+            return ps;
+        });
+    }
+
+    public void markFailed(UUID id, String error) {
+        jdbcTemplate.update(MARK_FAILED, error, id);
+    }
+
+    /**
+     * Cancel a message of the sender that is not being sent yet
+     */
+    public boolean cancel(UUID id, String senderEmail) {
+        return jdbcTemplate.update(CANCEL, id, senderEmail) == 1;
+    }
+
+    /**
+     * Hand the unsent claims of an instance back, so others pick them up without waiting for
+     * the claims to expire
+     */
+    public int releaseClaims(String instanceId) {
+        return jdbcTemplate.update(RELEASE_CLAIMS, instanceId);
+    }
+
+    /**
+     * Unsent messages of a sender, soonest first
+     */
+    public List<ScheduledMessageResponse> findUnsentBySender(String senderEmail) {
+        return jdbcTemplate.query(
+                "SELECT " + COLUMNS + " FROM scheduled_messages "
+                        + "WHERE sender_email = ? AND status IN ('PENDING', 'SENDING') ORDER BY send_at",
+                (rs, rowNum) -> mapRow(rs), senderEmail);
+    }
+
+    private static ScheduledMessageResponse mapRow(ResultSet rs) throws SQLException {
+        return ScheduledMessageResponse.builder()
+                .id(rs.getObject("id", UUID.class))
+                .conversationId(rs.getObject("conversation_id", UUID.class))
+                .senderEmail(rs.getString("sender_email"))
+                .type(MessageType.valueOf(rs.getString("type")))
+                .content(rs.getString("content"))
+                .attachmentId(rs.getObject("attachment_id", UUID.class))
+                .sendAt(rs.getTimestamp("send_at").toLocalDateTime())
+                .status(ScheduledMessageStatus.valueOf(rs.getString("status")))
+                .error(rs.getString("error"))
+                .createdAt(rs.getTimestamp("created_at").toLocalDateTime())
+                .build();
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.chatwriteservice.repository;
+
+import com.example.chatwriteservice.dto.ConversationResponse;
+import com.example.chatwriteservice.dto.MessageResponse;
+import com.example.chatwriteservice.dto.SyncPosition;
+import com.example.chatwriteservice.entity.ConversationType;
+import com.example.chatwriteservice.storage.MessageContentCodec;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Reconnect catch-up queries. Both run over all of a user's memberships in a single
+ * statement; per-conversation positions are passed as parallel arrays and joined in with
+ * unnest, so the statement shape does not depend on how many rooms the user is in.
+ * Positions are commit-ordered numbers (message seq, conversation version, see
+ * db/message_sync.sql); a membership without one is synced from the time the user joined.
+ */
+@Repository
+@RequiredArgsConstructor
+public class SyncJdbcRepository {
+
+    private static final String MEMBERSHIPS = """
+            WITH pos (conversation_id, seq, version) AS (
+                SELECT * FROM unnest(CAST(? AS uuid[]), CAST(? AS bigint[]), CAST(? AS bigint[]))
+            ), membership AS (
+                SELECT p.conversation_id, p.joined_at, pos.seq, pos.version
+                FROM participants p
+                LEFT JOIN pos ON pos.conversation_id = p.conversation_id
+                WHERE p.email = ?
+            )
+            """;
+
+    private static final String MESSAGES_SINCE = MEMBERSHIPS + """
+            SELECT m.id, m.conversation_id, m.seq, m.sender_email, m.type, m.content, m.attachment_id,
+                   m.created_at, m.is_deleted
+            FROM membership ms
+            JOIN messages m ON m.conversation_id = ms.conversation_id
+            WHERE m.is_deleted = false
+              AND m.seq > COALESCE(ms.seq, 0)
+              AND (ms.seq IS NOT NULL OR m.created_at > ms.joined_at)
+              AND (CAST(? AS uuid) IS NULL OR (m.conversation_id, m.seq) > (CAST(? AS uuid), CAST(? AS bigint)))
+            ORDER BY m.conversation_id, m.seq
+            LIMIT ?
+            """;
+
+    /*
+     * New memberships list every participant; known ones only those who joined after the
+     * client's version. Members who left are not listed.
+     */
+    private static final String CONVERSATIONS_SINCE = MEMBERSHIPS + """
+            SELECT c.id, c.title, CAST(c.type AS text) AS type, CAST(c.metadata AS text) AS metadata,
+                   c.created_at, c.updated_at, c.version,
+                   ARRAY(SELECT p.email FROM participants p
+                         WHERE p.conversation_id = c.id AND p.joined_version > COALESCE(ms.version, -1)
+                         ORDER BY p.joined_version)
+                       AS participant_emails
+            FROM membership ms
+            JOIN conversations c ON c.id = ms.conversation_id
+            WHERE (ms.version IS NULL OR c.version > ms.version)
+              AND (CAST(? AS uuid) IS NULL OR c.id > CAST(? AS uuid))
+            ORDER BY c.id
+            LIMIT ?
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MessageContentCodec contentCodec;
+
+    /**
+     * Non-deleted messages after each membership's seq, ordered by (conversation_id, seq) and
+     * continuing after the given keyset position if any
+     */
+    public List<MessageResponse> findMessagesSince(String email, Map<UUID, SyncPosition> positions,
+                                                   UUID afterConversationId, long afterSeq, int limit) {
+        return jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(MESSAGES_SINCE);
+            int i = bindMemberships(ps, connection, email, positions);
+            ps.setObject(i++, afterConversationId, Types.OTHER);
+            ps.setObject(i++, afterConversationId, Types.OTHER);
+            ps.setLong(i++, afterSeq);
+            ps.setInt(i, limit);
+            return ps;
+        }, (rs, rowNum) -> MessageJdbcRepository.mapRow(rs, contentCodec));
+    }
+
+    /**
+     * Conversations joined by the user, or changed after the membership's version, ordered by id
+     */
+    public List<ConversationChange> findConversationsSince(String email, Map<UUID, SyncPosition> positions,
+                                                           UUID afterConversationId, int limit) {
+        return jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(CONVERSATIONS_SINCE);
+            int i = bindMemberships(ps, connection, email, positions);
+            ps.setObject(i++, afterConversationId, Types.OTHER);
+            ps.setObject(i++, afterConversationId, Types.OTHER);
+            ps.setInt(i, limit);
+            return ps;
+        }, (rs, rowNum) -> new ConversationChange(ConversationResponse.builder()
+                .id(rs.getObject("id", UUID.class))
+                .title(rs.getString("title"))
+                .type(ConversationType.valueOf(rs.getString("type")))
+                .metadata(rs.getString("metadata"))
+                .createdAt(toLocalDateTime(rs.getTimestamp("created_at")))
+                .updatedAt(toLocalDateTime(rs.getTimestamp("updated_at")))
+                .participantEmails(Arrays.asList((String[]) rs.getArray("participant_emails").getArray()))
+                .build(), rs.getLong("version")));
+    }
+
+    public record ConversationChange(ConversationResponse conversation, long version) {
+    }
+
+    private static int bindMemberships(PreparedStatement ps, Connection connection, String email,
+                                       Map<UUID, SyncPosition> positions) throws SQLException {
+        Map<UUID, SyncPosition> known = positions != null ? positions : Map.of();
+        UUID[] ids = new UUID[known.size()];
+        Long[] seqs = new Long[known.size()];
+        Long[] versions = new Long[known.size()];
+        int n = 0;
+        for (Map.Entry<UUID, SyncPosition> entry : known.entrySet()) {
+            SyncPosition position = entry.getValue();
+            ids[n] = entry.getKey();
+            seqs[n] = position != null ? position.getSeq() : null;
+            versions[n++] = position != null ? position.getVersion() : null;
+        }
+        Array idArray = connection.createArrayOf("uuid", ids);
+        Array seqArray = connection.createArrayOf("bigint", seqs);
+        Array versionArray = connection.createArrayOf("bigint", versions);
+        ps.setArray(1, idArray);
+        ps.setArray(2, seqArray);
+        ps.setArray(3, versionArray);
+        ps.setString(4, email);
+        return 5;
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime() : null;
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.chatwriteservice.service;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Concurrency limit that follows the observed latency (AIMD). While calls finish within the
+ * latency threshold and at least half of the limit is in use, the limit grows by about one
+ * per limit's worth of calls. A call slower than the threshold, or one that failed because the
+ * database is overloaded, multiplies it by the backoff ratio - at most once per threshold
+ * interval, so a burst of slow calls that all started together counts once. Calls over the
+ * limit are refused right away instead of waiting for a connection.
+ */
+public class AdaptiveConcurrencyLimit {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long latencyThresholdNanos;
+    private final double backoffRatio;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    /** Guarded by this; {@link #currentLimit} is its published whole part */
+    private double limit;
+    private long lastDecreaseNanos;
+    private boolean decreased;
+    private volatile int currentLimit;
+
+    public AdaptiveConcurrencyLimit(int initialLimit, int minLimit, int maxLimit, long latencyThresholdNanos,
+                                    double backoffRatio) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.latencyThresholdNanos = latencyThresholdNanos;
+        this.backoffRatio = backoffRatio;
+        this.limit = Math.clamp(initialLimit, minLimit, maxLimit);
+        this.currentLimit = (int) limit;
+    }
+
+    /**
+     * Take a slot, or return false if the limit is reached. A taken slot must be given back
+     * with {@link #release}.
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= currentLimit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Give a slot back and adjust the limit
+     *
+     * @param latencyNanos how long the call held the slot
+     * @param overloaded   whether it failed because the database could not keep up
+     */
+    public void release(long latencyNanos, boolean overloaded, long nowNanos) {
+        int inFlightBefore = inFlight.getAndDecrement();
+        synchronized (this) {
+            if (overloaded || latencyNanos > latencyThresholdNanos) {
+                if (decreased && nowNanos - lastDecreaseNanos < latencyThresholdNanos) {
+                    return;
+                }
+                limit = Math.max(minLimit, limit * backoffRatio);
+                lastDecreaseNanos = nowNanos;
+                decreased = true;
+            } else if (inFlightBefore * 2 >= limit) {
+                limit = Math.min(maxLimit, limit + 1 / limit);
+            } else {
+                return;
+            }
+            currentLimit = (int) limit;
+        }
+    }
+
+    public int getLimit() {
+        return currentLimit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+}
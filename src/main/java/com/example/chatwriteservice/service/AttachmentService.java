@@ -0,0 +1,218 @@
+package com.example.chatwriteservice.service;
+
+import com.example.chatwriteservice.config.ChatProperties;
+import com.example.chatwriteservice.dto.AttachmentRequest;
+import com.example.chatwriteservice.dto.AttachmentResponse;
+import com.example.chatwriteservice.entity.Attachment;
+import com.example.chatwriteservice.entity.AttachmentStatus;
+import com.example.chatwriteservice.exception.BadRequestException;
+import com.example.chatwriteservice.exception.ForbiddenException;
+import com.example.chatwriteservice.exception.ResourceNotFoundException;
+import com.example.chatwriteservice.repository.AttachmentRepository;
+import com.example.chatwriteservice.storage.BlobStore;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Resumable attachment uploads. A client creates the attachment with its final size, then
+ * PUTs the bytes in one or more chunks, each starting at the stored size. Chunks are streamed
+ * straight into the BlobStore; an interrupted upload resumes from uploadedBytes. A chunk that
+ * goes past the declared size is discarded as a whole.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class AttachmentService {
+
+    private static final String DEFAULT_CONTENT_TYPE = "application/octet-stream";
+
+    private final AttachmentRepository attachmentRepository;
+    private final MembershipIndex membershipIndex;
+    private final BlobStore blobStore;
+    private final ChatProperties chatProperties;
+
+    /** Attachments with a chunk being written on this instance */
+    private final Set<UUID> activeUploads = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Start an upload by the authenticated user
+     */
+    @Transactional
+    public AttachmentResponse createUpload(AttachmentRequest request, String email) throws IOException {
+        if (email == null) {
+            throw new ForbiddenException("Authentication is required to upload attachments");
+        }
+        long maxSize = chatProperties.getAttachments().getMaxSize().toBytes();
+        if (request.getSize() > maxSize) {
+            throw new BadRequestException("Attachment exceeds the maximum size of " + maxSize + " bytes");
+        }
+        if (!membershipIndex.isMember(request.getConversationId(), email)) {
+            throw new BadRequestException("User is not a participant of this conversation");
+        }
+
+        Attachment attachment = Attachment.builder()
+                .id(UUID.randomUUID())
+                .conversationId(request.getConversationId())
+                .uploaderEmail(email)
+                .fileName(request.getFileName())
+                .contentType(request.getContentType() != null ? request.getContentType() : DEFAULT_CONTENT_TYPE)
+                .size(request.getSize())
+                .uploadedBytes(0L)
+                .status(AttachmentStatus.UPLOADING)
+                .build();
+        if (attachment.getSize() == 0) {
+            blobStore.append(key(attachment), 0, InputStream.nullInputStream(), 0);
+            complete(attachment);
+        }
+        attachment = attachmentRepository.save(attachment);
+
+        log.info("Attachment created: {} ({} bytes) in conversation: {}",
+                attachment.getId(), attachment.getSize(), attachment.getConversationId());
+        return mapToResponse(attachment);
+    }
+
+    /**
+     * Append a chunk. offset must equal the bytes stored so far; the attachment completes when
+     * the declared size is reached.
+     */
+    public AttachmentResponse uploadChunk(UUID id, long offset, InputStream in) throws IOException {
+        Attachment attachment = findAttachment(id);
+        if (attachment.getStatus() == AttachmentStatus.COMPLETED) {
+            throw new BadRequestException("Attachment upload is already complete");
+        }
+        if (!activeUploads.add(id)) {
+            throw new BadRequestException("Another upload of this attachment is in progress");
+        }
+        try {
+            String key = key(attachment);
+            // The store, not the database row, is the resume point: it survives a crash between the two
+            long stored = blobStore.size(key);
+            if (offset != stored) {
+                throw new BadRequestException("Upload offset mismatch: expected " + stored);
+            }
+            long uploaded = stored + blobStore.append(key, stored, in, attachment.getSize() - stored);
+
+            if (uploaded == attachment.getSize() && in.read() != -1) {
+                // Keep nothing of an oversized chunk: a retry starts again from the same offset
+                blobStore.truncate(key, stored);
+                attachment.setUploadedBytes(stored);
+                attachmentRepository.save(attachment);
+                throw new BadRequestException("Chunk exceeds the declared attachment size");
+            }
+            attachment.setUploadedBytes(uploaded);
+            if (uploaded == attachment.getSize()) {
+                complete(attachment);
+                log.info("Attachment upload completed: {}", id);
+            }
+            return mapToResponse(attachmentRepository.save(attachment));
+        } finally {
+            activeUploads.remove(id);
+        }
+    }
+
+    public AttachmentResponse getAttachment(UUID id) {
+        return mapToResponse(findAttachment(id));
+    }
+
+    /**
+     * Attachment that can be downloaded or referenced by a message
+     */
+    public AttachmentResponse getCompletedAttachment(UUID id) {
+        Attachment attachment = findAttachment(id);
+        if (attachment.getStatus() != AttachmentStatus.COMPLETED) {
+            throw new BadRequestException("Attachment upload is not complete");
+        }
+        return mapToResponse(attachment);
+    }
+
+    /**
+     * Completed attachment the user may download: only participants of its conversation can
+     * fetch its content.
+     */
+    public AttachmentResponse getDownloadableAttachment(UUID id, String email) {
+        AttachmentResponse attachment = getCompletedAttachment(id);
+        if (email == null || !membershipIndex.isMember(attachment.getConversationId(), email)) {
+            throw new ForbiddenException("Only participants of the conversation can download this attachment");
+        }
+        return attachment;
+    }
+
+    /**
+     * Whether a declared content type may be rendered by the browser. The type comes from the
+     * uploader, so anything that can carry script (HTML, SVG, XML, ...) must be downloaded instead.
+     */
+    public boolean isInline(String contentType) {
+        try {
+            MediaType type = MediaType.parseMediaType(contentType);
+            return chatProperties.getAttachments().getInlineContentTypes().stream()
+                    .anyMatch(allowed -> MediaType.parseMediaType(allowed).equalsTypeAndSubtype(type));
+        } catch (InvalidMediaTypeException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Check that a message may reference the attachment
+     */
+    public void validateForMessage(UUID id, UUID conversationId, String senderEmail) {
+        AttachmentResponse attachment = getCompletedAttachment(id);
+        if (!attachment.getConversationId().equals(conversationId)
+                || !attachment.getUploaderEmail().equals(senderEmail)) {
+            throw new BadRequestException("Attachment does not belong to this sender and conversation");
+        }
+    }
+
+    public void transferTo(UUID id, long position, long count, WritableByteChannel target) throws IOException {
+        blobStore.transferTo(id.toString(), position, count, target);
+    }
+
+    /**
+     * Local file of a completed attachment, or null when the store is not filesystem based
+     */
+    public Path localPath(UUID id) {
+        return blobStore.localPath(id.toString());
+    }
+
+    private void complete(Attachment attachment) throws IOException {
+        blobStore.commit(key(attachment));
+        attachment.setStatus(AttachmentStatus.COMPLETED);
+        attachment.setCompletedAt(LocalDateTime.now());
+    }
+
+    private Attachment findAttachment(UUID id) {
+        return attachmentRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Attachment not found"));
+    }
+
+    private static String key(Attachment attachment) {
+        return attachment.getId().toString();
+    }
+
+    private AttachmentResponse mapToResponse(Attachment attachment) {
+        return AttachmentResponse.builder()
+                .id(attachment.getId())
+                .conversationId(attachment.getConversationId())
+                .uploaderEmail(attachment.getUploaderEmail())
+                .fileName(attachment.getFileName())
+                .contentType(attachment.getContentType())
+                .size(attachment.getSize())
+                .uploadedBytes(attachment.getUploadedBytes())
+                .status(attachment.getStatus())
+                .createdAt(attachment.getCreatedAt())
+                .completedAt(attachment.getCompletedAt())
+                .build();
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.chatwriteservice.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.converter.MessageConversionException;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Service;
+import org.springframework.util.MimeTypeUtils;
+
+import java.util.UUID;
+
+/**
+ * Fans out payloads to conversation topics and user queues.
+ * The payload is serialized to JSON exactly once per broadcast, before the broker; the simple
+ * broker hands the same byte[] to every subscriber message instead of converting it per send.
+ * Encoding the STOMP frame of each session (StompEncoder) still writes the payload once per
+ * recipient.
+ * In cluster mode the same bytes are also relayed to the other instances (ClusterBroadcastRelay),
+ * except for {@link #sendLocally}.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class BroadcastService {
+
+    public static final String CONVERSATION_TOPIC = "/topic/conversation/";
+    public static final String USER_PREFIX = "/user/";
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final ObjectMapper objectMapper;
+    private final ObjectProvider<ClusterBroadcastRelay> clusterBroadcastRelay;
+    private final HotspotTracker hotspotTracker;
+
+    /**
+     * Broadcast to /topic/conversation/{conversationId}
+     */
+    public void broadcastToConversation(UUID conversationId, Object payload) {
+        send(CONVERSATION_TOPIC + conversationId, payload);
+    }
+
+    /**
+     * Send to every session of a user (/user/queue/...), on this and the other instances
+     */
+    public void sendToUser(String user, String destination, Object payload) {
+        send(USER_PREFIX + user + destination, payload);
+    }
+
+    public void send(String destination, Object payload) {
+        Message<byte[]> message = sendLocally(destination, payload);
+        clusterBroadcastRelay.ifAvailable(relay -> relay.publish(destination, message.getPayload()));
+    }
+
+    /**
+     * Send to subscribers of this instance only, for state that is tracked per instance
+     */
+    public Message<byte[]> sendLocally(String destination, Object payload) {
+        Message<byte[]> message = serialize(payload);
+        hotspotTracker.broadcast(destination);
+        messagingTemplate.send(destination, message);
+        return message;
+    }
+
+    /**
+     * Serialize once into an immutable message. The byte[] must never be mutated after
+     * this point since it is shared by every outbound frame.
+     */
+    Message<byte[]> serialize(Object payload) {
+        byte[] body;
+        try {
+            body = objectMapper.writeValueAsBytes(payload);
+        } catch (JsonProcessingException e) {
+            throw new MessageConversionException("Could not serialize broadcast payload", e);
+        }
+        return createMessage(body);
+    }
+
+    static Message<byte[]> createMessage(byte[] body) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        accessor.setLeaveMutable(true);
+        return MessageBuilder.createMessage(body, accessor.getMessageHeaders());
+    }
+}
@@ -0,0 +1,165 @@
+package com.example.chatwriteservice.service;
+
+import com.example.chatwriteservice.config.ChatProperties;
+import com.example.chatwriteservice.config.ForeignOriginDeserializer;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.Header;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.ConsumerSeekAware;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.broker.AbstractBrokerMessageHandler;
+import org.springframework.messaging.simp.broker.SimpleBrokerMessageHandler;
+import org.springframework.messaging.simp.broker.SubscriptionRegistry;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Cross-instance fan-out. Every broadcast is delivered to local subscribers right away and
+ * published to the cluster topic, keyed by conversation id so each conversation stays
+ * ordered. Every instance consumes the whole topic and hands records from other instances
+ * to its own in-memory broker, unless nobody here is subscribed to the destination.
+ * Records of this instance are dropped by ForeignOriginDeserializer before they reach the
+ * listener. Partitions are read from the end when assigned: frames published while this
+ * instance was down are of no use to its new sessions.
+ * Subscription revocations travel the same topic, with a chat-revoke header instead of a
+ * destination, so they are ordered with the conversation's frames. A relayed frame to a
+ * conversation topic means the conversation changed elsewhere, so its MessageTailCache tail
+ * is dropped whether or not anybody here is subscribed.
+ */
+@Service
+@ConditionalOnProperty(prefix = "chat.cluster", name = "enabled", havingValue = "true")
+@Slf4j
+public class ClusterBroadcastRelay implements ConsumerSeekAware {
+
+    static final String DESTINATION_HEADER = "chat-destination";
+    /** Conversation whose subscriptions are revoked; the value is the removed member, empty for all */
+    static final String REVOKE_HEADER = "chat-revoke";
+    static final String ORIGIN_HEADER = ForeignOriginDeserializer.ORIGIN_HEADER;
+
+    private final KafkaTemplate<String, byte[]> kafkaTemplate;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final SubscriptionAuthorizer subscriptionAuthorizer;
+    private final MessageTailCache messageTailCache;
+    /** Local subscriptions of the simple broker; null when another broker is configured */
+    private final SubscriptionRegistry subscriptionRegistry;
+    private final String topic;
+    private final byte[] instanceId;
+
+    public ClusterBroadcastRelay(@Qualifier("clusterBroadcastKafkaTemplate") KafkaTemplate<String, byte[]> kafkaTemplate,
+                                 SimpMessagingTemplate messagingTemplate,
+                                 @Qualifier("simpleBrokerMessageHandler") AbstractBrokerMessageHandler brokerMessageHandler,
+                                 SubscriptionAuthorizer subscriptionAuthorizer,
+                                 MessageTailCache messageTailCache,
+                                 ChatProperties chatProperties) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.messagingTemplate = messagingTemplate;
+        this.subscriptionAuthorizer = subscriptionAuthorizer;
+        this.messageTailCache = messageTailCache;
+        this.subscriptionRegistry = brokerMessageHandler instanceof SimpleBrokerMessageHandler simpleBroker
+                ? simpleBroker.getSubscriptionRegistry() : null;
+        this.topic = chatProperties.getCluster().getTopic();
+        this.instanceId = chatProperties.getCluster().getInstanceId().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Publish an already serialized frame to the other instances
+     */
+    public void publish(String destination, byte[] body) {
+        ProducerRecord<String, byte[]> record = new ProducerRecord<>(topic, partitionKey(destination), body);
+        record.headers().add(DESTINATION_HEADER, destination.getBytes(StandardCharsets.UTF_8));
+        send(record, "broadcast to " + destination);
+    }
+
+    /**
+     * Have the other instances tear down their subscriptions to the conversation
+     *
+     * @param email the removed member, null for every subscriber
+     */
+    public void publishRevoke(UUID conversationId, String email) {
+        byte[] member = email != null ? email.getBytes(StandardCharsets.UTF_8) : new byte[0];
+        ProducerRecord<String, byte[]> record = new ProducerRecord<>(topic, conversationId.toString(), member);
+        record.headers().add(REVOKE_HEADER, conversationId.toString().getBytes(StandardCharsets.UTF_8));
+        send(record, "revocation for " + conversationId);
+    }
+
+    private void send(ProducerRecord<String, byte[]> record, String description) {
+        record.headers().add(ORIGIN_HEADER, instanceId);
+        kafkaTemplate.send(record).whenComplete((result, ex) -> {
+            if (ex != null) {
+                log.warn("Could not relay {}: {}", description, ex.getMessage());
+            }
+        });
+    }
+
+    @Override
+    public void onPartitionsAssigned(Map<TopicPartition, Long> assignments, ConsumerSeekCallback callback) {
+        callback.seekToEnd(assignments.keySet());
+    }
+
+    @KafkaListener(topics = "${chat.cluster.topic:chat-broadcast}",
+            containerFactory = "clusterBroadcastListenerContainerFactory")
+    public void onBroadcast(ConsumerRecord<String, byte[]> record) {
+        Header origin = record.headers().lastHeader(ORIGIN_HEADER);
+        if (record.value() == null || (origin != null && Arrays.equals(origin.value(), instanceId))) {
+            // Already delivered locally by publish's caller
+            return;
+        }
+        Header revoke = record.headers().lastHeader(REVOKE_HEADER);
+        if (revoke != null) {
+            UUID conversationId = UUID.fromString(new String(revoke.value(), StandardCharsets.UTF_8));
+            String email = record.value().length > 0 ? new String(record.value(), StandardCharsets.UTF_8) : null;
+            subscriptionAuthorizer.revokedElsewhere(conversationId, email);
+            return;
+        }
+        Header destinationHeader = record.headers().lastHeader(DESTINATION_HEADER);
+        if (destinationHeader == null) {
+            log.warn("Dropping relayed broadcast without destination at offset {}", record.offset());
+            return;
+        }
+        String destination = new String(destinationHeader.value(), StandardCharsets.UTF_8);
+        if (destination.startsWith(BroadcastService.CONVERSATION_TOPIC)
+                && destination.indexOf('/', BroadcastService.CONVERSATION_TOPIC.length()) < 0) {
+            // Not typing or presence: the conversation's messages may have changed
+            UUID conversationId = SubscriptionAuthorizer.conversationId(destination);
+            if (conversationId != null) {
+                messageTailCache.evict(conversationId);
+            }
+        }
+
+        Message<byte[]> message = BroadcastService.createMessage(record.value());
+        SimpMessageHeaderAccessor accessor =
+                MessageHeaderAccessor.getAccessor(message, SimpMessageHeaderAccessor.class);
+        accessor.setDestination(destination);
+        // User destinations are resolved to this instance's sessions of the user, if any
+        if (!destination.startsWith(BroadcastService.USER_PREFIX) && subscriptionRegistry != null
+                && subscriptionRegistry.findSubscriptions(message).isEmpty()) {
+            return;
+        }
+        messagingTemplate.send(destination, message);
+    }
+
+    /**
+     * Conversation id for /topic/conversation/{id}[/...], otherwise the destination itself
+     */
+    static String partitionKey(String destination) {
+        if (!destination.startsWith(BroadcastService.CONVERSATION_TOPIC)) {
+            return destination;
+        }
+        int start = BroadcastService.CONVERSATION_TOPIC.length();
+        int end = destination.indexOf('/', start);
+        return end < 0 ? destination.substring(start) : destination.substring(start, end);
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.chatwriteservice.service;
+
+import com.example.chatwriteservice.config.ReadYourWritesTracker;
+import com.example.chatwriteservice.dto.MetadataResponse;
+import com.example.chatwriteservice.exception.BadRequestException;
+import com.example.chatwriteservice.exception.PreconditionFailedException;
+import com.example.chatwriteservice.exception.ResourceNotFoundException;
+import com.example.chatwriteservice.repository.ConversationJdbcRepository;
+import com.example.chatwriteservice.repository.ConversationJdbcRepository.MetadataResult;
+import com.example.chatwriteservice.repository.ConversationJdbcRepository.PathChange;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Patches conversations.metadata inside PostgreSQL in one statement, without loading the
+ * entity. Supports RFC 7396 merge patch and the add / replace / remove / test operations of
+ * RFC 6902 JSON Patch, whose operations apply in order and all-or-nothing. If-Match with the
+ * etag from a previous read or patch makes the update a compare-and-set on the whole document;
+ * "test" does the same for single values.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ConversationMetadataService {
+
+    public static final String MERGE_PATCH_VALUE = "application/merge-patch+json";
+    public static final String JSON_PATCH_VALUE = "application/json-patch+json";
+
+    private static final MediaType MERGE_PATCH = MediaType.valueOf(MERGE_PATCH_VALUE);
+    private static final MediaType JSON_PATCH = MediaType.valueOf(JSON_PATCH_VALUE);
+
+    private final ConversationJdbcRepository conversationJdbcRepository;
+    private final ReadYourWritesTracker readYourWritesTracker;
+    private final ObjectMapper objectMapper;
+
+    public MetadataResponse getMetadata(UUID conversationId) {
+        MetadataResult result = conversationJdbcRepository.findMetadata(conversationId);
+        if (!result.conversationExists()) {
+            throw new ResourceNotFoundException("Conversation not found");
+        }
+        return mapToResponse(result);
+    }
+
+    /**
+     * @param ifMatch If-Match header value, null or "*" to patch unconditionally
+     */
+    public MetadataResponse patchMetadata(UUID conversationId, MediaType contentType, String patch, String ifMatch) {
+        JsonNode document = parse(patch);
+        String expectedEtag = parseEtag(ifMatch);
+        LocalDateTime now = LocalDateTime.now();
+
+        MetadataResult result;
+        if (MERGE_PATCH.isCompatibleWith(contentType)) {
+            result = conversationJdbcRepository.mergePatchMetadata(conversationId, document.toString(), expectedEtag, now);
+        } else if (JSON_PATCH.isCompatibleWith(contentType)) {
+            result = conversationJdbcRepository.patchMetadataPaths(conversationId, toChanges(document), expectedEtag, now);
+        } else {
+            throw new BadRequestException("Unsupported patch format: " + contentType);
+        }
+
+        if (!result.conversationExists()) {
+            throw new ResourceNotFoundException("Conversation not found");
+        }
+        if (!result.updated()) {
+            throw new PreconditionFailedException("Metadata was changed since the If-Match version");
+        }
+        readYourWritesTracker.markWritten(conversationId);
+
+        log.info("Metadata patched for conversation: {}", conversationId);
+
+        return mapToResponse(result);
+    }
+
+    private List<PathChange> toChanges(JsonNode document) {
+        if (!document.isArray() || document.isEmpty()) {
+            throw new BadRequestException("JSON Patch must be a non-empty array of operations");
+        }
+        List<PathChange> changes = new ArrayList<>();
+        for (JsonNode operation : document) {
+            String op = operation.path("op").asText();
+            String[] path = parsePointer(operation.path("path").asText(null));
+            JsonNode value = operation.get("value");
+            PathChange.Kind kind = switch (op) {
+                case "add" -> PathChange.Kind.SET;
+                case "replace" -> PathChange.Kind.REPLACE;
+                case "remove" -> PathChange.Kind.REMOVE;
+                case "test" -> PathChange.Kind.TEST;
+                default -> throw new BadRequestException("Unsupported JSON Patch operation: " + op);
+            };
+            if (kind != PathChange.Kind.REMOVE && value == null) {
+                throw new BadRequestException("Operation " + op + " requires a value");
+            }
+            changes.add(new PathChange(kind, path, value != null ? value.toString() : null));
+        }
+        return changes;
+    }
+
+    /**
+     * RFC 6901 JSON Pointer to a PostgreSQL path array
+     */
+    static String[] parsePointer(String pointer) {
+        if (pointer == null || !pointer.startsWith("/")) {
+            throw new BadRequestException("Path must be a JSON Pointer below the document root, e.g. /settings/muted");
+        }
+        return Arrays.stream(pointer.substring(1).split("/", -1))
+                .map(token -> token.replace("~1", "/").replace("~0", "~"))
+                .toArray(String[]::new);
+    }
+
+    private static String parseEtag(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String etag = ifMatch.trim();
+        if (etag.startsWith("W/")) {
+            etag = etag.substring(2);
+        }
+        return etag.replace("\"", "");
+    }
+
+    private JsonNode parse(String patch) {
+        try {
+            return objectMapper.readTree(patch);
+        } catch (JsonProcessingException e) {
+            throw new BadRequestException("Patch is not valid JSON: " + e.getOriginalMessage());
+        }
+    }
+
+    private static MetadataResponse mapToResponse(MetadataResult result) {
+        return MetadataResponse.builder()
+                .metadata(result.metadata())
+                .etag(result.etag())
+                .build();
+    }
+}
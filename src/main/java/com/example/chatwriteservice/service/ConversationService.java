@@ -1,12 +1,15 @@
 package com.example.chatwriteservice.service;
 
+import com.example.chatwriteservice.config.ReadYourWritesTracker;
 import com.example.chatwriteservice.dto.ConversationRequest;
 import com.example.chatwriteservice.dto.ConversationResponse;
 import com.example.chatwriteservice.entity.Conversation;
+import com.example.chatwriteservice.entity.ConversationType;
 import com.example.chatwriteservice.entity.Participant;
 import com.example.chatwriteservice.entity.User;
 import com.example.chatwriteservice.exception.BadRequestException;
 import com.example.chatwriteservice.exception.ResourceNotFoundException;
+import com.example.chatwriteservice.repository.ConversationJdbcRepository;
 import com.example.chatwriteservice.repository.ConversationRepository;
 import com.example.chatwriteservice.repository.ParticipantRepository;
 import com.example.chatwriteservice.repository.UserRepository;
@@ -16,8 +19,13 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 @Service
@@ -25,12 +33,26 @@ import java.util.stream.Collectors;
 @Slf4j
 public class ConversationService {
 
+    private static final int MAX_CACHED_PAIRS = 100_000;
+
     private final ConversationRepository conversationRepository;
     private final ParticipantRepository participantRepository;
     private final UserRepository userRepository;
+    private final ReadYourWritesTracker readYourWritesTracker;
+    private final ConversationJdbcRepository conversationJdbcRepository;
+    private final MembershipIndex membershipIndex;
+    private final SubscriptionAuthorizer subscriptionAuthorizer;
+    private final MessageTailCache messageTailCache;
+
+    /** pair_key -> id of the DIRECT conversation; entries are verified on use */
+    private final Map<String, UUID> directConversations = new ConcurrentHashMap<>();
 
     @Transactional
     public ConversationResponse createConversation(ConversationRequest request) {
+        if (request.getType() == ConversationType.DIRECT) {
+            return getOrCreateDirect(request);
+        }
+
         // Create conversation
         Conversation conversation = Conversation.builder()
                 .title(request.getTitle())
@@ -43,7 +65,101 @@ public class ConversationService {
         conversation = conversationRepository.save(conversation);
 
         // Add participants
-        for (String email : request.getParticipantEmails()) {
+        addParticipants(conversation, request.getParticipantEmails());
+        readYourWritesTracker.markWritten(conversation.getId());
+
+        log.info("Conversation created: {}", conversation.getId());
+
+        return mapToResponse(conversation);
+    }
+
+    /**
+     * Find the DIRECT conversation between two users, if there is one
+     */
+    @Transactional(readOnly = true)
+    public ConversationResponse getDirectConversation(String email, String otherEmail) {
+        readYourWritesTracker.routeToPrimaryIfRecentlyWritten(email, otherEmail);
+        Conversation conversation = findDirect(pairKey(List.of(email, otherEmail)));
+        if (conversation == null) {
+            throw new ResourceNotFoundException("Direct conversation not found");
+        }
+        return mapToResponse(conversation);
+    }
+
+    /*
+     * At most one DIRECT conversation exists per participant pair. Concurrent creators race on
+     * the unique pair_key index; the loser reads the winner's row instead of failing.
+     */
+    private ConversationResponse getOrCreateDirect(ConversationRequest request) {
+        String pairKey = pairKey(request.getParticipantEmails());
+        Conversation existing = findDirect(pairKey);
+        if (existing != null) {
+            return mapToResponse(existing);
+        }
+
+        UUID id = UUID.randomUUID();
+        if (!conversationJdbcRepository.insertDirectIfAbsent(id, pairKey, request.getTitle(),
+                request.getMetadata(), LocalDateTime.now())) {
+            existing = findDirect(pairKey);
+            if (existing == null) {
+                throw new BadRequestException("Direct conversation was deleted concurrently, please retry");
+            }
+            return mapToResponse(existing);
+        }
+
+        Conversation conversation = conversationRepository.findById(id).orElseThrow();
+        addParticipants(conversation, new TreeSet<>(request.getParticipantEmails()));
+        readYourWritesTracker.markWritten(id);
+        cacheDirect(pairKey, id);
+
+        log.info("Direct conversation created: {}", id);
+
+        return mapToResponse(conversation);
+    }
+
+    private Conversation findDirect(String pairKey) {
+        UUID id = directConversations.get(pairKey);
+        if (id == null) {
+            id = conversationJdbcRepository.findIdByPairKey(pairKey);
+            if (id == null) {
+                return null;
+            }
+        }
+        // The cached id may belong to a conversation deleted on another instance
+        Conversation conversation = conversationRepository.findById(id).orElse(null);
+        if (conversation == null) {
+            directConversations.remove(pairKey, id);
+            return null;
+        }
+        cacheDirect(pairKey, id);
+        return conversation;
+    }
+
+    private void cacheDirect(String pairKey, UUID id) {
+        if (directConversations.size() >= MAX_CACHED_PAIRS) {
+            // Any entry will do: a miss only costs one indexed lookup
+            Iterator<String> keys = directConversations.keySet().iterator();
+            if (keys.hasNext()) {
+                directConversations.remove(keys.next());
+            }
+        }
+        directConversations.put(pairKey, id);
+    }
+
+    /**
+     * Canonical key of a DIRECT conversation: the distinct emails, sorted, joined by a space
+     * (which an email address cannot contain). One email is a conversation with oneself.
+     */
+    static String pairKey(Collection<String> emails) {
+        TreeSet<String> distinct = new TreeSet<>(emails);
+        if (distinct.isEmpty() || distinct.size() > 2) {
+            throw new BadRequestException("A direct conversation has exactly two participants");
+        }
+        return String.join(" ", distinct);
+    }
+
+    private void addParticipants(Conversation conversation, Collection<String> emails) {
+        for (String email : emails) {
             User user = userRepository.findById(email)
                     .orElseGet(() -> {
                         // Create user if not exists
@@ -61,15 +177,14 @@ public class ConversationService {
                     .build();
 
             participantRepository.save(participant);
+            membershipIndex.added(conversation.getId(), email);
+            readYourWritesTracker.markWritten(email);
         }
-
-        log.info("Conversation created: {}", conversation.getId());
-
-        return mapToResponse(conversation);
     }
 
     @Transactional(readOnly = true)
     public ConversationResponse getConversationById(UUID id) {
+        readYourWritesTracker.routeToPrimaryIfRecentlyWritten(id);
         Conversation conversation = conversationRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Conversation not found"));
         return mapToResponse(conversation);
@@ -77,6 +192,7 @@ public class ConversationService {
 
     @Transactional(readOnly = true)
     public List<ConversationResponse> getConversationsByUserEmail(String email) {
+        readYourWritesTracker.routeToPrimaryIfRecentlyWritten(email);
         List<Conversation> conversations = conversationRepository.findByUserEmail(email);
         return conversations.stream()
                 .map(this::mapToResponse)
@@ -94,6 +210,14 @@ public class ConversationService {
         
         // Delete conversation
         conversationRepository.delete(conversation);
+        if (conversation.getPairKey() != null) {
+            directConversations.remove(conversation.getPairKey(), id);
+        }
+        participants.forEach(p -> readYourWritesTracker.markWritten(p.getUser().getEmail()));
+        readYourWritesTracker.markWritten(id);
+        membershipIndex.evict(id);
+        messageTailCache.evict(id);
+        subscriptionAuthorizer.revokeAll(id);
         
         log.info("Conversation deleted: {}", id);
     }
@@ -103,6 +227,8 @@ public class ConversationService {
         Conversation conversation = conversationRepository.findById(conversationId)
                 .orElseThrow(() -> new ResourceNotFoundException("Conversation not found"));
 
+        requireGroup(conversation);
+
         // Check if already participant
         if (participantRepository.findByConversationIdAndEmail(conversationId, email) != null) {
             throw new BadRequestException("User is already a participant");
@@ -124,6 +250,9 @@ public class ConversationService {
                 .build();
 
         participantRepository.save(participant);
+        membershipIndex.added(conversationId, email);
+        readYourWritesTracker.markWritten(conversationId);
+        readYourWritesTracker.markWritten(email);
         
         log.info("Participant added to conversation: {} - {}", conversationId, email);
 
@@ -135,18 +264,30 @@ public class ConversationService {
         Conversation conversation = conversationRepository.findById(conversationId)
                 .orElseThrow(() -> new ResourceNotFoundException("Conversation not found"));
 
+        requireGroup(conversation);
+
         Participant participant = participantRepository.findByConversationIdAndEmail(conversationId, email);
         if (participant == null) {
             throw new BadRequestException("User is not a participant");
         }
 
         participantRepository.delete(participant);
+        membershipIndex.removed(conversationId, email);
+        subscriptionAuthorizer.revoke(conversationId, email);
+        readYourWritesTracker.markWritten(conversationId);
+        readYourWritesTracker.markWritten(email);
         
         log.info("Participant removed from conversation: {} - {}", conversationId, email);
 
         return mapToResponse(conversation);
     }
 
+    private void requireGroup(Conversation conversation) {
+        if (conversation.getType() == ConversationType.DIRECT) {
+            throw new BadRequestException("Participants of a direct conversation cannot be changed");
+        }
+    }
+
     private ConversationResponse mapToResponse(Conversation conversation) {
         List<String> participantEmails = participantRepository.findByConversationId(conversation.getId())
                 .stream()
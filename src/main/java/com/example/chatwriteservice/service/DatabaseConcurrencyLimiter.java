@@ -0,0 +1,96 @@
+package com.example.chatwriteservice.service;
+
+import com.example.chatwriteservice.config.ChatProperties;
+import com.example.chatwriteservice.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Adaptive concurrency limits in front of the database work of {@link MessageService} and
+ * {@link ConversationService}: read-only transactional methods share the read limit,
+ * everything else the write limit. Runs outside the transaction, so a refused call never
+ * waits for a pooled connection; it fails at once with {@link ServiceUnavailableException}.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@Slf4j
+public class DatabaseConcurrencyLimiter {
+
+    private final AdaptiveConcurrencyLimit reads;
+    private final AdaptiveConcurrencyLimit writes;
+    private final Counter readsRejected;
+    private final Counter writesRejected;
+    private final Map<Method, Boolean> readOnlyMethods = new ConcurrentHashMap<>();
+
+    public DatabaseConcurrencyLimiter(ChatProperties chatProperties, MeterRegistry meterRegistry) {
+        this.reads = create(chatProperties.getConcurrency().getRead());
+        this.writes = create(chatProperties.getConcurrency().getWrite());
+        this.readsRejected = register(meterRegistry, "read", reads);
+        this.writesRejected = register(meterRegistry, "write", writes);
+    }
+
+    @Around("execution(public * com.example.chatwriteservice.service.MessageService.*(..))"
+            + " || execution(public * com.example.chatwriteservice.service.ConversationService.*(..))")
+    public Object limit(ProceedingJoinPoint joinPoint) throws Throwable {
+        boolean read = readOnlyMethods.computeIfAbsent(
+                ((MethodSignature) joinPoint.getSignature()).getMethod(), DatabaseConcurrencyLimiter::isReadOnly);
+        AdaptiveConcurrencyLimit limit = read ? reads : writes;
+        if (!limit.tryAcquire()) {
+            (read ? readsRejected : writesRejected).increment();
+            log.debug("Rejected {}: {} limit of {} reached", joinPoint.getSignature().toShortString(),
+                    read ? "read" : "write", limit.getLimit());
+            throw new ServiceUnavailableException("Too many concurrent requests, please retry");
+        }
+
+        long start = System.nanoTime();
+        boolean overloaded = false;
+        try {
+            return joinPoint.proceed();
+        } catch (TransientDataAccessException | DataAccessResourceFailureException
+                 | CannotCreateTransactionException e) {
+            // Timeouts, lock waits, no connection: the database is not keeping up
+            overloaded = true;
+            throw e;
+        } finally {
+            long now = System.nanoTime();
+            limit.release(now - start, overloaded, now);
+        }
+    }
+
+    private static boolean isReadOnly(Method method) {
+        Transactional transactional = AnnotatedElementUtils.findMergedAnnotation(method, Transactional.class);
+        return transactional != null && transactional.readOnly();
+    }
+
+    private static AdaptiveConcurrencyLimit create(ChatProperties.ConcurrencyLimit properties) {
+        return new AdaptiveConcurrencyLimit(properties.getInitialLimit(), properties.getMinLimit(),
+                properties.getMaxLimit(), properties.getLatencyThreshold().toNanos(), properties.getBackoffRatio());
+    }
+
+    private static Counter register(MeterRegistry meterRegistry, String operation, AdaptiveConcurrencyLimit limit) {
+        Gauge.builder("chat.db.concurrency.limit", limit, AdaptiveConcurrencyLimit::getLimit)
+                .tag("operation", operation).register(meterRegistry);
+        Gauge.builder("chat.db.concurrency.inflight", limit, AdaptiveConcurrencyLimit::getInFlight)
+                .tag("operation", operation).register(meterRegistry);
+        return Counter.builder("chat.db.concurrency.rejected").tag("operation", operation).register(meterRegistry);
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.chatwriteservice.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hashed timing wheel: items are hashed by deadline tick into a fixed ring of buckets, so
+ * scheduling is O(1) and each tick only looks at one bucket, whatever the number of items.
+ * An item whose deadline is more than one rotation away stays in its bucket until the
+ * rotation it is due in. Items are never released before their deadline and at most one
+ * tick after it (or after the {@link #advance} call that follows).
+ */
+public class HashedTimingWheel<T> {
+
+    private record Timeout<T>(T item, long deadlineTick) {
+    }
+
+    private final long tickMillis;
+    private final List<Timeout<T>>[] buckets;
+    private final int mask;
+    /** Last tick whose bucket has been expired */
+    private long processedTick;
+    private int size;
+
+    /**
+     * @param ticksPerWheel number of buckets, rounded up to a power of two
+     */
+    @SuppressWarnings("unchecked")
+    public HashedTimingWheel(int ticksPerWheel, long tickMillis, long nowMillis) {
+        int n = Integer.highestOneBit(Math.max(2, ticksPerWheel - 1)) << 1;
+        this.buckets = new List[n];
+        for (int i = 0; i < n; i++) {
+            buckets[i] = new ArrayList<>();
+        }
+        this.mask = n - 1;
+        this.tickMillis = tickMillis;
+        this.processedTick = nowMillis / tickMillis - 1;
+    }
+
+    public synchronized void schedule(T item, long deadlineMillis) {
+        // Ceiling: an item must not be in a tick that completes before its deadline
+        long deadlineTick = Math.max(Math.ceilDiv(deadlineMillis, tickMillis) - 1, processedTick + 1);
+        buckets[(int) (deadlineTick & mask)].add(new Timeout<>(item, deadlineTick));
+        size++;
+    }
+
+    /**
+     * Expire every tick completed by nowMillis and return the items that became due
+     */
+    public synchronized List<T> advance(long nowMillis) {
+        List<T> due = new ArrayList<>();
+        long lastCompleted = nowMillis / tickMillis - 1;
+        if (lastCompleted <= processedTick) {
+            return due;
+        }
+        // After a long pause every bucket is looked at once
+        long first = Math.max(processedTick + 1, lastCompleted - mask);
+        for (long tick = first; tick <= lastCompleted; tick++) {
+            buckets[(int) (tick & mask)].removeIf(timeout -> {
+                if (timeout.deadlineTick() > lastCompleted) {
+                    return false;
+                }
+                due.add(timeout.item());
+                return true;
+            });
+        }
+        size -= due.size();
+        processedTick = lastCompleted;
+        return due;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+}
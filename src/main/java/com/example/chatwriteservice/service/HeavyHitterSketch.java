@@ -0,0 +1,215 @@
+package com.example.chatwriteservice.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Approximate most frequent keys over a sliding window, in constant memory.
+ * Counts go to a count-min sketch (depth x width atomic counters, estimates never undercount);
+ * keys whose estimate reaches the admission threshold are kept as top-K candidates. Two
+ * windows are kept: the estimate is the current window plus the previous one weighted by how
+ * much of it still overlaps the sliding window. {@link #add} only does atomic increments and,
+ * for candidates, a map insert; pruning the candidates is done by whichever thread gets the
+ * lock first, the others skip it.
+ */
+public class HeavyHitterSketch<K> {
+
+    public record Hit<K>(K key, long count) {
+    }
+
+    /**
+     * 64-bit hash of a key under a seed. Each row of the sketch uses its own seed, so keys that
+     * collide in one row (or share a hashCode) are unlikely to collide in the others.
+     */
+    @FunctionalInterface
+    public interface KeyHash<K> {
+        long hash(K key, long seed);
+    }
+
+    public static final KeyHash<String> STRING_HASH = (key, seed) -> {
+        long h = seed ^ key.length();
+        for (int i = 0; i < key.length(); i++) {
+            h = (h ^ key.charAt(i)) * 0x100000001B3L;
+        }
+        return mix(h ^ seed);
+    };
+
+    public static final KeyHash<UUID> UUID_HASH = (key, seed) ->
+            mix(mix(key.getMostSignificantBits() ^ seed) ^ key.getLeastSignificantBits());
+
+    private static final class Window<K> {
+        final long startedNanos;
+        final AtomicLongArray counts;
+        final Map<K, Boolean> candidates = new ConcurrentHashMap<>();
+        /** Estimate of the smallest candidate kept by the last prune */
+        volatile long admission = 1;
+
+        Window(long startedNanos, int size) {
+            this.startedNanos = startedNanos;
+            this.counts = new AtomicLongArray(size);
+        }
+    }
+
+    private static final long[] SEEDS = {
+            0x9E3779B97F4A7C15L, 0xC2B2AE3D27D4EB4FL, 0x165667B19E3779F9L, 0xD6E8FEB86659FD93L,
+            0xFF51AFD7ED558CCDL, 0xC4CEB9FE1A85EC53L, 0x94D049BB133111EBL, 0xBF58476D1CE4E5B9L
+    };
+
+    private final KeyHash<K> keyHash;
+    private final int depth;
+    private final int mask;
+    private final int capacity;
+    private final long windowNanos;
+    private final LongSupplier clock;
+    private final ReentrantLock pruneLock = new ReentrantLock();
+
+    private volatile Window<K> current;
+    private volatile Window<K> previous;
+
+    /**
+     * @param width    counters per row, rounded up to a power of two
+     * @param depth    rows (independent hashes), at most 8
+     * @param capacity number of heavy hitters to keep track of
+     */
+    public HeavyHitterSketch(KeyHash<K> keyHash, int width, int depth, int capacity, long windowNanos,
+                             LongSupplier clock) {
+        if (depth < 1 || depth > SEEDS.length) {
+            throw new IllegalArgumentException("depth must be between 1 and " + SEEDS.length);
+        }
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        int size = Integer.highestOneBit(Math.max(2, width - 1)) << 1;
+        this.keyHash = keyHash;
+        this.depth = depth;
+        this.mask = size - 1;
+        this.capacity = capacity;
+        this.windowNanos = windowNanos;
+        this.clock = clock;
+        long now = clock.getAsLong();
+        this.previous = new Window<>(now - windowNanos, depth * size);
+        this.current = new Window<>(now, depth * size);
+    }
+
+    public void add(K key) {
+        Window<K> window = window(clock.getAsLong());
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, window.counts.incrementAndGet(index(key, row)));
+        }
+        if (estimate >= window.admission && !window.candidates.containsKey(key)) {
+            window.candidates.put(key, Boolean.TRUE);
+            if (window.candidates.size() > capacity * 2) {
+                prune(window);
+            }
+        }
+    }
+
+    /**
+     * Estimated count of a key over the sliding window
+     */
+    public long estimate(K key) {
+        long now = clock.getAsLong();
+        Window<K> window = window(now);
+        return slidingEstimate(window, previous, key, now);
+    }
+
+    /**
+     * The most frequent keys over the sliding window, most frequent first
+     */
+    public List<Hit<K>> top(int limit) {
+        long now = clock.getAsLong();
+        Window<K> window = window(now);
+        Window<K> before = previous;
+        Set<K> keys = new HashSet<>(window.candidates.keySet());
+        keys.addAll(before.candidates.keySet());
+
+        List<Hit<K>> hits = new ArrayList<>(keys.size());
+        for (K key : keys) {
+            long count = slidingEstimate(window, before, key, now);
+            if (count > 0) {
+                hits.add(new Hit<>(key, count));
+            }
+        }
+        hits.sort(Comparator.comparingLong((Hit<K> hit) -> hit.count()).reversed());
+        return hits.size() > limit ? hits.subList(0, limit) : hits;
+    }
+
+    private long slidingEstimate(Window<K> window, Window<K> before, K key, long now) {
+        double elapsed = Math.min(1.0, (double) (now - window.startedNanos) / windowNanos);
+        return count(window, key) + Math.round(count(before, key) * (1.0 - elapsed));
+    }
+
+    private long count(Window<K> window, K key) {
+        long min = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            min = Math.min(min, window.counts.get(index(key, row)));
+        }
+        return min;
+    }
+
+    /*
+     * Windows are aligned to multiples of the window length from construction; after a gap
+     * without traffic the previous window is empty.
+     */
+    private Window<K> window(long now) {
+        Window<K> window = current;
+        if (now - window.startedNanos < windowNanos) {
+            return window;
+        }
+        synchronized (this) {
+            window = current;
+            long elapsed = now - window.startedNanos;
+            if (elapsed >= windowNanos) {
+                long windows = elapsed / windowNanos;
+                long started = window.startedNanos + windows * windowNanos;
+                previous = windows == 1 ? window : new Window<>(started - windowNanos, window.counts.length());
+                current = new Window<>(started, window.counts.length());
+                window = current;
+            }
+        }
+        return window;
+    }
+
+    private void prune(Window<K> window) {
+        if (!pruneLock.tryLock()) {
+            return;
+        }
+        try {
+            List<Hit<K>> ranked = new ArrayList<>();
+            for (K key : window.candidates.keySet()) {
+                ranked.add(new Hit<>(key, count(window, key)));
+            }
+            if (ranked.size() <= capacity) {
+                return;
+            }
+            ranked.sort(Comparator.comparingLong((Hit<K> hit) -> hit.count()).reversed());
+            for (Hit<K> evicted : ranked.subList(capacity, ranked.size())) {
+                window.candidates.remove(evicted.key());
+            }
+            window.admission = Math.max(window.admission, ranked.get(capacity - 1).count());
+        } finally {
+            pruneLock.unlock();
+        }
+    }
+
+    private int index(K key, int row) {
+        return row * (mask + 1) + (int) (keyHash.hash(key, SEEDS[row]) & mask);
+    }
+
+    /* SplitMix64 finalizer */
+    private static long mix(long h) {
+        h = (h ^ (h >>> 30)) * 0xBF58476D1CE4E5B9L;
+        h = (h ^ (h >>> 27)) * 0x94D049BB133111EBL;
+        return h ^ (h >>> 31);
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.chatwriteservice.service;
+
+import com.example.chatwriteservice.config.ChatProperties;
+import com.example.chatwriteservice.dto.HotspotsResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.MultiGauge;
+import io.micrometer.core.instrument.Tags;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Heavy hitters of this instance over a sliding window: conversations and senders by messages
+ * sent, destinations by broadcasts. Fed from the send and broadcast hot paths at the cost of a
+ * few atomic increments. The top entries are also published as tagged gauges
+ * (chat.hotspots.*.rate, per second) so dashboards and alerts can catch runaway senders.
+ * Sender and destination tags are keyed hashes, not emails: metrics backends are not the place
+ * for user identities. The admin snapshot lists each key next to its tag.
+ */
+@Component
+public class HotspotTracker {
+
+    private static final String TAG_ALGORITHM = "HmacSHA256";
+
+    private final SecretKeySpec tagKey;
+
+    private final HeavyHitterSketch<UUID> conversations;
+    private final HeavyHitterSketch<String> senders;
+    private final HeavyHitterSketch<String> destinations;
+    private final double windowSeconds;
+    private final int gaugedEntries;
+
+    private final MultiGauge conversationRates;
+    private final MultiGauge senderRates;
+    private final MultiGauge destinationRates;
+
+    public HotspotTracker(ChatProperties chatProperties, MeterRegistry meterRegistry) {
+        ChatProperties.Hotspots hotspots = chatProperties.getHotspots();
+        long windowNanos = hotspots.getWindow().toNanos();
+        this.conversations = sketch(HeavyHitterSketch.UUID_HASH, hotspots, windowNanos);
+        this.senders = sketch(HeavyHitterSketch.STRING_HASH, hotspots, windowNanos);
+        this.destinations = sketch(HeavyHitterSketch.STRING_HASH, hotspots, windowNanos);
+        this.windowSeconds = hotspots.getWindow().toMillis() / 1000.0;
+        this.gaugedEntries = hotspots.getGaugedEntries();
+        byte[] secret = new byte[32];
+        new SecureRandom().nextBytes(secret);
+        this.tagKey = new SecretKeySpec(secret, TAG_ALGORITHM);
+        this.conversationRates = MultiGauge.builder("chat.hotspots.conversation.rate").register(meterRegistry);
+        this.senderRates = MultiGauge.builder("chat.hotspots.sender.rate").register(meterRegistry);
+        this.destinationRates = MultiGauge.builder("chat.hotspots.destination.rate").register(meterRegistry);
+    }
+
+    public void messageSent(UUID conversationId, String senderEmail) {
+        conversations.add(conversationId);
+        senders.add(senderEmail);
+    }
+
+    public void broadcast(String destination) {
+        destinations.add(destination);
+    }
+
+    public HotspotsResponse snapshot(int limit) {
+        return HotspotsResponse.builder()
+                .windowSeconds(windowSeconds)
+                .conversations(toEntries(conversations.top(limit), false))
+                .senders(toEntries(senders.top(limit), true))
+                .destinations(toEntries(destinations.top(limit), true))
+                .build();
+    }
+
+    @Scheduled(fixedDelayString = "${chat.hotspots.gauge-refresh-interval:10s}")
+    void refreshGauges() {
+        conversationRates.register(rows(conversations.top(gaugedEntries), "conversation", false), true);
+        senderRates.register(rows(senders.top(gaugedEntries), "sender", true), true);
+        destinationRates.register(rows(destinations.top(gaugedEntries), "destination", true), true);
+    }
+
+    private <K> List<MultiGauge.Row<?>> rows(List<HeavyHitterSketch.Hit<K>> hits, String tag, boolean hashed) {
+        return hits.stream()
+                .<MultiGauge.Row<?>>map(hit -> MultiGauge.Row.of(Tags.of(tag, tagValue(hit.key(), hashed)),
+                        hit.count() / windowSeconds))
+                .toList();
+    }
+
+    private <K> List<HotspotsResponse.Entry> toEntries(List<HeavyHitterSketch.Hit<K>> hits, boolean hashed) {
+        return hits.stream()
+                .map(hit -> HotspotsResponse.Entry.builder()
+                        .key(hit.key().toString())
+                        .tag(tagValue(hit.key(), hashed))
+                        .count(hit.count())
+                        .perSecond(hit.count() / windowSeconds)
+                        .build())
+                .toList();
+    }
+
+    /**
+     * Gauge tag of a key: conversation ids as is, identities as the first 64 bits of an
+     * HMAC-SHA256 under a key that never leaves this instance, so tags cannot be reversed by
+     * hashing candidate emails
+     */
+    String tagValue(Object key, boolean hashed) {
+        if (!hashed) {
+            return key.toString();
+        }
+        try {
+            Mac mac = Mac.getInstance(TAG_ALGORITHM);
+            mac.init(tagKey);
+            byte[] digest = mac.doFinal(key.toString().getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, Long.BYTES);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(TAG_ALGORITHM + " is not available", e);
+        }
+    }
+
+    private static <K> HeavyHitterSketch<K> sketch(HeavyHitterSketch.KeyHash<K> keyHash,
+                                                   ChatProperties.Hotspots hotspots, long windowNanos) {
+        return new HeavyHitterSketch<>(keyHash, hotspots.getWidth(), hotspots.getDepth(), hotspots.getCapacity(),
+                windowNanos, System::nanoTime);
+    }
+}
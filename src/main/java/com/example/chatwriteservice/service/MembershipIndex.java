@@ -0,0 +1,221 @@
+package com.example.chatwriteservice.service;
+
+import com.example.chatwriteservice.config.ChatProperties;
+import com.example.chatwriteservice.repository.MembershipJdbcRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Conversation membership as compressed bitmaps of dense user ids (users.uid), so checks on
+ * large groups never materialize Participant entities.
+ * A bitmap is loaded on first use and afterwards patched by committed add/remove operations of
+ * this instance. Published bitmaps are never mutated (updates copy, then swap), so readers need
+ * no lock. Bitmaps older than chat.membership.max-age are reloaded; least recently used ones
+ * are evicted when the total size exceeds chat.membership.memory-budget.
+ */
+@Component
+@Slf4j
+public class MembershipIndex {
+
+    private static final class Entry {
+        volatile RoaringBitmap members;
+        volatile long sizeInBytes;
+        final long loadedAtNanos;
+        volatile long lastAccessNanos;
+
+        Entry(RoaringBitmap members, long now) {
+            this.members = members;
+            this.sizeInBytes = members.getSizeInBytes();
+            this.loadedAtNanos = now;
+            this.lastAccessNanos = now;
+        }
+    }
+
+    private final MembershipJdbcRepository membershipJdbcRepository;
+    private final long budgetBytes;
+    private final long maxAgeNanos;
+    private final int userIdCacheSize;
+    private final LongSupplier clock;
+
+    private final Map<UUID, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<String, Integer> uids = new ConcurrentHashMap<>();
+    private final AtomicLong usedBytes = new AtomicLong();
+    /** Bumped by every applied change; a load that overlaps one is not cached */
+    private final AtomicLong mutations = new AtomicLong();
+
+    @Autowired
+    public MembershipIndex(MembershipJdbcRepository membershipJdbcRepository, ChatProperties chatProperties,
+                           MeterRegistry meterRegistry) {
+        this(membershipJdbcRepository,
+                chatProperties.getMembership().getMemoryBudget().toBytes(),
+                chatProperties.getMembership().getMaxAge().toNanos(),
+                chatProperties.getMembership().getUserIdCacheSize(),
+                System::nanoTime);
+        Gauge.builder("chat.membership.index.bytes", usedBytes, AtomicLong::get).register(meterRegistry);
+        Gauge.builder("chat.membership.index.conversations", entries, Map::size).register(meterRegistry);
+    }
+
+    MembershipIndex(MembershipJdbcRepository membershipJdbcRepository, long budgetBytes, long maxAgeNanos,
+                    int userIdCacheSize, LongSupplier clock) {
+        this.membershipJdbcRepository = membershipJdbcRepository;
+        this.budgetBytes = budgetBytes;
+        this.maxAgeNanos = maxAgeNanos;
+        this.userIdCacheSize = userIdCacheSize;
+        this.clock = clock;
+    }
+
+    public boolean isMember(UUID conversationId, String email) {
+        Integer uid = uid(email);
+        return uid != null && members(conversationId).contains(uid);
+    }
+
+    /**
+     * Uid of a user, or null if the user does not exist
+     */
+    public Integer uid(String email) {
+        Integer uid = uids.get(email);
+        if (uid == null) {
+            uid = membershipJdbcRepository.findUid(email);
+            if (uid != null) {
+                if (uids.size() >= userIdCacheSize) {
+                    evictAny(uids);
+                }
+                uids.put(email, uid);
+            }
+        }
+        return uid;
+    }
+
+    /**
+     * Member uids of a conversation (empty if it does not exist). The bitmap must not be modified.
+     */
+    public RoaringBitmap members(UUID conversationId) {
+        long now = clock.getAsLong();
+        Entry entry = entries.get(conversationId);
+        if (entry != null && now - entry.loadedAtNanos < maxAgeNanos) {
+            entry.lastAccessNanos = now;
+            return entry.members;
+        }
+
+        long mutationsBefore = mutations.get();
+        RoaringBitmap loaded = membershipJdbcRepository.findMemberUids(conversationId);
+        if (mutations.get() == mutationsBefore) {
+            Entry fresh = new Entry(loaded, now);
+            Entry previous = entries.put(conversationId, fresh);
+            usedBytes.addAndGet(fresh.sizeInBytes - (previous != null ? previous.sizeInBytes : 0));
+            if (usedBytes.get() > budgetBytes) {
+                evictLeastRecentlyUsed();
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Record that a user joined. Applied after the surrounding transaction commits.
+     */
+    public void added(UUID conversationId, String email) {
+        afterCommit(() -> update(conversationId, email, true));
+    }
+
+    /**
+     * Record that a user left. Applied after the surrounding transaction commits.
+     */
+    public void removed(UUID conversationId, String email) {
+        afterCommit(() -> update(conversationId, email, false));
+    }
+
+    /**
+     * Drop the bitmap of a deleted conversation after the surrounding transaction commits
+     */
+    public void evict(UUID conversationId) {
+        afterCommit(() -> {
+            mutations.incrementAndGet();
+            Entry removed = entries.remove(conversationId);
+            if (removed != null) {
+                usedBytes.addAndGet(-removed.sizeInBytes);
+            }
+        });
+    }
+
+    private void update(UUID conversationId, String email, boolean add) {
+        mutations.incrementAndGet();
+        Entry entry = entries.get(conversationId);
+        if (entry == null) {
+            // Not loaded: the next load reads the committed state
+            return;
+        }
+        Integer uid = uid(email);
+        if (uid == null) {
+            return;
+        }
+        synchronized (entry) {
+            RoaringBitmap next = entry.members.clone();
+            if (add) {
+                next.add(uid);
+            } else {
+                next.remove(uid);
+            }
+            next.runOptimize();
+            long size = next.getSizeInBytes();
+            usedBytes.addAndGet(size - entry.sizeInBytes);
+            entry.sizeInBytes = size;
+            entry.members = next;
+        }
+    }
+
+    private synchronized void evictLeastRecentlyUsed() {
+        long target = budgetBytes * 9 / 10;
+        if (usedBytes.get() <= target) {
+            return;
+        }
+        List<Map.Entry<UUID, Entry>> candidates = new ArrayList<>(entries.entrySet());
+        candidates.sort(Comparator.comparingLong(e -> e.getValue().lastAccessNanos));
+        int evicted = 0;
+        for (Map.Entry<UUID, Entry> candidate : candidates) {
+            if (usedBytes.get() <= target) {
+                break;
+            }
+            if (entries.remove(candidate.getKey(), candidate.getValue())) {
+                usedBytes.addAndGet(-candidate.getValue().sizeInBytes);
+                evicted++;
+            }
+        }
+        log.debug("Evicted {} membership bitmaps, {} bytes in use", evicted, usedBytes.get());
+    }
+
+    private static void evictAny(Map<String, Integer> map) {
+        Iterator<String> keys = map.keySet().iterator();
+        if (keys.hasNext()) {
+            map.remove(keys.next());
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.example.chatwriteservice.service;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+
+/**
+ * Aho-Corasick automaton over the mention handles of a conversation's participants: the full
+ * email and, when no other participant shares it, the local part ("@alice" for
+ * alice@example.com). One pass over a message finds every handle written after an '@',
+ * case-insensitively, so the cost depends on the message length, not the number of members.
+ * Immutable once built; safe to share between threads.
+ */
+public class MentionAutomaton {
+
+    private static final class Node {
+        final Map<Character, Node> next = new HashMap<>(4);
+        Node fail;
+        /** Nearest node on the fail chain (excluding this one) that ends a handle */
+        Node outputLink;
+        /** Email of the handle ending here, or null */
+        String email;
+        int depth;
+    }
+
+    private final Node root = new Node();
+
+    public MentionAutomaton(Collection<String> emails) {
+        Map<String, String> handles = new HashMap<>();
+        Map<String, Integer> localParts = new HashMap<>();
+        for (String email : emails) {
+            String lower = lower(email);
+            handles.put(lower, email);
+            int at = lower.indexOf('@');
+            if (at > 0) {
+                localParts.merge(lower.substring(0, at), 1, Integer::sum);
+            }
+        }
+        for (String email : emails) {
+            String lower = lower(email);
+            int at = lower.indexOf('@');
+            if (at > 0 && localParts.get(lower.substring(0, at)) == 1) {
+                handles.putIfAbsent(lower.substring(0, at), email);
+            }
+        }
+        handles.forEach(this::insert);
+        link();
+    }
+
+    /**
+     * Emails mentioned in the text, in order of first mention
+     */
+    public Set<String> find(CharSequence text) {
+        Set<String> mentioned = new LinkedHashSet<>();
+        Node state = root;
+        for (int i = 0; i < text.length(); i++) {
+            char c = Character.toLowerCase(text.charAt(i));
+            while (state != root && !state.next.containsKey(c)) {
+                state = state.fail;
+            }
+            state = state.next.getOrDefault(c, root);
+            for (Node match = state.email != null ? state : state.outputLink; match != null; match = match.outputLink) {
+                int start = i - match.depth + 1;
+                if (startsHandle(text, start) && endsHandle(text, i + 1)) {
+                    mentioned.add(match.email);
+                }
+            }
+        }
+        return mentioned;
+    }
+
+    private void insert(String handle, String email) {
+        Node node = root;
+        for (int i = 0; i < handle.length(); i++) {
+            Node parent = node;
+            node = node.next.computeIfAbsent(handle.charAt(i), c -> new Node());
+            node.depth = parent.depth + 1;
+        }
+        node.email = email;
+    }
+
+    /*
+     * Breadth first, so the fail target of a node is always complete before the node
+     */
+    private void link() {
+        Queue<Node> queue = new ArrayDeque<>();
+        root.fail = root;
+        for (Node child : root.next.values()) {
+            child.fail = root;
+            queue.add(child);
+        }
+        while (!queue.isEmpty()) {
+            Node node = queue.remove();
+            for (Map.Entry<Character, Node> edge : node.next.entrySet()) {
+                Node child = edge.getValue();
+                Node fail = node.fail;
+                while (fail != root && !fail.next.containsKey(edge.getKey())) {
+                    fail = fail.fail;
+                }
+                Node target = fail.next.get(edge.getKey());
+                child.fail = target != null && target != child ? target : root;
+                child.outputLink = child.fail.email != null ? child.fail : child.fail.outputLink;
+                queue.add(child);
+            }
+        }
+    }
+
+    /*
+     * Written as "@handle", where the '@' does not belong to an address ("mail@alice")
+     */
+    private static boolean startsHandle(CharSequence text, int start) {
+        return start > 0 && text.charAt(start - 1) == '@' && (start == 1 || !isHandleChar(text.charAt(start - 2)));
+    }
+
+    /*
+     * A handle must not run on into more of an address: "@alice" does not match "@alice@example.com"
+     * or "@alice.smith", but a sentence may end right after it ("thanks @alice.")
+     */
+    private static boolean endsHandle(CharSequence text, int end) {
+        if (end >= text.length()) {
+            return true;
+        }
+        char c = text.charAt(end);
+        if (c == '.' || c == '-') {
+            return end + 1 >= text.length() || !isHandleChar(text.charAt(end + 1));
+        }
+        return !isHandleChar(c);
+    }
+
+    private static String lower(String s) {
+        StringBuilder lower = new StringBuilder(s.length());
+        for (int i = 0; i < s.length(); i++) {
+            lower.append(Character.toLowerCase(s.charAt(i)));
+        }
+        return lower.toString();
+    }
+
+    private static boolean isHandleChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '+' || c == '%' || c == '@';
+    }
+}
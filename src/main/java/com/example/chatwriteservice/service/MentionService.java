@@ -0,0 +1,188 @@
+package com.example.chatwriteservice.service;
+
+import com.example.chatwriteservice.config.ChatProperties;
+import com.example.chatwriteservice.dto.MentionNotification;
+import com.example.chatwriteservice.dto.MentionResponse;
+import com.example.chatwriteservice.dto.MessageResponse;
+import com.example.chatwriteservice.exception.ResourceNotFoundException;
+import com.example.chatwriteservice.repository.MembershipJdbcRepository;
+import com.example.chatwriteservice.repository.MentionJdbcRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @mentions of conversation participants.
+ * Sending a message only queues it (and only if it contains an '@'); {@link #deliver()} then
+ * finds the mentions with the conversation's MentionAutomaton, stores them as unacknowledged
+ * and pushes one MentionNotification per mentioned user to /user/queue/mentions, however many
+ * mentions the user got during chat.mentions.delivery-interval. Messages still queued at
+ * shutdown are processed before the context closes, so their mentions are stored.
+ * Automata are cached per conversation with the membership bitmap they were built from, and
+ * rebuilt when MembershipIndex holds a different one (its bitmaps are immutable snapshots,
+ * replaced on every change) or after chat.mentions.max-age; every match is checked against
+ * MembershipIndex, so users who left are never notified.
+ */
+@Service
+@Slf4j
+public class MentionService {
+
+    public static final String MENTIONS_QUEUE = "/queue/mentions";
+    static final int PREVIEW_LENGTH = 200;
+    static final int MAX_LIST_LIMIT = 200;
+
+    private record CachedAutomaton(MentionAutomaton automaton, RoaringBitmap members, long loadedAtNanos) {
+    }
+
+    private final MembershipJdbcRepository membershipJdbcRepository;
+    private final MembershipIndex membershipIndex;
+    private final MentionJdbcRepository mentionJdbcRepository;
+    private final BroadcastService broadcastService;
+    private final ChatProperties.Mentions properties;
+    private final Counter dropped;
+
+    private final Queue<MessageResponse> sent = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final Map<UUID, CachedAutomaton> automata = new ConcurrentHashMap<>();
+
+    public MentionService(MembershipJdbcRepository membershipJdbcRepository, MembershipIndex membershipIndex,
+                          MentionJdbcRepository mentionJdbcRepository, BroadcastService broadcastService,
+                          ChatProperties chatProperties, MeterRegistry meterRegistry) {
+        this.membershipJdbcRepository = membershipJdbcRepository;
+        this.membershipIndex = membershipIndex;
+        this.mentionJdbcRepository = mentionJdbcRepository;
+        this.broadcastService = broadcastService;
+        this.properties = chatProperties.getMentions();
+        this.dropped = meterRegistry.counter("chat.mentions.dropped");
+    }
+
+    /**
+     * Queue a sent message for mention detection
+     */
+    public void messageSent(MessageResponse message) {
+        String content = message.getContent();
+        if (content == null || content.indexOf('@') < 0) {
+            return;
+        }
+        if (queued.incrementAndGet() > properties.getMaxPending()) {
+            queued.decrementAndGet();
+            dropped.increment();
+            return;
+        }
+        sent.add(message);
+    }
+
+    @Scheduled(fixedDelayString = "${chat.mentions.delivery-interval:500ms}")
+    public void deliver() {
+        Map<String, List<MentionResponse>> byUser = new LinkedHashMap<>();
+        MessageResponse message;
+        while ((message = sent.poll()) != null) {
+            queued.decrementAndGet();
+            try {
+                collect(message, byUser);
+            } catch (RuntimeException e) {
+                log.warn("Could not look for mentions in message {}: {}", message.getId(), e.getMessage());
+            }
+        }
+        if (byUser.isEmpty()) {
+            return;
+        }
+
+        try {
+            mentionJdbcRepository.insertAll(byUser);
+        } catch (RuntimeException e) {
+            log.warn("Could not store mentions for {} users, delivering them live only: {}",
+                    byUser.size(), e.getMessage());
+        }
+        byUser.forEach((email, mentions) -> broadcastService.sendToUser(email, MENTIONS_QUEUE,
+                MentionNotification.builder().type(MentionNotification.TYPE).mentions(mentions).build()));
+        log.debug("Delivered mentions to {} users", byUser.size());
+    }
+
+    @PreDestroy
+    void flushOnShutdown() {
+        deliver();
+    }
+
+    /**
+     * Newest unacknowledged mentions of a user
+     */
+    public List<MentionResponse> getMentions(String email, int limit) {
+        return mentionJdbcRepository.findUnacknowledged(email, Math.max(1, Math.min(limit, MAX_LIST_LIMIT)));
+    }
+
+    public void acknowledge(String email, UUID messageId) {
+        if (!mentionJdbcRepository.acknowledge(email, messageId)) {
+            throw new ResourceNotFoundException("Mention not found");
+        }
+    }
+
+    /**
+     * Acknowledge all mentions of a user, or those in one conversation
+     */
+    public int acknowledgeAll(String email, UUID conversationId) {
+        return mentionJdbcRepository.acknowledgeAll(email, conversationId);
+    }
+
+    private void collect(MessageResponse message, Map<String, List<MentionResponse>> byUser) {
+        UUID conversationId = message.getConversationId();
+        MentionResponse mention = null;
+        int notified = 0;
+        for (String email : automaton(conversationId).find(message.getContent())) {
+            if (email.equals(message.getSenderEmail()) || !membershipIndex.isMember(conversationId, email)) {
+                continue;
+            }
+            if (++notified > properties.getMaxPerMessage()) {
+                break;
+            }
+            if (mention == null) {
+                String content = message.getContent();
+                mention = MentionResponse.builder()
+                        .messageId(message.getId())
+                        .conversationId(conversationId)
+                        .senderEmail(message.getSenderEmail())
+                        .preview(content.length() > PREVIEW_LENGTH ? content.substring(0, PREVIEW_LENGTH) : content)
+                        .createdAt(message.getCreatedAt())
+                        .build();
+            }
+            byUser.computeIfAbsent(email, e -> new ArrayList<>()).add(mention);
+        }
+    }
+
+    private MentionAutomaton automaton(UUID conversationId) {
+        long now = System.nanoTime();
+        // Read before the emails, so a change in between makes the next message rebuild again
+        RoaringBitmap members = membershipIndex.members(conversationId);
+        CachedAutomaton cached = automata.get(conversationId);
+        if (cached != null && now - cached.loadedAtNanos() < properties.getMaxAge().toNanos()
+                && (cached.members() == members || cached.members().equals(members))) {
+            return cached.automaton();
+        }
+
+        List<String> emails = membershipJdbcRepository.findMemberEmails(conversationId);
+        MentionAutomaton automaton = new MentionAutomaton(emails);
+        if (cached == null && automata.size() >= properties.getMaxCachedConversations()) {
+            Iterator<UUID> keys = automata.keySet().iterator();
+            if (keys.hasNext()) {
+                automata.remove(keys.next());
+            }
+        }
+        automata.put(conversationId, new CachedAutomaton(automaton, members, now));
+        return automaton;
+    }
+}
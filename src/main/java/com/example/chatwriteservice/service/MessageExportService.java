@@ -0,0 +1,143 @@
+package com.example.chatwriteservice.service;
+
+import com.example.chatwriteservice.config.ChatProperties;
+import com.example.chatwriteservice.dto.MessageResponse;
+import com.example.chatwriteservice.exception.ResourceNotFoundException;
+import com.example.chatwriteservice.repository.ConversationRepository;
+import com.example.chatwriteservice.repository.MessageJdbcRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneOffset;
+import java.util.UUID;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streams the full history of a conversation without materializing it.
+ * Rows come from a forward-only JDBC cursor and are written straight to the output stream,
+ * so memory use does not depend on the conversation size.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class MessageExportService {
+
+    public enum Format {
+        /** One MessageResponse JSON document per line */
+        NDJSON,
+        /**
+         * Big-endian records: header "CHEX" + version byte (2), then per message
+         * [1][id msb][id lsb][conversation id msb][conversation id lsb][seq or -1]
+         * [created_at epoch seconds (local time)][nanos][type ordinal]
+         * [sender length][sender utf-8][content length or -1][content utf-8]
+         * [0, or 1 + attachment id msb + attachment id lsb], terminated by [0].
+         * Version 1 records had no conversation id, seq or attachment id.
+         */
+        BINARY
+    }
+
+    static final byte[] BINARY_MAGIC = {'C', 'H', 'E', 'X'};
+    static final int BINARY_VERSION = 2;
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final MessageJdbcRepository messageJdbcRepository;
+    private final ConversationRepository conversationRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final ObjectMapper objectMapper;
+    private final ChatProperties chatProperties;
+
+    /**
+     * Fail fast (before the response is committed) when the conversation does not exist
+     */
+    public void validateConversation(UUID conversationId) {
+        if (!conversationRepository.existsById(conversationId)) {
+            throw new ResourceNotFoundException("Conversation not found");
+        }
+    }
+
+    public void export(UUID conversationId, Format format, boolean gzip, OutputStream out) throws IOException {
+        OutputStream target = gzip ? new GZIPOutputStream(out, BUFFER_SIZE) : out;
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(target, BUFFER_SIZE));
+        ObjectWriter jsonWriter = objectMapper.writerFor(MessageResponse.class);
+
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.setReadOnly(true);
+
+        long[] count = {0};
+        if (format == Format.BINARY) {
+            data.write(BINARY_MAGIC);
+            data.writeByte(BINARY_VERSION);
+        }
+        try {
+            tx.executeWithoutResult(status -> messageJdbcRepository.streamByConversationId(
+                    conversationId, chatProperties.getExport().getFetchSize(), message -> {
+                        try {
+                            if (format == Format.BINARY) {
+                                writeBinary(data, message);
+                            } else {
+                                data.write(jsonWriter.writeValueAsBytes(message));
+                                data.writeByte('\n');
+                            }
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                        count[0]++;
+                    }));
+        } catch (UncheckedIOException e) {
+            // Client went away mid-stream; the cursor was closed together with the transaction
+            throw e.getCause();
+        }
+        if (format == Format.BINARY) {
+            data.writeByte(0);
+        }
+        data.flush();
+        if (target instanceof GZIPOutputStream gzipStream) {
+            gzipStream.finish();
+        }
+
+        log.info("Exported {} messages from conversation: {} as {}", count[0], conversationId, format);
+    }
+
+    private static void writeBinary(DataOutputStream data, MessageResponse message) throws IOException {
+        data.writeByte(1);
+        data.writeLong(message.getId().getMostSignificantBits());
+        data.writeLong(message.getId().getLeastSignificantBits());
+        data.writeLong(message.getConversationId().getMostSignificantBits());
+        data.writeLong(message.getConversationId().getLeastSignificantBits());
+        data.writeLong(message.getSeq() != null ? message.getSeq() : -1);
+        data.writeLong(message.getCreatedAt().toEpochSecond(ZoneOffset.UTC));
+        data.writeInt(message.getCreatedAt().getNano());
+        data.writeByte(message.getType().ordinal());
+        writeString(data, message.getSenderEmail());
+        writeString(data, message.getContent());
+        if (message.getAttachmentId() == null) {
+            data.writeByte(0);
+        } else {
+            data.writeByte(1);
+            data.writeLong(message.getAttachmentId().getMostSignificantBits());
+            data.writeLong(message.getAttachmentId().getLeastSignificantBits());
+        }
+    }
+
+    private static void writeString(DataOutputStream data, String value) throws IOException {
+        if (value == null) {
+            data.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        data.writeInt(bytes.length);
+        data.write(bytes);
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.chatwriteservice.service;
+
+import com.example.chatwriteservice.config.ChatProperties;
+import com.example.chatwriteservice.dto.ImportProgressResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.ExitCodeGenerator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * CLI mode for the bulk import. Runs one import at startup and exits, e.g.
+ * <pre>
+ * java -jar chat-write-service.jar --spring.main.web-application-type=none \
+ *      --chat.bulk-import.file=history.ndjson \
+ *      --chat.bulk-import.conversation-id=... --chat.bulk-import.job-id=legacy-42
+ * </pre>
+ * Re-running with the same job id resumes from the last checkpoint. The result is reported
+ * through ExitCodeGenerator; ChatWriteServiceApplication closes the context and exits with it.
+ */
+@Component
+@ConditionalOnProperty(prefix = "chat.bulk-import", name = "file")
+@RequiredArgsConstructor
+@Slf4j
+public class MessageImportRunner implements ApplicationRunner, ExitCodeGenerator {
+
+    private final MessageImportService messageImportService;
+    private final ChatProperties chatProperties;
+
+    private volatile int exitCode;
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        ChatProperties.BulkImport config = chatProperties.getBulkImport();
+        if (config.getConversationId() == null || config.getJobId() == null) {
+            throw new IllegalArgumentException("chat.bulk-import.conversation-id and chat.bulk-import.job-id are required");
+        }
+
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(Path.of(config.getFile())))) {
+            ImportProgressResponse result = messageImportService.importMessages(
+                    config.getConversationId(), config.getJobId(), in);
+            log.info("Import {} finished with status {} ({} rows)",
+                    result.getJobId(), result.getStatus(), result.getRowsCommitted());
+        } catch (Exception e) {
+            log.error("Import {} aborted, re-run with the same job id to resume: {}", config.getJobId(), e.getMessage());
+            exitCode = 1;
+        }
+    }
+
+    @Override
+    public int getExitCode() {
+        return exitCode;
+    }
+}
@@ -0,0 +1,229 @@
+package com.example.chatwriteservice.service;
+
+import com.example.chatwriteservice.config.ChatProperties;
+import com.example.chatwriteservice.dto.ImportProgressResponse;
+import com.example.chatwriteservice.dto.MessageImportRecord;
+import com.example.chatwriteservice.entity.ImportCheckpoint;
+import com.example.chatwriteservice.entity.ImportStatus;
+import com.example.chatwriteservice.entity.MessageType;
+import com.example.chatwriteservice.exception.BadRequestException;
+import com.example.chatwriteservice.exception.ResourceNotFoundException;
+import com.example.chatwriteservice.repository.ConversationRepository;
+import com.example.chatwriteservice.repository.ImportCheckpointRepository;
+import com.example.chatwriteservice.repository.MessageJdbcRepository;
+import com.example.chatwriteservice.repository.ParticipantRepository;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk history import for migrations. Reads an NDJSON stream of MessageImportRecord,
+ * validates senders per batch with a single participant query and loads the batch with
+ * PostgreSQL COPY. The checkpoint row is advanced in the same transaction, so re-running
+ * the same jobId with the same stream skips what was already committed.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class MessageImportService {
+
+    private static final int MAX_REPORTED_EMAILS = 10;
+
+    private final MessageJdbcRepository messageJdbcRepository;
+    private final ParticipantRepository participantRepository;
+    private final ConversationRepository conversationRepository;
+    private final ImportCheckpointRepository importCheckpointRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final ObjectMapper objectMapper;
+    private final ChatProperties chatProperties;
+    private final MessageTailCache messageTailCache;
+
+    /** rows/s of jobs running on this instance */
+    private final Map<String, Double> throughput = new ConcurrentHashMap<>();
+
+    public ImportProgressResponse importMessages(UUID conversationId, String jobId, InputStream in) throws IOException {
+        if (!conversationRepository.existsById(conversationId)) {
+            throw new ResourceNotFoundException("Conversation not found");
+        }
+
+        ImportCheckpoint checkpoint = startOrResume(jobId, conversationId);
+        if (checkpoint.getStatus() == ImportStatus.COMPLETED) {
+            log.info("Import {} already completed with {} rows", jobId, checkpoint.getRowsCommitted());
+            return mapToResponse(checkpoint);
+        }
+
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        int batchSize = chatProperties.getBulkImport().getBatchSize();
+        long skip = checkpoint.getRowsCommitted();
+        long committed = skip;
+        long importedThisRun = 0;
+        long started = System.nanoTime();
+
+        try (MappingIterator<MessageImportRecord> records =
+                     objectMapper.readerFor(MessageImportRecord.class).readValues(in)) {
+            for (long i = 0; i < skip && records.hasNextValue(); i++) {
+                records.nextValue();
+            }
+            if (skip > 0) {
+                log.info("Import {} resuming after {} committed rows", jobId, skip);
+            }
+
+            List<MessageImportRecord> batch = new ArrayList<>(batchSize);
+            while (true) {
+                boolean hasNext = records.hasNextValue();
+                if (hasNext) {
+                    batch.add(normalize(records.nextValue()));
+                }
+                if (batch.size() == batchSize || (!hasNext && !batch.isEmpty())) {
+                    final long committedBefore = committed;
+                    tx.executeWithoutResult(status -> importBatch(jobId, conversationId, batch, committedBefore));
+                    // Imported rows get the newest sequence numbers
+                    messageTailCache.evict(conversationId);
+                    committed += batch.size();
+                    importedThisRun += batch.size();
+                    batch.clear();
+
+                    double rate = importedThisRun / Math.max((System.nanoTime() - started) / 1e9, 1e-3);
+                    throughput.put(jobId, rate);
+                    log.info("Import {}: {} rows committed ({} rows/s)", jobId, committed, Math.round(rate));
+                }
+                if (!hasNext) {
+                    break;
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            fail(jobId, e);
+            throw e;
+        } finally {
+            throughput.remove(jobId);
+        }
+
+        ImportCheckpoint done = importCheckpointRepository.findById(jobId).orElseThrow();
+        done.setStatus(ImportStatus.COMPLETED);
+        done.setLastError(null);
+        done = importCheckpointRepository.save(done);
+
+        log.info("Import {} completed: {} rows into conversation: {}", jobId, committed, conversationId);
+        return mapToResponse(done);
+    }
+
+    public ImportProgressResponse getProgress(String jobId) {
+        ImportCheckpoint checkpoint = importCheckpointRepository.findById(jobId)
+                .orElseThrow(() -> new ResourceNotFoundException("Import job not found"));
+        return mapToResponse(checkpoint);
+    }
+
+    private ImportCheckpoint startOrResume(String jobId, UUID conversationId) {
+        ImportCheckpoint checkpoint = importCheckpointRepository.findById(jobId).orElse(null);
+        if (checkpoint == null) {
+            checkpoint = ImportCheckpoint.builder()
+                    .jobId(jobId)
+                    .conversationId(conversationId)
+                    .rowsCommitted(0L)
+                    .status(ImportStatus.RUNNING)
+                    .build();
+            return importCheckpointRepository.save(checkpoint);
+        }
+        if (!checkpoint.getConversationId().equals(conversationId)) {
+            throw new BadRequestException("Import job " + jobId + " belongs to another conversation");
+        }
+        if (checkpoint.getStatus() != ImportStatus.COMPLETED) {
+            checkpoint.setStatus(ImportStatus.RUNNING);
+            checkpoint = importCheckpointRepository.save(checkpoint);
+        }
+        return checkpoint;
+    }
+
+    private void importBatch(String jobId, UUID conversationId, List<MessageImportRecord> batch, long committedBefore) {
+        // Row lock on the checkpoint serializes concurrent runs of the same job
+        ImportCheckpoint checkpoint = importCheckpointRepository.findByIdForUpdate(jobId).orElseThrow();
+        if (checkpoint.getRowsCommitted() != committedBefore) {
+            // Another run of the same job advanced the checkpoint; abort instead of duplicating rows
+            throw new BadRequestException("Import job " + jobId + " is running elsewhere");
+        }
+
+        validateSenders(conversationId, batch);
+        // Reserved in the batch transaction, so a failed batch leaves no gap
+        Long firstSeq = messageJdbcRepository.reserveSequence(conversationId, batch.size());
+        if (firstSeq == null) {
+            throw new ResourceNotFoundException("Conversation not found");
+        }
+        messageJdbcRepository.copyMessages(conversationId, firstSeq, batch);
+
+        checkpoint.setRowsCommitted(committedBefore + batch.size());
+        importCheckpointRepository.save(checkpoint);
+    }
+
+    private void validateSenders(UUID conversationId, List<MessageImportRecord> batch) {
+        Set<String> senders = batch.stream()
+                .map(MessageImportRecord::getSenderEmail)
+                .collect(Collectors.toSet());
+        Set<String> participants = new HashSet<>(
+                participantRepository.findEmailsByConversationIdAndEmailIn(conversationId, senders));
+        if (participants.size() == senders.size()) {
+            return;
+        }
+        String missing = senders.stream()
+                .filter(email -> !participants.contains(email))
+                .limit(MAX_REPORTED_EMAILS)
+                .collect(Collectors.joining(", "));
+        throw new BadRequestException("Senders are not participants of this conversation: " + missing);
+    }
+
+    private MessageImportRecord normalize(MessageImportRecord record) {
+        if (record.getSenderEmail() == null || record.getSenderEmail().isBlank()) {
+            throw new BadRequestException("Sender email is required");
+        }
+        if (record.getCreatedAt() == null) {
+            throw new BadRequestException("createdAt is required for imported messages");
+        }
+        if (record.getId() == null) {
+            record.setId(UUID.randomUUID());
+        }
+        if (record.getType() == null) {
+            record.setType(MessageType.TEXT);
+        }
+        return record;
+    }
+
+    private void fail(String jobId, Exception e) {
+        try {
+            importCheckpointRepository.findById(jobId).ifPresent(checkpoint -> {
+                checkpoint.setStatus(ImportStatus.FAILED);
+                checkpoint.setLastError(e.getMessage());
+                importCheckpointRepository.save(checkpoint);
+            });
+        } catch (RuntimeException ex) {
+            log.warn("Could not record failure of import {}: {}", jobId, ex.getMessage());
+        }
+        log.error("Import {} failed: {}", jobId, e.getMessage(), e);
+    }
+
+    private ImportProgressResponse mapToResponse(ImportCheckpoint checkpoint) {
+        return ImportProgressResponse.builder()
+                .jobId(checkpoint.getJobId())
+                .conversationId(checkpoint.getConversationId())
+                .status(checkpoint.getStatus())
+                .rowsCommitted(checkpoint.getRowsCommitted())
+                .rowsPerSecond(throughput.get(checkpoint.getJobId()))
+                .lastError(checkpoint.getLastError())
+                .createdAt(checkpoint.getCreatedAt())
+                .updatedAt(checkpoint.getUpdatedAt())
+                .build();
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.chatwriteservice.service;
+
+import com.example.chatwriteservice.config.ChatProperties;
+import com.example.chatwriteservice.dto.MessageResponse;
+import com.example.chatwriteservice.dto.MessageSearchResponse;
+import com.example.chatwriteservice.exception.BadRequestException;
+import com.example.chatwriteservice.repository.MessageJdbcRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class MessageSearchService {
+
+    public static final int MAX_LIMIT = 100;
+
+    private final MessageJdbcRepository messageJdbcRepository;
+    private final ChatProperties chatProperties;
+
+    @Transactional(readOnly = true)
+    public MessageSearchResponse search(String email, String query, UUID conversationId, String cursor, int limit) {
+        if (query == null || query.isBlank()) {
+            throw new BadRequestException("Search query is required");
+        }
+        int pageSize = Math.max(1, Math.min(limit, MAX_LIMIT));
+
+        // Fetch one extra row to know whether another page exists
+        MessageJdbcRepository.SearchResult result = messageJdbcRepository.search(
+                email, query, conversationId, decodeCursor(cursor), pageSize + 1,
+                chatProperties.getSearch().getMaxCandidates());
+        List<MessageJdbcRepository.SearchHit> hits = result.hits();
+
+        boolean hasMore = hits.size() > pageSize;
+        List<MessageJdbcRepository.SearchHit> page = hasMore ? hits.subList(0, pageSize) : hits;
+
+        return MessageSearchResponse.builder()
+                .messages(page.stream().map(MessageJdbcRepository.SearchHit::message).toList())
+                .nextCursor(hasMore ? encodeCursor(page.get(page.size() - 1)) : null)
+                .truncated(result.truncated())
+                .build();
+    }
+
+    static String encodeCursor(MessageJdbcRepository.SearchHit hit) {
+        String raw = hit.rank() + "|" + hit.message().getCreatedAt() + "|" + hit.message().getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static MessageJdbcRepository.SearchHit decodeCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|");
+            MessageResponse position = MessageResponse.builder()
+                    .createdAt(LocalDateTime.parse(parts[1]))
+                    .id(UUID.fromString(parts[2]))
+                    .build();
+            return new MessageJdbcRepository.SearchHit(position, Float.parseFloat(parts[0]));
+        } catch (RuntimeException e) {
+            throw new BadRequestException("Invalid search cursor");
+        }
+    }
+}
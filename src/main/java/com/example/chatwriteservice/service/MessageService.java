@@ -1,24 +1,25 @@
 package com.example.chatwriteservice.service;
 
+import com.example.chatwriteservice.config.ReadYourWritesTracker;
 import com.example.chatwriteservice.dto.MessageRequest;
 import com.example.chatwriteservice.dto.MessageResponse;
-import com.example.chatwriteservice.entity.Conversation;
 import com.example.chatwriteservice.entity.Message;
-import com.example.chatwriteservice.entity.User;
+import com.example.chatwriteservice.entity.MessageType;
 import com.example.chatwriteservice.exception.BadRequestException;
 import com.example.chatwriteservice.exception.ResourceNotFoundException;
-import com.example.chatwriteservice.repository.ConversationRepository;
+import com.example.chatwriteservice.repository.MessageJdbcRepository;
 import com.example.chatwriteservice.repository.MessageRepository;
-import com.example.chatwriteservice.repository.ParticipantRepository;
-import com.example.chatwriteservice.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.UUID;
 
 @Service
@@ -26,62 +27,105 @@ import java.util.UUID;
 @Slf4j
 public class MessageService {
 
+    public static final int MAX_RANGE_LIMIT = 500;
+
     private final MessageRepository messageRepository;
-    private final ConversationRepository conversationRepository;
-    private final UserRepository userRepository;
-    private final ParticipantRepository participantRepository;
+    private final MessageJdbcRepository messageJdbcRepository;
+    private final ReadYourWritesTracker readYourWritesTracker;
+    private final AttachmentService attachmentService;
+    private final HotspotTracker hotspotTracker;
+    private final MentionService mentionService;
+    private final MessageTailCache messageTailCache;
 
-    @Transactional
+    /**
+     * Validate membership and insert in a single statement (see MessageJdbcRepository#insertIfParticipant).
+     * Not transactional on purpose: the statement is atomic and autocommit saves the COMMIT round trip.
+     */
     public MessageResponse sendMessage(MessageRequest request) {
-        // Validate conversation exists
-        Conversation conversation = conversationRepository.findById(request.getConversationId())
-                .orElseThrow(() -> new ResourceNotFoundException("Conversation not found"));
+        return sendMessage(UUID.randomUUID(), request);
+    }
 
-        // Validate user exists
-        User sender = userRepository.findById(request.getSenderEmail())
-                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
+    /**
+     * Send with a given message id (scheduled messages reuse theirs)
+     */
+    public MessageResponse sendMessage(UUID messageId, MessageRequest request) {
+        if (request.getAttachmentId() != null) {
+            attachmentService.validateForMessage(
+                    request.getAttachmentId(), request.getConversationId(), request.getSenderEmail());
+        }
+        MessageJdbcRepository.InsertResult result = messageJdbcRepository.insertIfParticipant(
+                messageId,
+                request.getConversationId(),
+                request.getSenderEmail(),
+                request.getType() != null ? request.getType() : MessageType.TEXT,
+                request.getContent(),
+                request.getAttachmentId(),
+                LocalDateTime.now());
 
-        // Validate user is participant
-        if (participantRepository.findByConversationIdAndEmail(
-                request.getConversationId(), request.getSenderEmail()) == null) {
+        if (result.message() == null) {
+            if (!result.conversationExists()) {
+                throw new ResourceNotFoundException("Conversation not found");
+            }
+            if (!result.userExists()) {
+                throw new ResourceNotFoundException("User not found");
+            }
             throw new BadRequestException("User is not a participant of this conversation");
         }
 
-        // Create and save message
-        Message message = Message.builder()
-                .id(UUID.randomUUID())
-                .conversation(conversation)
-                .sender(sender)
-                .type(request.getType())
-                .content(request.getContent())
-                .createdAt(LocalDateTime.now())
-                .isDeleted(false)
-                .build();
-
-        message = messageRepository.save(message);
+        MessageResponse response = result.message();
+        hotspotTracker.messageSent(response.getConversationId(), response.getSenderEmail());
+        mentionService.messageSent(response);
+        messageTailCache.appended(response);
 
-        // Update conversation updated_at
-        conversation.setUpdatedAt(LocalDateTime.now());
-        conversationRepository.save(conversation);
+        // Sender's follow-up reads must see this message, keep them off the replicas for a while
+        readYourWritesTracker.markWritten(response.getSenderEmail(), response.getConversationId());
+        readYourWritesTracker.markWritten(response.getSenderEmail(), response.getSenderEmail());
 
-        log.info("Message sent: {} in conversation: {}", message.getId(), conversation.getId());
+        log.info("Message sent: {} in conversation: {}", response.getId(), response.getConversationId());
 
-        return mapToResponse(message);
+        return response;
     }
 
+    /**
+     * Read a page from the database. Callers serve the newest page from MessageTailCache when
+     * loaded, before this call (and its concurrency limit); a first page read here loads the
+     * whole tail for the next readers.
+     */
     @Transactional(readOnly = true)
     public Page<MessageResponse> getMessagesByConversationId(UUID conversationId, Pageable pageable) {
-        Page<Message> messages = messageRepository.findByConversationIdAndNotDeleted(conversationId, pageable);
-        return messages.map(this::mapToResponse);
+        readYourWritesTracker.routeToPrimaryIfRecentlyWritten(conversationId);
+        if (!messageTailCache.covers(pageable)) {
+            return messageRepository.findByConversationIdAndNotDeleted(conversationId, pageable)
+                    .map(this::mapToResponse);
+        }
+        long stamp = messageTailCache.stamp(conversationId);
+        Page<MessageResponse> tail = messageRepository.findByConversationIdAndNotDeleted(
+                conversationId, PageRequest.of(0, messageTailCache.capacity())).map(this::mapToResponse);
+        messageTailCache.loaded(conversationId, tail.getContent(), tail.getTotalElements(), stamp);
+        List<MessageResponse> content = tail.getContent();
+        return new PageImpl<>(content.subList(0, Math.min(pageable.getPageSize(), content.size())),
+                pageable, tail.getTotalElements());
+    }
+
+    /**
+     * Messages after a known sequence number, for clients filling a gap
+     */
+    @Transactional(readOnly = true)
+    public List<MessageResponse> getMessagesAfterSeq(UUID conversationId, long afterSeq, int limit) {
+        readYourWritesTracker.routeToPrimaryIfRecentlyWritten(conversationId);
+        int pageSize = Math.max(1, Math.min(limit, MAX_RANGE_LIMIT));
+        return messageJdbcRepository.findBySeqAfter(conversationId, afterSeq, pageSize);
     }
 
     private MessageResponse mapToResponse(Message message) {
         return MessageResponse.builder()
                 .id(message.getId())
                 .conversationId(message.getConversation().getId())
+                .seq(message.getSeq())
                 .senderEmail(message.getSender().getEmail())
                 .type(message.getType())
                 .content(message.getContent())
+                .attachmentId(message.getAttachmentId())
                 .createdAt(message.getCreatedAt())
                 .isDeleted(message.getIsDeleted())
                 .build();
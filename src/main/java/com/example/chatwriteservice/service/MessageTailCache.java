@@ -0,0 +1,297 @@
+package com.example.chatwriteservice.service;
+
+import com.example.chatwriteservice.config.ChatProperties;
+import com.example.chatwriteservice.dto.MessageResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
+
+/**
+ * The newest messages of recently read conversations, so the first page of history - almost
+ * every history read - is served from memory. A conversation keeps a ring buffer of its
+ * newest chat.message-tail.size messages and its message count. It is loaded by its first
+ * newest-page read; messages sent through this instance are appended, and frames relayed from
+ * other instances evict the tail (ClusterBroadcastRelay). Tails are also reloaded after
+ * chat.message-tail.max-age; least
+ * recently read tails are evicted when their estimated size exceeds chat.message-tail.memory-budget.
+ */
+@Component
+@Slf4j
+public class MessageTailCache {
+
+    private static final int STRIPES = 256;
+
+    static final class Tail {
+        final MessageResponse[] ring;
+        int start;
+        int size;
+        long total;
+        long sizeInBytes;
+        final long loadedAtNanos;
+        volatile long lastAccessNanos;
+
+        Tail(int capacity, long now) {
+            this.ring = new MessageResponse[capacity];
+            this.sizeInBytes = 64 + 8L * capacity;
+            this.loadedAtNanos = now;
+            this.lastAccessNanos = now;
+        }
+
+        /**
+         * Insert in sequence order, dropping the oldest message when full. A message already
+         * kept (appended after the load that read it) is ignored. Returns the change in size.
+         */
+        long add(MessageResponse message) {
+            long seq = seq(message);
+            int position = size;
+            while (position > 0 && seq(at(position - 1)) > seq) {
+                position--;
+            }
+            if (position > 0 && seq(at(position - 1)) == seq) {
+                return 0;
+            }
+            total++;
+            if (position == 0 && size == ring.length) {
+                // Older than everything kept, not part of the newest page
+                return 0;
+            }
+
+            long delta = estimateSize(message);
+            if (size == ring.length) {
+                delta -= estimateSize(ring[start]);
+                ring[start] = null;
+                start = (start + 1) % ring.length;
+                size--;
+                position--;
+            }
+            for (int i = size; i > position; i--) {
+                ring[index(i)] = at(i - 1);
+            }
+            ring[index(position)] = message;
+            size++;
+            sizeInBytes += delta;
+            return delta;
+        }
+
+        /**
+         * Up to n newest messages, newest first
+         */
+        List<MessageResponse> newest(int n) {
+            List<MessageResponse> newest = new ArrayList<>(Math.min(n, size));
+            for (int i = size - 1; i >= 0 && newest.size() < n; i--) {
+                newest.add(at(i));
+            }
+            return newest;
+        }
+
+        private MessageResponse at(int position) {
+            return ring[index(position)];
+        }
+
+        private int index(int position) {
+            return (start + position) % ring.length;
+        }
+    }
+
+    private final int capacity;
+    private final long budgetBytes;
+    private final long maxAgeNanos;
+    private final LongSupplier clock;
+
+    private final Map<UUID, Tail> tails = new ConcurrentHashMap<>();
+    private final AtomicLong usedBytes = new AtomicLong();
+    /** Bumped by every append and eviction; a load that overlaps one is not cached */
+    private final AtomicLongArray stamps = new AtomicLongArray(STRIPES);
+    private final Counter hits;
+    private final Counter misses;
+
+    @Autowired
+    public MessageTailCache(ChatProperties chatProperties, MeterRegistry meterRegistry) {
+        this(chatProperties.getMessageTail().getSize(),
+                chatProperties.getMessageTail().getMemoryBudget().toBytes(),
+                chatProperties.getMessageTail().getMaxAge().toNanos(),
+                System::nanoTime, meterRegistry);
+    }
+
+    MessageTailCache(int capacity, long budgetBytes, long maxAgeNanos, LongSupplier clock, MeterRegistry meterRegistry) {
+        this.capacity = capacity;
+        this.budgetBytes = budgetBytes;
+        this.maxAgeNanos = maxAgeNanos;
+        this.clock = clock;
+        Gauge.builder("chat.message.tail.bytes", usedBytes, AtomicLong::get).register(meterRegistry);
+        Gauge.builder("chat.message.tail.conversations", tails, Map::size).register(meterRegistry);
+        this.hits = meterRegistry.counter("chat.message.tail.hits");
+        this.misses = meterRegistry.counter("chat.message.tail.misses");
+    }
+
+    /**
+     * Whether a page can be served from a tail: the first page, unsorted, at most size messages
+     */
+    public boolean covers(Pageable pageable) {
+        return pageable.getPageNumber() == 0 && pageable.getPageSize() <= capacity && pageable.getSort().isUnsorted();
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * The newest page from memory, or null if it has to be read from the database
+     */
+    public Page<MessageResponse> newestPage(UUID conversationId, Pageable pageable) {
+        if (!covers(pageable)) {
+            return null;
+        }
+        long now = clock.getAsLong();
+        Tail tail = tails.get(conversationId);
+        if (tail == null || now - tail.loadedAtNanos >= maxAgeNanos) {
+            misses.increment();
+            return null;
+        }
+        tail.lastAccessNanos = now;
+        List<MessageResponse> content;
+        long total;
+        synchronized (tail) {
+            content = tail.newest(pageable.getPageSize());
+            total = tail.total;
+        }
+        hits.increment();
+        return new PageImpl<>(content, pageable, total);
+    }
+
+    /**
+     * Current stamp of a conversation, to be taken before reading its tail from the database
+     */
+    public long stamp(UUID conversationId) {
+        return stamps.get(stripe(conversationId));
+    }
+
+    /**
+     * Cache the newest messages (newest first, at most size) and message count just read,
+     * unless a message was appended or the tail evicted since stamp was taken
+     */
+    public void loaded(UUID conversationId, List<MessageResponse> newestFirst, long total, long stamp) {
+        long now = clock.getAsLong();
+        Tail loaded = new Tail(capacity, now);
+        for (int i = Math.min(newestFirst.size(), capacity) - 1; i >= 0; i--) {
+            MessageResponse message = newestFirst.get(i);
+            loaded.ring[loaded.size++] = message;
+            loaded.sizeInBytes += estimateSize(message);
+        }
+        loaded.total = total;
+
+        long[] delta = new long[1];
+        // Atomic with appends to the same conversation: either the append sees this tail or this load sees its stamp
+        tails.compute(conversationId, (id, previous) -> {
+            if (stamps.get(stripe(id)) != stamp) {
+                return previous;
+            }
+            delta[0] = loaded.sizeInBytes - (previous != null ? previous.sizeInBytes : 0);
+            return loaded;
+        });
+        if (usedBytes.addAndGet(delta[0]) > budgetBytes) {
+            evictLeastRecentlyUsed();
+        }
+    }
+
+    /**
+     * Append a sent message to its conversation's tail, if loaded
+     */
+    public void appended(MessageResponse message) {
+        stamps.incrementAndGet(stripe(message.getConversationId()));
+        long[] delta = new long[1];
+        tails.computeIfPresent(message.getConversationId(), (id, tail) -> {
+            synchronized (tail) {
+                delta[0] = tail.add(message);
+            }
+            return tail;
+        });
+        if (delta[0] != 0 && usedBytes.addAndGet(delta[0]) > budgetBytes) {
+            evictLeastRecentlyUsed();
+        }
+    }
+
+    /**
+     * Drop the tail of a deleted or bulk-loaded conversation, after the surrounding transaction commits
+     */
+    public void evict(UUID conversationId) {
+        afterCommit(() -> {
+            stamps.incrementAndGet(stripe(conversationId));
+            Tail removed = tails.remove(conversationId);
+            if (removed != null) {
+                usedBytes.addAndGet(-removed.sizeInBytes);
+            }
+        });
+    }
+
+    private synchronized void evictLeastRecentlyUsed() {
+        long target = budgetBytes * 9 / 10;
+        if (usedBytes.get() <= target) {
+            return;
+        }
+        List<Map.Entry<UUID, Tail>> candidates = new ArrayList<>(tails.entrySet());
+        candidates.sort(Comparator.comparingLong(e -> e.getValue().lastAccessNanos));
+        int evicted = 0;
+        for (Map.Entry<UUID, Tail> candidate : candidates) {
+            if (usedBytes.get() <= target) {
+                break;
+            }
+            if (tails.remove(candidate.getKey(), candidate.getValue())) {
+                usedBytes.addAndGet(-candidate.getValue().sizeInBytes);
+                evicted++;
+            }
+        }
+        log.debug("Evicted {} message tails, {} bytes in use", evicted, usedBytes.get());
+    }
+
+    private static int stripe(UUID conversationId) {
+        return conversationId.hashCode() & (STRIPES - 1);
+    }
+
+    /*
+     * Messages without a sequence number (before db/message_sequence.sql) sort first
+     */
+    private static long seq(MessageResponse message) {
+        return message.getSeq() != null ? message.getSeq() : Long.MIN_VALUE;
+    }
+
+    /*
+     * Object headers, ids, timestamp and the two strings (two bytes per char)
+     */
+    static long estimateSize(MessageResponse message) {
+        int chars = (message.getContent() != null ? message.getContent().length() : 0)
+                + (message.getSenderEmail() != null ? message.getSenderEmail().length() : 0);
+        return 200 + 2L * chars;
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.example.chatwriteservice.service;
+
+import com.example.chatwriteservice.config.ChatProperties;
+import com.example.chatwriteservice.dto.PresenceResponse;
+import com.example.chatwriteservice.dto.PresenceStatus;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * In-memory presence state keyed by user email.
+ * State is spread over independent ConcurrentHashMap shards and only ever updated per key
+ * (compute / volatile writes), so there is no lock shared between users. Status changes are
+ * coalesced per user until {@link #drainChanges()} is called by the publisher. Users that
+ * stayed offline longer than the retention period are forgotten; their last-seen time is
+ * then unknown.
+ */
+@Component
+public class PresenceRegistry {
+
+    static final class Presence {
+        int sessions;
+        volatile boolean online;
+        /** When the user goes OFFLINE unless a session reconnects; 0 while sessions are open */
+        volatile long offlineAtMillis;
+        volatile long lastSeenMillis;
+    }
+
+    private final ConcurrentHashMap<String, Presence>[] shards;
+    private final int mask;
+    private final long graceMillis;
+    private final long retentionMillis;
+    private final LongSupplier clock;
+
+    /** Latest unpublished status per user */
+    private final ConcurrentHashMap<String, PresenceStatus> changes = new ConcurrentHashMap<>();
+
+    @Autowired
+    public PresenceRegistry(ChatProperties chatProperties) {
+        this(chatProperties.getPresence().getShards(),
+                chatProperties.getPresence().getGracePeriod().toMillis(),
+                chatProperties.getPresence().getRetention().toMillis(),
+                System::currentTimeMillis);
+    }
+
+    @SuppressWarnings("unchecked")
+    PresenceRegistry(int shardCount, long graceMillis, long retentionMillis, LongSupplier clock) {
+        int size = Integer.highestOneBit(Math.max(1, shardCount - 1)) << 1;
+        this.shards = new ConcurrentHashMap[size];
+        for (int i = 0; i < size; i++) {
+            shards[i] = new ConcurrentHashMap<>();
+        }
+        this.mask = size - 1;
+        this.graceMillis = graceMillis;
+        this.retentionMillis = retentionMillis;
+        this.clock = clock;
+    }
+
+    public void connected(String email) {
+        long now = clock.getAsLong();
+        shard(email).compute(email, (key, presence) -> {
+            Presence p = presence != null ? presence : new Presence();
+            p.sessions++;
+            p.offlineAtMillis = 0;
+            p.lastSeenMillis = now;
+            if (!p.online) {
+                p.online = true;
+                changes.put(key, PresenceStatus.ONLINE);
+            }
+            return p;
+        });
+    }
+
+    public void disconnected(String email) {
+        long now = clock.getAsLong();
+        shard(email).computeIfPresent(email, (key, p) -> {
+            p.sessions = Math.max(0, p.sessions - 1);
+            p.lastSeenMillis = now;
+            if (p.sessions == 0) {
+                p.offlineAtMillis = now + graceMillis;
+            }
+            return p;
+        });
+    }
+
+    /**
+     * Record activity (any frame, including heartbeats). Lock-free on the hot path.
+     */
+    public void touch(String email) {
+        Presence p = shard(email).get(email);
+        if (p != null) {
+            p.lastSeenMillis = clock.getAsLong();
+        }
+    }
+
+    /**
+     * Move users whose grace period has expired to OFFLINE, and drop users that have been
+     * offline for longer than the retention period
+     */
+    public void expireGracePeriods() {
+        long now = clock.getAsLong();
+        for (ConcurrentHashMap<String, Presence> shard : shards) {
+            for (Map.Entry<String, Presence> entry : shard.entrySet()) {
+                Presence candidate = entry.getValue();
+                boolean graceExpired = candidate.offlineAtMillis != 0 && candidate.offlineAtMillis <= now;
+                if (!graceExpired && !isForgotten(candidate, now)) {
+                    continue;
+                }
+                shard.computeIfPresent(entry.getKey(), (key, p) -> {
+                    if (p.online && p.sessions == 0 && p.offlineAtMillis != 0 && p.offlineAtMillis <= now) {
+                        p.online = false;
+                        p.offlineAtMillis = 0;
+                        changes.put(key, PresenceStatus.OFFLINE);
+                    }
+                    return isForgotten(p, now) && !changes.containsKey(key) ? null : p;
+                });
+            }
+        }
+    }
+
+    private boolean isForgotten(Presence p, long now) {
+        return !p.online && p.sessions == 0 && now - p.lastSeenMillis > retentionMillis;
+    }
+
+    int size() {
+        int size = 0;
+        for (ConcurrentHashMap<String, Presence> shard : shards) {
+            size += shard.size();
+        }
+        return size;
+    }
+
+    /**
+     * Take the coalesced status changes since the last call
+     */
+    public List<PresenceResponse> drainChanges() {
+        List<PresenceResponse> drained = new ArrayList<>();
+        for (String email : changes.keySet()) {
+            PresenceStatus status = changes.remove(email);
+            if (status != null) {
+                drained.add(get(email, status));
+            }
+        }
+        return drained;
+    }
+
+    public PresenceResponse get(String email) {
+        return get(email, null);
+    }
+
+    private PresenceResponse get(String email, PresenceStatus status) {
+        Presence p = shard(email).get(email);
+        boolean online = status != null ? status == PresenceStatus.ONLINE : p != null && p.online;
+        return PresenceResponse.builder()
+                .email(email)
+                .status(online ? PresenceStatus.ONLINE : PresenceStatus.OFFLINE)
+                .lastSeenAt(p != null ? toLocalDateTime(p.lastSeenMillis) : null)
+                .build();
+    }
+
+    private ConcurrentHashMap<String, Presence> shard(String email) {
+        int h = email.hashCode();
+        return shards[(h ^ (h >>> 16)) & mask];
+    }
+
+    private static LocalDateTime toLocalDateTime(long millis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault());
+    }
+}
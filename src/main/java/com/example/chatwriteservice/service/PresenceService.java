@@ -0,0 +1,85 @@
+package com.example.chatwriteservice.service;
+
+import com.example.chatwriteservice.dto.PresenceResponse;
+import com.example.chatwriteservice.exception.BadRequestException;
+import com.example.chatwriteservice.repository.ParticipantRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Publishes presence changes to conversation members and answers presence queries.
+ * Changes are pushed in batches, one frame per conversation per flush, to
+ * /topic/conversation/{conversationId}/presence.
+ * Presence is per instance: it counts the sessions connected here, so its frames are not
+ * relayed to the cluster, where a user still connected elsewhere would be announced OFFLINE.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PresenceService {
+
+    public static final String SESSION_EMAIL_ATTRIBUTE = "presence.email";
+    public static final int MAX_QUERY_SIZE = 1000;
+
+    private static final int MEMBERSHIP_QUERY_CHUNK = 1000;
+
+    private final PresenceRegistry presenceRegistry;
+    private final ParticipantRepository participantRepository;
+    private final BroadcastService broadcastService;
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        Map<String, Object> attributes = SimpMessageHeaderAccessor.getSessionAttributes(event.getMessage().getHeaders());
+        if (attributes != null && attributes.remove(SESSION_EMAIL_ATTRIBUTE) instanceof String email) {
+            presenceRegistry.disconnected(email);
+        }
+    }
+
+    public List<PresenceResponse> getPresence(Collection<String> emails) {
+        if (emails.size() > MAX_QUERY_SIZE) {
+            throw new BadRequestException("At most " + MAX_QUERY_SIZE + " emails per presence query");
+        }
+        return emails.stream().distinct().map(presenceRegistry::get).collect(Collectors.toList());
+    }
+
+    @Scheduled(fixedDelayString = "${chat.presence.flush-interval:1s}")
+    public void flush() {
+        presenceRegistry.expireGracePeriods();
+
+        List<PresenceResponse> changes = presenceRegistry.drainChanges();
+        if (changes.isEmpty()) {
+            return;
+        }
+        Map<String, PresenceResponse> byEmail = changes.stream()
+                .collect(Collectors.toMap(PresenceResponse::getEmail, Function.identity()));
+
+        Map<UUID, List<PresenceResponse>> byConversation = new HashMap<>();
+        List<String> emails = new ArrayList<>(byEmail.keySet());
+        for (int from = 0; from < emails.size(); from += MEMBERSHIP_QUERY_CHUNK) {
+            List<String> chunk = emails.subList(from, Math.min(from + MEMBERSHIP_QUERY_CHUNK, emails.size()));
+            for (Object[] row : participantRepository.findConversationIdsByEmailIn(chunk)) {
+                byConversation.computeIfAbsent((UUID) row[0], id -> new ArrayList<>())
+                        .add(byEmail.get((String) row[1]));
+            }
+        }
+
+        byConversation.forEach((conversationId, deltas) ->
+                broadcastService.sendLocally(BroadcastService.CONVERSATION_TOPIC + conversationId + "/presence", deltas));
+
+        log.debug("Published {} presence changes to {} conversations", changes.size(), byConversation.size());
+    }
+}
@@ -0,0 +1,290 @@
+package com.example.chatwriteservice.service;
+
+import com.example.chatwriteservice.config.ChatProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Live reaction counts of recently used messages and the reaction changes not yet persisted.
+ * The count of a (message, emoji) is its last persisted value plus a LongAdder of the local
+ * changes since, so concurrent reactions to a viral message never contend on one counter.
+ * Changes are coalesced per user reaction (last one wins) until {@link #drainPending} is
+ * called by the flush; once a batch is written, its contributions move from the adders into
+ * the persisted values. Each pending change remembers the adder it contributed to, so a
+ * reloaded message never has another entry's contributions taken out of its fresh adders.
+ * A change assumes the user's reaction was in the opposite state; repeated changes are
+ * corrected by the flush, which only counts rows it actually changed.
+ */
+@Component
+public class ReactionRegistry {
+
+    public record ReactionKey(UUID messageId, String emoji) {
+    }
+
+    public record UserReaction(UUID messageId, String emoji, String email) {
+        ReactionKey key() {
+            return new ReactionKey(messageId, emoji);
+        }
+    }
+
+    /**
+     * Latest unpersisted state of a user reaction and what it added to the live count so far.
+     * contributed went into counter's adder, the one instance the flush takes it out of again;
+     * counter is null while the message was not loaded, and then nothing was added anywhere.
+     */
+    public record PendingChange(UserReaction reaction, UUID conversationId, boolean added,
+                                Counter counter, int contributed) {
+    }
+
+    static final class Counter {
+        volatile long persisted;
+        final LongAdder pending = new LongAdder();
+        /** Pending or in-flight changes bound to this counter; its message is not evicted while > 0 */
+        final AtomicInteger unflushed = new AtomicInteger();
+    }
+
+    static final class MessageReactions {
+        final UUID conversationId;
+        final Map<String, Counter> counters = new ConcurrentHashMap<>();
+        volatile long loadedAtNanos;
+
+        MessageReactions(UUID conversationId, long now) {
+            this.conversationId = conversationId;
+            this.loadedAtNanos = now;
+        }
+    }
+
+    private final int maxMessages;
+    private final long maxAgeNanos;
+    private final LongSupplier clock;
+
+    private final Map<UUID, MessageReactions> messages = new ConcurrentHashMap<>();
+    private final Map<UserReaction, PendingChange> pending = new ConcurrentHashMap<>();
+    /** Messages whose counts changed since the last broadcast, by conversation */
+    private final Map<UUID, Set<UUID>> dirty = new ConcurrentHashMap<>();
+
+    @Autowired
+    public ReactionRegistry(ChatProperties chatProperties) {
+        this(chatProperties.getReactions().getMaxCachedMessages(),
+                chatProperties.getReactions().getMaxAge().toNanos(),
+                System::nanoTime);
+    }
+
+    ReactionRegistry(int maxMessages, long maxAgeNanos, LongSupplier clock) {
+        this.maxMessages = maxMessages;
+        this.maxAgeNanos = maxAgeNanos;
+        this.clock = clock;
+    }
+
+    /**
+     * Conversation of a loaded message, or null if its counts must be (re)loaded first
+     */
+    public UUID conversationOf(UUID messageId) {
+        MessageReactions entry = messages.get(messageId);
+        return entry != null && clock.getAsLong() - entry.loadedAtNanos < maxAgeNanos ? entry.conversationId : null;
+    }
+
+    /**
+     * Set the persisted counts of a message as just read from the database. Local changes not
+     * yet persisted are kept on top of them. Making room never evicts a message with such
+     * changes, so the cache can briefly hold more than maxMessages.
+     */
+    public void load(UUID messageId, UUID conversationId, Map<String, Long> persistedCounts) {
+        long now = clock.getAsLong();
+        if (!messages.containsKey(messageId) && messages.size() >= maxMessages) {
+            evictFlushed();
+        }
+        messages.compute(messageId, (id, entry) -> {
+            MessageReactions loaded = entry != null ? entry : new MessageReactions(conversationId, now);
+            loaded.counters.forEach((emoji, counter) -> counter.persisted = persistedCounts.getOrDefault(emoji, 0L));
+            persistedCounts.forEach((emoji, count) -> counter(loaded, emoji).persisted = count);
+            loaded.loadedAtNanos = now;
+            return loaded;
+        });
+    }
+
+    /**
+     * Record that a user added or removed a reaction.
+     *
+     * @return false if it repeats the user's pending change and was ignored
+     */
+    public boolean react(UserReaction reaction, UUID conversationId, boolean add) {
+        MessageReactions entry = messages.get(reaction.messageId());
+        Counter live = entry != null ? counter(entry, reaction.emoji()) : null;
+        int[] delta = new int[1];
+        Counter[] bound = new Counter[1];
+        pending.compute(reaction, (key, previous) -> {
+            if (previous != null && previous.added() == add) {
+                return previous;
+            }
+            delta[0] = add ? 1 : -1;
+            // Stay with the counter earlier contributions went into
+            Counter counter = previous != null && previous.counter() != null ? previous.counter() : live;
+            if (counter != null && (previous == null || previous.counter() == null)) {
+                counter.unflushed.incrementAndGet();
+            }
+            bound[0] = counter;
+            int contributed = (previous != null ? previous.contributed() : 0) + (counter != null ? delta[0] : 0);
+            return new PendingChange(key, conversationId, add, counter, contributed);
+        });
+        if (delta[0] == 0) {
+            return false;
+        }
+        if (bound[0] != null) {
+            bound[0].pending.add(delta[0]);
+            markDirty(conversationId, reaction.messageId());
+        }
+        return true;
+    }
+
+    /**
+     * Live counts of a loaded message by emoji, highest first; emoji without reactions are left out
+     */
+    public Map<String, Long> counts(UUID messageId) {
+        MessageReactions entry = messages.get(messageId);
+        if (entry == null) {
+            return Map.of();
+        }
+        List<Map.Entry<String, Long>> live = new ArrayList<>();
+        entry.counters.forEach((emoji, counter) -> {
+            long count = counter.persisted + counter.pending.sum();
+            if (count > 0) {
+                live.add(Map.entry(emoji, count));
+            }
+        });
+        live.sort(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder()));
+        Map<String, Long> counts = new LinkedHashMap<>();
+        live.forEach(e -> counts.put(e.getKey(), e.getValue()));
+        return counts;
+    }
+
+    /**
+     * Take up to max coalesced changes for persistence
+     */
+    public List<PendingChange> drainPending(int max) {
+        List<PendingChange> drained = new ArrayList<>();
+        Iterator<UserReaction> keys = pending.keySet().iterator();
+        while (drained.size() < max && keys.hasNext()) {
+            PendingChange change = pending.remove(keys.next());
+            if (change != null) {
+                drained.add(change);
+            }
+        }
+        return drained;
+    }
+
+    /**
+     * A drained batch was written: take its contributions out of the adders and apply the
+     * counts the database returned for the keys it changed
+     */
+    public void persisted(List<PendingChange> batch, Map<ReactionKey, Long> counts) {
+        Map<ReactionKey, UUID> changed = new HashMap<>();
+        for (PendingChange change : batch) {
+            changed.put(change.reaction().key(), change.conversationId());
+        }
+        changed.forEach((key, conversationId) -> {
+            MessageReactions entry = messages.get(key.messageId());
+            Long count = counts.get(key);
+            if (entry != null && count != null) {
+                counter(entry, key.emoji()).persisted = count;
+            }
+        });
+        for (PendingChange change : batch) {
+            release(change);
+        }
+        changed.forEach((key, conversationId) -> {
+            if (messages.containsKey(key.messageId())) {
+                markDirty(conversationId, key.messageId());
+            }
+        });
+    }
+
+    /**
+     * A drained batch could not be written: put it back under any change made since
+     */
+    public void requeue(List<PendingChange> batch) {
+        for (PendingChange change : batch) {
+            pending.merge(change.reaction(), change, ReactionRegistry::combine);
+        }
+    }
+
+    /**
+     * Take the messages whose counts changed since the last call, by conversation
+     */
+    public Map<UUID, List<UUID>> drainDirty() {
+        Map<UUID, List<UUID>> drained = new HashMap<>();
+        for (UUID conversationId : dirty.keySet()) {
+            Set<UUID> messageIds = dirty.remove(conversationId);
+            if (messageIds != null && !messageIds.isEmpty()) {
+                drained.put(conversationId, new ArrayList<>(messageIds));
+            }
+        }
+        return drained;
+    }
+
+    private void markDirty(UUID conversationId, UUID messageId) {
+        // Atomic with the removal in drainDirty, so a mark is never added to a drained set
+        dirty.compute(conversationId, (id, messageIds) -> {
+            Set<UUID> marked = messageIds != null ? messageIds : ConcurrentHashMap.newKeySet();
+            marked.add(messageId);
+            return marked;
+        });
+    }
+
+    private static Counter counter(MessageReactions entry, String emoji) {
+        return entry.counters.computeIfAbsent(emoji, e -> new Counter());
+    }
+
+    /*
+     * One pending change for a user reaction that changed again while an older one was being
+     * written. Contributions are only summed when they went into the same adder; otherwise the
+     * failed one is taken back out of its own adder, and the next flush brings the count back.
+     */
+    private static PendingChange combine(PendingChange newer, PendingChange failed) {
+        if (failed.counter() == null) {
+            return newer;
+        }
+        if (newer.counter() != null && newer.counter() != failed.counter()) {
+            release(failed);
+            return newer;
+        }
+        if (newer.counter() != null) {
+            // Both were bound to the same counter: one binding remains
+            failed.counter().unflushed.decrementAndGet();
+        }
+        return new PendingChange(newer.reaction(), newer.conversationId(), newer.added(),
+                failed.counter(), newer.contributed() + failed.contributed());
+    }
+
+    /* The change is persisted or dropped: its contribution leaves the adder it went into */
+    private static void release(PendingChange change) {
+        if (change.counter() != null) {
+            change.counter().pending.add(-change.contributed());
+            change.counter().unflushed.decrementAndGet();
+        }
+    }
+
+    private void evictFlushed() {
+        for (Map.Entry<UUID, MessageReactions> entry : messages.entrySet()) {
+            boolean flushed = entry.getValue().counters.values().stream()
+                    .allMatch(counter -> counter.unflushed.get() == 0);
+            if (flushed && messages.remove(entry.getKey(), entry.getValue())) {
+                return;
+            }
+        }
+    }
+}
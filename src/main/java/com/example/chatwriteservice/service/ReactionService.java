@@ -0,0 +1,144 @@
+package com.example.chatwriteservice.service;
+
+import com.example.chatwriteservice.config.ChatProperties;
+import com.example.chatwriteservice.dto.ReactionUpdate;
+import com.example.chatwriteservice.dto.ReactionsResponse;
+import com.example.chatwriteservice.exception.BadRequestException;
+import com.example.chatwriteservice.exception.ResourceNotFoundException;
+import com.example.chatwriteservice.repository.ReactionJdbcRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Emoji reactions on messages.
+ * Reacting only touches memory (ReactionRegistry): the per-user changes are persisted in
+ * batches by {@link #flush()}, and count updates are pushed by {@link #broadcastChanges()},
+ * one frame per conversation per chat.reactions.broadcast-interval however many reactions
+ * came in, to /topic/conversation/{conversationId}.
+ * Live counts are per instance (persisted plus this instance's own unflushed changes), so the
+ * frames are not relayed in cluster mode: instances would otherwise push different views of the
+ * same message. Reactions made elsewhere show up once the counts are re-read after
+ * chat.reactions.max-age.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ReactionService {
+
+    static final int MAX_EMOJI_LENGTH = 32;
+    static final int MAX_EMOJI_PER_MESSAGE = 50;
+
+    private final ReactionRegistry reactionRegistry;
+    private final ReactionJdbcRepository reactionJdbcRepository;
+    private final MembershipIndex membershipIndex;
+    private final BroadcastService broadcastService;
+    private final ChatProperties chatProperties;
+
+    public ReactionsResponse addReaction(UUID conversationId, UUID messageId, String email, String emoji) {
+        return react(conversationId, messageId, email, emoji, true);
+    }
+
+    public ReactionsResponse removeReaction(UUID conversationId, UUID messageId, String email, String emoji) {
+        return react(conversationId, messageId, email, emoji, false);
+    }
+
+    public ReactionsResponse getReactions(UUID conversationId, UUID messageId) {
+        ensureLoaded(conversationId, messageId);
+        return toResponse(messageId);
+    }
+
+    private ReactionsResponse react(UUID conversationId, UUID messageId, String email, String emoji, boolean add) {
+        validateEmoji(emoji);
+        if (!membershipIndex.isMember(conversationId, email)) {
+            throw new BadRequestException("User is not a participant of this conversation");
+        }
+        ensureLoaded(conversationId, messageId);
+        Map<String, Long> counts = reactionRegistry.counts(messageId);
+        if (add && counts.size() >= MAX_EMOJI_PER_MESSAGE && !counts.containsKey(emoji)) {
+            throw new BadRequestException("At most " + MAX_EMOJI_PER_MESSAGE + " different reactions per message");
+        }
+        reactionRegistry.react(new ReactionRegistry.UserReaction(messageId, emoji, email), conversationId, add);
+        return toResponse(messageId);
+    }
+
+    /**
+     * Persist the pending reaction changes, chat.reactions.flush-batch-size per statement.
+     * A failed batch is kept for the next flush.
+     */
+    @Scheduled(fixedDelayString = "${chat.reactions.flush-interval:1s}")
+    public synchronized void flush() {
+        int batchSize = chatProperties.getReactions().getFlushBatchSize();
+        int persisted = 0;
+        List<ReactionRegistry.PendingChange> batch;
+        while (!(batch = reactionRegistry.drainPending(batchSize)).isEmpty()) {
+            try {
+                Map<ReactionRegistry.ReactionKey, Long> counts =
+                        reactionJdbcRepository.applyChanges(batch, LocalDateTime.now());
+                reactionRegistry.persisted(batch, counts);
+                persisted += batch.size();
+            } catch (RuntimeException e) {
+                log.warn("Could not persist {} reaction changes, retrying on the next flush: {}",
+                        batch.size(), e.getMessage());
+                reactionRegistry.requeue(batch);
+                break;
+            }
+        }
+        if (persisted > 0) {
+            log.debug("Persisted {} reaction changes", persisted);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${chat.reactions.broadcast-interval:500ms}")
+    public void broadcastChanges() {
+        reactionRegistry.drainDirty().forEach((conversationId, messageIds) ->
+                broadcastService.sendLocally(BroadcastService.CONVERSATION_TOPIC + conversationId,
+                        ReactionUpdate.builder()
+                                .type(ReactionUpdate.TYPE)
+                                .conversationId(conversationId)
+                                .reactions(messageIds.stream().map(this::toResponse).toList())
+                                .build()));
+    }
+
+    @PreDestroy
+    void flushOnShutdown() {
+        flush();
+    }
+
+    private void ensureLoaded(UUID conversationId, UUID messageId) {
+        UUID owner = reactionRegistry.conversationOf(messageId);
+        if (owner == null) {
+            Map<String, Long> counts = reactionJdbcRepository.findCounts(conversationId, messageId);
+            if (counts == null) {
+                throw new ResourceNotFoundException("Message not found");
+            }
+            reactionRegistry.load(messageId, conversationId, counts);
+        } else if (!owner.equals(conversationId)) {
+            throw new ResourceNotFoundException("Message not found");
+        }
+    }
+
+    private ReactionsResponse toResponse(UUID messageId) {
+        return ReactionsResponse.builder()
+                .messageId(messageId)
+                .counts(reactionRegistry.counts(messageId))
+                .build();
+    }
+
+    static void validateEmoji(String emoji) {
+        if (emoji == null || emoji.isBlank()) {
+            throw new BadRequestException("Emoji is required");
+        }
+        if (emoji.length() > MAX_EMOJI_LENGTH
+                || emoji.codePoints().anyMatch(c -> Character.isWhitespace(c) || Character.isISOControl(c))) {
+            throw new BadRequestException("Invalid emoji");
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package com.example.chatwriteservice.service;
+
+import com.example.chatwriteservice.config.ChatProperties;
+import com.example.chatwriteservice.dto.MessageRequest;
+import com.example.chatwriteservice.dto.MessageResponse;
+import com.example.chatwriteservice.dto.ScheduledMessageRequest;
+import com.example.chatwriteservice.dto.ScheduledMessageResponse;
+import com.example.chatwriteservice.entity.ScheduledMessageStatus;
+import com.example.chatwriteservice.exception.BadRequestException;
+import com.example.chatwriteservice.exception.ResourceNotFoundException;
+import com.example.chatwriteservice.repository.ScheduledMessageJdbcRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Messages sent later on behalf of their sender.
+ * Every scheduled message is stored first; only those due within chat.scheduled-messages.horizon are
+ * claimed by an instance and held in a hashed timing wheel, so memory and database work do
+ * not grow with the number of messages scheduled further out. Due messages are released in
+ * batches through {@link MessageService#sendMessage(UUID, MessageRequest)} and broadcast.
+ *
+ * Claims expire (send time + chat.scheduled-messages.claim-lease), so messages of a stopped or crashed
+ * instance are picked up by the others; a clean shutdown hands its claims back right away.
+ * A message is sent with the id of its scheduled message and moved to SENDING before and to
+ * SENT after the send and broadcast, so a send interrupted by a crash is completed (and
+ * broadcast), not repeated.
+ *
+ * Releasing runs on its own scheduler thread, so slow sends neither delay nor are delayed by
+ * the other @Scheduled jobs sharing Spring's scheduler.
+ */
+@Service
+@Slf4j
+public class ScheduledMessageService {
+
+    private final ScheduledMessageJdbcRepository scheduledMessageJdbcRepository;
+    private final MessageService messageService;
+    private final BroadcastService broadcastService;
+    private final MembershipIndex membershipIndex;
+    private final AttachmentService attachmentService;
+    private final HashedTimingWheel<ScheduledMessageResponse> wheel;
+    private final ThreadPoolTaskScheduler releaseScheduler;
+
+    private final String instanceId;
+    private final Duration horizon;
+    private final Duration claimLease;
+    private final Duration tick;
+    private final int maxInMemory;
+    private final int releaseBatchSize;
+
+    public ScheduledMessageService(ScheduledMessageJdbcRepository scheduledMessageJdbcRepository,
+                                   MessageService messageService, BroadcastService broadcastService,
+                                   MembershipIndex membershipIndex, AttachmentService attachmentService,
+                                   ChatProperties chatProperties, MeterRegistry meterRegistry) {
+        this.scheduledMessageJdbcRepository = scheduledMessageJdbcRepository;
+        this.messageService = messageService;
+        this.broadcastService = broadcastService;
+        this.membershipIndex = membershipIndex;
+        this.attachmentService = attachmentService;
+        ChatProperties.ScheduledMessages scheduled = chatProperties.getScheduledMessages();
+        this.wheel = new HashedTimingWheel<>(scheduled.getWheelSize(), scheduled.getTick().toMillis(),
+                System.currentTimeMillis());
+        // Without the cluster there is one instance, and a fixed id lets it recover its claims after a restart
+        String clusterInstanceId = chatProperties.getCluster().getInstanceId();
+        this.instanceId = StringUtils.hasText(clusterInstanceId) ? clusterInstanceId : "local";
+        this.horizon = scheduled.getHorizon();
+        this.claimLease = scheduled.getClaimLease();
+        this.tick = scheduled.getTick();
+        this.releaseScheduler = new ThreadPoolTaskScheduler();
+        releaseScheduler.setPoolSize(1);
+        releaseScheduler.setThreadNamePrefix("scheduled-release-");
+        // Let a running release finish before its remaining claims are handed back
+        releaseScheduler.setWaitForTasksToCompleteOnShutdown(true);
+        releaseScheduler.setAwaitTerminationSeconds(30);
+        this.maxInMemory = scheduled.getMaxInMemory();
+        this.releaseBatchSize = scheduled.getReleaseBatchSize();
+        Gauge.builder("chat.scheduled.wheel.size", wheel, HashedTimingWheel::size).register(meterRegistry);
+    }
+
+    @PostConstruct
+    void startReleasing() {
+        releaseScheduler.initialize();
+        releaseScheduler.scheduleWithFixedDelay(this::releaseDue, tick);
+    }
+
+    public ScheduledMessageResponse schedule(ScheduledMessageRequest request) {
+        LocalDateTime now = LocalDateTime.now();
+        if (!request.getSendAt().isAfter(now)) {
+            throw new BadRequestException("Send time must be in the future");
+        }
+        if (!membershipIndex.isMember(request.getConversationId(), request.getSenderEmail())) {
+            throw new BadRequestException("User is not a participant of this conversation");
+        }
+        if (request.getAttachmentId() != null) {
+            attachmentService.validateForMessage(
+                    request.getAttachmentId(), request.getConversationId(), request.getSenderEmail());
+        }
+
+        ScheduledMessageResponse message = ScheduledMessageResponse.builder()
+                .id(UUID.randomUUID())
+                .conversationId(request.getConversationId())
+                .senderEmail(request.getSenderEmail())
+                .type(request.getType())
+                .content(request.getContent())
+                .attachmentId(request.getAttachmentId())
+                .sendAt(request.getSendAt())
+                .status(ScheduledMessageStatus.PENDING)
+                .createdAt(now)
+                .build();
+
+        // Due soon: keep it here right away instead of waiting for the next load
+        boolean claim = request.getSendAt().isBefore(now.plus(horizon)) && wheel.size() < maxInMemory;
+        scheduledMessageJdbcRepository.insert(message, claim ? instanceId : null,
+                claim ? request.getSendAt().plus(claimLease) : null);
+        if (claim) {
+            wheel.schedule(message, toEpochMillis(message.getSendAt()));
+        }
+
+        log.info("Message scheduled: {} in conversation: {} at {}", message.getId(), message.getConversationId(),
+                message.getSendAt());
+        return message;
+    }
+
+    public List<ScheduledMessageResponse> getScheduledMessages(String senderEmail) {
+        return scheduledMessageJdbcRepository.findUnsentBySender(senderEmail);
+    }
+
+    /**
+     * Cancel a scheduled message. It may stay in a wheel; releasing skips it.
+     */
+    public void cancel(UUID id, String senderEmail) {
+        if (!scheduledMessageJdbcRepository.cancel(id, senderEmail)) {
+            throw new ResourceNotFoundException("Scheduled message not found or already sent");
+        }
+        log.info("Scheduled message cancelled: {}", id);
+    }
+
+    /**
+     * Claim the messages due within the horizon that no live instance holds
+     */
+    @Scheduled(fixedDelayString = "${chat.scheduled-messages.load-interval:30s}")
+    public void loadUpcoming() {
+        LocalDateTime now = LocalDateTime.now();
+        List<MessageResponse> completed = scheduledMessageJdbcRepository.completeInterruptedSends(now);
+        if (!completed.isEmpty()) {
+            // The crash may have come before the broadcast: clients ignore a message id they already have
+            completed.forEach(message -> broadcastService.broadcastToConversation(message.getConversationId(), message));
+            log.info("Completed {} interrupted scheduled sends", completed.size());
+        }
+        int room = maxInMemory - wheel.size();
+        if (room <= 0) {
+            return;
+        }
+        List<ScheduledMessageResponse> claimed = scheduledMessageJdbcRepository.claimDue(
+                now.plus(horizon), now, instanceId, claimLease.toSeconds(), room);
+        claimed.forEach(message -> wheel.schedule(message, toEpochMillis(message.getSendAt())));
+        if (!claimed.isEmpty()) {
+            log.debug("Claimed {} scheduled messages, {} in memory", claimed.size(), wheel.size());
+        }
+    }
+
+    /**
+     * Send the messages that became due, every chat.scheduled-messages.tick on the release thread
+     */
+    public void releaseDue() {
+        try {
+            List<ScheduledMessageResponse> due = wheel.advance(System.currentTimeMillis());
+            for (int from = 0; from < due.size(); from += releaseBatchSize) {
+                release(due.subList(from, Math.min(from + releaseBatchSize, due.size())));
+            }
+        } catch (RuntimeException e) {
+            // Unsent messages stay claimed and are picked up again once the claim expires
+            log.warn("Releasing scheduled messages failed: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    void releaseClaims() {
+        releaseScheduler.shutdown();
+        int released = scheduledMessageJdbcRepository.releaseClaims(instanceId);
+        log.info("Handed back {} scheduled message claims", released);
+    }
+
+    private void release(List<ScheduledMessageResponse> batch) {
+        Map<UUID, ScheduledMessageResponse> byId = new HashMap<>();
+        batch.forEach(message -> byId.put(message.getId(), message));
+        // Cancelled, or claimed by another instance after ours expired: not ours to send
+        List<UUID> owned = scheduledMessageJdbcRepository.markSending(
+                byId.keySet(), instanceId, LocalDateTime.now().plus(claimLease));
+
+        List<UUID> sent = new ArrayList<>(owned.size());
+        List<MessageResponse> responses = new ArrayList<>(owned.size());
+        for (UUID id : owned) {
+            ScheduledMessageResponse message = byId.get(id);
+            try {
+                responses.add(messageService.sendMessage(id, MessageRequest.builder()
+                        .conversationId(message.getConversationId())
+                        .senderEmail(message.getSenderEmail())
+                        .type(message.getType())
+                        .content(message.getContent())
+                        .attachmentId(message.getAttachmentId())
+                        .build()));
+                sent.add(id);
+            } catch (BadRequestException | ResourceNotFoundException e) {
+                // Left the conversation, conversation deleted, ...: retrying will not help
+                log.info("Scheduled message {} could not be sent: {}", id, e.getMessage());
+                scheduledMessageJdbcRepository.markFailed(id, e.getMessage());
+            } catch (RuntimeException e) {
+                // Stays SENDING: completed or sent again once the claim expires
+                log.warn("Scheduled message {} could not be sent, retrying after the claim expires: {}",
+                        id, e.getMessage());
+            }
+        }
+        // Broadcast first: a crash in between broadcasts again on completion rather than never
+        responses.forEach(response -> broadcastService.broadcastToConversation(response.getConversationId(), response));
+        if (!sent.isEmpty()) {
+            scheduledMessageJdbcRepository.markSent(sent);
+        }
+        log.debug("Released {} of {} due scheduled messages", sent.size(), batch.size());
+    }
+
+    private static long toEpochMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,197 @@
+package com.example.chatwriteservice.service;
+
+import com.example.chatwriteservice.config.ChatProperties;
+import com.example.chatwriteservice.dto.SessionBacklogResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Outbound backlog of every WebSocket session on this instance.
+ * A frame counts as queued from the moment it is handed to the session until its write to the
+ * socket completes. A session whose queue exceeds chat.websocket.degrade-queued-messages, or
+ * whose current write has been blocked longer than chat.websocket.degrade-after-stall, is
+ * degraded: ephemeral frames (typing, presence) are dropped and each other destination gets a
+ * single "resync needed" marker instead of its messages, until the queue has drained.
+ * The transport limits in WebSocketConfig still terminate sessions that stay stuck.
+ */
+@Component
+@Slf4j
+public class SessionBacklogRegistry {
+
+    public enum Decision {
+        SEND,
+        DROP,
+        RESYNC
+    }
+
+    static final class Backlog {
+        final String sessionId;
+        final Map<String, Object> attributes;
+        final AtomicInteger queued = new AtomicInteger();
+        final AtomicLong dropped = new AtomicLong();
+        /** Start of the write in progress, 0 when idle */
+        volatile long writeStartedNanos;
+        volatile boolean degraded;
+        /** Destinations that already got a resync marker in the current degraded episode */
+        final Set<String> resyncSent = ConcurrentHashMap.newKeySet();
+
+        Backlog(String sessionId, Map<String, Object> attributes) {
+            this.sessionId = sessionId;
+            this.attributes = attributes;
+        }
+    }
+
+    private final Map<String, Backlog> sessions = new ConcurrentHashMap<>();
+    private final int degradeQueued;
+    private final long degradeStallNanos;
+    private final LongSupplier clock;
+
+    private final Counter droppedFrames;
+    private final Counter resyncFrames;
+    private final Counter degradations;
+
+    @Autowired
+    public SessionBacklogRegistry(ChatProperties chatProperties, MeterRegistry meterRegistry) {
+        this(chatProperties.getWebsocket().getDegradeQueuedMessages(),
+                chatProperties.getWebsocket().getDegradeAfterStall().toNanos(),
+                System::nanoTime, meterRegistry);
+    }
+
+    SessionBacklogRegistry(int degradeQueued, long degradeStallNanos, LongSupplier clock) {
+        this(degradeQueued, degradeStallNanos, clock, new SimpleMeterRegistry());
+    }
+
+    private SessionBacklogRegistry(int degradeQueued, long degradeStallNanos, LongSupplier clock,
+                                   MeterRegistry meterRegistry) {
+        this.degradeQueued = degradeQueued;
+        this.degradeStallNanos = degradeStallNanos;
+        this.clock = clock;
+        this.droppedFrames = meterRegistry.counter("chat.websocket.frames.dropped");
+        this.resyncFrames = meterRegistry.counter("chat.websocket.frames.resync");
+        this.degradations = meterRegistry.counter("chat.websocket.sessions.degradations");
+        Gauge.builder("chat.websocket.sessions.degraded", sessions,
+                s -> s.values().stream().filter(b -> b.degraded).count()).register(meterRegistry);
+        Gauge.builder("chat.websocket.backlog.max", sessions,
+                s -> s.values().stream().mapToInt(b -> b.queued.get()).max().orElse(0)).register(meterRegistry);
+        Gauge.builder("chat.websocket.backlog.total", sessions,
+                s -> s.values().stream().mapToInt(b -> b.queued.get()).sum()).register(meterRegistry);
+    }
+
+    public void opened(String sessionId, Map<String, Object> attributes) {
+        sessions.put(sessionId, new Backlog(sessionId, attributes));
+    }
+
+    public void closed(String sessionId) {
+        sessions.remove(sessionId);
+    }
+
+    /**
+     * Decide what to do with an outbound frame. Frames that are not dropped count as queued.
+     *
+     * @param destination destination of a MESSAGE frame, null for control frames
+     */
+    public Decision beforeSend(String sessionId, String destination) {
+        Backlog backlog = sessions.get(sessionId);
+        if (backlog == null) {
+            return Decision.SEND;
+        }
+        if (!backlog.degraded && isSlow(backlog)) {
+            backlog.degraded = true;
+            degradations.increment();
+            log.info("WebSocket session {} is a slow consumer ({} frames queued), degrading it",
+                    sessionId, backlog.queued.get());
+        }
+
+        Decision decision = Decision.SEND;
+        if (backlog.degraded && destination != null) {
+            if (isEphemeral(destination) || !backlog.resyncSent.add(destination)) {
+                decision = Decision.DROP;
+            } else {
+                decision = Decision.RESYNC;
+            }
+        }
+
+        if (decision == Decision.DROP) {
+            backlog.dropped.incrementAndGet();
+            droppedFrames.increment();
+        } else {
+            if (decision == Decision.RESYNC) {
+                resyncFrames.increment();
+            }
+            backlog.queued.incrementAndGet();
+        }
+        return decision;
+    }
+
+    public void writeStarted(String sessionId) {
+        Backlog backlog = sessions.get(sessionId);
+        if (backlog != null) {
+            backlog.writeStartedNanos = clock.getAsLong();
+        }
+    }
+
+    public void writeCompleted(String sessionId) {
+        Backlog backlog = sessions.get(sessionId);
+        if (backlog == null) {
+            return;
+        }
+        backlog.writeStartedNanos = 0;
+        int queued = backlog.queued.updateAndGet(q -> Math.max(0, q - 1));
+        if (queued == 0 && backlog.degraded) {
+            backlog.degraded = false;
+            backlog.resyncSent.clear();
+            log.info("WebSocket session {} caught up, {} frames were dropped", sessionId, backlog.dropped.get());
+        }
+    }
+
+    /**
+     * Sessions with the largest backlog first
+     */
+    public List<SessionBacklogResponse> top(int limit) {
+        long now = clock.getAsLong();
+        return sessions.values().stream()
+                .sorted(Comparator.comparingInt((Backlog b) -> b.queued.get()).reversed())
+                .limit(limit)
+                .map(b -> SessionBacklogResponse.builder()
+                        .sessionId(b.sessionId)
+                        .email(b.attributes.get(PresenceService.SESSION_EMAIL_ATTRIBUTE) instanceof String email
+                                ? email : null)
+                        .queuedFrames(b.queued.get())
+                        .stalledMillis(stalledNanos(b, now) / TimeUnit.MILLISECONDS.toNanos(1))
+                        .degraded(b.degraded)
+                        .droppedFrames(b.dropped.get())
+                        .build())
+                .toList();
+    }
+
+    private boolean isSlow(Backlog backlog) {
+        return backlog.queued.get() >= degradeQueued || stalledNanos(backlog, clock.getAsLong()) >= degradeStallNanos;
+    }
+
+    private static long stalledNanos(Backlog backlog, long now) {
+        long started = backlog.writeStartedNanos;
+        return started == 0 ? 0 : now - started;
+    }
+
+    /*
+     * Frames a client can afford to lose: the next one supersedes them
+     */
+    private static boolean isEphemeral(String destination) {
+        return destination.endsWith("/typing") || destination.endsWith("/presence");
+    }
+}
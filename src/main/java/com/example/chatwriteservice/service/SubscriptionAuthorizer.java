@@ -0,0 +1,235 @@
+package com.example.chatwriteservice.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * Decides every SUBSCRIBE and keeps track of the granted conversation subscriptions.
+ * Identified sessions may subscribe to /topic/conversation/{conversationId} (and its /typing
+ * and /presence sub-destinations) of conversations they are members of, and to their own
+ * queues: /user/queue/... or the /queue/...-user{sessionId} those resolve to. Anything else is
+ * denied, and so is any destination with a pattern character, which the simple broker would
+ * match against every destination.
+ * Decisions come from MembershipIndex, which answers from memory and is updated by committed
+ * membership changes, so checking a SUBSCRIBE costs no database round trip in steady state.
+ * When a member is removed or the conversation deleted, the member's live subscriptions are
+ * torn down in the broker and each gets a final {"type":"SUBSCRIPTION_REVOKED"} frame, on
+ * every instance of the cluster.
+ */
+@Component
+@Slf4j
+public class SubscriptionAuthorizer {
+
+    private static final String USER_QUEUE_PREFIX = BroadcastService.USER_PREFIX + "queue/";
+    private static final String QUEUE_PREFIX = "/queue/";
+    private static final String USER_SUFFIX = "-user";
+
+    private static final byte[] REVOKED_PAYLOAD =
+            "{\"type\":\"SUBSCRIPTION_REVOKED\"}".getBytes(StandardCharsets.UTF_8);
+
+    record Subscription(String sessionId, String subscriptionId, String destination, String email) {
+    }
+
+    private final MembershipIndex membershipIndex;
+    private final MessageChannel brokerChannel;
+    private final MessageChannel clientOutboundChannel;
+    private final ObjectProvider<ClusterBroadcastRelay> clusterBroadcastRelay;
+
+    /** Granted subscriptions by conversation */
+    private final Map<UUID, Set<Subscription>> byConversation = new ConcurrentHashMap<>();
+    /** Conversations each session holds subscriptions in, by subscription id */
+    private final Map<String, Map<String, UUID>> bySession = new ConcurrentHashMap<>();
+
+    public SubscriptionAuthorizer(MembershipIndex membershipIndex,
+                                  @Lazy @Qualifier("brokerChannel") MessageChannel brokerChannel,
+                                  @Lazy @Qualifier("clientOutboundChannel") MessageChannel clientOutboundChannel,
+                                  ObjectProvider<ClusterBroadcastRelay> clusterBroadcastRelay) {
+        this.membershipIndex = membershipIndex;
+        this.brokerChannel = brokerChannel;
+        this.clientOutboundChannel = clientOutboundChannel;
+        this.clusterBroadcastRelay = clusterBroadcastRelay;
+    }
+
+    /**
+     * Decide a SUBSCRIBE and remember it if it is to a conversation topic
+     *
+     * @param email user of the session, null if it did not identify itself
+     */
+    public boolean authorize(String sessionId, String subscriptionId, String destination, String email) {
+        if (destination == null || email == null || isPattern(destination)) {
+            return false;
+        }
+        if (destination.startsWith(BroadcastService.USER_PREFIX)) {
+            // Resolved by Spring to a queue of this session only
+            return destination.startsWith(USER_QUEUE_PREFIX);
+        }
+        if (destination.startsWith(QUEUE_PREFIX)) {
+            return destination.endsWith(USER_SUFFIX + sessionId);
+        }
+        if (!destination.startsWith(BroadcastService.CONVERSATION_TOPIC)) {
+            return false;
+        }
+        UUID conversationId = conversationId(destination);
+        if (conversationId == null || !membershipIndex.isMember(conversationId, email)) {
+            return false;
+        }
+        Subscription subscription = new Subscription(sessionId, subscriptionId, destination, email);
+        // Atomic with the removal of emptied sets in forget
+        byConversation.compute(conversationId, (id, subscriptions) -> {
+            Set<Subscription> granted = subscriptions != null ? subscriptions : ConcurrentHashMap.newKeySet();
+            granted.add(subscription);
+            return granted;
+        });
+        bySession.computeIfAbsent(sessionId, id -> new ConcurrentHashMap<>()).put(subscriptionId, conversationId);
+        return true;
+    }
+
+    public void unsubscribed(String sessionId, String subscriptionId) {
+        Map<String, UUID> subscriptions = bySession.get(sessionId);
+        UUID conversationId = subscriptions != null ? subscriptions.remove(subscriptionId) : null;
+        if (conversationId != null) {
+            forget(conversationId, s -> s.sessionId().equals(sessionId) && s.subscriptionId().equals(subscriptionId));
+        }
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        Map<String, UUID> subscriptions = bySession.remove(event.getSessionId());
+        if (subscriptions != null) {
+            subscriptions.values().stream().distinct()
+                    .forEach(conversationId -> forget(conversationId, s -> s.sessionId().equals(event.getSessionId())));
+        }
+    }
+
+    /**
+     * Tear down the user's subscriptions to the conversation, here and on the other instances,
+     * once the surrounding transaction commits
+     */
+    public void revoke(UUID conversationId, String email) {
+        afterCommit(() -> {
+            revokeLocally(conversationId, email);
+            clusterBroadcastRelay.ifAvailable(relay -> relay.publishRevoke(conversationId, email));
+        });
+    }
+
+    /**
+     * Tear down every subscription to a deleted conversation, here and on the other instances,
+     * once the surrounding transaction commits
+     */
+    public void revokeAll(UUID conversationId) {
+        afterCommit(() -> {
+            revokeLocally(conversationId, null);
+            clusterBroadcastRelay.ifAvailable(relay -> relay.publishRevoke(conversationId, null));
+        });
+    }
+
+    /**
+     * A revocation committed by another instance. Its membership change never reached this
+     * instance's MembershipIndex, so the conversation is reloaded on its next check.
+     *
+     * @param email the removed member, null when the conversation was deleted
+     */
+    public void revokedElsewhere(UUID conversationId, String email) {
+        membershipIndex.evict(conversationId);
+        revokeLocally(conversationId, email);
+    }
+
+    private void revokeLocally(UUID conversationId, String email) {
+        if (email != null) {
+            tearDown(conversationId, forget(conversationId, s -> s.email().equals(email)));
+            return;
+        }
+        Set<Subscription> subscriptions = byConversation.remove(conversationId);
+        if (subscriptions != null) {
+            tearDown(conversationId, List.copyOf(subscriptions));
+        }
+    }
+
+    private List<Subscription> forget(UUID conversationId, Predicate<Subscription> filter) {
+        Set<Subscription> subscriptions = byConversation.get(conversationId);
+        if (subscriptions == null) {
+            return List.of();
+        }
+        List<Subscription> removed = subscriptions.stream().filter(filter).toList();
+        subscriptions.removeAll(removed);
+        byConversation.computeIfPresent(conversationId, (id, remaining) -> remaining.isEmpty() ? null : remaining);
+        return removed;
+    }
+
+    private void tearDown(UUID conversationId, List<Subscription> subscriptions) {
+        for (Subscription subscription : subscriptions) {
+            Map<String, UUID> session = bySession.get(subscription.sessionId());
+            if (session != null) {
+                session.remove(subscription.subscriptionId());
+            }
+
+            SimpMessageHeaderAccessor unsubscribe = SimpMessageHeaderAccessor.create(SimpMessageType.UNSUBSCRIBE);
+            unsubscribe.setSessionId(subscription.sessionId());
+            unsubscribe.setSubscriptionId(subscription.subscriptionId());
+            brokerChannel.send(MessageBuilder.createMessage(new byte[0], unsubscribe.getMessageHeaders()));
+
+            SimpMessageHeaderAccessor notice = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+            notice.setSessionId(subscription.sessionId());
+            notice.setSubscriptionId(subscription.subscriptionId());
+            notice.setDestination(subscription.destination());
+            notice.setContentType(MimeTypeUtils.APPLICATION_JSON);
+            clientOutboundChannel.send(MessageBuilder.createMessage(REVOKED_PAYLOAD, notice.getMessageHeaders()));
+        }
+        if (!subscriptions.isEmpty()) {
+            log.info("Revoked {} subscriptions to conversation {}", subscriptions.size(), conversationId);
+        }
+    }
+
+    /*
+     * Ant-style patterns match many destinations in the simple broker, e.g. /topic/**
+     */
+    static boolean isPattern(String destination) {
+        return destination.indexOf('*') >= 0 || destination.indexOf('?') >= 0 || destination.indexOf('{') >= 0;
+    }
+
+    /*
+     * /topic/conversation/{id} or /topic/conversation/{id}/{sub-destination}; null if malformed
+     */
+    static UUID conversationId(String destination) {
+        String rest = destination.substring(BroadcastService.CONVERSATION_TOPIC.length());
+        int slash = rest.indexOf('/');
+        try {
+            return UUID.fromString(slash < 0 ? rest : rest.substring(0, slash));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
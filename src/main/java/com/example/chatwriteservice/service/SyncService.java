@@ -0,0 +1,130 @@
+package com.example.chatwriteservice.service;
+
+import com.example.chatwriteservice.config.ReadYourWritesTracker;
+import com.example.chatwriteservice.dto.ConversationResponse;
+import com.example.chatwriteservice.dto.MessageResponse;
+import com.example.chatwriteservice.dto.SyncPosition;
+import com.example.chatwriteservice.dto.SyncRequest;
+import com.example.chatwriteservice.dto.SyncResponse;
+import com.example.chatwriteservice.exception.BadRequestException;
+import com.example.chatwriteservice.repository.SyncJdbcRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Catch-up after a reconnect: everything new across all of a user's memberships in one
+ * call instead of a history request per conversation.
+ * <p>
+ * Positions are per-conversation message seq and conversation version. Both are assigned
+ * under the conversation row lock and follow commit order, so a position never skips a row
+ * that commits late and no settle margin is needed. Messages and conversations are paged
+ * independently with keyset cursors carried in one continuation token.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SyncService {
+
+    public static final int DEFAULT_LIMIT = 200;
+    public static final int MAX_LIMIT = 1000;
+
+    private static final String NONE = "-";
+
+    private final SyncJdbcRepository syncJdbcRepository;
+    private final ReadYourWritesTracker readYourWritesTracker;
+
+    @Transactional(readOnly = true)
+    public SyncResponse sync(SyncRequest request) {
+        readYourWritesTracker.routeToPrimaryIfRecentlyWritten(request.getEmail());
+
+        int pageSize = request.getLimit() == null ? DEFAULT_LIMIT : Math.max(1, Math.min(request.getLimit(), MAX_LIMIT));
+        Token token = decodeToken(request.getContinuationToken());
+        if (token == null) {
+            token = new Token(false, null, false, null, 0);
+        }
+
+        // Fetch one extra row of each to know whether another page exists
+        List<MessageResponse> messages = token.messagesDone() ? List.of() : syncJdbcRepository.findMessagesSince(
+                request.getEmail(), request.getPositions(), token.afterConversationId(), token.afterSeq(), pageSize + 1);
+        List<SyncJdbcRepository.ConversationChange> changes = token.conversationsDone() ? List.of()
+                : syncJdbcRepository.findConversationsSince(
+                        request.getEmail(), request.getPositions(), token.conversationsAfter(), pageSize + 1);
+
+        boolean moreMessages = messages.size() > pageSize;
+        boolean moreConversations = changes.size() > pageSize;
+        List<MessageResponse> messagePage = moreMessages ? messages.subList(0, pageSize) : messages;
+        List<SyncJdbcRepository.ConversationChange> changePage = moreConversations ? changes.subList(0, pageSize) : changes;
+
+        Map<UUID, SyncPosition> positions = new HashMap<>();
+        for (MessageResponse message : messagePage) {
+            positions.computeIfAbsent(message.getConversationId(), id -> new SyncPosition()).setSeq(message.getSeq());
+        }
+        for (SyncJdbcRepository.ConversationChange change : changePage) {
+            positions.computeIfAbsent(change.conversation().getId(), id -> new SyncPosition()).setVersion(change.version());
+        }
+
+        String nextToken = null;
+        if (moreMessages || moreConversations) {
+            MessageResponse lastMessage = messagePage.isEmpty() ? null : messagePage.get(messagePage.size() - 1);
+            nextToken = encodeToken(new Token(
+                    !moreConversations,
+                    changePage.isEmpty() ? token.conversationsAfter() : changePage.get(changePage.size() - 1).conversation().getId(),
+                    !moreMessages,
+                    lastMessage != null ? lastMessage.getConversationId() : token.afterConversationId(),
+                    lastMessage != null ? lastMessage.getSeq() : token.afterSeq()));
+        }
+
+        log.debug("Sync for {}: {} messages, {} conversations, more: {}",
+                request.getEmail(), messagePage.size(), changePage.size(), nextToken != null);
+
+        List<ConversationResponse> conversations = changePage.stream()
+                .map(SyncJdbcRepository.ConversationChange::conversation)
+                .toList();
+        return SyncResponse.builder()
+                .messages(messagePage)
+                .conversations(conversations)
+                .nextToken(nextToken)
+                .positions(positions)
+                .build();
+    }
+
+    record Token(boolean conversationsDone, UUID conversationsAfter,
+                 boolean messagesDone, UUID afterConversationId, long afterSeq) {
+    }
+
+    static String encodeToken(Token token) {
+        String raw = token.conversationsDone() + "|" + uuidOrNone(token.conversationsAfter()) + "|"
+                + token.messagesDone() + "|" + uuidOrNone(token.afterConversationId()) + "|" + token.afterSeq();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static Token decodeToken(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split("\\|");
+            return new Token(Boolean.parseBoolean(parts[0]), parseUuid(parts[1]),
+                    Boolean.parseBoolean(parts[2]), parseUuid(parts[3]), Long.parseLong(parts[4]));
+        } catch (RuntimeException e) {
+            throw new BadRequestException("Invalid continuation token");
+        }
+    }
+
+    private static String uuidOrNone(UUID id) {
+        return id != null ? id.toString() : NONE;
+    }
+
+    private static UUID parseUuid(String value) {
+        return NONE.equals(value) ? null : UUID.fromString(value);
+    }
+}
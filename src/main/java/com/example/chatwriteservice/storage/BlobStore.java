@@ -0,0 +1,50 @@
+package com.example.chatwriteservice.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+
+/**
+ * Byte storage for attachments. A blob is written by appending chunks (so uploads can be
+ * resumed from size()), then committed and only read afterwards. Implementations must never
+ * hold a whole blob in memory.
+ */
+public interface BlobStore {
+
+    /**
+     * Bytes stored so far for the blob, committed or not; 0 if nothing was written
+     */
+    long size(String key) throws IOException;
+
+    /**
+     * Append up to maxBytes from in at offset, which must equal size(key).
+     * Returns the number of bytes written; stops early at the end of the stream.
+     */
+    long append(String key, long offset, InputStream in, long maxBytes) throws IOException;
+
+    /**
+     * Discard the bytes of an uncommitted blob beyond size, e.g. a rejected chunk
+     */
+    void truncate(String key, long size) throws IOException;
+
+    /**
+     * Make a fully uploaded blob readable
+     */
+    void commit(String key) throws IOException;
+
+    /**
+     * Copy count bytes starting at position of a committed blob to target
+     */
+    void transferTo(String key, long position, long count, WritableByteChannel target) throws IOException;
+
+    /**
+     * File backing a committed blob, for stores that keep blobs on the local filesystem;
+     * lets the web server send it with sendfile. Null otherwise.
+     */
+    default Path localPath(String key) {
+        return null;
+    }
+
+    void delete(String key) throws IOException;
+}
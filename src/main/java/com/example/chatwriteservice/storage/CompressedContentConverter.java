@@ -0,0 +1,28 @@
+package com.example.chatwriteservice.storage;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * JPA side of MessageContentCodec. Hibernate obtains converters from the Spring bean
+ * container, so this shares the codec (and its metrics) with the JDBC repositories.
+ */
+@Component
+@Converter
+@RequiredArgsConstructor
+public class CompressedContentConverter implements AttributeConverter<String, String> {
+
+    private final MessageContentCodec contentCodec;
+
+    @Override
+    public String convertToDatabaseColumn(String attribute) {
+        return contentCodec.encode(attribute);
+    }
+
+    @Override
+    public String convertToEntityAttribute(String dbData) {
+        return contentCodec.decode(dbData);
+    }
+}
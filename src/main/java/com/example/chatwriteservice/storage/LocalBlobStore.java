@@ -0,0 +1,114 @@
+package com.example.chatwriteservice.storage;
+
+import com.example.chatwriteservice.config.ChatProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Blobs as files under chat.attachments.directory, spread over 256 sub-directories.
+ * In-progress uploads live in "{key}.part" and are renamed atomically on commit.
+ * Reads use FileChannel.transferTo, which the OS turns into a zero-copy send when the
+ * target is a socket or file.
+ */
+@Component
+@ConditionalOnProperty(prefix = "chat.attachments", name = "store", havingValue = "local", matchIfMissing = true)
+@Slf4j
+public class LocalBlobStore implements BlobStore {
+
+    private static final String PART_SUFFIX = ".part";
+
+    private final Path root;
+
+    public LocalBlobStore(ChatProperties chatProperties) throws IOException {
+        this.root = Path.of(chatProperties.getAttachments().getDirectory()).toAbsolutePath();
+        Files.createDirectories(root);
+        log.info("Storing attachments in {}", root);
+    }
+
+    @Override
+    public long size(String key) throws IOException {
+        Path committed = path(key);
+        if (Files.exists(committed)) {
+            return Files.size(committed);
+        }
+        Path part = partPath(key);
+        return Files.exists(part) ? Files.size(part) : 0;
+    }
+
+    @Override
+    public long append(String key, long offset, InputStream in, long maxBytes) throws IOException {
+        Path part = partPath(key);
+        Files.createDirectories(part.getParent());
+        try (FileChannel channel = FileChannel.open(part, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            if (channel.size() != offset) {
+                throw new IOException("Offset " + offset + " does not match stored size " + channel.size());
+            }
+            // Copies through a small internal buffer; the chunk is never held in memory as a whole
+            long written = channel.transferFrom(Channels.newChannel(in), offset, maxBytes);
+            // Persist before acknowledging, the stored size is the resume point
+            channel.force(false);
+            return written;
+        }
+    }
+
+    @Override
+    public void truncate(String key, long size) throws IOException {
+        try (FileChannel channel = FileChannel.open(partPath(key), StandardOpenOption.WRITE)) {
+            channel.truncate(size);
+            channel.force(false);
+        }
+    }
+
+    @Override
+    public void commit(String key) throws IOException {
+        Files.move(partPath(key), path(key), StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    @Override
+    public void transferTo(String key, long position, long count, WritableByteChannel target) throws IOException {
+        try (FileChannel channel = FileChannel.open(path(key), StandardOpenOption.READ)) {
+            long end = position + count;
+            while (position < end) {
+                long sent = channel.transferTo(position, end - position, target);
+                if (sent <= 0) {
+                    throw new IOException("Blob " + key + " is shorter than expected");
+                }
+                position += sent;
+            }
+        }
+    }
+
+    @Override
+    public Path localPath(String key) {
+        return path(key);
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        Files.deleteIfExists(path(key));
+        Files.deleteIfExists(partPath(key));
+    }
+
+    private Path path(String key) {
+        if (key.length() < 2 || key.contains("/") || key.contains("\\") || key.contains("..")) {
+            throw new IllegalArgumentException("Invalid blob key: " + key);
+        }
+        return root.resolve(key.substring(0, 2)).resolve(key);
+    }
+
+    private Path partPath(String key) {
+        Path path = path(key);
+        return path.resolveSibling(path.getFileName() + PART_SUFFIX);
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.chatwriteservice.storage;
+
+import com.example.chatwriteservice.config.ChatProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4FastDecompressor;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * At-rest encoding of message content. Values above chat.compression.threshold are stored as
+ * "\u0001L" + base64([original byte length][LZ4 block]) when that is smaller; everything else is
+ * stored as is, so rows written before compression existed read back unchanged. Plain values
+ * that happen to start with the marker are escaped as "\u0001P" + value. Content above
+ * chat.compression.max-content-size is never compressed, so decoding can refuse a stored length
+ * above it before allocating the output buffer.
+ *
+ * Reports bytes in/out, the compression ratio and codec time under chat.message.content.*.
+ */
+@Component
+public class MessageContentCodec {
+
+    static final char MARKER = '\u0001';
+    static final char LZ4 = 'L';
+    static final char PLAIN = 'P';
+
+    /* An LZ4 block never expands its input by more than this factor */
+    private static final int LZ4_MAX_EXPANSION = 255;
+
+    private static final LZ4Factory LZ4_FACTORY = LZ4Factory.fastestInstance();
+
+    private final LZ4Compressor compressor = LZ4_FACTORY.fastCompressor();
+    private final LZ4FastDecompressor decompressor = LZ4_FACTORY.fastDecompressor();
+    private final boolean enabled;
+    private final long thresholdBytes;
+    private final long maxContentBytes;
+
+    private final Counter originalBytes;
+    private final Counter storedBytes;
+    private final Counter incompressible;
+    private final DistributionSummary ratio;
+    private final Timer compressTimer;
+    private final Timer decompressTimer;
+
+    public MessageContentCodec(ChatProperties chatProperties, MeterRegistry meterRegistry) {
+        this.enabled = chatProperties.getCompression().isEnabled();
+        this.thresholdBytes = chatProperties.getCompression().getThreshold().toBytes();
+        this.maxContentBytes = chatProperties.getCompression().getMaxContentSize().toBytes();
+        this.originalBytes = Counter.builder("chat.message.content.original.bytes")
+                .description("UTF-8 size of content that went through the compressor")
+                .baseUnit("bytes").register(meterRegistry);
+        this.storedBytes = Counter.builder("chat.message.content.stored.bytes")
+                .description("Stored size of that content after encoding")
+                .baseUnit("bytes").register(meterRegistry);
+        this.incompressible = Counter.builder("chat.message.content.incompressible")
+                .description("Content above the threshold stored plain because compression did not help")
+                .register(meterRegistry);
+        this.ratio = DistributionSummary.builder("chat.message.content.compression.ratio")
+                .description("Stored size / original size of compressed content")
+                .register(meterRegistry);
+        this.compressTimer = Timer.builder("chat.message.content.compress").register(meterRegistry);
+        this.decompressTimer = Timer.builder("chat.message.content.decompress").register(meterRegistry);
+    }
+
+    public String encode(String content) {
+        if (content == null || content.isEmpty()) {
+            return content;
+        }
+        String plain = content.charAt(0) == MARKER ? escape(content) : content;
+        // A char is at most 3 UTF-8 bytes: skip short content without encoding it
+        if (!enabled || content.length() * 3L < thresholdBytes) {
+            return plain;
+        }
+        byte[] raw = content.getBytes(StandardCharsets.UTF_8);
+        if (raw.length < thresholdBytes || raw.length > maxContentBytes) {
+            return plain;
+        }
+
+        long start = System.nanoTime();
+        ByteBuffer block = ByteBuffer.allocate(Integer.BYTES + compressor.maxCompressedLength(raw.length));
+        block.putInt(raw.length);
+        int compressedLength = compressor.compress(raw, 0, raw.length, block.array(), Integer.BYTES);
+        String encoded = MARKER + String.valueOf(LZ4)
+                + Base64.getEncoder().encodeToString(Arrays.copyOf(block.array(), Integer.BYTES + compressedLength));
+        compressTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+        originalBytes.increment(raw.length);
+        if (encoded.length() >= raw.length) {
+            incompressible.increment();
+            storedBytes.increment(raw.length);
+            return plain;
+        }
+        storedBytes.increment(encoded.length());
+        ratio.record((double) encoded.length() / raw.length);
+        return encoded;
+    }
+
+    public String decode(String stored) {
+        if (stored == null || stored.length() < 2 || stored.charAt(0) != MARKER) {
+            return stored;
+        }
+        return switch (stored.charAt(1)) {
+            case PLAIN -> stored.substring(2);
+            case LZ4 -> decompress(stored);
+            default -> stored;
+        };
+    }
+
+    private String decompress(String stored) {
+        long start = System.nanoTime();
+        ByteBuffer block = ByteBuffer.wrap(Base64.getDecoder().decode(stored.substring(2)));
+        int originalLength = block.getInt();
+        if (originalLength < 0 || originalLength > maxContentBytes
+                || originalLength > (long) block.remaining() * LZ4_MAX_EXPANSION) {
+            throw new IllegalStateException("Corrupt compressed content: original length " + originalLength);
+        }
+        byte[] raw = new byte[originalLength];
+        decompressor.decompress(block.array(), Integer.BYTES, raw, 0, originalLength);
+        String content = new String(raw, StandardCharsets.UTF_8);
+        decompressTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return content;
+    }
+
+    private static String escape(String content) {
+        return MARKER + String.valueOf(PLAIN) + content;
+    }
+}
@@ -0,0 +1,15 @@
+-- Message attachments (AttachmentService); bytes live in the blob store under the attachment id
+CREATE TABLE IF NOT EXISTS attachments (
+    id              UUID PRIMARY KEY,
+    conversation_id UUID         NOT NULL REFERENCES conversations (id),
+    uploader_email  VARCHAR(255) NOT NULL,
+    file_name       VARCHAR(255) NOT NULL,
+    content_type    VARCHAR(255) NOT NULL,
+    size            BIGINT       NOT NULL,
+    uploaded_bytes  BIGINT       NOT NULL DEFAULT 0,
+    status          VARCHAR(32)  NOT NULL,
+    created_at      TIMESTAMP,
+    completed_at    TIMESTAMP
+);
+
+ALTER TABLE messages ADD COLUMN IF NOT EXISTS attachment_id UUID REFERENCES attachments (id);
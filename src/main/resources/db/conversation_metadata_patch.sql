@@ -0,0 +1,106 @@
+-- In-database patching of conversations.metadata (PATCH /api/conversations/{id}/metadata)
+-- RFC 7396 JSON merge patch: objects merge recursively, null removes a key, anything else replaces.
+CREATE OR REPLACE FUNCTION jsonb_merge_patch(target jsonb, patch jsonb)
+    RETURNS jsonb
+    LANGUAGE plpgsql
+    IMMUTABLE
+AS
+$$
+DECLARE
+    result jsonb;
+    item   record;
+BEGIN
+    IF patch IS NULL OR jsonb_typeof(patch) <> 'object' THEN
+        RETURN patch;
+    END IF;
+    IF target IS NULL OR jsonb_typeof(target) <> 'object' THEN
+        result := '{}'::jsonb;
+    ELSE
+        result := target;
+    END IF;
+    FOR item IN SELECT key, value FROM jsonb_each(patch)
+        LOOP
+            IF jsonb_typeof(item.value) = 'null' THEN
+                result := result - item.key;
+            ELSE
+                result := jsonb_set(result, ARRAY [item.key], jsonb_merge_patch(result -> item.key, item.value));
+            END IF;
+        END LOOP;
+    RETURN result;
+END;
+$$;
+
+-- RFC 6902 JSON patch: operations apply in order, each to the result of the previous one, so a
+-- test sees earlier changes. operations is an array of {"op", "path": [keys / array indexes], "value"}
+-- with op add, replace, remove or test. A failed test raises SQLSTATE JPTST; a path that does not
+-- exist (for add: whose parent does not exist, or an array index past the end) raises JPPTH.
+-- Either rolls back the whole update.
+CREATE OR REPLACE FUNCTION jsonb_apply_patch(target jsonb, operations jsonb)
+    RETURNS jsonb
+    LANGUAGE plpgsql
+    IMMUTABLE
+AS
+$$
+DECLARE
+    result      jsonb := COALESCE(target, '{}'::jsonb);
+    operation   jsonb;
+    op          text;
+    path        text[];
+    parent_path text[];
+    parent      jsonb;
+    key         text;
+BEGIN
+    FOR operation IN SELECT value FROM jsonb_array_elements(operations)
+        LOOP
+            op := operation ->> 'op';
+            path := ARRAY(SELECT jsonb_array_elements_text(operation -> 'path'));
+            IF op = 'test' THEN
+                IF result #> path IS DISTINCT FROM operation -> 'value' THEN
+                    RAISE EXCEPTION 'test failed at %', path USING ERRCODE = 'JPTST';
+                END IF;
+                CONTINUE;
+            END IF;
+
+            parent_path := path[1:cardinality(path) - 1];
+            parent := result #> parent_path;
+            key := path[cardinality(path)];
+            IF jsonb_typeof(parent) = 'array' THEN
+                -- Indexes are decimal without sign or leading zeros; "-" (past the end) only for add
+                IF NOT (key ~ '^(0|[1-9][0-9]{0,8})$' OR (key = '-' AND op = 'add')) THEN
+                    RAISE EXCEPTION 'invalid array index at %', path USING ERRCODE = 'JPPTH';
+                END IF;
+            ELSIF jsonb_typeof(parent) IS DISTINCT FROM 'object' THEN
+                RAISE EXCEPTION 'parent of % does not exist', path USING ERRCODE = 'JPPTH';
+            END IF;
+            IF op <> 'add' AND result #> path IS NULL THEN
+                RAISE EXCEPTION '% does not exist', path USING ERRCODE = 'JPPTH';
+            END IF;
+
+            CASE op
+                WHEN 'add' THEN
+                    IF jsonb_typeof(parent) = 'object' THEN
+                        parent := parent || jsonb_build_object(key, operation -> 'value');
+                    ELSIF key = '-' OR key::int = jsonb_array_length(parent) THEN
+                        parent := parent || jsonb_build_array(operation -> 'value');
+                    ELSIF key::int < jsonb_array_length(parent) THEN
+                        -- Inserts before the element at key, shifting the rest
+                        parent := jsonb_insert(parent, ARRAY [key], operation -> 'value');
+                    ELSE
+                        RAISE EXCEPTION 'array index out of bounds at %', path USING ERRCODE = 'JPPTH';
+                    END IF;
+                WHEN 'replace' THEN
+                    parent := jsonb_set(parent, ARRAY [key], operation -> 'value');
+                WHEN 'remove' THEN
+                    IF jsonb_typeof(parent) = 'array' THEN
+                        parent := parent - key::int;
+                    ELSE
+                        parent := parent - key;
+                    END IF;
+                ELSE
+                    RAISE EXCEPTION 'unsupported operation %', op USING ERRCODE = 'JPPTH';
+            END CASE;
+            result := CASE WHEN cardinality(parent_path) = 0 THEN parent ELSE jsonb_set(result, parent_path, parent) END;
+        END LOOP;
+    RETURN result;
+END;
+$$;
@@ -0,0 +1,30 @@
+-- Canonical participant pair of DIRECT conversations (ConversationService.getOrCreateDirect)
+-- pair_key is the sorted, distinct participant emails joined by a space (one email for a self-chat).
+-- The unique index makes concurrent get-or-create race-safe (INSERT ... ON CONFLICT DO NOTHING).
+ALTER TABLE conversations ADD COLUMN IF NOT EXISTS pair_key text;
+
+-- Existing duplicates: only the oldest DIRECT conversation of each pair becomes canonical,
+-- the others keep pair_key NULL and stay reachable by id.
+WITH pairs AS (
+    SELECT c.id, c.created_at,
+           string_agg(DISTINCT p.email, ' ' ORDER BY p.email COLLATE "C") AS pair_key,
+           count(DISTINCT p.email) AS members
+    FROM conversations c
+    JOIN participants p ON p.conversation_id = c.id
+    WHERE c.type = 'DIRECT' AND c.pair_key IS NULL
+    GROUP BY c.id, c.created_at
+), canonical AS (
+    SELECT DISTINCT ON (pair_key) id, pair_key
+    FROM pairs
+    WHERE members <= 2
+      AND NOT EXISTS (SELECT 1 FROM conversations x WHERE x.pair_key = pairs.pair_key)
+    ORDER BY pair_key, created_at, id
+)
+UPDATE conversations c
+SET pair_key = canonical.pair_key
+FROM canonical
+WHERE c.id = canonical.id;
+
+CREATE UNIQUE INDEX IF NOT EXISTS uq_conversations_pair_key
+    ON conversations (pair_key)
+    WHERE pair_key IS NOT NULL;
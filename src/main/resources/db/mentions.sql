@@ -0,0 +1,16 @@
+-- Unacknowledged @mentions (MentionService)
+-- A row is written when a mention is delivered and deleted when the mentioned user
+-- acknowledges it, so the table only ever holds what users have not seen yet.
+-- messages has a composite key (id, created_at), so message_id is not a foreign key.
+CREATE TABLE IF NOT EXISTS mentions (
+    email           VARCHAR(255) NOT NULL,
+    message_id      UUID         NOT NULL,
+    conversation_id UUID         NOT NULL REFERENCES conversations (id) ON DELETE CASCADE,
+    sender_email    VARCHAR(255) NOT NULL,
+    preview         VARCHAR(200),
+    created_at      TIMESTAMP    NOT NULL,
+    PRIMARY KEY (email, message_id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_mentions_email_created ON mentions (email, created_at DESC);
+CREATE INDEX IF NOT EXISTS idx_mentions_conversation ON mentions (conversation_id);
@@ -0,0 +1,7 @@
+-- Databases that ran an earlier message_search.sql, where content_tsv was a generated column
+-- computed from content: that cannot index compressed content (starting with chr(1)).
+-- Drop it, then run message_search.sql again to get the trigger-maintained column.
+-- Run both before enabling chat.compression, so every compressed row gets its search_text.
+-- Fresh databases only need message_search.sql.
+DROP INDEX IF EXISTS idx_messages_search;
+ALTER TABLE messages DROP COLUMN IF EXISTS content_tsv;
@@ -0,0 +1,10 @@
+-- Checkpoints for the bulk message import (MessageImportService)
+CREATE TABLE IF NOT EXISTS message_import_checkpoints (
+    job_id          VARCHAR(255) PRIMARY KEY,
+    conversation_id UUID         NOT NULL REFERENCES conversations (id),
+    rows_committed  BIGINT       NOT NULL DEFAULT 0,
+    status          VARCHAR(32)  NOT NULL,
+    last_error      TEXT,
+    created_at      TIMESTAMP,
+    updated_at      TIMESTAMP
+);
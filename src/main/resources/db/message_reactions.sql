@@ -0,0 +1,24 @@
+-- Message reactions (ReactionService)
+-- message_reactions is the per-user set, message_reaction_counts the aggregate per emoji.
+-- Both are written in batches by the reaction flush; counts only move by rows that were
+-- actually inserted or deleted, so repeated or unknown changes are harmless.
+-- messages has a composite key (id, created_at), so message_id is not a foreign key.
+CREATE TABLE IF NOT EXISTS message_reactions (
+    message_id      UUID         NOT NULL,
+    emoji           VARCHAR(32)  NOT NULL,
+    email           VARCHAR(255) NOT NULL,
+    conversation_id UUID         NOT NULL REFERENCES conversations (id) ON DELETE CASCADE,
+    created_at      TIMESTAMP    NOT NULL,
+    PRIMARY KEY (message_id, emoji, email)
+);
+
+CREATE TABLE IF NOT EXISTS message_reaction_counts (
+    message_id      UUID        NOT NULL,
+    emoji           VARCHAR(32) NOT NULL,
+    conversation_id UUID        NOT NULL REFERENCES conversations (id) ON DELETE CASCADE,
+    count           BIGINT      NOT NULL,
+    PRIMARY KEY (message_id, emoji)
+);
+
+CREATE INDEX IF NOT EXISTS idx_message_reactions_conversation ON message_reactions (conversation_id);
+CREATE INDEX IF NOT EXISTS idx_message_reaction_counts_conversation ON message_reaction_counts (conversation_id);
@@ -0,0 +1,35 @@
+-- Full-text search over messages.content (MessageSearchService)
+-- content may be stored compressed by MessageContentCodec (starts with chr(1)), which SQL cannot
+-- read, so writers pass the plain text in search_text and this trigger turns it into content_tsv.
+-- search_text is cleared before the row is stored: it only carries the text into the trigger,
+-- for single inserts and COPY from the bulk import alike. Rows written without it fall back to
+-- content when that is stored plain.
+-- btree_gin lets one GIN index serve both the conversation filter and the text match.
+CREATE EXTENSION IF NOT EXISTS btree_gin;
+
+ALTER TABLE messages ADD COLUMN IF NOT EXISTS content_tsv tsvector;
+ALTER TABLE messages ADD COLUMN IF NOT EXISTS search_text text;
+
+CREATE OR REPLACE FUNCTION message_search_vector() RETURNS trigger AS $$
+BEGIN
+    NEW.content_tsv := to_tsvector('simple', coalesce(NEW.search_text,
+        CASE WHEN left(NEW.content, 1) = chr(1) THEN '' ELSE coalesce(NEW.content, '') END));
+    NEW.search_text := NULL;
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS messages_search_vector ON messages;
+CREATE TRIGGER messages_search_vector
+    BEFORE INSERT OR UPDATE OF content, search_text ON messages
+    FOR EACH ROW EXECUTE FUNCTION message_search_vector();
+
+-- Rows that existed before this script (content is plain: compression needs search_text)
+UPDATE messages
+SET content_tsv = to_tsvector('simple',
+        CASE WHEN left(content, 1) = chr(1) THEN '' ELSE coalesce(content, '') END)
+WHERE content_tsv IS NULL;
+
+CREATE INDEX IF NOT EXISTS idx_messages_search
+    ON messages USING gin (conversation_id, content_tsv)
+    WHERE is_deleted = false;
@@ -0,0 +1,21 @@
+-- Per-conversation message sequence numbers (MessageJdbcRepository#insertIfParticipant)
+-- conversations.next_seq is the next unused number; each insert takes one under the row lock.
+-- Existing messages are numbered in (created_at, id) order.
+ALTER TABLE conversations ADD COLUMN IF NOT EXISTS next_seq bigint NOT NULL DEFAULT 1;
+ALTER TABLE messages ADD COLUMN IF NOT EXISTS seq bigint;
+
+UPDATE messages m
+SET seq = s.rn
+FROM (SELECT id, created_at,
+             row_number() OVER (PARTITION BY conversation_id ORDER BY created_at, id) AS rn
+      FROM messages) s
+WHERE m.id = s.id AND m.created_at = s.created_at AND m.seq IS NULL;
+
+UPDATE conversations c
+SET next_seq = COALESCE((SELECT max(m.seq) FROM messages m WHERE m.conversation_id = c.id), 0) + 1;
+
+ALTER TABLE messages ALTER COLUMN seq SET NOT NULL;
+
+-- History pages, gap-fill and export read by (conversation_id, seq)
+CREATE INDEX IF NOT EXISTS idx_messages_conversation_seq
+    ON messages (conversation_id, seq);
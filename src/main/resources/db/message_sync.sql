@@ -0,0 +1,54 @@
+-- Reconnect catch-up (SyncService)
+-- Messages are synced by per-conversation seq (db/message_sequence.sql), conversations by
+-- conversations.version. Every change of the synced conversation fields (title, type, metadata),
+-- and every participant joining or leaving, increments the version under the conversation row
+-- lock, so versions follow commit order within a conversation. Updates that only touch
+-- next_seq/updated_at (every message insert) do not: messages are synced by their own seq.
+-- participants.joined_version is the version the member joined at.
+ALTER TABLE conversations ADD COLUMN IF NOT EXISTS version bigint NOT NULL DEFAULT 0;
+ALTER TABLE participants ADD COLUMN IF NOT EXISTS joined_version bigint NOT NULL DEFAULT 0;
+
+CREATE OR REPLACE FUNCTION bump_conversation_version() RETURNS trigger AS $$
+BEGIN
+    NEW.version := OLD.version + 1;
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS conversations_version ON conversations;
+CREATE TRIGGER conversations_version
+    BEFORE UPDATE ON conversations
+    FOR EACH ROW
+    WHEN ((OLD.title, OLD.type, OLD.metadata) IS DISTINCT FROM (NEW.title, NEW.type, NEW.metadata))
+    EXECUTE FUNCTION bump_conversation_version();
+
+CREATE OR REPLACE FUNCTION participant_joined() RETURNS trigger AS $$
+BEGIN
+    UPDATE conversations SET version = version + 1 WHERE id = NEW.conversation_id
+    RETURNING version INTO NEW.joined_version;
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS participants_joined ON participants;
+CREATE TRIGGER participants_joined
+    BEFORE INSERT ON participants
+    FOR EACH ROW EXECUTE FUNCTION participant_joined();
+
+CREATE OR REPLACE FUNCTION participant_left() RETURNS trigger AS $$
+BEGIN
+    UPDATE conversations SET version = version + 1 WHERE id = OLD.conversation_id;
+    RETURN OLD;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS participants_left ON participants;
+CREATE TRIGGER participants_left
+    AFTER DELETE ON participants
+    FOR EACH ROW EXECUTE FUNCTION participant_left();
+
+CREATE INDEX IF NOT EXISTS idx_participants_email
+    ON participants (email);
+
+CREATE INDEX IF NOT EXISTS idx_participants_conversation_joined_version
+    ON participants (conversation_id, joined_version);
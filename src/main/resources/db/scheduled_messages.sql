@@ -0,0 +1,26 @@
+-- Scheduled messages (ScheduledMessageService)
+-- A row is claimed by one instance (claimed_by) until claimed_until; other instances pick it
+-- up once the claim expires. Sending moves it PENDING -> SENDING -> SENT and the sent message
+-- gets the id of the scheduled message, so an interrupted send can be told apart from one
+-- that never happened.
+CREATE TABLE IF NOT EXISTS scheduled_messages (
+    id              UUID PRIMARY KEY,
+    conversation_id UUID         NOT NULL REFERENCES conversations (id) ON DELETE CASCADE,
+    sender_email    VARCHAR(255) NOT NULL,
+    type            VARCHAR(32)  NOT NULL,
+    content         TEXT,
+    attachment_id   UUID,
+    send_at         TIMESTAMP    NOT NULL,
+    status          VARCHAR(32)  NOT NULL,
+    error           TEXT,
+    created_at      TIMESTAMP    NOT NULL,
+    claimed_by      VARCHAR(255),
+    claimed_until   TIMESTAMP
+);
+
+-- The loader scans the near-term window of unsent rows only
+CREATE INDEX IF NOT EXISTS idx_scheduled_messages_due
+    ON scheduled_messages (send_at) WHERE status IN ('PENDING', 'SENDING');
+
+CREATE INDEX IF NOT EXISTS idx_scheduled_messages_sender
+    ON scheduled_messages (sender_email, send_at) WHERE status IN ('PENDING', 'SENDING');
@@ -0,0 +1,5 @@
+-- Dense integer id per user for the in-memory membership bitmaps (MembershipIndex)
+-- Adding an identity column numbers the existing rows; new users get the next value on insert.
+ALTER TABLE users ADD COLUMN IF NOT EXISTS uid integer GENERATED BY DEFAULT AS IDENTITY;
+
+CREATE UNIQUE INDEX IF NOT EXISTS uq_users_uid ON users (uid);
@@ -0,0 +1,88 @@
+package com.example.chatwriteservice.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class CachingJwtDecoderTest {
+
+    private static final Instant NOW = Instant.parse("2026-01-01T00:00:00Z");
+
+    private final JwtDecoder delegate = mock(JwtDecoder.class);
+    private final AtomicLong clock = new AtomicLong(NOW.toEpochMilli());
+    private final CachingJwtDecoder decoder = new CachingJwtDecoder(delegate, 2, clock::get);
+
+    @Test
+    void decode_ShouldVerifyRepeatedTokenOnceUntilItExpires() {
+        // Arrange
+        Jwt jwt = jwt("token-1", NOW.plusSeconds(60));
+        when(delegate.decode("token-1")).thenReturn(jwt);
+
+        // Act
+        Jwt first = decoder.decode("token-1");
+        Jwt second = decoder.decode("token-1");
+        clock.set(NOW.plusSeconds(60).toEpochMilli());
+        when(delegate.decode("token-1")).thenThrow(new JwtException("expired"));
+
+        // Assert
+        assertSame(jwt, first);
+        assertSame(jwt, second);
+        assertThrows(JwtException.class, () -> decoder.decode("token-1"));
+        verify(delegate, times(2)).decode("token-1");
+    }
+
+    @Test
+    void decode_ShouldNotCacheTokensWithoutExpiryOrRejectedTokens() {
+        // Arrange
+        when(delegate.decode("no-exp")).thenReturn(jwt("no-exp", null));
+        when(delegate.decode("bad")).thenThrow(new JwtException("bad signature"));
+
+        // Act
+        decoder.decode("no-exp");
+        decoder.decode("no-exp");
+        assertThrows(JwtException.class, () -> decoder.decode("bad"));
+        assertThrows(JwtException.class, () -> decoder.decode("bad"));
+
+        // Assert
+        verify(delegate, times(2)).decode("no-exp");
+        verify(delegate, times(2)).decode("bad");
+    }
+
+    @Test
+    void decode_ShouldStayWithinCapacity() {
+        // Arrange
+        for (int i = 0; i < 3; i++) {
+            when(delegate.decode("token-" + i)).thenReturn(jwt("token-" + i, NOW.plusSeconds(60)));
+        }
+
+        // Act
+        decoder.decode("token-0");
+        decoder.decode("token-1");
+        decoder.decode("token-2");
+        decoder.decode("token-2");
+
+        // Assert: the newest token is cached, one of the older ones was evicted
+        verify(delegate, times(1)).decode("token-2");
+        decoder.decode("token-0");
+        decoder.decode("token-1");
+        verify(delegate, times(4)).decode(startsWith("token-"));
+    }
+
+    private static Jwt jwt(String token, Instant expiresAt) {
+        Jwt.Builder builder = Jwt.withTokenValue(token)
+                .header("alg", "RS256")
+                .subject("user1@example.com")
+                .issuedAt(NOW.minusSeconds(1));
+        if (expiresAt != null) {
+            builder.expiresAt(expiresAt);
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.chatwriteservice.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReadYourWritesTrackerTest {
+
+    private final AtomicLong now = new AtomicLong();
+    private ReadYourWritesTracker tracker;
+    private UUID conversationId;
+
+    @BeforeEach
+    void setUp() {
+        ChatProperties chatProperties = new ChatProperties();
+        chatProperties.getDatasource().setReadYourWritesWindow(Duration.ofSeconds(5));
+        tracker = new ReadYourWritesTracker(chatProperties, now::get);
+        conversationId = UUID.randomUUID();
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+        TransactionSynchronizationManager.clear();
+    }
+
+    @Test
+    void wroteRecently_ShouldOnlyPinTheWriterUntilTheWindowEnds() {
+        // Arrange
+        tracker.markWritten("alice@example.com", conversationId);
+
+        // Assert: other readers of the same room stay on the replicas
+        assertTrue(tracker.wroteRecently("alice@example.com", conversationId));
+        assertFalse(tracker.wroteRecently("bob@example.com", conversationId));
+        assertFalse(tracker.wroteRecently(null, conversationId));
+
+        now.addAndGet(Duration.ofSeconds(5).toNanos());
+        assertFalse(tracker.wroteRecently("alice@example.com", conversationId));
+    }
+
+    @Test
+    void routeToPrimaryIfRecentlyWritten_ShouldUseThePrincipalOfTheCurrentRequest() {
+        // Arrange
+        SecurityContextHolder.getContext().setAuthentication(authenticated("alice@example.com"));
+        tracker.markWritten(conversationId);
+        TransactionSynchronizationManager.initSynchronization();
+
+        // Act: another user's read
+        SecurityContextHolder.getContext().setAuthentication(authenticated("bob@example.com"));
+        tracker.routeToPrimaryIfRecentlyWritten(conversationId);
+        boolean bobPinned = ReadYourWritesTracker.isPrimaryRequired();
+        boolean bobWrote = tracker.isRecentlyWritten(conversationId);
+
+        // Act: the writer's own read
+        SecurityContextHolder.getContext().setAuthentication(authenticated("alice@example.com"));
+        tracker.routeToPrimaryIfRecentlyWritten(conversationId);
+
+        // Assert
+        assertFalse(bobPinned);
+        assertFalse(bobWrote);
+        assertTrue(tracker.isRecentlyWritten(conversationId));
+        assertTrue(ReadYourWritesTracker.isPrimaryRequired());
+        TransactionSynchronizationManager.getSynchronizations().forEach(sync -> sync.afterCompletion(0));
+        assertFalse(ReadYourWritesTracker.isPrimaryRequired());
+    }
+
+    private static TestingAuthenticationToken authenticated(String name) {
+        TestingAuthenticationToken token = new TestingAuthenticationToken(name, null);
+        token.setAuthenticated(true);
+        return token;
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.chatwriteservice.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class ReplicaRoutingDataSourceTest {
+
+    private DataSource replica1;
+    private DataSource replica2;
+    private ReplicaRoutingDataSource routing;
+
+    @BeforeEach
+    void setUp() {
+        replica1 = mock(DataSource.class);
+        replica2 = mock(DataSource.class);
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        replicas.put("replica-1", replica1);
+        replicas.put("replica-2", replica2);
+        routing = new ReplicaRoutingDataSource(mock(DataSource.class), replicas, Duration.ofSeconds(5));
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.clear();
+    }
+
+    @Test
+    void determineCurrentLookupKey_ShouldSpreadReadOnlyTransactionsOverReplicas() {
+        // Writes go to the primary
+        assertEquals(ReplicaRoutingDataSource.PRIMARY, routing.determineCurrentLookupKey());
+
+        // Act
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        Set<Object> keys = new HashSet<>();
+        for (int i = 0; i < 4; i++) {
+            keys.add(routing.determineCurrentLookupKey());
+        }
+
+        // Assert
+        assertEquals(Set.of("replica-1", "replica-2"), keys);
+    }
+
+    @Test
+    void destroy_ShouldCloseReplicaPoolsButNotThePrimary() {
+        // Arrange
+        HikariDataSource primary = mock(HikariDataSource.class);
+        HikariDataSource replica = mock(HikariDataSource.class);
+        ReplicaRoutingDataSource pooled = new ReplicaRoutingDataSource(primary, Map.of("replica-0", replica),
+                Duration.ofSeconds(5));
+
+        // Act
+        pooled.destroy();
+
+        // Assert
+        verify(replica).close();
+        verify(primary, never()).close();
+    }
+
+    @Test
+    void checkReplicaLag_ShouldFallBackToPrimaryWhenEveryReplicaLags() throws SQLException {
+        // Arrange: replica-1 lags 10 s, replica-2 is unreachable
+        stubLag(replica1, true, 10_000);
+        when(replica2.getConnection()).thenThrow(new SQLException("connection refused"));
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        // Act
+        routing.checkReplicaLag();
+
+        // Assert
+        assertEquals(ReplicaRoutingDataSource.PRIMARY, routing.determineCurrentLookupKey());
+
+        // Act: replica-1 catches up
+        stubLag(replica1, true, 100);
+        routing.checkReplicaLag();
+
+        // Assert
+        assertEquals("replica-1", routing.determineCurrentLookupKey());
+        assertEquals("replica-1", routing.determineCurrentLookupKey());
+    }
+
+    @Test
+    void checkReplicaLag_ShouldIgnoreNodesOutOfRecovery() throws SQLException {
+        // Arrange: replica-1 was promoted and no longer follows the primary
+        stubLag(replica1, false, 0);
+        stubLag(replica2, true, 0);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        // Act
+        routing.checkReplicaLag();
+
+        // Assert
+        assertEquals("replica-2", routing.determineCurrentLookupKey());
+    }
+
+    private static void stubLag(DataSource dataSource, boolean inRecovery, long lagMillis) throws SQLException {
+        Connection connection = mock(Connection.class);
+        Statement statement = mock(Statement.class);
+        ResultSet rs = mock(ResultSet.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.createStatement()).thenReturn(statement);
+        when(statement.executeQuery(anyString())).thenReturn(rs);
+        when(rs.next()).thenReturn(true);
+        when(rs.getBoolean(1)).thenReturn(inRecovery);
+        when(rs.getLong(2)).thenReturn(lagMillis);
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.chatwriteservice.config;
+
+import com.example.chatwriteservice.service.PresenceRegistry;
+import com.example.chatwriteservice.service.PresenceService;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+
+import java.time.Instant;
+import java.util.HashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class StompAuthenticationInterceptorTest {
+
+    private final JwtDecoder jwtDecoder = mock(JwtDecoder.class);
+    private final PresenceRegistry presenceRegistry = mock(PresenceRegistry.class);
+    private final StompAuthenticationInterceptor authentication = new StompAuthenticationInterceptor(jwtDecoder,
+            jwt -> new JwtAuthenticationToken(jwt, null, jwt.getClaimAsString("email")));
+    private final PresenceChannelInterceptor presence = new PresenceChannelInterceptor(presenceRegistry);
+
+    @Test
+    void preSend_ShouldRejectConnectWithoutTokenEvenWithEmailHeader() {
+        // Arrange
+        Message<byte[]> connect = connect(null);
+
+        // Act & Assert
+        assertThrows(MessageDeliveryException.class, () -> authentication.preSend(connect, null));
+        verifyNoInteractions(jwtDecoder);
+    }
+
+    @Test
+    void preSend_ShouldRejectStompFrameWithoutToken() {
+        // Arrange: STOMP 1.2 clients may open with STOMP instead of CONNECT
+        Message<byte[]> stomp = connect(StompCommand.STOMP, null);
+
+        // Act & Assert
+        assertThrows(MessageDeliveryException.class, () -> authentication.preSend(stomp, null));
+    }
+
+    @Test
+    void preSend_ShouldRejectConnectWithInvalidToken() {
+        // Arrange
+        when(jwtDecoder.decode("forged")).thenThrow(new JwtException("bad signature"));
+        Message<byte[]> connect = connect("Bearer forged");
+
+        // Act & Assert
+        assertThrows(MessageDeliveryException.class, () -> authentication.preSend(connect, null));
+    }
+
+    @Test
+    void preSend_ShouldIdentifySessionByTokenNotEmailHeader() {
+        // Arrange
+        Jwt jwt = Jwt.withTokenValue("valid")
+                .header("alg", "RS256")
+                .claim("email", "alice@example.com")
+                .issuedAt(Instant.now())
+                .expiresAt(Instant.now().plusSeconds(60))
+                .build();
+        when(jwtDecoder.decode("valid")).thenReturn(jwt);
+        Message<byte[]> connect = connect("Bearer valid");
+
+        // Act
+        Message<?> authenticated = presence.preSend(authentication.preSend(connect, null), null);
+
+        // Assert
+        assertEquals("alice@example.com", SimpMessageHeaderAccessor.getUser(authenticated.getHeaders()).getName());
+        assertEquals("alice@example.com", SimpMessageHeaderAccessor.getSessionAttributes(authenticated.getHeaders())
+                .get(PresenceService.SESSION_EMAIL_ATTRIBUTE));
+        verify(presenceRegistry).connected("alice@example.com");
+    }
+
+    /*
+     * CONNECT that also claims to be mallory through the old email header
+     */
+    private static Message<byte[]> connect(String authorization) {
+        return connect(StompCommand.CONNECT, authorization);
+    }
+
+    private static Message<byte[]> connect(StompCommand command, String authorization) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(command);
+        accessor.setSessionId("s1");
+        accessor.setSessionAttributes(new HashMap<>());
+        accessor.addNativeHeader("email", "mallory@example.com");
+        if (authorization != null) {
+            accessor.addNativeHeader(StompAuthenticationInterceptor.AUTHORIZATION_HEADER, authorization);
+        }
+        accessor.setLeaveMutable(true);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.chatwriteservice.repository;
+
+import com.example.chatwriteservice.exception.ConflictException;
+import com.example.chatwriteservice.exception.PreconditionFailedException;
+import com.example.chatwriteservice.repository.ConversationJdbcRepository.PathChange;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.UncategorizedSQLException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ConversationJdbcRepositoryTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private ConversationJdbcRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        repository = new ConversationJdbcRepository(jdbcTemplate);
+    }
+
+    @Test
+    void patchMetadataPaths_ShouldPassOperationsInOrderToApplyPatch() {
+        // Arrange
+        List<PathChange> changes = List.of(
+                new PathChange(PathChange.Kind.SET, new String[]{"tags", "-"}, "\"new\""),
+                new PathChange(PathChange.Kind.TEST, new String[]{"tags", "0"}, "\"new\""));
+
+        // Act
+        repository.patchMetadataPaths(UUID.randomUUID(), changes, null, LocalDateTime.now());
+
+        // Assert
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<Object[]> args = ArgumentCaptor.forClass(Object[].class);
+        verify(jdbcTemplate).queryForObject(sql.capture(), any(RowMapper.class), args.capture());
+        assertTrue(sql.getValue().contains("jsonb_apply_patch(metadata, "));
+        assertFalse(sql.getValue().contains("#>"));
+        assertEquals("add", args.getValue()[0]);
+        assertArrayEquals(new String[]{"tags", "-"}, (String[]) args.getValue()[1]);
+        assertEquals("test", args.getValue()[3]);
+    }
+
+    @Test
+    void patchMetadataPaths_ShouldTranslatePatchErrors() {
+        // Arrange
+        List<PathChange> changes = List.of(new PathChange(PathChange.Kind.REMOVE, new String[]{"missing"}, null));
+        when(jdbcTemplate.queryForObject(anyString(), any(RowMapper.class), any(Object[].class)))
+                .thenThrow(patchError("JPTST"))
+                .thenThrow(patchError("JPPTH"));
+
+        // Act & Assert
+        assertThrows(PreconditionFailedException.class,
+                () -> repository.patchMetadataPaths(UUID.randomUUID(), changes, null, LocalDateTime.now()));
+        assertThrows(ConflictException.class,
+                () -> repository.patchMetadataPaths(UUID.randomUUID(), changes, null, LocalDateTime.now()));
+    }
+
+    private static UncategorizedSQLException patchError(String sqlState) {
+        return new UncategorizedSQLException("patch", "UPDATE conversations", new SQLException("failed", sqlState));
+    }
+}
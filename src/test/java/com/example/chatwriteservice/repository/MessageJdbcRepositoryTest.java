@@ -0,0 +1,42 @@
+package com.example.chatwriteservice.repository;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class MessageJdbcRepositoryTest {
+
+    @Test
+    void writeCopyValue_ShouldEscapeCopyTextFormatSpecials() throws IOException {
+        assertEquals("a\\tb\\nc\\rd", copyValue("a\tb\nc\rd"));
+        assertEquals("C:\\\\temp\\\\new", copyValue("C:\\temp\\new"));
+        // A literal \N or \. in content must not turn into NULL or end-of-data
+        assertEquals("\\\\N", copyValue("\\N"));
+        assertEquals("\\\\.", copyValue("\\."));
+        assertEquals("xin chào 👋", copyValue("xin chào 👋"));
+    }
+
+    @Test
+    void writeCopyValue_ShouldWriteNullMarker() throws IOException {
+        assertEquals("\\N", copyValue(null));
+        assertEquals("", copyValue(""));
+    }
+
+    @Test
+    void searchText_ShouldOnlyCarryContentThatIsNotStoredAsIs() {
+        String content = "hello";
+        assertNull(MessageJdbcRepository.searchText(content, content));
+        assertNull(MessageJdbcRepository.searchText(null, null));
+        assertEquals(content, MessageJdbcRepository.searchText(content, "\u0001Lcompressed"));
+    }
+
+    private static String copyValue(String value) throws IOException {
+        StringWriter writer = new StringWriter();
+        MessageJdbcRepository.writeCopyValue(writer, value);
+        return writer.toString();
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.chatwriteservice.repository;
+
+import com.example.chatwriteservice.service.ReactionRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReactionJdbcRepositoryTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @InjectMocks
+    private ReactionJdbcRepository repository;
+
+    @Test
+    void applyChanges_ShouldBindTheBatchAsParallelArraysAndReadNewCounts() throws SQLException {
+        // Arrange
+        UUID conversationId = UUID.randomUUID();
+        UUID messageId = UUID.randomUUID();
+        List<ReactionRegistry.PendingChange> batch = List.of(
+                change(messageId, conversationId, "👍", "alice@example.com", true),
+                change(messageId, conversationId, "🎉", "bob@example.com", false));
+        Connection connection = mock(Connection.class);
+        PreparedStatement statement = mock(PreparedStatement.class);
+        when(connection.prepareStatement(anyString())).thenReturn(statement);
+        when(connection.createArrayOf(anyString(), any(Object[].class))).thenReturn(mock(Array.class));
+        ResultSet row = mock(ResultSet.class);
+        when(row.getObject("message_id", UUID.class)).thenReturn(messageId);
+        when(row.getString("emoji")).thenReturn("👍");
+        when(row.getLong("count")).thenReturn(7L);
+
+        // Act
+        Map<ReactionRegistry.ReactionKey, Long> counts = repository.applyChanges(batch, LocalDateTime.now());
+        ArgumentCaptor<PreparedStatementCreator> creator = ArgumentCaptor.forClass(PreparedStatementCreator.class);
+        ArgumentCaptor<RowCallbackHandler> handler = ArgumentCaptor.forClass(RowCallbackHandler.class);
+        verify(jdbcTemplate).query(creator.capture(), handler.capture());
+        creator.getValue().createPreparedStatement(connection);
+        handler.getValue().processRow(row);
+
+        // Assert
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        verify(connection).prepareStatement(sql.capture());
+        assertTrue(sql.getValue().contains("ON CONFLICT (message_id, emoji, email) DO NOTHING"));
+        assertTrue(sql.getValue().contains("HAVING sum(delta) <> 0"));
+        verify(connection).createArrayOf("uuid", new Object[]{messageId, messageId});
+        verify(connection).createArrayOf("text", new Object[]{"👍", "🎉"});
+        verify(connection).createArrayOf("text", new Object[]{"alice@example.com", "bob@example.com"});
+        verify(connection).createArrayOf("boolean", new Object[]{true, false});
+        verify(statement).setTimestamp(eq(6), any());
+        assertEquals(Map.of(new ReactionRegistry.ReactionKey(messageId, "👍"), 7L), counts);
+    }
+
+    private static ReactionRegistry.PendingChange change(UUID messageId, UUID conversationId, String emoji,
+                                                         String email, boolean added) {
+        return new ReactionRegistry.PendingChange(
+                new ReactionRegistry.UserReaction(messageId, emoji, email), conversationId, added, null, 0);
+    }
+}
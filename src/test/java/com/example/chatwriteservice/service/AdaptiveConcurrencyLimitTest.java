@@ -0,0 +1,62 @@
+package com.example.chatwriteservice.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveConcurrencyLimitTest {
+
+    private static final long THRESHOLD = 100;
+
+    @Test
+    void tryAcquire_ShouldRefuseCallsOverTheLimit() {
+        // Arrange
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(2, 1, 10, THRESHOLD, 0.5);
+
+        // Act & Assert
+        assertTrue(limit.tryAcquire());
+        assertTrue(limit.tryAcquire());
+        assertFalse(limit.tryAcquire());
+        limit.release(10, false, 0);
+        assertTrue(limit.tryAcquire());
+        assertEquals(2, limit.getInFlight());
+    }
+
+    @Test
+    void release_ShouldGrowWhileFastAndShrinkOncePerIntervalWhenSlow() {
+        // Arrange
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(4, 2, 10, THRESHOLD, 0.5);
+
+        // Act: fast calls while the limit is fully used add about one per limit's worth
+        for (int i = 0; i < 3; i++) {
+            limit.tryAcquire();
+        }
+        for (int i = 0; i < 5; i++) {
+            limit.tryAcquire();
+            limit.release(10, false, 0);
+        }
+        for (int i = 0; i < 3; i++) {
+            limit.release(10, false, 0);
+        }
+        int grown = limit.getLimit();
+
+        // Four slow calls that started together back off once
+        for (int i = 0; i < 4; i++) {
+            limit.tryAcquire();
+        }
+        for (int i = 0; i < 4; i++) {
+            limit.release(THRESHOLD + 1, false, 1_000 + i);
+        }
+        int shrunk = limit.getLimit();
+
+        // An overloaded database later on backs off again, down to the minimum
+        limit.tryAcquire();
+        limit.release(10, true, 2_000);
+
+        // Assert
+        assertEquals(5, grown);
+        assertEquals(2, shrunk);
+        assertEquals(2, limit.getLimit());
+        assertEquals(0, limit.getInFlight());
+    }
+}
@@ -0,0 +1,186 @@
+package com.example.chatwriteservice.service;
+
+import com.example.chatwriteservice.config.ChatProperties;
+import com.example.chatwriteservice.dto.AttachmentRequest;
+import com.example.chatwriteservice.dto.AttachmentResponse;
+import com.example.chatwriteservice.entity.Attachment;
+import com.example.chatwriteservice.entity.AttachmentStatus;
+import com.example.chatwriteservice.exception.BadRequestException;
+import com.example.chatwriteservice.exception.ForbiddenException;
+import com.example.chatwriteservice.repository.AttachmentRepository;
+import com.example.chatwriteservice.storage.LocalBlobStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AttachmentServiceTest {
+
+    private static final UUID CONVERSATION_ID = UUID.randomUUID();
+    private static final String EMAIL = "user1@example.com";
+
+    @Mock
+    private AttachmentRepository attachmentRepository;
+
+    @Mock
+    private MembershipIndex membershipIndex;
+
+    @TempDir
+    private Path directory;
+
+    private AttachmentService attachmentService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        ChatProperties chatProperties = new ChatProperties();
+        chatProperties.getAttachments().setDirectory(directory.toString());
+        chatProperties.getAttachments().setMaxSize(DataSize.ofBytes(10));
+        attachmentService = new AttachmentService(attachmentRepository, membershipIndex,
+                new LocalBlobStore(chatProperties), chatProperties);
+    }
+
+    @Test
+    void createUpload_ShouldRejectOversizedAttachment() {
+        // Arrange
+        AttachmentRequest request = request(11);
+
+        // Act & Assert
+        assertThrows(BadRequestException.class, () -> attachmentService.createUpload(request, EMAIL));
+        verifyNoInteractions(attachmentRepository);
+    }
+
+    @Test
+    void createUpload_ShouldRejectNonParticipant() {
+        // Arrange
+        when(membershipIndex.isMember(CONVERSATION_ID, EMAIL)).thenReturn(false);
+
+        // Act & Assert
+        assertThrows(BadRequestException.class, () -> attachmentService.createUpload(request(4), EMAIL));
+        verifyNoInteractions(attachmentRepository);
+    }
+
+    @Test
+    void createUpload_ShouldRecordPrincipalAsUploaderAndRejectAnonymousCaller() throws IOException {
+        // Arrange
+        when(membershipIndex.isMember(CONVERSATION_ID, EMAIL)).thenReturn(true);
+        when(attachmentRepository.save(any(Attachment.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        AttachmentResponse created = attachmentService.createUpload(request(4), EMAIL);
+
+        // Assert
+        assertEquals(EMAIL, created.getUploaderEmail());
+        assertThrows(ForbiddenException.class, () -> attachmentService.createUpload(request(4), null));
+    }
+
+    @Test
+    void uploadChunk_ShouldResumeFromStoredBytesAndComplete() throws IOException {
+        // Arrange
+        Attachment attachment = uploading(4);
+        when(attachmentRepository.findById(attachment.getId())).thenReturn(Optional.of(attachment));
+        when(attachmentRepository.save(any(Attachment.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        AttachmentResponse first = attachmentService.uploadChunk(attachment.getId(), 0, chunk("ab"));
+        BadRequestException mismatch = assertThrows(BadRequestException.class,
+                () -> attachmentService.uploadChunk(attachment.getId(), 0, chunk("cd")));
+        AttachmentResponse last = attachmentService.uploadChunk(attachment.getId(), 2, chunk("cd"));
+
+        // Assert
+        assertEquals(2L, first.getUploadedBytes());
+        assertEquals(AttachmentStatus.UPLOADING, first.getStatus());
+        assertTrue(mismatch.getMessage().contains("expected 2"));
+        assertEquals(4L, last.getUploadedBytes());
+        assertEquals(AttachmentStatus.COMPLETED, last.getStatus());
+        assertNotNull(last.getCompletedAt());
+    }
+
+    @Test
+    void uploadChunk_ShouldDiscardChunkBeyondDeclaredSize() throws IOException {
+        // Arrange
+        Attachment attachment = uploading(2);
+        when(attachmentRepository.findById(attachment.getId())).thenReturn(Optional.of(attachment));
+        when(attachmentRepository.save(any(Attachment.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        assertThrows(BadRequestException.class,
+                () -> attachmentService.uploadChunk(attachment.getId(), 0, chunk("abc")));
+        BadRequestException completeWithPrefix = assertThrows(BadRequestException.class,
+                () -> attachmentService.uploadChunk(attachment.getId(), 2, chunk("")));
+        AttachmentResponse retried = attachmentService.uploadChunk(attachment.getId(), 0, chunk("ab"));
+
+        // Assert: nothing of the oversized chunk was kept, so a retry from its offset succeeds
+        assertTrue(completeWithPrefix.getMessage().contains("expected 0"));
+        assertEquals(2L, retried.getUploadedBytes());
+        assertEquals(AttachmentStatus.COMPLETED, retried.getStatus());
+    }
+
+    @Test
+    void getDownloadableAttachment_ShouldRejectNonParticipantAndAnonymousCaller() {
+        // Arrange
+        Attachment attachment = uploading(0);
+        attachment.setStatus(AttachmentStatus.COMPLETED);
+        attachment.setCompletedAt(LocalDateTime.now());
+        when(attachmentRepository.findById(attachment.getId())).thenReturn(Optional.of(attachment));
+        when(membershipIndex.isMember(CONVERSATION_ID, "outsider@example.com")).thenReturn(false);
+        when(membershipIndex.isMember(CONVERSATION_ID, EMAIL)).thenReturn(true);
+
+        // Act & Assert
+        assertThrows(ForbiddenException.class,
+                () -> attachmentService.getDownloadableAttachment(attachment.getId(), "outsider@example.com"));
+        assertThrows(ForbiddenException.class,
+                () -> attachmentService.getDownloadableAttachment(attachment.getId(), null));
+        assertEquals(attachment.getId(), attachmentService.getDownloadableAttachment(attachment.getId(), EMAIL).getId());
+    }
+
+    @Test
+    void isInline_ShouldOnlyAllowListedMediaTypes() {
+        assertTrue(attachmentService.isInline("image/png"));
+        assertTrue(attachmentService.isInline("IMAGE/JPEG; name=photo"));
+        assertFalse(attachmentService.isInline("text/html"));
+        assertFalse(attachmentService.isInline("image/svg+xml"));
+        assertFalse(attachmentService.isInline("application/xhtml+xml"));
+        assertFalse(attachmentService.isInline("not a type"));
+        assertFalse(attachmentService.isInline(null));
+    }
+
+    private static AttachmentRequest request(long size) {
+        return AttachmentRequest.builder()
+                .conversationId(CONVERSATION_ID)
+                .fileName("file.bin")
+                .size(size)
+                .build();
+    }
+
+    private static Attachment uploading(long size) {
+        return Attachment.builder()
+                .id(UUID.randomUUID())
+                .conversationId(CONVERSATION_ID)
+                .uploaderEmail(EMAIL)
+                .fileName("file.bin")
+                .contentType("application/octet-stream")
+                .size(size)
+                .uploadedBytes(0L)
+                .status(AttachmentStatus.UPLOADING)
+                .build();
+    }
+
+    private static ByteArrayInputStream chunk(String content) {
+        return new ByteArrayInputStream(content.getBytes());
+    }
+}
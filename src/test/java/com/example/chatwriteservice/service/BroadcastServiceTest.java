@@ -0,0 +1,160 @@
+package com.example.chatwriteservice.service;
+
+import com.example.chatwriteservice.config.ChatProperties;
+import com.example.chatwriteservice.dto.MessageResponse;
+import com.example.chatwriteservice.entity.MessageType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.broker.SimpleBrokerMessageHandler;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.messaging.support.MessageBuilder;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class BroadcastServiceTest {
+
+    private static final int SUBSCRIBERS = 5_000;
+
+    private final List<Object> delivered = Collections.synchronizedList(new ArrayList<>());
+
+    private SimpleBrokerMessageHandler broker;
+    private SimpMessagingTemplate messagingTemplate;
+    private ObjectMapper objectMapper;
+    private BroadcastService broadcastService;
+    private UUID conversationId;
+
+    @BeforeEach
+    void setUp() {
+        conversationId = UUID.randomUUID();
+
+        MessageChannel clientOutbound = (message, timeout) -> {
+            if (SimpMessageHeaderAccessor.getMessageType(message.getHeaders()) == SimpMessageType.MESSAGE) {
+                delivered.add(message.getPayload());
+            }
+            return true;
+        };
+        broker = new SimpleBrokerMessageHandler(new ExecutorSubscribableChannel(), clientOutbound,
+                new ExecutorSubscribableChannel(), List.of("/topic"));
+        broker.start();
+
+        MessageChannel brokerChannel = (message, timeout) -> {
+            broker.handleMessage(message);
+            return true;
+        };
+        messagingTemplate = new SimpMessagingTemplate(brokerChannel);
+        objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        broadcastService = new BroadcastService(messagingTemplate, objectMapper,
+                new StaticListableBeanFactory().getBeanProvider(ClusterBroadcastRelay.class),
+                new HotspotTracker(new ChatProperties(), new SimpleMeterRegistry()));
+
+        for (int i = 0; i < SUBSCRIBERS; i++) {
+            String sessionId = "session-" + i;
+            broker.handleMessage(frame(SimpMessageType.CONNECT, sessionId, null));
+            broker.handleMessage(frame(SimpMessageType.SUBSCRIBE, sessionId,
+                    BroadcastService.CONVERSATION_TOPIC + conversationId));
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        broker.stop();
+    }
+
+    @Test
+    void broadcastToConversation_ShouldShareOneSerializedPayload() {
+        // Act
+        broadcastService.broadcastToConversation(conversationId, message("hello"));
+
+        // Assert
+        assertEquals(SUBSCRIBERS, delivered.size());
+        Object first = delivered.get(0);
+        assertInstanceOf(byte[].class, first);
+        assertTrue(delivered.stream().allMatch(payload -> payload == first));
+    }
+
+    @Test
+    void broadcastToConversation_BrokerAllocationPerRecipientShouldNotDependOnPayloadSize() {
+        // Arrange: a 64 KB message, warm up the broker path first
+        MessageResponse large = message("x".repeat(64 * 1024));
+        for (int i = 0; i < 5; i++) {
+            broadcastService.broadcastToConversation(conversationId, large);
+        }
+        delivered.clear();
+
+        // Act
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long before = threads.getCurrentThreadAllocatedBytes();
+        broadcastService.broadcastToConversation(conversationId, large);
+        long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+
+        // Assert: up to the client outbound channel only per-session headers are allocated; the
+        // payload is not copied before StompEncoder writes each session's frame
+        long perRecipient = allocated / SUBSCRIBERS;
+        assertEquals(SUBSCRIBERS, delivered.size());
+        assertTrue(perRecipient < 64 * 1024 / 16,
+                "Per-recipient allocation too high: " + perRecipient + " bytes of " + allocated + " total");
+    }
+
+    @Test
+    void sendLocally_ShouldNotRelayToTheCluster() {
+        // Arrange
+        ClusterBroadcastRelay relay = mock(ClusterBroadcastRelay.class);
+        StaticListableBeanFactory beans = new StaticListableBeanFactory();
+        beans.addBean("clusterBroadcastRelay", relay);
+        BroadcastService clustered = new BroadcastService(messagingTemplate, objectMapper,
+                beans.getBeanProvider(ClusterBroadcastRelay.class),
+                new HotspotTracker(new ChatProperties(), new SimpleMeterRegistry()));
+        String topic = BroadcastService.CONVERSATION_TOPIC + conversationId;
+
+        // Act
+        clustered.sendLocally(topic + "/presence", List.of());
+        clustered.broadcastToConversation(conversationId, message("hello"));
+
+        // Assert
+        assertEquals(SUBSCRIBERS, delivered.size());
+        verify(relay, only()).publish(eq(topic), any(byte[].class));
+    }
+
+    private MessageResponse message(String content) {
+        return MessageResponse.builder()
+                .id(UUID.randomUUID())
+                .conversationId(conversationId)
+                .senderEmail("user1@example.com")
+                .type(MessageType.TEXT)
+                .content(content)
+                .createdAt(LocalDateTime.now())
+                .isDeleted(false)
+                .build();
+    }
+
+    private Message<byte[]> frame(SimpMessageType type, String sessionId, String destination) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(type);
+        accessor.setSessionId(sessionId);
+        if (destination != null) {
+            accessor.setSubscriptionId("sub-" + sessionId);
+            accessor.setDestination(destination);
+        }
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+}
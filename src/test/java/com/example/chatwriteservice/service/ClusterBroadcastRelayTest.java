@@ -0,0 +1,194 @@
+package com.example.chatwriteservice.service;
+
+import com.example.chatwriteservice.config.ChatProperties;
+import com.example.chatwriteservice.config.ClusterBroadcastConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.kafka.annotation.EnableKafka;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.ContainerTestUtils;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.broker.SimpleBrokerMessageHandler;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@SpringJUnitConfig
+@EmbeddedKafka(partitions = 1, topics = ClusterBroadcastRelayTest.TOPIC)
+@TestPropertySource(properties = {"chat.cluster.enabled=true", "chat.cluster.topic=" + ClusterBroadcastRelayTest.TOPIC})
+class ClusterBroadcastRelayTest {
+
+    static final String TOPIC = "chat-broadcast-test";
+    private static final UUID CONVERSATION_ID = UUID.randomUUID();
+    private static final String DESTINATION = BroadcastService.CONVERSATION_TOPIC + CONVERSATION_ID;
+
+    @Autowired
+    private ClusterBroadcastRelay relay;
+
+    @Autowired
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Autowired
+    @Qualifier("clusterBroadcastKafkaTemplate")
+    private KafkaTemplate<String, byte[]> kafkaTemplate;
+
+    @Autowired
+    private KafkaListenerEndpointRegistry listenerRegistry;
+
+    @Autowired
+    private SubscriptionAuthorizer subscriptionAuthorizer;
+
+    @Autowired
+    private MessageTailCache messageTailCache;
+
+    @BeforeEach
+    void waitForAssignment() {
+        // The consumer starts at the latest offset, so records sent before assignment are skipped
+        listenerRegistry.getListenerContainers()
+                .forEach(container -> ContainerTestUtils.waitForAssignment(container, 1));
+    }
+
+    @Test
+    void onBroadcast_ShouldDeliverOnlyForeignRecordsWithLocalSubscribersAndEvictTheirTails() {
+        // Arrange
+        ProducerRecord<String, byte[]> unsubscribed = foreignRecord(DESTINATION + "/typing", "typing");
+        ProducerRecord<String, byte[]> subscribed = foreignRecord(DESTINATION, "hello");
+
+        // Act: same key, so all three arrive in order on one partition
+        relay.publish(DESTINATION, "own".getBytes(StandardCharsets.UTF_8));
+        kafkaTemplate.send(unsubscribed);
+        kafkaTemplate.send(subscribed);
+
+        // Assert
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Message<byte[]>> delivered = ArgumentCaptor.forClass(Message.class);
+        verify(messagingTemplate, timeout(10_000)).send(eq(DESTINATION), delivered.capture());
+        verify(messagingTemplate, after(500).times(1)).send(anyString(), any(Message.class));
+        assertEquals("hello", new String(delivered.getValue().getPayload(), StandardCharsets.UTF_8));
+        verify(messageTailCache).evict(CONVERSATION_ID);
+    }
+
+    @Test
+    void onBroadcast_ShouldApplyForeignRevocations() {
+        // Arrange
+        relay.publishRevoke(CONVERSATION_ID, "own@example.com");
+        ProducerRecord<String, byte[]> member = foreignRevoke("alice@example.com");
+        ProducerRecord<String, byte[]> all = foreignRevoke("");
+
+        // Act
+        kafkaTemplate.send(member);
+        kafkaTemplate.send(all);
+
+        // Assert
+        verify(subscriptionAuthorizer, timeout(10_000)).revokedElsewhere(CONVERSATION_ID, "alice@example.com");
+        verify(subscriptionAuthorizer, timeout(10_000)).revokedElsewhere(CONVERSATION_ID, null);
+        verify(subscriptionAuthorizer, after(500).times(2)).revokedElsewhere(any(), any());
+    }
+
+    @Test
+    void partitionKey_ShouldUseConversationId() {
+        assertEquals(CONVERSATION_ID.toString(), ClusterBroadcastRelay.partitionKey(DESTINATION));
+        assertEquals(CONVERSATION_ID.toString(), ClusterBroadcastRelay.partitionKey(DESTINATION + "/presence"));
+        assertEquals("/topic/other", ClusterBroadcastRelay.partitionKey("/topic/other"));
+    }
+
+    private static ProducerRecord<String, byte[]> foreignRecord(String destination, String body) {
+        ProducerRecord<String, byte[]> record = new ProducerRecord<>(TOPIC,
+                ClusterBroadcastRelay.partitionKey(destination), body.getBytes(StandardCharsets.UTF_8));
+        record.headers().add(ClusterBroadcastRelay.DESTINATION_HEADER, destination.getBytes(StandardCharsets.UTF_8));
+        record.headers().add(ClusterBroadcastRelay.ORIGIN_HEADER, "instance-a".getBytes(StandardCharsets.UTF_8));
+        return record;
+    }
+
+    private static ProducerRecord<String, byte[]> foreignRevoke(String email) {
+        ProducerRecord<String, byte[]> record = new ProducerRecord<>(TOPIC,
+                CONVERSATION_ID.toString(), email.getBytes(StandardCharsets.UTF_8));
+        record.headers().add(ClusterBroadcastRelay.REVOKE_HEADER, CONVERSATION_ID.toString().getBytes(StandardCharsets.UTF_8));
+        record.headers().add(ClusterBroadcastRelay.ORIGIN_HEADER, "instance-a".getBytes(StandardCharsets.UTF_8));
+        return record;
+    }
+
+    @Configuration
+    @EnableKafka
+    @Import(ClusterBroadcastConfig.class)
+    static class Config {
+
+        @Bean
+        ChatProperties chatProperties() {
+            ChatProperties properties = new ChatProperties();
+            properties.getCluster().setEnabled(true);
+            properties.getCluster().setTopic(TOPIC);
+            properties.getCluster().setInstanceId("instance-b");
+            return properties;
+        }
+
+        @Bean
+        KafkaProperties kafkaProperties(@Value("${spring.embedded.kafka.brokers}") String brokers) {
+            KafkaProperties properties = new KafkaProperties();
+            properties.setBootstrapServers(List.of(brokers.split(",")));
+            return properties;
+        }
+
+        @Bean
+        SimpMessagingTemplate messagingTemplate() {
+            return mock(SimpMessagingTemplate.class);
+        }
+
+        @Bean
+        SubscriptionAuthorizer subscriptionAuthorizer() {
+            return mock(SubscriptionAuthorizer.class);
+        }
+
+        @Bean
+        MessageTailCache messageTailCache() {
+            return mock(MessageTailCache.class);
+        }
+
+        @Bean
+        SimpleBrokerMessageHandler simpleBrokerMessageHandler() {
+            SimpleBrokerMessageHandler broker = new SimpleBrokerMessageHandler(new ExecutorSubscribableChannel(),
+                    new ExecutorSubscribableChannel(), new ExecutorSubscribableChannel(), List.of("/topic"));
+            SimpMessageHeaderAccessor subscribe = SimpMessageHeaderAccessor.create(SimpMessageType.SUBSCRIBE);
+            subscribe.setSessionId("session-1");
+            subscribe.setSubscriptionId("sub-1");
+            subscribe.setDestination(DESTINATION);
+            broker.getSubscriptionRegistry().registerSubscription(
+                    MessageBuilder.createMessage(new byte[0], subscribe.getMessageHeaders()));
+            return broker;
+        }
+
+        @Bean
+        ClusterBroadcastRelay clusterBroadcastRelay(
+                @Qualifier("clusterBroadcastKafkaTemplate") KafkaTemplate<String, byte[]> kafkaTemplate,
+                SimpMessagingTemplate messagingTemplate, SimpleBrokerMessageHandler simpleBrokerMessageHandler,
+                SubscriptionAuthorizer subscriptionAuthorizer, MessageTailCache messageTailCache,
+                ChatProperties chatProperties) {
+            return new ClusterBroadcastRelay(kafkaTemplate, messagingTemplate, simpleBrokerMessageHandler,
+                    subscriptionAuthorizer, messageTailCache, chatProperties);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.chatwriteservice.service;
+
+import com.example.chatwriteservice.config.ReadYourWritesTracker;
+import com.example.chatwriteservice.dto.MetadataResponse;
+import com.example.chatwriteservice.exception.BadRequestException;
+import com.example.chatwriteservice.exception.PreconditionFailedException;
+import com.example.chatwriteservice.repository.ConversationJdbcRepository;
+import com.example.chatwriteservice.repository.ConversationJdbcRepository.MetadataResult;
+import com.example.chatwriteservice.repository.ConversationJdbcRepository.PathChange;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.MediaType;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ConversationMetadataServiceTest {
+
+    @Mock
+    private ConversationJdbcRepository conversationJdbcRepository;
+
+    @Mock
+    private ReadYourWritesTracker readYourWritesTracker;
+
+    private ConversationMetadataService service;
+    private UUID conversationId;
+
+    @BeforeEach
+    void setUp() {
+        service = new ConversationMetadataService(conversationJdbcRepository, readYourWritesTracker, new ObjectMapper());
+        conversationId = UUID.randomUUID();
+    }
+
+    @Test
+    void patchMetadata_ShouldTranslateJsonPatchToPathChanges() {
+        // Arrange
+        String patch = """
+                [{"op":"test","path":"/owner","value":"alice"},
+                 {"op":"add","path":"/settings/a~1b","value":{"muted":true}},
+                 {"op":"remove","path":"/pinned/0"}]
+                """;
+        when(conversationJdbcRepository.patchMetadataPaths(eq(conversationId), any(), eq("abc"), any()))
+                .thenReturn(new MetadataResult(true, true, "{}", "def"));
+
+        // Act
+        MetadataResponse response = service.patchMetadata(conversationId,
+                MediaType.valueOf(ConversationMetadataService.JSON_PATCH_VALUE), patch, "W/\"abc\"");
+
+        // Assert
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<PathChange>> changes = ArgumentCaptor.forClass(List.class);
+        verify(conversationJdbcRepository).patchMetadataPaths(eq(conversationId), changes.capture(), eq("abc"), any());
+        assertEquals(PathChange.Kind.TEST, changes.getValue().get(0).kind());
+        assertEquals("\"alice\"", changes.getValue().get(0).valueJson());
+        assertArrayEquals(new String[]{"settings", "a/b"}, changes.getValue().get(1).path());
+        assertEquals("{\"muted\":true}", changes.getValue().get(1).valueJson());
+        assertEquals(PathChange.Kind.REMOVE, changes.getValue().get(2).kind());
+        assertEquals("def", response.getEtag());
+        verify(readYourWritesTracker).markWritten(conversationId);
+    }
+
+    @Test
+    void patchMetadata_ShouldFailPreconditionWhenNothingWasUpdated() {
+        // Arrange
+        when(conversationJdbcRepository.mergePatchMetadata(eq(conversationId), eq("{\"title\":null}"), eq("abc"), any()))
+                .thenReturn(new MetadataResult(true, false, null, null));
+
+        // Act & Assert
+        assertThrows(PreconditionFailedException.class, () -> service.patchMetadata(conversationId,
+                MediaType.valueOf(ConversationMetadataService.MERGE_PATCH_VALUE), "{\"title\": null}", "\"abc\""));
+        assertThrows(BadRequestException.class, () -> ConversationMetadataService.parsePointer(""));
+        verify(readYourWritesTracker, never()).markWritten(any());
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.chatwriteservice.service;
 
+import com.example.chatwriteservice.config.ReadYourWritesTracker;
 import com.example.chatwriteservice.dto.ConversationRequest;
 import com.example.chatwriteservice.dto.ConversationResponse;
 import com.example.chatwriteservice.entity.Conversation;
@@ -8,6 +9,7 @@ import com.example.chatwriteservice.entity.Participant;
 import com.example.chatwriteservice.entity.User;
 import com.example.chatwriteservice.exception.BadRequestException;
 import com.example.chatwriteservice.exception.ResourceNotFoundException;
+import com.example.chatwriteservice.repository.ConversationJdbcRepository;
 import com.example.chatwriteservice.repository.ConversationRepository;
 import com.example.chatwriteservice.repository.ParticipantRepository;
 import com.example.chatwriteservice.repository.UserRepository;
@@ -23,6 +25,7 @@ import java.util.*;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -37,6 +40,21 @@ class ConversationServiceTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private ReadYourWritesTracker readYourWritesTracker;
+
+    @Mock
+    private ConversationJdbcRepository conversationJdbcRepository;
+
+    @Mock
+    private MembershipIndex membershipIndex;
+
+    @Mock
+    private SubscriptionAuthorizer subscriptionAuthorizer;
+
+    @Mock
+    private MessageTailCache messageTailCache;
+
     @InjectMocks
     private ConversationService conversationService;
 
@@ -62,7 +80,7 @@ class ConversationServiceTest {
         testConversation = Conversation.builder()
                 .id(conversationId)
                 .title("Test Conversation")
-                .type(ConversationType.PRIVATE)
+                .type(ConversationType.GROUP)
                 .createdAt(LocalDateTime.now())
                 .updatedAt(LocalDateTime.now())
                 .build();
@@ -73,7 +91,7 @@ class ConversationServiceTest {
         // Arrange
         ConversationRequest request = ConversationRequest.builder()
                 .title("New Chat")
-                .type(ConversationType.PRIVATE)
+                .type(ConversationType.GROUP)
                 .participantEmails(Arrays.asList("user1@example.com", "user2@example.com"))
                 .build();
 
@@ -119,6 +137,56 @@ class ConversationServiceTest {
         verify(userRepository, times(1)).save(any(User.class));
     }
 
+    @Test
+    void createConversation_DirectShouldReturnExistingConversationOfPair() {
+        // Arrange
+        ConversationRequest request = ConversationRequest.builder()
+                .type(ConversationType.DIRECT)
+                .participantEmails(Arrays.asList("user2@example.com", "user1@example.com"))
+                .build();
+        testConversation.setType(ConversationType.DIRECT);
+
+        when(conversationJdbcRepository.findIdByPairKey("user1@example.com user2@example.com"))
+                .thenReturn(conversationId);
+        when(conversationRepository.findById(conversationId)).thenReturn(Optional.of(testConversation));
+        when(participantRepository.findByConversationId(conversationId)).thenReturn(Collections.emptyList());
+
+        // Act
+        ConversationResponse first = conversationService.createConversation(request);
+        ConversationResponse second = conversationService.createConversation(request);
+
+        // Assert
+        assertEquals(conversationId, first.getId());
+        assertEquals(conversationId, second.getId());
+        // The second lookup is served from the pair cache
+        verify(conversationJdbcRepository, times(1)).findIdByPairKey(any());
+        verify(conversationJdbcRepository, never()).insertDirectIfAbsent(any(), any(), any(), any(), any());
+        verify(participantRepository, never()).save(any(Participant.class));
+    }
+
+    @Test
+    void createConversation_DirectShouldReadWinnerWhenCreatedConcurrently() {
+        // Arrange
+        ConversationRequest request = ConversationRequest.builder()
+                .type(ConversationType.DIRECT)
+                .participantEmails(Arrays.asList("user1@example.com", "user2@example.com"))
+                .build();
+
+        when(conversationJdbcRepository.findIdByPairKey("user1@example.com user2@example.com"))
+                .thenReturn(null, conversationId);
+        when(conversationJdbcRepository.insertDirectIfAbsent(any(), eq("user1@example.com user2@example.com"),
+                any(), any(), any())).thenReturn(false);
+        when(conversationRepository.findById(conversationId)).thenReturn(Optional.of(testConversation));
+        when(participantRepository.findByConversationId(conversationId)).thenReturn(Collections.emptyList());
+
+        // Act
+        ConversationResponse response = conversationService.createConversation(request);
+
+        // Assert
+        assertEquals(conversationId, response.getId());
+        verify(participantRepository, never()).save(any(Participant.class));
+    }
+
     @Test
     void getConversationById_ShouldReturnConversation() {
         // Arrange
@@ -195,6 +263,7 @@ class ConversationServiceTest {
         // Assert
         assertNotNull(response);
         verify(participantRepository, times(1)).delete(participant);
+        verify(subscriptionAuthorizer).revoke(conversationId, "user1@example.com");
     }
 
     @Test
@@ -209,6 +278,8 @@ class ConversationServiceTest {
         // Assert
         verify(conversationRepository, times(1)).delete(testConversation);
         verify(participantRepository, times(1)).deleteAll(any());
+        verify(subscriptionAuthorizer).revokeAll(conversationId);
+        verify(messageTailCache).evict(conversationId);
     }
 
     private Participant createParticipant(Conversation conversation, User user) {
@@ -0,0 +1,48 @@
+package com.example.chatwriteservice.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HashedTimingWheelTest {
+
+    private static final long TICK = 1000;
+
+    @Test
+    void advance_ShouldReleaseItemsOnlyOnceTheirDeadlineHasPassed() {
+        // Arrange: 8 buckets, so "late" wraps around to the bucket of "soon"
+        HashedTimingWheel<String> wheel = new HashedTimingWheel<>(8, TICK, 0);
+        wheel.schedule("soon", 2_500);
+        wheel.schedule("late", 2_500 + 8 * TICK);
+        wheel.schedule("overdue", -5_000);
+
+        // Act & Assert
+        assertEquals(List.of("overdue"), wheel.advance(1_000));
+        assertEquals(List.of(), wheel.advance(2_499));
+        assertEquals(List.of(), wheel.advance(2_999));
+        assertEquals(List.of("soon"), wheel.advance(3_000));
+        assertEquals(1, wheel.size());
+        assertEquals(List.of(), wheel.advance(10_000));
+        assertEquals(List.of("late"), wheel.advance(11_000));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void advance_ShouldReleaseEverythingDueAfterALongPause() {
+        // Arrange
+        HashedTimingWheel<Integer> wheel = new HashedTimingWheel<>(8, TICK, 0);
+        for (int i = 0; i < 100; i++) {
+            wheel.schedule(i, i * 500L);
+        }
+
+        // Act
+        List<Integer> due = wheel.advance(30_000);
+
+        // Assert
+        assertEquals(61, due.size());
+        assertTrue(due.stream().allMatch(i -> i * 500L <= 30_000));
+        assertEquals(39, wheel.size());
+    }
+}
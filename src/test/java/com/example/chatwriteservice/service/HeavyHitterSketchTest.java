@@ -0,0 +1,72 @@
+package com.example.chatwriteservice.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HeavyHitterSketchTest {
+
+    private static final long WINDOW = TimeUnit.MINUTES.toNanos(1);
+
+    private final AtomicLong now = new AtomicLong();
+
+    @Test
+    void top_ShouldRankHeavyKeysAboveBackgroundTraffic() {
+        // Arrange
+        HeavyHitterSketch<String> sketch =
+                new HeavyHitterSketch<>(HeavyHitterSketch.STRING_HASH, 1024, 4, 10, WINDOW, now::get);
+
+        // Act
+        for (int i = 0; i < 20_000; i++) {
+            sketch.add("light-" + (i % 10_000));
+            if (i % 10 == 0) {
+                sketch.add("heavy");
+            }
+            if (i % 40 == 0) {
+                sketch.add("warm");
+            }
+        }
+
+        // Assert
+        List<HeavyHitterSketch.Hit<String>> top = sketch.top(2);
+        assertEquals(List.of("heavy", "warm"), top.stream().map(HeavyHitterSketch.Hit::key).toList());
+        assertTrue(top.get(0).count() >= 2_000);
+        assertTrue(top.get(1).count() >= 500);
+    }
+
+    @Test
+    void estimate_ShouldDecayOverTheSlidingWindow() {
+        // Arrange
+        HeavyHitterSketch<String> sketch = new HeavyHitterSketch<>(HeavyHitterSketch.STRING_HASH, 256, 4, 10, WINDOW, now::get);
+        for (int i = 0; i < 100; i++) {
+            sketch.add("key");
+        }
+
+        // Act & Assert
+        assertEquals(100, sketch.estimate("key"));
+        now.addAndGet(WINDOW + WINDOW / 4);
+        assertEquals(75, sketch.estimate("key"));
+        now.addAndGet(WINDOW);
+        assertEquals(0, sketch.estimate("key"));
+        assertTrue(sketch.top(10).isEmpty());
+    }
+
+    @Test
+    void estimate_ShouldNotShareCountsBetweenKeysWithTheSameHashCode() {
+        // Arrange: "Aa" and "BB" have the same String.hashCode()
+        HeavyHitterSketch<String> sketch =
+                new HeavyHitterSketch<>(HeavyHitterSketch.STRING_HASH, 1024, 4, 10, WINDOW, now::get);
+        for (int i = 0; i < 100; i++) {
+            sketch.add("Aa");
+        }
+
+        // Act & Assert
+        assertEquals("Aa".hashCode(), "BB".hashCode());
+        assertEquals(100, sketch.estimate("Aa"));
+        assertEquals(0, sketch.estimate("BB"));
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.chatwriteservice.service;
+
+import com.example.chatwriteservice.config.ChatProperties;
+import com.example.chatwriteservice.dto.HotspotsResponse;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HotspotTrackerTest {
+
+    @Test
+    void refreshGauges_ShouldNotTagGaugesWithIdentities() {
+        // Arrange
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        HotspotTracker tracker = new HotspotTracker(new ChatProperties(), meterRegistry);
+        UUID conversationId = UUID.randomUUID();
+        tracker.messageSent(conversationId, "alice@example.com");
+        tracker.broadcast("/user/alice@example.com/queue/notifications");
+
+        // Act
+        tracker.refreshGauges();
+        HotspotsResponse snapshot = tracker.snapshot(10);
+
+        // Assert
+        for (Meter meter : meterRegistry.getMeters()) {
+            meter.getId().getTags().forEach(tag -> assertFalse(tag.getValue().contains("alice"), tag.toString()));
+        }
+        String senderTag = snapshot.getSenders().get(0).getTag();
+        assertEquals("alice@example.com", snapshot.getSenders().get(0).getKey());
+        assertEquals(senderTag, meterRegistry.get("chat.hotspots.sender.rate").gauge().getId().getTag("sender"));
+        assertEquals(conversationId.toString(), snapshot.getConversations().get(0).getTag());
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.chatwriteservice.service;
+
+import com.example.chatwriteservice.repository.MembershipJdbcRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MembershipIndexTest {
+
+    @Mock
+    private MembershipJdbcRepository membershipJdbcRepository;
+
+    private final AtomicLong now = new AtomicLong();
+    private final UUID conversationId = UUID.randomUUID();
+
+    private MembershipIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new MembershipIndex(membershipJdbcRepository, 64 * 1024, TimeUnit.MINUTES.toNanos(5), 100, now::get);
+    }
+
+    @Test
+    void isMember_ShouldLoadOnceAndApplyIncrementalChanges() {
+        // Arrange
+        when(membershipJdbcRepository.findUid("alice@example.com")).thenReturn(1);
+        when(membershipJdbcRepository.findMemberUids(conversationId)).thenReturn(RoaringBitmap.bitmapOf(2, 3));
+
+        // Act & Assert
+        assertFalse(index.isMember(conversationId, "alice@example.com"));
+        index.added(conversationId, "alice@example.com");
+        assertTrue(index.isMember(conversationId, "alice@example.com"));
+        index.removed(conversationId, "alice@example.com");
+        assertFalse(index.isMember(conversationId, "alice@example.com"));
+        verify(membershipJdbcRepository, times(1)).findMemberUids(conversationId);
+        verify(membershipJdbcRepository, times(1)).findUid("alice@example.com");
+    }
+
+    @Test
+    void members_ShouldReloadAfterMaxAgeAndEvictBeyondBudget() {
+        // Arrange
+        RoaringBitmap large = new RoaringBitmap();
+        for (int uid = 0; uid < 2_000_000; uid += 3) {
+            large.add(uid);
+        }
+        UUID other = UUID.randomUUID();
+        when(membershipJdbcRepository.findMemberUids(conversationId)).thenReturn(RoaringBitmap.bitmapOf(1));
+        when(membershipJdbcRepository.findMemberUids(other)).thenReturn(large);
+
+        // Act
+        index.members(conversationId);
+        now.addAndGet(TimeUnit.MINUTES.toNanos(6));
+        index.members(conversationId);
+        index.members(other);
+        index.members(other);
+
+        // Assert
+        assertTrue(large.getSizeInBytes() > 64 * 1024);
+        verify(membershipJdbcRepository, times(2)).findMemberUids(conversationId);
+        // Over budget on its own: evicted right away, so it is loaded again
+        verify(membershipJdbcRepository, times(2)).findMemberUids(other);
+    }
+}
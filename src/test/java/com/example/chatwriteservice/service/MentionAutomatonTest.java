@@ -0,0 +1,30 @@
+package com.example.chatwriteservice.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MentionAutomatonTest {
+
+    private final MentionAutomaton automaton = new MentionAutomaton(List.of(
+            "Alice@example.com", "bob@example.com", "bob@other.org", "al@example.com"));
+
+    @Test
+    void find_ShouldMatchEmailsAndUniqueLocalPartsAfterAnAt() {
+        // Act
+        Set<String> mentioned = automaton.find("Hi @ALICE, ask @bob@other.org and @al. Not alice or @alicia");
+
+        // Assert
+        assertEquals(List.of("Alice@example.com", "bob@other.org", "al@example.com"), List.copyOf(mentioned));
+    }
+
+    @Test
+    void find_ShouldNotMatchHandlesThatRunOnOrAreAmbiguous() {
+        // Act & Assert: "bob" is shared by two members, "al" is only the start of "alice"
+        assertEquals(Set.of(), automaton.find("@bob and @alice.smith and @al-x and mail@alice"));
+        assertEquals(Set.of("al@example.com"), automaton.find("@al@example.com"));
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.chatwriteservice.service;
+
+import com.example.chatwriteservice.config.ChatProperties;
+import com.example.chatwriteservice.dto.MentionNotification;
+import com.example.chatwriteservice.dto.MentionResponse;
+import com.example.chatwriteservice.dto.MessageResponse;
+import com.example.chatwriteservice.repository.MembershipJdbcRepository;
+import com.example.chatwriteservice.repository.MentionJdbcRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MentionServiceTest {
+
+    private static final String ALICE = "alice@example.com";
+    private static final String BOB = "bob@example.com";
+    private static final String CAROL = "carol@example.com";
+
+    @Mock
+    private MembershipJdbcRepository membershipJdbcRepository;
+
+    @Mock
+    private MembershipIndex membershipIndex;
+
+    @Mock
+    private MentionJdbcRepository mentionJdbcRepository;
+
+    @Mock
+    private BroadcastService broadcastService;
+
+    private MentionService mentionService;
+    private UUID conversationId;
+
+    @BeforeEach
+    void setUp() {
+        mentionService = new MentionService(membershipJdbcRepository, membershipIndex, mentionJdbcRepository,
+                broadcastService, new ChatProperties(), new SimpleMeterRegistry());
+        conversationId = UUID.randomUUID();
+    }
+
+    @Test
+    void deliver_ShouldRebuildAutomatonWhenMembershipChangesWithoutChangingSize() {
+        // Arrange: bob leaves and carol joins, so the member count stays at two
+        when(membershipIndex.members(conversationId))
+                .thenReturn(RoaringBitmap.bitmapOf(1, 2))
+                .thenReturn(RoaringBitmap.bitmapOf(1, 2))
+                .thenReturn(RoaringBitmap.bitmapOf(1, 3));
+        when(membershipJdbcRepository.findMemberEmails(conversationId))
+                .thenReturn(List.of(ALICE, BOB))
+                .thenReturn(List.of(ALICE, CAROL));
+        when(membershipIndex.isMember(eq(conversationId), anyString())).thenReturn(true);
+
+        // Act
+        mentionService.messageSent(message("hi @bob"));
+        mentionService.deliver();
+        mentionService.messageSent(message("hi again @bob"));
+        mentionService.deliver();
+        mentionService.messageSent(message("welcome @carol"));
+        mentionService.deliver();
+
+        // Assert: the equal bitmap reused the automaton, the changed one rebuilt it
+        verify(membershipJdbcRepository, times(2)).findMemberEmails(conversationId);
+        verify(broadcastService, times(2)).sendToUser(eq(BOB), eq(MentionService.MENTIONS_QUEUE),
+                any(MentionNotification.class));
+        verify(broadcastService).sendToUser(eq(CAROL), eq(MentionService.MENTIONS_QUEUE),
+                any(MentionNotification.class));
+    }
+
+    @Test
+    void flushOnShutdown_ShouldStoreQueuedMentionsBeforeDeliveringThem() {
+        // Arrange
+        when(membershipIndex.members(conversationId)).thenReturn(RoaringBitmap.bitmapOf(1, 2));
+        when(membershipJdbcRepository.findMemberEmails(conversationId)).thenReturn(List.of(ALICE, BOB));
+        when(membershipIndex.isMember(conversationId, BOB)).thenReturn(true);
+        mentionService.messageSent(message("@bob @alice see this"));
+        mentionService.messageSent(message("no mentions here"));
+
+        // Act
+        mentionService.flushOnShutdown();
+
+        // Assert: the sender's own mention is skipped
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Map<String, List<MentionResponse>>> stored = ArgumentCaptor.forClass(Map.class);
+        var order = inOrder(mentionJdbcRepository, broadcastService);
+        order.verify(mentionJdbcRepository).insertAll(stored.capture());
+        order.verify(broadcastService).sendToUser(eq(BOB), eq(MentionService.MENTIONS_QUEUE),
+                any(MentionNotification.class));
+        assertEquals(1, stored.getValue().get(BOB).size());
+        assertEquals(1, stored.getValue().size());
+    }
+
+    private MessageResponse message(String content) {
+        return MessageResponse.builder()
+                .id(UUID.randomUUID())
+                .conversationId(conversationId)
+                .senderEmail(ALICE)
+                .content(content)
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+}
@@ -0,0 +1,161 @@
+package com.example.chatwriteservice.service;
+
+import com.example.chatwriteservice.config.ChatProperties;
+import com.example.chatwriteservice.dto.MessageResponse;
+import com.example.chatwriteservice.entity.MessageType;
+import com.example.chatwriteservice.exception.ResourceNotFoundException;
+import com.example.chatwriteservice.repository.ConversationRepository;
+import com.example.chatwriteservice.repository.MessageJdbcRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MessageExportServiceTest {
+
+    @Mock
+    private MessageJdbcRepository messageJdbcRepository;
+
+    @Mock
+    private ConversationRepository conversationRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private MessageExportService messageExportService;
+    private UUID conversationId;
+
+    @BeforeEach
+    void setUp() {
+        conversationId = UUID.randomUUID();
+        ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        messageExportService = new MessageExportService(messageJdbcRepository, conversationRepository,
+                transactionManager, objectMapper, new ChatProperties());
+    }
+
+    @Test
+    void export_ShouldWriteOneJsonDocumentPerLine() throws Exception {
+        // Arrange
+        streamMessages(3);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // Act
+        messageExportService.export(conversationId, MessageExportService.Format.NDJSON, false, out);
+
+        // Assert
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(3, lines.length);
+        assertTrue(lines[0].contains("\"content\":\"message 0\""));
+        verify(messageJdbcRepository).streamByConversationId(eq(conversationId), eq(500), any());
+    }
+
+    @Test
+    void export_ShouldGzipWhenRequested() throws Exception {
+        // Arrange
+        streamMessages(2);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // Act
+        messageExportService.export(conversationId, MessageExportService.Format.NDJSON, true, out);
+
+        // Assert
+        byte[] unzipped = new GZIPInputStream(new ByteArrayInputStream(out.toByteArray())).readAllBytes();
+        assertEquals(2, new String(unzipped, StandardCharsets.UTF_8).split("\n").length);
+    }
+
+    @Test
+    void export_BinaryShouldBeTerminatedAndReadable() throws Exception {
+        // Arrange
+        UUID attachmentId = UUID.randomUUID();
+        streamMessages(2, attachmentId);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // Act
+        messageExportService.export(conversationId, MessageExportService.Format.BINARY, false, out);
+
+        // Assert
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(out.toByteArray()));
+        assertArrayEquals(MessageExportService.BINARY_MAGIC, in.readNBytes(4));
+        assertEquals(MessageExportService.BINARY_VERSION, in.readByte());
+        int records = 0;
+        while (in.readByte() == 1) {
+            in.readLong();
+            in.readLong();
+            assertEquals(conversationId, new UUID(in.readLong(), in.readLong()));
+            assertEquals(records + 1, in.readLong());
+            in.readLong();
+            in.readInt();
+            assertEquals(MessageType.TEXT.ordinal(), in.readByte());
+            in.readNBytes(in.readInt());
+            in.readNBytes(in.readInt());
+            if (records == 0) {
+                assertEquals(0, in.readByte());
+            } else {
+                assertEquals(1, in.readByte());
+                assertEquals(attachmentId, new UUID(in.readLong(), in.readLong()));
+            }
+            records++;
+        }
+        assertEquals(2, records);
+        assertEquals(0, in.available());
+    }
+
+    @Test
+    void validateConversation_ShouldThrowNotFoundException() {
+        // Arrange
+        when(conversationRepository.existsById(conversationId)).thenReturn(false);
+
+        // Act & Assert
+        assertThrows(ResourceNotFoundException.class, () -> {
+            messageExportService.validateConversation(conversationId);
+        });
+    }
+
+    private void streamMessages(int count) {
+        streamMessages(count, null);
+    }
+
+    /**
+     * Messages with seq 1..count; every message but the first carries the attachment, if any
+     */
+    @SuppressWarnings("unchecked")
+    private void streamMessages(int count, UUID attachmentId) {
+        doAnswer(invocation -> {
+            Consumer<MessageResponse> consumer = invocation.getArgument(2);
+            for (int i = 0; i < count; i++) {
+                consumer.accept(MessageResponse.builder()
+                        .id(UUID.randomUUID())
+                        .conversationId(conversationId)
+                        .seq(i + 1L)
+                        .senderEmail("user1@example.com")
+                        .type(MessageType.TEXT)
+                        .content("message " + i)
+                        .attachmentId(i > 0 ? attachmentId : null)
+                        .createdAt(LocalDateTime.now())
+                        .isDeleted(false)
+                        .build());
+            }
+            return null;
+        }).when(messageJdbcRepository).streamByConversationId(eq(conversationId), anyInt(), any(Consumer.class));
+    }
+}
@@ -0,0 +1,176 @@
+package com.example.chatwriteservice.service;
+
+import com.example.chatwriteservice.config.ChatProperties;
+import com.example.chatwriteservice.dto.ImportProgressResponse;
+import com.example.chatwriteservice.dto.MessageImportRecord;
+import com.example.chatwriteservice.entity.ImportCheckpoint;
+import com.example.chatwriteservice.entity.ImportStatus;
+import com.example.chatwriteservice.exception.BadRequestException;
+import com.example.chatwriteservice.repository.ConversationRepository;
+import com.example.chatwriteservice.repository.ImportCheckpointRepository;
+import com.example.chatwriteservice.repository.MessageJdbcRepository;
+import com.example.chatwriteservice.repository.ParticipantRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MessageImportServiceTest {
+
+    private static final String JOB_ID = "legacy-42";
+
+    @Mock
+    private MessageJdbcRepository messageJdbcRepository;
+
+    @Mock
+    private ParticipantRepository participantRepository;
+
+    @Mock
+    private ConversationRepository conversationRepository;
+
+    @Mock
+    private ImportCheckpointRepository importCheckpointRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private MessageTailCache messageTailCache;
+
+    private MessageImportService messageImportService;
+    private UUID conversationId;
+    private ImportCheckpoint checkpoint;
+    private final List<String> imported = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        conversationId = UUID.randomUUID();
+        ChatProperties chatProperties = new ChatProperties();
+        chatProperties.getBulkImport().setBatchSize(2);
+        messageImportService = new MessageImportService(messageJdbcRepository, participantRepository,
+                conversationRepository, importCheckpointRepository, transactionManager,
+                new ObjectMapper().registerModule(new JavaTimeModule()), chatProperties, messageTailCache);
+
+        when(conversationRepository.existsById(conversationId)).thenReturn(true);
+        // One shared checkpoint row, like the database would hold
+        when(importCheckpointRepository.save(any(ImportCheckpoint.class))).thenAnswer(invocation -> {
+            checkpoint = invocation.getArgument(0);
+            return checkpoint;
+        });
+        when(importCheckpointRepository.findById(JOB_ID)).thenAnswer(invocation -> Optional.ofNullable(checkpoint));
+    }
+
+    @Test
+    void importMessages_ShouldCommitBatchesAndAdvanceCheckpoint() throws Exception {
+        // Arrange
+        stubBatches();
+
+        // Act
+        ImportProgressResponse result = messageImportService.importMessages(conversationId, JOB_ID, ndjson(5));
+
+        // Assert: batches of 2, 2 and 1, each with its own sequence block
+        assertEquals(ImportStatus.COMPLETED, result.getStatus());
+        assertEquals(5L, result.getRowsCommitted());
+        verify(messageJdbcRepository, times(2)).reserveSequence(conversationId, 2);
+        verify(messageJdbcRepository).reserveSequence(conversationId, 1);
+        assertEquals(List.of("0", "1", "2", "3", "4"), importedContents(3));
+        verify(messageTailCache, times(3)).evict(conversationId);
+    }
+
+    @Test
+    void importMessages_ShouldResumeAfterCommittedRows() throws Exception {
+        // Arrange: a previous run failed after committing the first batch
+        checkpoint = ImportCheckpoint.builder()
+                .jobId(JOB_ID).conversationId(conversationId).rowsCommitted(2L).status(ImportStatus.FAILED)
+                .build();
+        stubBatches();
+
+        // Act
+        ImportProgressResponse result = messageImportService.importMessages(conversationId, JOB_ID, ndjson(5));
+
+        // Assert: the first two lines are skipped, not imported again
+        assertEquals(ImportStatus.COMPLETED, result.getStatus());
+        assertEquals(5L, result.getRowsCommitted());
+        assertEquals(List.of("2", "3", "4"), importedContents(2));
+    }
+
+    @Test
+    void importMessages_ShouldMarkJobFailedAndKeepCheckpointOnBadBatch() throws Exception {
+        // Arrange: the second batch has a sender outside the conversation
+        stubBatches();
+        when(participantRepository.findEmailsByConversationIdAndEmailIn(eq(conversationId), anyCollection()))
+                .thenReturn(List.of("user@example.com"))
+                .thenReturn(List.of());
+
+        // Act
+        assertThrows(BadRequestException.class,
+                () -> messageImportService.importMessages(conversationId, JOB_ID, ndjson(5)));
+
+        // Assert: resumable from the end of the first batch
+        assertEquals(ImportStatus.FAILED, checkpoint.getStatus());
+        assertEquals(2L, checkpoint.getRowsCommitted());
+        assertNotNull(checkpoint.getLastError());
+        verify(messageJdbcRepository, times(1)).copyMessages(any(), anyLong(), anyList());
+    }
+
+    @Test
+    void importMessages_ShouldAbortWhenCheckpointMovedElsewhere() throws Exception {
+        // Arrange: another run of the same job committed a batch in between
+        when(importCheckpointRepository.findByIdForUpdate(JOB_ID)).thenReturn(Optional.of(
+                ImportCheckpoint.builder().jobId(JOB_ID).conversationId(conversationId).rowsCommitted(2L)
+                        .status(ImportStatus.RUNNING).build()));
+
+        // Act & Assert
+        assertThrows(BadRequestException.class,
+                () -> messageImportService.importMessages(conversationId, JOB_ID, ndjson(3)));
+        verify(messageJdbcRepository, never()).copyMessages(any(), anyLong(), anyList());
+    }
+
+    private void stubBatches() {
+        when(importCheckpointRepository.findByIdForUpdate(JOB_ID)).thenAnswer(invocation -> Optional.of(checkpoint));
+        lenient().when(participantRepository.findEmailsByConversationIdAndEmailIn(eq(conversationId), anyCollection()))
+                .thenReturn(List.of("user@example.com"));
+        lenient().when(messageJdbcRepository.reserveSequence(eq(conversationId), anyInt())).thenReturn(1L);
+        // The batch list is reused by the service, so record contents at call time
+        lenient().doAnswer(invocation -> {
+            List<MessageImportRecord> batch = invocation.getArgument(2);
+            batch.forEach(record -> imported.add(record.getContent()));
+            return null;
+        }).when(messageJdbcRepository).copyMessages(eq(conversationId), anyLong(), anyList());
+    }
+
+    private List<String> importedContents(int batches) {
+        verify(messageJdbcRepository, times(batches)).copyMessages(eq(conversationId), anyLong(), anyList());
+        return imported;
+    }
+
+    private static InputStream ndjson(int lines) {
+        String body = IntStream.range(0, lines)
+                .mapToObj(i -> "{\"senderEmail\":\"user@example.com\",\"content\":\"" + i
+                        + "\",\"createdAt\":\"2024-01-01T10:00:0" + i + "\"}")
+                .collect(Collectors.joining("\n"));
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+}
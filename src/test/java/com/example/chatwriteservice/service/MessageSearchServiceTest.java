@@ -0,0 +1,109 @@
+package com.example.chatwriteservice.service;
+
+import com.example.chatwriteservice.config.ChatProperties;
+import com.example.chatwriteservice.dto.MessageResponse;
+import com.example.chatwriteservice.dto.MessageSearchResponse;
+import com.example.chatwriteservice.exception.BadRequestException;
+import com.example.chatwriteservice.repository.MessageJdbcRepository;
+import com.example.chatwriteservice.repository.MessageJdbcRepository.SearchHit;
+import com.example.chatwriteservice.repository.MessageJdbcRepository.SearchResult;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MessageSearchServiceTest {
+
+    private static final String EMAIL = "user1@example.com";
+
+    @Mock
+    private MessageJdbcRepository messageJdbcRepository;
+
+    private MessageSearchService messageSearchService;
+
+    @BeforeEach
+    void setUp() {
+        ChatProperties chatProperties = new ChatProperties();
+        chatProperties.getSearch().setMaxCandidates(500);
+        messageSearchService = new MessageSearchService(messageJdbcRepository, chatProperties);
+    }
+
+    @Test
+    void search_ShouldReturnCursorOfLastHitWhenMoreExist() {
+        // Arrange: limit 2, the repository returns the extra third row
+        List<SearchHit> hits = hits(3);
+        when(messageJdbcRepository.search(eq(EMAIL), eq("hello"), isNull(), isNull(), eq(3), eq(500)))
+                .thenReturn(new SearchResult(hits, false));
+
+        // Act
+        MessageSearchResponse response = messageSearchService.search(EMAIL, "hello", null, null, 2);
+
+        // Assert
+        assertEquals(2, response.getMessages().size());
+        assertNotNull(response.getNextCursor());
+        assertFalse(response.isTruncated());
+
+        // Act: the next page continues after the last returned hit
+        when(messageJdbcRepository.search(eq(EMAIL), eq("hello"), isNull(), any(), eq(3), eq(500)))
+                .thenReturn(new SearchResult(List.of(), false));
+        messageSearchService.search(EMAIL, "hello", null, response.getNextCursor(), 2);
+
+        // Assert
+        ArgumentCaptor<SearchHit> after = ArgumentCaptor.forClass(SearchHit.class);
+        verify(messageJdbcRepository, times(2)).search(eq(EMAIL), eq("hello"), isNull(), after.capture(), eq(3), eq(500));
+        SearchHit position = after.getAllValues().get(1);
+        assertEquals(hits.get(1).rank(), position.rank());
+        assertEquals(hits.get(1).message().getId(), position.message().getId());
+        assertEquals(hits.get(1).message().getCreatedAt(), position.message().getCreatedAt());
+    }
+
+    @Test
+    void search_ShouldOmitCursorOnLastPageAndClampLimit() {
+        // Arrange
+        when(messageJdbcRepository.search(eq(EMAIL), eq("hello"), isNull(), isNull(), anyInt(), eq(500)))
+                .thenReturn(new SearchResult(hits(1), true));
+
+        // Act
+        MessageSearchResponse response = messageSearchService.search(EMAIL, "hello", null, null, 1_000);
+
+        // Assert
+        assertEquals(1, response.getMessages().size());
+        assertNull(response.getNextCursor());
+        assertTrue(response.isTruncated());
+        verify(messageJdbcRepository).search(EMAIL, "hello", null, null, MessageSearchService.MAX_LIMIT + 1, 500);
+    }
+
+    @Test
+    void search_ShouldRejectBlankQueryAndInvalidCursor() {
+        assertThrows(BadRequestException.class, () -> messageSearchService.search(EMAIL, " ", null, null, 20));
+        assertThrows(BadRequestException.class, () -> messageSearchService.search(EMAIL, "hello", null, "not-a-cursor", 20));
+        verifyNoInteractions(messageJdbcRepository);
+    }
+
+    private static List<SearchHit> hits(int count) {
+        LocalDateTime now = LocalDateTime.now();
+        return IntStream.range(0, count)
+                .mapToObj(i -> new SearchHit(MessageResponse.builder()
+                        .id(UUID.randomUUID())
+                        .senderEmail(EMAIL)
+                        .content("hello " + i)
+                        .createdAt(now.minusMinutes(i))
+                        .build(), 0.5f - i * 0.1f))
+                .toList();
+    }
+}
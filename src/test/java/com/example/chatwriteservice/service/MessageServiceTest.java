@@ -0,0 +1,135 @@
+package com.example.chatwriteservice.service;
+
+import com.example.chatwriteservice.config.ReadYourWritesTracker;
+import com.example.chatwriteservice.dto.MessageRequest;
+import com.example.chatwriteservice.dto.MessageResponse;
+import com.example.chatwriteservice.entity.MessageType;
+import com.example.chatwriteservice.exception.BadRequestException;
+import com.example.chatwriteservice.exception.ResourceNotFoundException;
+import com.example.chatwriteservice.repository.MessageJdbcRepository;
+import com.example.chatwriteservice.repository.MessageRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MessageServiceTest {
+
+    @Mock
+    private MessageRepository messageRepository;
+
+    @Mock
+    private MessageJdbcRepository messageJdbcRepository;
+
+    @Mock
+    private ReadYourWritesTracker readYourWritesTracker;
+
+    @Mock
+    private AttachmentService attachmentService;
+
+    @Mock
+    private HotspotTracker hotspotTracker;
+
+    @Mock
+    private MentionService mentionService;
+
+    @Mock
+    private MessageTailCache messageTailCache;
+
+    @InjectMocks
+    private MessageService messageService;
+
+    private UUID conversationId;
+    private MessageRequest request;
+
+    @BeforeEach
+    void setUp() {
+        conversationId = UUID.randomUUID();
+        request = MessageRequest.builder()
+                .conversationId(conversationId)
+                .senderEmail("user1@example.com")
+                .type(MessageType.TEXT)
+                .content("Hello")
+                .build();
+    }
+
+    @Test
+    void sendMessage_ShouldReturnInsertedMessage() {
+        // Arrange
+        MessageResponse inserted = MessageResponse.builder()
+                .id(UUID.randomUUID())
+                .conversationId(conversationId)
+                .seq(7L)
+                .senderEmail("user1@example.com")
+                .type(MessageType.TEXT)
+                .content("Hello")
+                .createdAt(LocalDateTime.now())
+                .isDeleted(false)
+                .build();
+        givenInsertResult(new MessageJdbcRepository.InsertResult(true, true, inserted));
+
+        // Act
+        MessageResponse response = messageService.sendMessage(request);
+
+        // Assert
+        assertEquals(inserted, response);
+        verify(readYourWritesTracker).markWritten("user1@example.com", conversationId);
+        verify(readYourWritesTracker).markWritten("user1@example.com", "user1@example.com");
+        verify(hotspotTracker).messageSent(conversationId, "user1@example.com");
+        verify(mentionService).messageSent(inserted);
+        verify(messageTailCache).appended(inserted);
+    }
+
+    @Test
+    void sendMessage_ShouldThrowNotFoundWhenConversationMissing() {
+        // Arrange
+        givenInsertResult(new MessageJdbcRepository.InsertResult(false, true, null));
+
+        // Act & Assert
+        ResourceNotFoundException ex = assertThrows(ResourceNotFoundException.class, () -> {
+            messageService.sendMessage(request);
+        });
+        assertEquals("Conversation not found", ex.getMessage());
+    }
+
+    @Test
+    void sendMessage_ShouldThrowNotFoundWhenUserMissing() {
+        // Arrange
+        givenInsertResult(new MessageJdbcRepository.InsertResult(true, false, null));
+
+        // Act & Assert
+        ResourceNotFoundException ex = assertThrows(ResourceNotFoundException.class, () -> {
+            messageService.sendMessage(request);
+        });
+        assertEquals("User not found", ex.getMessage());
+    }
+
+    @Test
+    void sendMessage_ShouldThrowBadRequestWhenNotParticipant() {
+        // Arrange
+        givenInsertResult(new MessageJdbcRepository.InsertResult(true, true, null));
+
+        // Act & Assert
+        assertThrows(BadRequestException.class, () -> {
+            messageService.sendMessage(request);
+        });
+        verify(readYourWritesTracker, never()).markWritten(any(), any());
+    }
+
+    private void givenInsertResult(MessageJdbcRepository.InsertResult result) {
+        when(messageJdbcRepository.insertIfParticipant(any(UUID.class), eq(conversationId), eq("user1@example.com"),
+                eq(MessageType.TEXT), eq("Hello"), isNull(), any(LocalDateTime.class))).thenReturn(result);
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.chatwriteservice.service;
+
+import com.example.chatwriteservice.dto.MessageResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MessageTailCacheTest {
+
+    private final AtomicLong clock = new AtomicLong();
+    private final UUID conversationId = UUID.randomUUID();
+
+    @Test
+    void newestPage_ShouldServeLoadedAndAppendedMessagesNewestFirst() {
+        // Arrange
+        MessageTailCache cache = new MessageTailCache(3, 1 << 20, 1_000, clock::get, new SimpleMeterRegistry());
+        long stamp = cache.stamp(conversationId);
+        cache.loaded(conversationId, List.of(message(conversationId, 5), message(conversationId, 4),
+                message(conversationId, 3)), 5, stamp);
+
+        // Act: out of order, a duplicate of a loaded message, then one older than the whole ring
+        cache.appended(message(conversationId, 7));
+        cache.appended(message(conversationId, 6));
+        cache.appended(message(conversationId, 5));
+        cache.appended(message(conversationId, 1));
+        Page<MessageResponse> page = cache.newestPage(conversationId, PageRequest.of(0, 2));
+
+        // Assert
+        assertEquals(List.of(7L, 6L), seqs(page.getContent()));
+        assertEquals(8, page.getTotalElements());
+        assertEquals(List.of(7L, 6L, 5L), seqs(cache.newestPage(conversationId, PageRequest.of(0, 3)).getContent()));
+        assertNull(cache.newestPage(conversationId, PageRequest.of(1, 2)));
+        assertNull(cache.newestPage(conversationId, PageRequest.of(0, 4)));
+        clock.set(1_000);
+        assertNull(cache.newestPage(conversationId, PageRequest.of(0, 2)));
+    }
+
+    @Test
+    void loaded_ShouldSkipLoadsOverlappingAnAppendAndStayWithinBudget() {
+        // Arrange: room for two and a half tails of two messages
+        long tailSize = 64 + 8 * 2 + 2 * MessageTailCache.estimateSize(message(conversationId, 1));
+        MessageTailCache cache = new MessageTailCache(2, tailSize * 5 / 2, Long.MAX_VALUE, clock::get,
+                new SimpleMeterRegistry());
+        long stamp = cache.stamp(conversationId);
+        cache.appended(message(conversationId, 3));
+
+        // Act
+        cache.loaded(conversationId, List.of(message(conversationId, 2), message(conversationId, 1)), 2, stamp);
+        UUID[] others = {UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID()};
+        for (UUID other : others) {
+            clock.incrementAndGet();
+            cache.loaded(other, List.of(message(other, 2), message(other, 1)), 2, cache.stamp(other));
+        }
+
+        // Assert: the stale load was dropped, the least recently used tail evicted
+        assertNull(cache.newestPage(conversationId, PageRequest.of(0, 2)));
+        assertNull(cache.newestPage(others[0], PageRequest.of(0, 2)));
+        assertNotNull(cache.newestPage(others[1], PageRequest.of(0, 2)));
+        assertNotNull(cache.newestPage(others[2], PageRequest.of(0, 2)));
+    }
+
+    private static MessageResponse message(UUID conversationId, long seq) {
+        return MessageResponse.builder()
+                .id(UUID.randomUUID())
+                .conversationId(conversationId)
+                .seq(seq)
+                .senderEmail("user1@example.com")
+                .content("message " + seq)
+                .build();
+    }
+
+    private static List<Long> seqs(List<MessageResponse> messages) {
+        List<Long> seqs = new ArrayList<>();
+        messages.forEach(m -> seqs.add(m.getSeq()));
+        return seqs;
+    }
+}
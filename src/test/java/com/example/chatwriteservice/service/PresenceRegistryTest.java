@@ -0,0 +1,90 @@
+package com.example.chatwriteservice.service;
+
+import com.example.chatwriteservice.dto.PresenceResponse;
+import com.example.chatwriteservice.dto.PresenceStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PresenceRegistryTest {
+
+    private static final long GRACE_MILLIS = 15_000;
+    private static final long RETENTION_MILLIS = 3_600_000;
+
+    private AtomicLong clock;
+    private PresenceRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        clock = new AtomicLong(1_000_000);
+        registry = new PresenceRegistry(4, GRACE_MILLIS, RETENTION_MILLIS, clock::get);
+    }
+
+    @Test
+    void reconnectWithinGracePeriod_ShouldNotPublishOffline() {
+        // Arrange
+        registry.connected("user1@example.com");
+        registry.drainChanges();
+
+        // Act
+        registry.disconnected("user1@example.com");
+        clock.addAndGet(GRACE_MILLIS / 2);
+        registry.connected("user1@example.com");
+        clock.addAndGet(GRACE_MILLIS);
+        registry.expireGracePeriods();
+
+        // Assert
+        assertTrue(registry.drainChanges().isEmpty());
+        assertEquals(PresenceStatus.ONLINE, registry.get("user1@example.com").getStatus());
+    }
+
+    @Test
+    void lastSessionClosed_ShouldGoOfflineAfterGracePeriod() {
+        // Arrange
+        registry.connected("user1@example.com");
+        registry.connected("user1@example.com");
+        registry.drainChanges();
+
+        // Act
+        registry.disconnected("user1@example.com");
+        clock.addAndGet(GRACE_MILLIS + 1);
+        registry.expireGracePeriods();
+        List<PresenceResponse> afterFirstClose = registry.drainChanges();
+
+        registry.disconnected("user1@example.com");
+        clock.addAndGet(GRACE_MILLIS + 1);
+        registry.expireGracePeriods();
+        List<PresenceResponse> afterLastClose = registry.drainChanges();
+
+        // Assert
+        assertTrue(afterFirstClose.isEmpty());
+        assertEquals(1, afterLastClose.size());
+        assertEquals(PresenceStatus.OFFLINE, afterLastClose.get(0).getStatus());
+        assertNotNull(afterLastClose.get(0).getLastSeenAt());
+    }
+
+    @Test
+    void offlineUsers_ShouldBeForgottenAfterRetention() {
+        // Arrange
+        registry.connected("user1@example.com");
+        registry.connected("user2@example.com");
+        registry.disconnected("user1@example.com");
+        clock.addAndGet(GRACE_MILLIS + 1);
+        registry.expireGracePeriods();
+        registry.drainChanges();
+
+        // Act
+        clock.addAndGet(RETENTION_MILLIS);
+        registry.expireGracePeriods();
+
+        // Assert: users with open sessions are kept however long ago they were last seen
+        assertEquals(1, registry.size());
+        assertEquals(PresenceStatus.OFFLINE, registry.get("user1@example.com").getStatus());
+        assertNull(registry.get("user1@example.com").getLastSeenAt());
+        assertEquals(PresenceStatus.ONLINE, registry.get("user2@example.com").getStatus());
+    }
+}
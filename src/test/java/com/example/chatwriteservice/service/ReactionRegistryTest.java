@@ -0,0 +1,109 @@
+package com.example.chatwriteservice.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReactionRegistryTest {
+
+    private final AtomicLong now = new AtomicLong();
+    private final UUID conversationId = UUID.randomUUID();
+    private final UUID messageId = UUID.randomUUID();
+
+    private ReactionRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        registry = new ReactionRegistry(100, TimeUnit.SECONDS.toNanos(30), now::get);
+        registry.load(messageId, conversationId, Map.of("👍", 5L));
+    }
+
+    @Test
+    void react_ShouldCoalescePerUserAndMoveContributionsToPersistedCounts() {
+        // Arrange
+        ReactionRegistry.UserReaction alice = new ReactionRegistry.UserReaction(messageId, "👍", "alice@example.com");
+        ReactionRegistry.UserReaction bob = new ReactionRegistry.UserReaction(messageId, "🎉", "bob@example.com");
+
+        // Act
+        assertTrue(registry.react(alice, conversationId, true));
+        assertFalse(registry.react(alice, conversationId, true));
+        registry.react(bob, conversationId, true);
+        registry.react(bob, conversationId, false);
+        registry.react(bob, conversationId, true);
+        List<ReactionRegistry.PendingChange> batch = registry.drainPending(10);
+
+        // Assert
+        assertEquals(Map.of("👍", 6L, "🎉", 1L), registry.counts(messageId));
+        assertEquals(2, batch.size());
+        assertEquals(Map.of(conversationId, List.of(messageId)), registry.drainDirty());
+
+        registry.persisted(batch, Map.of(
+                new ReactionRegistry.ReactionKey(messageId, "👍"), 6L,
+                new ReactionRegistry.ReactionKey(messageId, "🎉"), 1L));
+        assertEquals(Map.of("👍", 6L, "🎉", 1L), registry.counts(messageId));
+        assertTrue(registry.drainPending(10).isEmpty());
+    }
+
+    @Test
+    void persisted_ShouldCorrectChangesTheDatabaseAlreadyHad() {
+        // Arrange: alice's reaction was persisted before, then she reacts again and bob's removal fails once
+        ReactionRegistry.UserReaction alice = new ReactionRegistry.UserReaction(messageId, "👍", "alice@example.com");
+        ReactionRegistry.UserReaction bob = new ReactionRegistry.UserReaction(messageId, "👍", "bob@example.com");
+        registry.react(alice, conversationId, true);
+        registry.react(bob, conversationId, false);
+
+        // Act
+        List<ReactionRegistry.PendingChange> failed = registry.drainPending(10);
+        registry.requeue(failed);
+        List<ReactionRegistry.PendingChange> batch = registry.drainPending(10);
+        registry.persisted(batch, Map.of(new ReactionRegistry.ReactionKey(messageId, "👍"), 4L));
+
+        // Assert
+        assertEquals(2, batch.size());
+        assertEquals(Map.of("👍", 4L), registry.counts(messageId));
+    }
+
+    @Test
+    void load_ShouldNotEvictMessagesWithUnpersistedChanges() {
+        // Arrange: room for one message, which has a pending change
+        registry = new ReactionRegistry(1, TimeUnit.SECONDS.toNanos(30), now::get);
+        registry.load(messageId, conversationId, Map.of("👍", 5L));
+        ReactionRegistry.UserReaction alice = new ReactionRegistry.UserReaction(messageId, "👍", "alice@example.com");
+        registry.react(alice, conversationId, true);
+        UUID other = UUID.randomUUID();
+
+        // Act
+        registry.load(other, conversationId, Map.of());
+
+        // Assert
+        assertEquals(conversationId, registry.conversationOf(messageId));
+        assertEquals(conversationId, registry.conversationOf(other));
+        assertEquals(Map.of("👍", 6L), registry.counts(messageId));
+        registry.persisted(registry.drainPending(10), Map.of(new ReactionRegistry.ReactionKey(messageId, "👍"), 6L));
+        assertEquals(Map.of("👍", 6L), registry.counts(messageId));
+    }
+
+    @Test
+    void persisted_ShouldOnlyTakeBackWhatWentIntoTheLiveCount() {
+        // Arrange: bob reacts to a message that is not loaded, then it is loaded with his reaction persisted elsewhere
+        UUID unloaded = UUID.randomUUID();
+        ReactionRegistry.UserReaction bob = new ReactionRegistry.UserReaction(unloaded, "🎉", "bob@example.com");
+        registry.react(bob, conversationId, true);
+        registry.load(unloaded, conversationId, Map.of("🎉", 3L));
+
+        // Act
+        List<ReactionRegistry.PendingChange> batch = registry.drainPending(10);
+        registry.persisted(batch, Map.of());
+
+        // Assert
+        assertEquals(0, batch.get(0).contributed());
+        assertEquals(Map.of("🎉", 3L), registry.counts(unloaded));
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.chatwriteservice.service;
+
+import com.example.chatwriteservice.config.ChatProperties;
+import com.example.chatwriteservice.dto.ReactionUpdate;
+import com.example.chatwriteservice.dto.ReactionsResponse;
+import com.example.chatwriteservice.exception.BadRequestException;
+import com.example.chatwriteservice.exception.ResourceNotFoundException;
+import com.example.chatwriteservice.repository.ReactionJdbcRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.QueryTimeoutException;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReactionServiceTest {
+
+    private static final String EMAIL = "alice@example.com";
+
+    @Mock
+    private ReactionJdbcRepository reactionJdbcRepository;
+
+    @Mock
+    private MembershipIndex membershipIndex;
+
+    @Mock
+    private BroadcastService broadcastService;
+
+    private ReactionService reactionService;
+    private UUID conversationId;
+    private UUID messageId;
+
+    @BeforeEach
+    void setUp() {
+        ReactionRegistry registry = new ReactionRegistry(100, TimeUnit.SECONDS.toNanos(30), System::nanoTime);
+        reactionService = new ReactionService(registry, reactionJdbcRepository, membershipIndex,
+                broadcastService, new ChatProperties());
+        conversationId = UUID.randomUUID();
+        messageId = UUID.randomUUID();
+    }
+
+    @Test
+    void addReaction_ShouldCountInMemoryAndPersistOnFlush() {
+        // Arrange
+        when(membershipIndex.isMember(conversationId, EMAIL)).thenReturn(true);
+        when(reactionJdbcRepository.findCounts(conversationId, messageId)).thenReturn(Map.of("👍", 2L));
+        when(reactionJdbcRepository.applyChanges(anyList(), any()))
+                .thenReturn(Map.of(new ReactionRegistry.ReactionKey(messageId, "👍"), 3L));
+
+        // Act
+        ReactionsResponse response = reactionService.addReaction(conversationId, messageId, EMAIL, "👍");
+        reactionService.flush();
+        reactionService.broadcastChanges();
+
+        // Assert
+        assertEquals(Map.of("👍", 3L), response.getCounts());
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<ReactionRegistry.PendingChange>> batch = ArgumentCaptor.forClass(List.class);
+        verify(reactionJdbcRepository).applyChanges(batch.capture(), any());
+        assertEquals(1, batch.getValue().size());
+        assertTrue(batch.getValue().get(0).added());
+        ArgumentCaptor<ReactionUpdate> update = ArgumentCaptor.forClass(ReactionUpdate.class);
+        verify(broadcastService).sendLocally(eq(BroadcastService.CONVERSATION_TOPIC + conversationId), update.capture());
+        assertEquals(Map.of("👍", 3L), update.getValue().getReactions().get(0).getCounts());
+        assertEquals(Map.of("👍", 3L), reactionService.getReactions(conversationId, messageId).getCounts());
+    }
+
+    @Test
+    void flush_ShouldKeepAFailedBatchForTheNextFlush() {
+        // Arrange
+        when(membershipIndex.isMember(conversationId, EMAIL)).thenReturn(true);
+        when(reactionJdbcRepository.findCounts(conversationId, messageId)).thenReturn(Map.of());
+        when(reactionJdbcRepository.applyChanges(anyList(), any()))
+                .thenThrow(new QueryTimeoutException("timeout"))
+                .thenReturn(Map.of(new ReactionRegistry.ReactionKey(messageId, "🎉"), 1L));
+        reactionService.addReaction(conversationId, messageId, EMAIL, "🎉");
+
+        // Act
+        reactionService.flush();
+        reactionService.flush();
+        reactionService.flush();
+
+        // Assert: written once after the failure, nothing left afterwards
+        verify(reactionJdbcRepository, times(2)).applyChanges(anyList(), any());
+        assertEquals(Map.of("🎉", 1L), reactionService.getReactions(conversationId, messageId).getCounts());
+    }
+
+    @Test
+    void addReaction_ShouldRejectNonParticipantsAndUnknownMessages() {
+        // Arrange
+        when(membershipIndex.isMember(conversationId, "mallory@example.com")).thenReturn(false);
+        when(membershipIndex.isMember(conversationId, EMAIL)).thenReturn(true);
+        when(reactionJdbcRepository.findCounts(conversationId, messageId)).thenReturn(null);
+
+        // Act & Assert
+        assertThrows(BadRequestException.class,
+                () -> reactionService.addReaction(conversationId, messageId, "mallory@example.com", "👍"));
+        assertThrows(ResourceNotFoundException.class,
+                () -> reactionService.addReaction(conversationId, messageId, EMAIL, "👍"));
+        assertThrows(BadRequestException.class,
+                () -> reactionService.addReaction(conversationId, messageId, EMAIL, "a b"));
+        verify(reactionJdbcRepository, never()).applyChanges(anyList(), any());
+    }
+}
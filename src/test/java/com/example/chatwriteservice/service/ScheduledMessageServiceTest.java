@@ -0,0 +1,152 @@
+package com.example.chatwriteservice.service;
+
+import com.example.chatwriteservice.config.ChatProperties;
+import com.example.chatwriteservice.dto.MessageRequest;
+import com.example.chatwriteservice.dto.MessageResponse;
+import com.example.chatwriteservice.dto.ScheduledMessageResponse;
+import com.example.chatwriteservice.entity.MessageType;
+import com.example.chatwriteservice.entity.ScheduledMessageStatus;
+import com.example.chatwriteservice.repository.ScheduledMessageJdbcRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ScheduledMessageServiceTest {
+
+    private static final String EMAIL = "alice@example.com";
+
+    @Mock
+    private ScheduledMessageJdbcRepository scheduledMessageJdbcRepository;
+
+    @Mock
+    private MessageService messageService;
+
+    @Mock
+    private BroadcastService broadcastService;
+
+    @Mock
+    private MembershipIndex membershipIndex;
+
+    @Mock
+    private AttachmentService attachmentService;
+
+    private ScheduledMessageService scheduledMessageService;
+    private UUID conversationId;
+
+    @BeforeEach
+    void setUp() {
+        ChatProperties chatProperties = new ChatProperties();
+        chatProperties.getScheduledMessages().setTick(Duration.ofMillis(10));
+        scheduledMessageService = new ScheduledMessageService(scheduledMessageJdbcRepository, messageService,
+                broadcastService, membershipIndex, attachmentService, chatProperties, new SimpleMeterRegistry());
+        conversationId = UUID.randomUUID();
+    }
+
+    @Test
+    void releaseDue_ShouldOnlySendClaimsThisInstanceStillHoldsAndOnlyOnce() throws InterruptedException {
+        // Arrange: two due messages claimed, but one was cancelled (or re-claimed elsewhere) since
+        ScheduledMessageResponse kept = due();
+        ScheduledMessageResponse lost = due();
+        when(scheduledMessageJdbcRepository.completeInterruptedSends(any())).thenReturn(List.of());
+        when(scheduledMessageJdbcRepository.claimDue(any(), any(), eq("local"), anyLong(), anyInt()))
+                .thenReturn(List.of(kept, lost));
+        when(scheduledMessageJdbcRepository.markSending(anyCollection(), eq("local"), any()))
+                .thenReturn(List.of(kept.getId()));
+        MessageResponse sent = message(kept.getId());
+        when(messageService.sendMessage(eq(kept.getId()), any(MessageRequest.class))).thenReturn(sent);
+
+        // Act
+        scheduledMessageService.loadUpcoming();
+        Thread.sleep(30);
+        scheduledMessageService.releaseDue();
+        scheduledMessageService.releaseDue();
+
+        // Assert
+        verify(messageService, times(1)).sendMessage(any(UUID.class), any(MessageRequest.class));
+        verify(broadcastService).broadcastToConversation(conversationId, sent);
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Collection<UUID>> marked = ArgumentCaptor.forClass(Collection.class);
+        verify(scheduledMessageJdbcRepository).markSent(marked.capture());
+        assertEquals(List.of(kept.getId()), List.copyOf(marked.getValue()));
+    }
+
+    @Test
+    void loadUpcoming_ShouldBroadcastSendsCompletedAfterACrash() {
+        // Arrange: the message was inserted by an instance that died before marking it sent
+        MessageResponse interrupted = message(UUID.randomUUID());
+        when(scheduledMessageJdbcRepository.completeInterruptedSends(any())).thenReturn(List.of(interrupted));
+        when(scheduledMessageJdbcRepository.claimDue(any(), any(), eq("local"), anyLong(), anyInt()))
+                .thenReturn(List.of());
+
+        // Act
+        scheduledMessageService.loadUpcoming();
+
+        // Assert
+        verify(broadcastService).broadcastToConversation(conversationId, interrupted);
+        verify(messageService, never()).sendMessage(any(UUID.class), any(MessageRequest.class));
+    }
+
+    @Test
+    void releaseDue_ShouldKeepTheClaimWhenSendingFailsTransiently() throws InterruptedException {
+        // Arrange
+        ScheduledMessageResponse message = due();
+        when(scheduledMessageJdbcRepository.completeInterruptedSends(any())).thenReturn(List.of());
+        when(scheduledMessageJdbcRepository.claimDue(any(), any(), eq("local"), anyLong(), anyInt()))
+                .thenReturn(List.of(message));
+        when(scheduledMessageJdbcRepository.markSending(anyCollection(), eq("local"), any()))
+                .thenReturn(List.of(message.getId()));
+        when(messageService.sendMessage(eq(message.getId()), any(MessageRequest.class)))
+                .thenThrow(new IllegalStateException("database down"));
+
+        // Act
+        scheduledMessageService.loadUpcoming();
+        Thread.sleep(30);
+        scheduledMessageService.releaseDue();
+
+        // Assert: stays SENDING for the next claim, neither sent, failed nor broadcast
+        verify(scheduledMessageJdbcRepository, never()).markSent(anyCollection());
+        verify(scheduledMessageJdbcRepository, never()).markFailed(any(), any());
+        verifyNoInteractions(broadcastService);
+    }
+
+    private ScheduledMessageResponse due() {
+        return ScheduledMessageResponse.builder()
+                .id(UUID.randomUUID())
+                .conversationId(conversationId)
+                .senderEmail(EMAIL)
+                .type(MessageType.TEXT)
+                .content("hello")
+                .sendAt(LocalDateTime.now().minusSeconds(1))
+                .status(ScheduledMessageStatus.PENDING)
+                .createdAt(LocalDateTime.now().minusMinutes(1))
+                .build();
+    }
+
+    private MessageResponse message(UUID id) {
+        return MessageResponse.builder()
+                .id(id)
+                .conversationId(conversationId)
+                .senderEmail(EMAIL)
+                .content("hello")
+                .build();
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.chatwriteservice.service;
+
+import com.example.chatwriteservice.service.SessionBacklogRegistry.Decision;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SessionBacklogRegistryTest {
+
+    private static final String MESSAGES = "/topic/conversation/c1";
+    private static final String TYPING = "/topic/conversation/c1/typing";
+
+    private final AtomicLong now = new AtomicLong(1);
+    private SessionBacklogRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SessionBacklogRegistry(3, TimeUnit.SECONDS.toNanos(2), now::get);
+        registry.opened("s1", new HashMap<>());
+    }
+
+    @Test
+    void beforeSend_ShouldDegradeStalledSessionUntilBacklogDrains() {
+        // Arrange
+        assertEquals(Decision.SEND, registry.beforeSend("s1", MESSAGES));
+        registry.writeStarted("s1");
+        now.addAndGet(TimeUnit.SECONDS.toNanos(3));
+
+        // Act & Assert
+        assertEquals(Decision.DROP, registry.beforeSend("s1", TYPING));
+        assertEquals(Decision.RESYNC, registry.beforeSend("s1", MESSAGES));
+        assertEquals(Decision.DROP, registry.beforeSend("s1", MESSAGES));
+        assertEquals(Decision.SEND, registry.beforeSend("s1", null));
+        assertTrue(registry.top(10).get(0).isDegraded());
+
+        // The blocked frame, the resync marker and the control frame reach the socket
+        registry.writeCompleted("s1");
+        registry.writeCompleted("s1");
+        registry.writeCompleted("s1");
+        assertFalse(registry.top(10).get(0).isDegraded());
+        assertEquals(Decision.SEND, registry.beforeSend("s1", TYPING));
+        assertEquals(2, registry.top(10).get(0).getDroppedFrames());
+    }
+
+    @Test
+    void beforeSend_ShouldDegradeWhenTooManyFramesAreQueued() {
+        // Arrange
+        for (int i = 0; i < 3; i++) {
+            assertEquals(Decision.SEND, registry.beforeSend("s1", MESSAGES));
+        }
+
+        // Act & Assert
+        assertEquals(Decision.RESYNC, registry.beforeSend("s1", MESSAGES));
+        assertEquals(4, registry.top(10).get(0).getQueuedFrames());
+        assertEquals(Decision.SEND, registry.beforeSend("unknown", MESSAGES));
+    }
+}
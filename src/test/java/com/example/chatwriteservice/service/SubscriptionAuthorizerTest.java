@@ -0,0 +1,123 @@
+package com.example.chatwriteservice.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SubscriptionAuthorizerTest {
+
+    @Mock
+    private MembershipIndex membershipIndex;
+
+    @Mock
+    private ObjectProvider<ClusterBroadcastRelay> clusterBroadcastRelay;
+
+    private final List<Message<?>> toBroker = new ArrayList<>();
+    private final List<Message<?>> toClients = new ArrayList<>();
+    private final UUID conversationId = UUID.randomUUID();
+    private final String topic = BroadcastService.CONVERSATION_TOPIC + conversationId;
+
+    private SubscriptionAuthorizer authorizer;
+
+    @BeforeEach
+    void setUp() {
+        authorizer = new SubscriptionAuthorizer(membershipIndex,
+                (message, timeout) -> toBroker.add(message),
+                (message, timeout) -> toClients.add(message),
+                clusterBroadcastRelay);
+    }
+
+    @Test
+    void authorize_ShouldOnlyGrantConversationTopicsToMembers() {
+        // Arrange
+        when(membershipIndex.isMember(conversationId, "alice@example.com")).thenReturn(true);
+        when(membershipIndex.isMember(conversationId, "mallory@example.com")).thenReturn(false);
+
+        // Act & Assert
+        assertTrue(authorizer.authorize("s1", "sub-1", topic, "alice@example.com"));
+        assertTrue(authorizer.authorize("s1", "sub-2", topic + "/typing", "alice@example.com"));
+        assertFalse(authorizer.authorize("s2", "sub-1", topic, "mallory@example.com"));
+        assertFalse(authorizer.authorize("s3", "sub-1", topic, null));
+        assertFalse(authorizer.authorize("s1", "sub-3", BroadcastService.CONVERSATION_TOPIC + "not-a-uuid", "alice@example.com"));
+        assertTrue(authorizer.authorize("s1", "sub-4", "/user/queue/errors", "alice@example.com"));
+    }
+
+    @Test
+    void authorize_ShouldDenyPatternsForeignQueuesAndUnknownDestinations() {
+        // Act & Assert
+        assertFalse(authorizer.authorize("s1", "sub-1", "/topic/**", "alice@example.com"));
+        assertFalse(authorizer.authorize("s1", "sub-2", BroadcastService.CONVERSATION_TOPIC + "*", "alice@example.com"));
+        assertFalse(authorizer.authorize("s1", "sub-3", BroadcastService.CONVERSATION_TOPIC + "{id}", "alice@example.com"));
+        assertFalse(authorizer.authorize("s1", "sub-4", "/queue/errors-user?2", "alice@example.com"));
+        assertFalse(authorizer.authorize("s1", "sub-5", "/queue/errors-users2", "alice@example.com"));
+        assertTrue(authorizer.authorize("s1", "sub-6", "/queue/errors-users1", "alice@example.com"));
+        assertFalse(authorizer.authorize("s1", "sub-7", "/user/bob@example.com/queue/errors", "alice@example.com"));
+        assertFalse(authorizer.authorize("s1", "sub-8", "/user/queue/errors", null));
+        assertFalse(authorizer.authorize("s1", "sub-9", "/topic/other", "alice@example.com"));
+        verifyNoInteractions(membershipIndex);
+    }
+
+    @Test
+    void revoke_ShouldTearDownOnlyTheRemovedMembersSubscriptions() {
+        // Arrange
+        ClusterBroadcastRelay relay = mock(ClusterBroadcastRelay.class);
+        doAnswer(invocation -> {
+            invocation.<Consumer<ClusterBroadcastRelay>>getArgument(0).accept(relay);
+            return null;
+        }).when(clusterBroadcastRelay).ifAvailable(any());
+        when(membershipIndex.isMember(eq(conversationId), anyString())).thenReturn(true);
+        authorizer.authorize("s1", "sub-1", topic, "alice@example.com");
+        authorizer.authorize("s1", "sub-2", topic + "/typing", "alice@example.com");
+        authorizer.authorize("s1", "sub-3", topic + "/presence", "alice@example.com");
+        authorizer.authorize("s2", "sub-1", topic, "bob@example.com");
+        authorizer.unsubscribed("s1", "sub-3");
+
+        // Act
+        authorizer.revoke(conversationId, "alice@example.com");
+
+        // Assert
+        assertEquals(2, toBroker.size());
+        assertTrue(toBroker.stream().allMatch(m ->
+                SimpMessageHeaderAccessor.getMessageType(m.getHeaders()) == SimpMessageType.UNSUBSCRIBE
+                        && "s1".equals(SimpMessageHeaderAccessor.getSessionId(m.getHeaders()))));
+        assertEquals(List.of("sub-1", "sub-2"), toClients.stream()
+                .map(m -> SimpMessageHeaderAccessor.getSubscriptionId(m.getHeaders())).sorted().toList());
+
+        authorizer.revokeAll(conversationId);
+        assertEquals(3, toBroker.size());
+        assertEquals("s2", SimpMessageHeaderAccessor.getSessionId(toBroker.get(2).getHeaders()));
+        verify(relay).publishRevoke(conversationId, "alice@example.com");
+        verify(relay).publishRevoke(conversationId, null);
+    }
+
+    @Test
+    void revokedElsewhere_ShouldEvictMembershipAndTearDownWithoutRelayingAgain() {
+        // Arrange
+        when(membershipIndex.isMember(conversationId, "alice@example.com")).thenReturn(true);
+        authorizer.authorize("s1", "sub-1", topic, "alice@example.com");
+
+        // Act
+        authorizer.revokedElsewhere(conversationId, "alice@example.com");
+
+        // Assert
+        verify(membershipIndex).evict(conversationId);
+        assertEquals(1, toBroker.size());
+        assertEquals(1, toClients.size());
+        verifyNoInteractions(clusterBroadcastRelay);
+    }
+}
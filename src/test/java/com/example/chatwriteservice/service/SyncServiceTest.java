@@ -0,0 +1,132 @@
+package com.example.chatwriteservice.service;
+
+import com.example.chatwriteservice.config.ReadYourWritesTracker;
+import com.example.chatwriteservice.dto.ConversationResponse;
+import com.example.chatwriteservice.dto.MessageResponse;
+import com.example.chatwriteservice.dto.SyncPosition;
+import com.example.chatwriteservice.dto.SyncRequest;
+import com.example.chatwriteservice.dto.SyncResponse;
+import com.example.chatwriteservice.exception.BadRequestException;
+import com.example.chatwriteservice.repository.SyncJdbcRepository;
+import com.example.chatwriteservice.repository.SyncJdbcRepository.ConversationChange;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SyncServiceTest {
+
+    private static final String EMAIL = "user1@example.com";
+
+    @Mock
+    private SyncJdbcRepository syncJdbcRepository;
+
+    @Mock
+    private ReadYourWritesTracker readYourWritesTracker;
+
+    private SyncService syncService;
+    private UUID conversationA;
+    private UUID conversationB;
+    private Map<UUID, SyncPosition> positions;
+
+    @BeforeEach
+    void setUp() {
+        syncService = new SyncService(syncJdbcRepository, readYourWritesTracker);
+        conversationA = UUID.fromString("00000000-0000-0000-0000-00000000000a");
+        conversationB = UUID.fromString("00000000-0000-0000-0000-00000000000b");
+        positions = Map.of(conversationA, new SyncPosition(40L, 3L));
+    }
+
+    @Test
+    void sync_ShouldContinueFromTheLastSeqOfThePage() {
+        // Arrange: three new messages, limit 2; conversation B is a new membership
+        when(syncJdbcRepository.findMessagesSince(EMAIL, positions, null, 0, 3))
+                .thenReturn(List.of(message(conversationA, 41), message(conversationA, 42), message(conversationB, 1)));
+        when(syncJdbcRepository.findConversationsSince(EMAIL, positions, null, 3))
+                .thenReturn(List.of(new ConversationChange(conversation(conversationB), 5)));
+
+        // Act
+        SyncResponse first = syncService.sync(request(null));
+
+        // Assert
+        assertEquals(2, first.getMessages().size());
+        assertEquals(1, first.getConversations().size());
+        assertEquals(new SyncPosition(42L, null), first.getPositions().get(conversationA));
+        assertEquals(new SyncPosition(null, 5L), first.getPositions().get(conversationB));
+        assertNotNull(first.getNextToken());
+
+        // Act: the next page resumes after (A, 42) and does not repeat the conversations
+        when(syncJdbcRepository.findMessagesSince(EMAIL, positions, conversationA, 42, 3))
+                .thenReturn(List.of(message(conversationB, 1)));
+        SyncResponse second = syncService.sync(request(first.getNextToken()));
+
+        // Assert
+        assertEquals(1, second.getMessages().size());
+        assertTrue(second.getConversations().isEmpty());
+        assertEquals(new SyncPosition(1L, null), second.getPositions().get(conversationB));
+        assertNull(second.getNextToken());
+        verify(syncJdbcRepository, times(1)).findConversationsSince(any(), any(), any(), anyInt());
+    }
+
+    @Test
+    void sync_ShouldPageConversationsAfterMessagesAreDone() {
+        // Arrange: limit 1, no new messages, two changed conversations
+        when(syncJdbcRepository.findMessagesSince(EMAIL, positions, null, 0, 2)).thenReturn(List.of());
+        when(syncJdbcRepository.findConversationsSince(EMAIL, positions, null, 2)).thenReturn(List.of(
+                new ConversationChange(conversation(conversationA), 4),
+                new ConversationChange(conversation(conversationB), 5)));
+        when(syncJdbcRepository.findConversationsSince(EMAIL, positions, conversationA, 2)).thenReturn(List.of(
+                new ConversationChange(conversation(conversationB), 5)));
+
+        // Act
+        SyncRequest request = request(null);
+        request.setLimit(1);
+        SyncResponse first = syncService.sync(request);
+        request.setContinuationToken(first.getNextToken());
+        SyncResponse second = syncService.sync(request);
+
+        // Assert: messages are not queried again once exhausted
+        assertEquals(conversationA, first.getConversations().get(0).getId());
+        assertEquals(conversationB, second.getConversations().get(0).getId());
+        assertNull(second.getNextToken());
+        verify(syncJdbcRepository, times(1)).findMessagesSince(any(), any(), any(), anyLong(), anyInt());
+    }
+
+    @Test
+    void sync_ShouldRejectInvalidToken() {
+        assertThrows(BadRequestException.class, () -> syncService.sync(request("bm90LWEtdG9rZW4")));
+        verify(syncJdbcRepository, never()).findMessagesSince(any(), any(), isNull(), eq(0L), anyInt());
+    }
+
+    private SyncRequest request(String token) {
+        return SyncRequest.builder().email(EMAIL).positions(positions).continuationToken(token).limit(2).build();
+    }
+
+    private static MessageResponse message(UUID conversationId, long seq) {
+        return MessageResponse.builder()
+                .id(UUID.randomUUID())
+                .conversationId(conversationId)
+                .seq(seq)
+                .senderEmail(EMAIL)
+                .content("message " + seq)
+                .build();
+    }
+
+    private static ConversationResponse conversation(UUID id) {
+        return ConversationResponse.builder().id(id).participantEmails(List.of(EMAIL)).build();
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.chatwriteservice.storage;
+
+import com.example.chatwriteservice.config.ChatProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LocalBlobStoreTest {
+
+    @TempDir
+    Path directory;
+
+    private LocalBlobStore blobStore;
+    private String key;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        ChatProperties properties = new ChatProperties();
+        properties.getAttachments().setDirectory(directory.toString());
+        blobStore = new LocalBlobStore(properties);
+        key = UUID.randomUUID().toString();
+    }
+
+    @Test
+    void append_ShouldResumeFromStoredSizeAndStopAtMaxBytes() throws IOException {
+        // Arrange
+        byte[] first = "hello ".getBytes(StandardCharsets.UTF_8);
+        byte[] second = "world and more".getBytes(StandardCharsets.UTF_8);
+
+        // Act
+        long written1 = blobStore.append(key, 0, new ByteArrayInputStream(first), 11);
+        long resumeAt = blobStore.size(key);
+        long written2 = blobStore.append(key, resumeAt, new ByteArrayInputStream(second), 11 - resumeAt);
+        blobStore.commit(key);
+
+        // Assert
+        assertEquals(6, written1);
+        assertEquals(6, resumeAt);
+        assertEquals(5, written2);
+        assertEquals("hello world", Files.readString(blobStore.localPath(key)));
+        assertThrows(IOException.class, () -> blobStore.append(key, 3, new ByteArrayInputStream(first), 1));
+    }
+
+    @Test
+    void transferTo_ShouldCopyRequestedRange() throws IOException {
+        // Arrange
+        byte[] content = "0123456789".getBytes(StandardCharsets.UTF_8);
+        blobStore.append(key, 0, new ByteArrayInputStream(content), content.length);
+        blobStore.commit(key);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // Act
+        blobStore.transferTo(key, 3, 4, Channels.newChannel(out));
+
+        // Assert
+        assertEquals("3456", out.toString(StandardCharsets.UTF_8));
+    }
+}
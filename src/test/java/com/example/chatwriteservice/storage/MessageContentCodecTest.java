@@ -0,0 +1,75 @@
+package com.example.chatwriteservice.storage;
+
+import com.example.chatwriteservice.config.ChatProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Base64;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MessageContentCodecTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private MessageContentCodec codec;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        codec = new MessageContentCodec(new ChatProperties(), meterRegistry);
+    }
+
+    @Test
+    void encode_ShouldCompressLargeRepetitiveContentAndRoundTrip() {
+        // Arrange
+        String log = "2024-01-01 10:00:00 INFO  c.e.ChatService - message delivered to conversation 42\n".repeat(200);
+
+        // Act
+        String stored = codec.encode(log);
+
+        // Assert
+        assertEquals(MessageContentCodec.MARKER, stored.charAt(0));
+        assertTrue(stored.length() < log.length() / 5);
+        assertEquals(log, codec.decode(stored));
+        assertEquals(1, meterRegistry.get("chat.message.content.compression.ratio").summary().count());
+    }
+
+    @Test
+    void encode_ShouldKeepSmallAndIncompressibleContentPlain() {
+        // Arrange
+        byte[] noise = new byte[8192];
+        new Random(1).nextBytes(noise);
+        String random = Base64.getEncoder().encodeToString(noise);
+
+        // Act & Assert
+        assertEquals("Hello", codec.encode("Hello"));
+        assertEquals(random, codec.encode(random));
+        assertEquals(1, meterRegistry.get("chat.message.content.incompressible").counter().count());
+    }
+
+    @Test
+    void decode_ShouldReadLegacyRowsAndEscapedMarker() {
+        // Arrange
+        String withMarker = MessageContentCodec.MARKER + "L not compressed";
+
+        // Act
+        String stored = codec.encode(withMarker);
+
+        // Assert
+        assertEquals("plain legacy row", codec.decode("plain legacy row"));
+        assertNull(codec.decode(null));
+        assertEquals(withMarker, codec.decode(stored));
+    }
+
+    @Test
+    void decode_ShouldRejectOriginalLengthAboveMaxContentSize() {
+        // Arrange: a 2 GB original length in front of a tiny block
+        String stored = MessageContentCodec.MARKER + String.valueOf(MessageContentCodec.LZ4)
+                + Base64.getEncoder().encodeToString(new byte[]{0x7f, 0, 0, 0, 0x10, 'x'});
+
+        // Act & Assert
+        assertThrows(IllegalStateException.class, () -> codec.decode(stored));
+    }
+}